@@ -48,6 +48,7 @@ public class CSVReader implements Closeable {
     private int skipLines;
     private BufferedReader br;
     private LineReader lineReader;
+    private CSVTokenizer tokenizer;
     private boolean hasNext = true;
     private boolean linesSkiped;
     private boolean keepCR;
@@ -205,11 +206,16 @@ public class CSVReader implements Closeable {
      * @param verifyReader true to verify reader before each read, false otherwise
      */
     CSVReader(Reader reader, int line, CSVParser csvParser, boolean keepCR, boolean verifyReader) {
-        this.br =
-            (reader instanceof BufferedReader ?
-                (BufferedReader) reader :
-                new BufferedReader(reader));
-        this.lineReader = new LineReader(br, keepCR);
+        if (keepCR || verifyReader) {
+            this.br =
+                (reader instanceof BufferedReader ?
+                    (BufferedReader) reader :
+                    new BufferedReader(reader));
+            this.lineReader = new LineReader(br, keepCR);
+        } else {
+            // Line-independent tokenizer with the same parsing rules
+            this.tokenizer = new CSVTokenizer(reader, line, csvParser);
+        }
         this.skipLines = line;
         this.parser = csvParser;
         this.keepCR = keepCR;
@@ -271,6 +277,13 @@ public class CSVReader implements Closeable {
      * @throws IOException if bad things happen during the read
      */
     public String[] readNext() throws IOException {
+        if (tokenizer != null) {
+            if (!tokenizer.nextRecord()) {
+                hasNext = false;
+                return null;
+            }
+            return tokenizer.toArray();
+        }
 
         String[] result = null;
         do {
@@ -354,7 +367,11 @@ public class CSVReader implements Closeable {
      * @throws IOException if the close fails
      */
     public void close() throws IOException {
-        br.close();
+        if (tokenizer != null) {
+            tokenizer.close();
+        } else {
+            br.close();
+        }
     }
 
     /**
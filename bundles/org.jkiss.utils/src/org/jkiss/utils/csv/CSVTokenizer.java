@@ -0,0 +1,594 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/*
+ * This package contains a slightly modified version of opencsv library
+ * without unwanted functionality and dependencies, licensed under Apache 2.0.
+ *
+ * See https://search.maven.org/artifact/com.opencsv/opencsv/3.4/bundle
+ * See http://opencsv.sf.net/
+ */
+package org.jkiss.utils.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalQuery;
+import java.util.Arrays;
+
+/**
+ * CSV reader which doesn't allocate objects for each record and field.
+ * <p/>
+ * Input is read into a reusable buffer and field values are unescaped into a reusable record buffer.
+ * Fields are exposed as {@link CharSequence} views over the record buffer. Views and their contents
+ * are valid only until the next call of {@link #nextRecord()}.
+ * <p/>
+ * Parsing rules are the same as in {@link CSVReader} (without carriage returns keeping).
+ */
+public class CSVTokenizer implements Closeable {
+
+    /**
+     * ISO local date-time which also accepts space as date and time separator.
+     */
+    public static final DateTimeFormatter LOCAL_DATE_TIME_FORMAT = new DateTimeFormatterBuilder()
+        .parseCaseInsensitive()
+        .append(DateTimeFormatter.ISO_LOCAL_DATE)
+        .optionalStart().appendLiteral('T').optionalEnd()
+        .optionalStart().appendLiteral(' ').optionalEnd()
+        .append(DateTimeFormatter.ISO_LOCAL_TIME)
+        .toFormatter();
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_FIELD_COUNT = 16;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int[] NANO_MULTIPLIERS = {
+        100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+    };
+
+    private final Reader reader;
+    private final char separator;
+    private final char quotechar;
+    private final char escape;
+    private final boolean strictQuotes;
+    private final boolean ignoreLeadingWhiteSpace;
+    private final boolean ignoreQuotations;
+    private final CSVReaderNullFieldIndicator nullFieldIndicator;
+    private int skipLines;
+
+    // Input buffer state
+    private char[] buffer;
+    private int bufferPos;
+    private int bufferEnd;
+    private boolean skipLF;
+    private boolean eof;
+    private int lineStart;
+    private int lineEnd;
+
+    // Current record state
+    private char[] data = new char[CSVParser.INITIAL_READ_SIZE * 8];
+    private int dataLength;
+    private int fieldStart;
+    private boolean inField;
+    private int fieldCount;
+    private int[] fieldStarts = new int[INITIAL_FIELD_COUNT];
+    private int[] fieldEnds = new int[INITIAL_FIELD_COUNT];
+    private FieldSequence[] fieldViews = new FieldSequence[INITIAL_FIELD_COUNT];
+
+    public CSVTokenizer(Reader reader, char separator, char quotechar, char escape) {
+        this(reader, CSVReader.DEFAULT_SKIP_LINES, new CSVParser(separator, quotechar, escape));
+    }
+
+    /**
+     * Constructs tokenizer with parsing options of the specified parser.
+     *
+     * @param reader    the reader to an underlying CSV source.
+     * @param skipLines the number of lines to skip before reading.
+     * @param parser    parser which options are used. Parser itself is not used.
+     */
+    public CSVTokenizer(Reader reader, int skipLines, CSVParser parser) {
+        this.reader = reader;
+        this.skipLines = skipLines;
+        this.separator = parser.getSeparator();
+        this.quotechar = parser.getQuotechar();
+        this.escape = parser.getEscape();
+        this.strictQuotes = parser.isStrictQuotes();
+        this.ignoreLeadingWhiteSpace = parser.isIgnoreLeadingWhiteSpace();
+        this.ignoreQuotations = parser.isIgnoreQuotations();
+        this.nullFieldIndicator = parser.nullFieldIndicator();
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return false if the end of stream was reached
+     * @throws IOException if bad things happen during the read
+     */
+    public boolean nextRecord() throws IOException {
+        fieldCount = 0;
+        dataLength = 0;
+        fieldStart = 0;
+        for (; skipLines > 0; skipLines--) {
+            if (!readLine()) {
+                break;
+            }
+        }
+        boolean pending = false;
+        do {
+            if (!readLine()) {
+                // Unterminated quoted field at the end of stream is dropped, as CSVReader does
+                return fieldCount > 0;
+            }
+            pending = parseLine(pending);
+        } while (pending);
+        return true;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isNull(int index) {
+        checkIndex(index);
+        return fieldStarts[index] < 0;
+    }
+
+    /**
+     * Returns field value view or null. View is valid only until the next record read.
+     */
+    public CharSequence getField(int index) {
+        checkIndex(index);
+        if (fieldStarts[index] < 0) {
+            return null;
+        }
+        FieldSequence view = fieldViews[index];
+        if (view == null) {
+            view = new FieldSequence(index);
+            fieldViews[index] = view;
+        }
+        return view;
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        return start < 0 ? null : new String(data, start, fieldEnds[index] - start);
+    }
+
+    /**
+     * Returns field length. Null fields have zero length.
+     */
+    public int getLength(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        return start < 0 ? 0 : fieldEnds[index] - start;
+    }
+
+    /**
+     * Compares field value with the specified string. Null value is equal to null field only.
+     */
+    public boolean fieldEquals(int index, String value) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        if (start < 0 || value == null) {
+            return start < 0 && value == null;
+        }
+        int length = fieldEnds[index] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns all fields of the current record as strings.
+     */
+    public String[] toArray() {
+        String[] result = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            result[i] = getString(i);
+        }
+        return result;
+    }
+
+    public int getInt(int index) throws NumberFormatException {
+        checkNotNull(index);
+        return Integer.parseInt(getField(index), 0, getLength(index), 10);
+    }
+
+    public long getLong(int index) throws NumberFormatException {
+        checkNotNull(index);
+        return Long.parseLong(getField(index), 0, getLength(index), 10);
+    }
+
+    /**
+     * Parses field as double. Plain decimal values with up to 15 significant digits are parsed
+     * without intermediate string, other values are parsed with {@link Double#parseDouble(String)}.
+     */
+    public double getDouble(int index) throws NumberFormatException {
+        checkNotNull(index);
+        final int start = fieldStarts[index], end = fieldEnds[index];
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (data[pos] == '-' || data[pos] == '+')) {
+            negative = data[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digitCount = 0, scale = 0;
+        boolean hasDigits = false, hasPoint = false;
+        for (; pos < end; pos++) {
+            char c = data[pos];
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') {
+                    if (++digitCount > 15) {
+                        break;
+                    }
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                hasDigits = true;
+                if (hasPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (pos < end || !hasDigits || scale >= POWERS_OF_TEN.length) {
+            // Exponent, too many digits or malformed value
+            return Double.parseDouble(new String(data, start, end - start));
+        }
+        // Both mantissa and power of ten are exact so division result is correctly rounded
+        double value = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    public BigDecimal getBigDecimal(int index) throws NumberFormatException {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        return start < 0 ? null : new BigDecimal(data, start, fieldEnds[index] - start);
+    }
+
+    /**
+     * Returns true if field value is equal to "true" ignoring case (the same as {@link Boolean#parseBoolean(String)}).
+     */
+    public boolean getBoolean(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        if (start < 0 || fieldEnds[index] - start != 4) {
+            return false;
+        }
+        return (data[start] == 't' || data[start] == 'T') &&
+            (data[start + 1] == 'r' || data[start + 1] == 'R') &&
+            (data[start + 2] == 'u' || data[start + 2] == 'U') &&
+            (data[start + 3] == 'e' || data[start + 3] == 'E');
+    }
+
+    /**
+     * Parses field value with the specified formatter.
+     */
+    public <T> T getTemporal(int index, DateTimeFormatter formatter, TemporalQuery<T> query) {
+        CharSequence field = getField(index);
+        return field == null ? null : formatter.parse(field, query);
+    }
+
+    /**
+     * Parses date in ISO format (yyyy-MM-dd).
+     */
+    public LocalDate getLocalDate(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        if (start < 0) {
+            return null;
+        }
+        if (fieldEnds[index] - start == 10 && isDate(start)) {
+            return LocalDate.of(parseDigits(start, 4), parseDigits(start + 5, 2), parseDigits(start + 8, 2));
+        }
+        return getTemporal(index, DateTimeFormatter.ISO_LOCAL_DATE, LocalDate::from);
+    }
+
+    /**
+     * Parses date and time in ISO format. Space may be used instead of 'T' between date and time parts.
+     */
+    public LocalDateTime getLocalDateTime(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        if (start < 0) {
+            return null;
+        }
+        final int end = fieldEnds[index];
+        // yyyy-MM-ddTHH:mm:ss[.nnnnnnnnn]
+        if (end - start >= 19 && isDate(start) &&
+            (data[start + 10] == 'T' || data[start + 10] == 't' || data[start + 10] == ' ') &&
+            isDigits(start + 11, 2) && data[start + 13] == ':' && isDigits(start + 14, 2) &&
+            data[start + 16] == ':' && isDigits(start + 17, 2))
+        {
+            int nanos = 0;
+            int fractionLength = end - start - 20;
+            boolean valid = fractionLength == -1;
+            if (fractionLength > 0 && fractionLength <= 9 && data[start + 19] == '.' && isDigits(start + 20, fractionLength)) {
+                nanos = parseDigits(start + 20, fractionLength) * NANO_MULTIPLIERS[fractionLength - 1];
+                valid = true;
+            }
+            if (valid) {
+                return LocalDateTime.of(
+                    LocalDate.of(parseDigits(start, 4), parseDigits(start + 5, 2), parseDigits(start + 8, 2)),
+                    LocalTime.of(parseDigits(start + 11, 2), parseDigits(start + 14, 2), parseDigits(start + 17, 2), nanos));
+            }
+        }
+        return getTemporal(index, LOCAL_DATE_TIME_FORMAT, LocalDateTime::from);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field index " + index + " is out of range (" + fieldCount + ")");
+        }
+    }
+
+    private void checkNotNull(int index) {
+        if (isNull(index)) {
+            throw new NumberFormatException("Null value of field " + index);
+        }
+    }
+
+    private boolean isDate(int start) {
+        return isDigits(start, 4) && data[start + 4] == '-' && isDigits(start + 5, 2) && data[start + 7] == '-' && isDigits(start + 8, 2);
+    }
+
+    private boolean isDigits(int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            if (data[i] < '0' || data[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseDigits(int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            result = result * 10 + (data[i] - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Finds the next line in the input buffer. Line ends with '\n', '\r' or "\r\n", like in {@link java.io.BufferedReader#readLine()}.
+     */
+    private boolean readLine() throws IOException {
+        if (skipLF) {
+            if (bufferPos == bufferEnd && !fillBuffer()) {
+                return false;
+            }
+            if (buffer[bufferPos] == '\n') {
+                bufferPos++;
+            }
+            skipLF = false;
+        }
+        int scanPos = bufferPos;
+        for (;;) {
+            if (scanPos == bufferEnd) {
+                int scanned = scanPos - bufferPos;
+                if (!fillBuffer()) {
+                    if (scanned == 0) {
+                        return false;
+                    }
+                    // Last line without line feed
+                    lineStart = bufferPos;
+                    lineEnd = bufferEnd;
+                    bufferPos = bufferEnd;
+                    return true;
+                }
+                scanPos = bufferPos + scanned;
+            }
+            char c = buffer[scanPos];
+            if (c == '\n' || c == '\r') {
+                lineStart = bufferPos;
+                lineEnd = scanPos;
+                bufferPos = scanPos + 1;
+                skipLF = c == '\r';
+                return true;
+            }
+            scanPos++;
+        }
+    }
+
+    private boolean fillBuffer() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (bufferPos > 0) {
+            System.arraycopy(buffer, bufferPos, buffer, 0, bufferEnd - bufferPos);
+            bufferEnd -= bufferPos;
+            bufferPos = 0;
+        }
+        if (bufferEnd == buffer.length) {
+            // Line is longer than buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int count = reader.read(buffer, bufferEnd, buffer.length - bufferEnd);
+        if (count < 0) {
+            eof = true;
+            return false;
+        }
+        bufferEnd += count;
+        return true;
+    }
+
+    /**
+     * Parses the current line. This is the same algorithm as in {@link CSVParser#parseLineMulti(String)}.
+     *
+     * @return true if the last field continues on the next line
+     */
+    private boolean parseLine(boolean pending) {
+        final char[] line = buffer;
+        final int start = lineStart, end = lineEnd;
+        boolean inQuotes = pending && !ignoreQuotations;
+        boolean fromQuotedField = false;
+        for (int i = start; i < end; i++) {
+            char c = line[i];
+            if (c == escape) {
+                if (isQuoted(inQuotes) && i + 1 < end && (line[i + 1] == quotechar || line[i + 1] == escape)) {
+                    append(line[++i]);
+                }
+            } else if (c == quotechar) {
+                if (isQuoted(inQuotes) && i + 1 < end && line[i + 1] == quotechar) {
+                    append(line[++i]);
+                } else {
+                    inQuotes = !inQuotes;
+                    if (dataLength == fieldStart) {
+                        fromQuotedField = true;
+                    }
+                    // the tricky case of an embedded quote in the middle: a,bc"d"ef,g
+                    if (!strictQuotes && i - start > 2 && line[i - 1] != separator && i + 1 < end && line[i + 1] != separator) {
+                        if (ignoreLeadingWhiteSpace && dataLength > fieldStart && hasWhiteSpace()) {
+                            dataLength = fieldStart;
+                        } else {
+                            append(c);
+                        }
+                    }
+                }
+                inField = !inField;
+            } else if (c == separator && !(inQuotes && !ignoreQuotations)) {
+                addField(fromQuotedField);
+                fromQuotedField = false;
+                inField = false;
+            } else if (!strictQuotes || (inQuotes && !ignoreQuotations)) {
+                append(c);
+                inField = true;
+                fromQuotedField = true;
+            }
+        }
+        if (inQuotes && !ignoreQuotations) {
+            // continuing a quoted section, re-append newline
+            append('\n');
+            return true;
+        }
+        inField = false;
+        addField(fromQuotedField);
+        return false;
+    }
+
+    private boolean isQuoted(boolean inQuotes) {
+        return (inQuotes && !ignoreQuotations) || inField;
+    }
+
+    /**
+     * Same check as {@link CSVParser#isAllWhiteSpace(CharSequence)} does (any whitespace character in the current field).
+     */
+    private boolean hasWhiteSpace() {
+        for (int i = fieldStart; i < dataLength; i++) {
+            if (Character.isWhitespace(data[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void append(char c) {
+        if (dataLength == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[dataLength++] = c;
+    }
+
+    private void addField(boolean fromQuotedField) {
+        if (fieldCount == fieldStarts.length) {
+            int newLength = fieldCount * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, newLength);
+            fieldEnds = Arrays.copyOf(fieldEnds, newLength);
+            fieldViews = Arrays.copyOf(fieldViews, newLength);
+        }
+        if (dataLength == fieldStart && isEmptyNull(fromQuotedField)) {
+            fieldStarts[fieldCount] = -1;
+        } else {
+            fieldStarts[fieldCount] = fieldStart;
+        }
+        fieldEnds[fieldCount] = dataLength;
+        fieldCount++;
+        fieldStart = dataLength;
+    }
+
+    private boolean isEmptyNull(boolean fromQuotedField) {
+        switch (nullFieldIndicator) {
+            case BOTH:
+                return true;
+            case EMPTY_SEPARATORS:
+                return !fromQuotedField;
+            case EMPTY_QUOTES:
+                return fromQuotedField;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Field view over the record buffer
+     */
+    private class FieldSequence implements CharSequence {
+        private final int index;
+
+        FieldSequence(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return fieldEnds[index] - fieldStarts[index];
+        }
+
+        @Override
+        public char charAt(int pos) {
+            if (pos < 0 || pos >= length()) {
+                throw new StringIndexOutOfBoundsException(pos);
+            }
+            return data[fieldStarts[index] + pos];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(data, fieldStarts[index], length());
+        }
+    }
+
+}
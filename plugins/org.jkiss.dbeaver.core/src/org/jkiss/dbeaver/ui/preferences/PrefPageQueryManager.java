@@ -59,6 +59,7 @@ public class PrefPageQueryManager extends AbstractPrefPage implements IWorkbench
     private Button checkQueryTypeDDL;
     private Text textHistoryDays;
     private Text textEntriesPerPage;
+    private Text textHistoryBufferSize;
     private Button checkStoreLog;
     private Text textOutputFolder;
 
@@ -95,6 +96,8 @@ public class PrefPageQueryManager extends AbstractPrefPage implements IWorkbench
         {
             Group viewSettings = UIUtils.createControlGroup(composite, CoreMessages.pref_page_query_manager_group_settings, 2, GridData.FILL_HORIZONTAL | GridData.VERTICAL_ALIGN_BEGINNING, 0);
             textEntriesPerPage = UIUtils.createLabelText(viewSettings, CoreMessages.pref_page_query_manager_label_entries_per_page, "", SWT.BORDER, new GridData(50, SWT.DEFAULT)); //$NON-NLS-2$
+            textHistoryBufferSize = UIUtils.createLabelText(viewSettings, CoreMessages.pref_page_query_manager_label_history_buffer_size, "", SWT.BORDER, new GridData(50, SWT.DEFAULT)); //$NON-NLS-2$
+            textHistoryBufferSize.setToolTipText(CoreMessages.pref_page_query_manager_label_history_buffer_size_tip);
         }
 
         {
@@ -142,6 +145,7 @@ public class PrefPageQueryManager extends AbstractPrefPage implements IWorkbench
 
         textHistoryDays.setText(store.getString(QMConstants.PROP_HISTORY_DAYS));
         textEntriesPerPage.setText(store.getString(QMConstants.PROP_ENTRIES_PER_PAGE));
+        textHistoryBufferSize.setText(store.getString(QMConstants.PROP_HISTORY_BUFFER_SIZE));
 
         checkStoreLog.setSelection(store.getBoolean(QMConstants.PROP_STORE_LOG_FILE));
         textOutputFolder.setText(store.getString(QMConstants.PROP_LOG_DIRECTORY));
@@ -168,6 +172,7 @@ public class PrefPageQueryManager extends AbstractPrefPage implements IWorkbench
 
         Integer historyDays = UIUtils.getTextInteger(textHistoryDays);
         Integer entriesPerPage = UIUtils.getTextInteger(textEntriesPerPage);
+        Integer historyBufferSize = UIUtils.getTextInteger(textHistoryBufferSize);
 
         DBPPreferenceStore store = DBWorkbench.getPlatform().getPreferenceStore();
         store.setValue(QMConstants.PROP_OBJECT_TYPES, QMObjectType.toString(objectTypes));
@@ -178,6 +183,9 @@ public class PrefPageQueryManager extends AbstractPrefPage implements IWorkbench
         if (entriesPerPage != null) {
             store.setValue(QMConstants.PROP_ENTRIES_PER_PAGE, entriesPerPage);
         }
+        if (historyBufferSize != null && historyBufferSize > 0) {
+            store.setValue(QMConstants.PROP_HISTORY_BUFFER_SIZE, historyBufferSize);
+        }
         store.setValue(QMConstants.PROP_STORE_LOG_FILE, checkStoreLog.getSelection());
         store.setValue(QMConstants.PROP_LOG_DIRECTORY, textOutputFolder.getText());
         PrefUtils.savePreferenceStore(store);
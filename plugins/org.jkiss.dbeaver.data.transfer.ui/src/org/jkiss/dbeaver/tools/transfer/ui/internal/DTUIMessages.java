@@ -103,6 +103,9 @@ public class DTUIMessages extends NLS {
 	public static String database_producer_page_extract_settings_row_count_checkbox_tooltip;
 	public static String database_producer_page_extract_settings_text_fetch_size_label;
 	public static String database_producer_page_extract_settings_text_fetch_size_tooltip;
+	public static String database_producer_page_extract_settings_partition_count_tooltip;
+	public static String database_producer_page_extract_settings_partitions_ordered_tooltip;
+	public static String database_producer_page_extract_settings_pipelined_tooltip;
 
 	public static String database_producer_page_input_objects_name;
 	public static String database_producer_page_input_objects_title;
@@ -169,6 +172,7 @@ public class DTUIMessages extends NLS {
 	public static String database_producer_page_input_objects_title_assign_error;
 	public static String database_producer_page_input_objects_message_error_reading_container_objects;
 	public static String database_producer_page_input_objects_error_message_auto_assign_failed;
+	public static String stream_producer_page_settings_threads_num_text_tooltip;
 	public static String stream_producer_page_preview_title_load_entity_meta;
 	public static String stream_producer_page_preview_message_entity_attributes;
 	public static String stream_producer_page_preview_title_preview_data;
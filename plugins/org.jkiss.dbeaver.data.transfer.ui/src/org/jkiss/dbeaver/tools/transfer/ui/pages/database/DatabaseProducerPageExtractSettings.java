@@ -43,6 +43,7 @@ public class DatabaseProducerPageExtractSettings extends DataTransferPageNodeSet
 
     private static final int EXTRACT_TYPE_SINGLE_QUERY = 0;
     private static final int EXTRACT_TYPE_SEGMENTS = 1;
+    private static final int EXTRACT_TYPE_KEYSET_SEGMENTS = 2;
 
     private Text threadsNumText;
     private Combo rowsExtractType;
@@ -53,6 +54,9 @@ public class DatabaseProducerPageExtractSettings extends DataTransferPageNodeSet
     private Button selectedColumnsOnlyCheckbox;
     private Button selectedRowsOnlyCheckbox;
     private Text fetchSizeText;
+    private Text partitionCountText;
+    private Button partitionsOrderedCheckbox;
+    private Button pipelinedCheckbox;
 
     public DatabaseProducerPageExtractSettings() {
         super(DTUIMessages.database_producer_page_extract_settings_name_and_title);
@@ -96,12 +100,14 @@ public class DatabaseProducerPageExtractSettings extends DataTransferPageNodeSet
                 rowsExtractType.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING, GridData.VERTICAL_ALIGN_BEGINNING, false, false, 3, 1));
                 rowsExtractType.setItems(
                     DTMessages.data_transfer_wizard_output_combo_extract_type_item_single_query,
-                    DTMessages.data_transfer_wizard_output_combo_extract_type_item_by_segments);
+                    DTMessages.data_transfer_wizard_output_combo_extract_type_item_by_segments,
+                    DTMessages.data_transfer_wizard_output_combo_extract_type_item_by_key_segments);
                 rowsExtractType.addSelectionListener(new SelectionAdapter() {
                     @Override
                     public void widgetSelected(SelectionEvent e) {
                         switch (rowsExtractType.getSelectionIndex()) {
                             case EXTRACT_TYPE_SEGMENTS: settings.setExtractType(DatabaseProducerSettings.ExtractType.SEGMENTS); break;
+                            case EXTRACT_TYPE_KEYSET_SEGMENTS: settings.setExtractType(DatabaseProducerSettings.ExtractType.KEYSET_SEGMENTS); break;
                             case EXTRACT_TYPE_SINGLE_QUERY: settings.setExtractType(DatabaseProducerSettings.ExtractType.SINGLE_QUERY); break;
                         }
                         updatePageCompletion();
@@ -147,6 +153,32 @@ public class DatabaseProducerPageExtractSettings extends DataTransferPageNodeSet
                 settings.setFetchSize(Integer.parseInt(fetchSizeText.getText()));
             });
 
+            partitionCountText = UIUtils.createLabelText(generalSettings, DTMessages.data_transfer_wizard_output_label_partition_count, "", SWT.BORDER);
+            partitionCountText.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING));
+            ((GridData)partitionCountText.getLayoutData()).widthHint = UIUtils.getFontHeight(partitionCountText) * 5;
+            partitionCountText.setToolTipText(DTUIMessages.database_producer_page_extract_settings_partition_count_tooltip);
+            partitionCountText.addVerifyListener(UIUtils.getIntegerVerifyListener(Locale.ENGLISH));
+            partitionCountText.addModifyListener(e -> {
+                settings.setPartitionCount(CommonUtils.toInt(partitionCountText.getText(), 1));
+                updatePageCompletion();
+            });
+
+            partitionsOrderedCheckbox = UIUtils.createCheckbox(generalSettings, DTMessages.data_transfer_wizard_output_checkbox_partitions_ordered, DTUIMessages.database_producer_page_extract_settings_partitions_ordered_tooltip, true, 4);
+            partitionsOrderedCheckbox.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e) {
+                    settings.setPartitionsOrdered(partitionsOrderedCheckbox.getSelection());
+                }
+            });
+
+            pipelinedCheckbox = UIUtils.createCheckbox(generalSettings, DTMessages.data_transfer_wizard_output_checkbox_pipelined, DTUIMessages.database_producer_page_extract_settings_pipelined_tooltip, false, 4);
+            pipelinedCheckbox.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e) {
+                    settings.setPipelined(pipelinedCheckbox.getSelection());
+                }
+            });
+
             IStructuredSelection curSelection = getWizard().getCurrentSelection();
             boolean hasSelection = curSelection != null && !curSelection.isEmpty() && curSelection.getFirstElement() instanceof DBDCellValue;
 
@@ -233,9 +265,13 @@ public class DatabaseProducerPageExtractSettings extends DataTransferPageNodeSet
             switch (settings.getExtractType()) {
                 case SINGLE_QUERY: rowsExtractType.select(EXTRACT_TYPE_SINGLE_QUERY); break;
                 case SEGMENTS: rowsExtractType.select(EXTRACT_TYPE_SEGMENTS); break;
+                case KEYSET_SEGMENTS: rowsExtractType.select(EXTRACT_TYPE_KEYSET_SEGMENTS); break;
             }
         }
         fetchSizeText.setText(String.valueOf(settings.getFetchSize()));
+        partitionCountText.setText(String.valueOf(settings.getPartitionCount()));
+        partitionsOrderedCheckbox.setSelection(settings.isPartitionsOrdered());
+        pipelinedCheckbox.setSelection(settings.isPipelined());
         if (selectedColumnsOnlyCheckbox != null) {
             selectedColumnsOnlyCheckbox.setSelection(settings.isSelectedColumnsOnly());
         }
@@ -252,13 +288,24 @@ public class DatabaseProducerPageExtractSettings extends DataTransferPageNodeSet
     {
         if (rowsExtractType != null) {
             int selectionIndex = rowsExtractType.getSelectionIndex();
-            if (selectionIndex == EXTRACT_TYPE_SEGMENTS) {
+            if (selectionIndex == EXTRACT_TYPE_SEGMENTS || selectionIndex == EXTRACT_TYPE_KEYSET_SEGMENTS) {
                 segmentSizeLabel.setEnabled(true);
                 segmentSizeText.setEnabled(true);
             } else {
                 segmentSizeLabel.setEnabled(false);
                 segmentSizeText.setEnabled(false);
             }
+            if (partitionCountText != null) {
+                // Partitions are read in parallel only in single query mode
+                partitionCountText.setEnabled(selectionIndex == EXTRACT_TYPE_SINGLE_QUERY);
+            }
+        }
+        if (partitionCountText != null && partitionsOrderedCheckbox != null) {
+            partitionsOrderedCheckbox.setEnabled(partitionCountText.isEnabled() && CommonUtils.toInt(partitionCountText.getText(), 1) > 1);
+        }
+        if (partitionCountText != null && pipelinedCheckbox != null) {
+            // Partitions are always read in background
+            pipelinedCheckbox.setEnabled(partitionCountText.isEnabled() && CommonUtils.toInt(partitionCountText.getText(), 1) <= 1);
         }
         return true;
     }
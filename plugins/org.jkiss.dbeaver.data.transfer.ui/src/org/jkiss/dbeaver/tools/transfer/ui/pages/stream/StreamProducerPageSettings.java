@@ -23,8 +23,10 @@ import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
@@ -58,6 +60,7 @@ import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class StreamProducerPageSettings extends DataTransferPageNodeSettings {
@@ -66,6 +69,8 @@ public class StreamProducerPageSettings extends DataTransferPageNodeSettings {
     private PropertyTreeViewer propsEditor;
     private PropertySourceCustom propertySource;
     private Table filesTable;
+    private Label threadsNumLabel;
+    private Text threadsNumText;
 
     public StreamProducerPageSettings() {
         super(DTMessages.data_transfer_wizard_page_input_files_name);
@@ -111,6 +116,20 @@ public class StreamProducerPageSettings extends DataTransferPageNodeSettings {
                     widgetSelected(e);
                 }
             });
+
+            Composite threadsGroup = UIUtils.createComposite(inputFilesGroup, 2);
+            threadsNumLabel = UIUtils.createControlLabel(threadsGroup, DTMessages.data_transfer_wizard_output_label_max_threads);
+            threadsNumText = new Text(threadsGroup, SWT.BORDER);
+            threadsNumText.setToolTipText(DTUIMessages.stream_producer_page_settings_threads_num_text_tooltip);
+            threadsNumText.addVerifyListener(UIUtils.getIntegerVerifyListener(Locale.ENGLISH));
+            threadsNumText.addModifyListener(e -> {
+                try {
+                    getWizard().getSettings().setMaxJobCount(Integer.parseInt(threadsNumText.getText()));
+                } catch (NumberFormatException e1) {
+                    // do nothing
+                }
+            });
+            threadsNumText.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING, GridData.VERTICAL_ALIGN_BEGINNING, false, false, 1, 1));
         }
 
         {
@@ -287,6 +306,11 @@ public class StreamProducerPageSettings extends DataTransferPageNodeSettings {
         // Init pipes
         reloadPipes();
 
+        threadsNumText.setText(String.valueOf(getWizard().getSettings().getMaxJobCount()));
+        boolean multiFile = getWizard().getSettings().getDataPipes().size() > 1;
+        threadsNumLabel.setEnabled(multiFile);
+        threadsNumText.setEnabled(multiFile);
+
         updatePageCompletion();
 
         UIUtils.asyncExec(() -> UIUtils.packColumns(filesTable, true));
@@ -32,7 +32,9 @@ public class DatabaseProducerSettings implements IDataTransferSettings {
 
     public enum ExtractType {
         SINGLE_QUERY,
-        SEGMENTS
+        SEGMENTS,
+        // Segments are read continuing from the last seen unique key value instead of using offsets
+        KEYSET_SEGMENTS
     }
 
     private static final int DEFAULT_SEGMENT_SIZE = 100000;
@@ -46,6 +48,9 @@ public class DatabaseProducerSettings implements IDataTransferSettings {
     private boolean selectedColumnsOnly = false;
     private ExtractType extractType = ExtractType.SINGLE_QUERY;
     private int fetchSize = DEFAULT_FETCH_SIZE;
+    private int partitionCount = 1;
+    private boolean partitionsOrdered = true;
+    private boolean pipelined;
 
     public DatabaseProducerSettings() {
     }
@@ -108,11 +113,50 @@ public class DatabaseProducerSettings implements IDataTransferSettings {
         this.extractType = extractType;
     }
 
+    /**
+     * Number of key ranges read in parallel (each in its own connection). 1 means no partitioning.
+     */
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public void setPartitionCount(int partitionCount) {
+        if (partitionCount > 0) {
+            this.partitionCount = partitionCount;
+        }
+    }
+
+    /**
+     * If true then each partition is read with ORDER BY key and partitions are passed to the consumer one after another,
+     * so all rows are written in key order. Otherwise rows are passed in the order they were fetched.
+     */
+    public boolean isPartitionsOrdered() {
+        return partitionsOrdered;
+    }
+
+    public void setPartitionsOrdered(boolean partitionsOrdered) {
+        this.partitionsOrdered = partitionsOrdered;
+    }
+
+    /**
+     * If true then rows are fetched in a separate thread while the consumer writes previously fetched rows.
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
     @Override
     public void loadSettings(DBRRunnableContext runnableContext, DataTransferSettings dataTransferSettings, Map<String, Object> settings) {
         extractType = CommonUtils.valueOf(ExtractType.class, (String) settings.get("extractType"), extractType);
         segmentSize = CommonUtils.toInt(settings.get("segmentSize"), DEFAULT_SEGMENT_SIZE);
         fetchSize = CommonUtils.toInt(settings.get("fetchSize"), fetchSize);
+        partitionCount = Math.max(CommonUtils.toInt(settings.get("partitionCount"), 1), 1);
+        partitionsOrdered = CommonUtils.getBoolean(settings.get("partitionsOrdered"), true);
+        pipelined = CommonUtils.toBoolean(settings.get("pipelined"));
         openNewConnections = CommonUtils.toBoolean(settings.get("openNewConnections"));
         queryRowCount = CommonUtils.toBoolean(settings.get("queryRowCount"));
         selectedColumnsOnly = CommonUtils.toBoolean(settings.get("selectedColumnsOnly"));
@@ -124,6 +168,9 @@ public class DatabaseProducerSettings implements IDataTransferSettings {
         settings.put("extractType", extractType.name());
         settings.put("segmentSize", segmentSize);
         settings.put("fetchSize", fetchSize);
+        settings.put("partitionCount", partitionCount);
+        settings.put("partitionsOrdered", partitionsOrdered);
+        settings.put("pipelined", pipelined);
         settings.put("openNewConnections", openNewConnections);
         settings.put("queryRowCount", queryRowCount);
         settings.put("selectedColumnsOnly", selectedColumnsOnly);
@@ -136,6 +183,10 @@ public class DatabaseProducerSettings implements IDataTransferSettings {
 
         DTUtils.addSummary(summary, DTMessages.data_transfer_wizard_output_checkbox_new_connection, openNewConnections);
         DTUtils.addSummary(summary, DTMessages.data_transfer_wizard_output_label_extract_type, extractType.name());
+        if (partitionCount > 1) {
+            DTUtils.addSummary(summary, DTMessages.data_transfer_wizard_output_label_partition_count, partitionCount);
+        }
+        DTUtils.addSummary(summary, DTMessages.data_transfer_wizard_output_checkbox_pipelined, pipelined);
         DTUtils.addSummary(summary, DTMessages.data_transfer_wizard_output_checkbox_select_row_count, queryRowCount);
         DTUtils.addSummary(summary, DTMessages.data_transfer_wizard_output_checkbox_selected_rows_only, selectedRowsOnly);
         DTUtils.addSummary(summary, DTMessages.data_transfer_wizard_output_checkbox_selected_columns_only, selectedColumnsOnly);
@@ -0,0 +1,154 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer.database;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDValueHandler;
+import org.jkiss.dbeaver.model.data.DBDValueMeta;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.impl.local.LocalResultSetMeta;
+
+import java.util.List;
+
+/**
+ * Result set which replays rows fetched (and detached) from another result set.
+ * Used to pass rows read in a different thread (or connection) to a data transfer consumer.
+ */
+public class DatabaseTransferBufferedResultSet implements DBCResultSet {
+
+    private final DBCSession session;
+    private final List<DBCAttributeMetaData> metaAttributes;
+    private Object[] curRow;
+
+    public DatabaseTransferBufferedResultSet(@NotNull DBCSession session, @NotNull List<DBCAttributeMetaData> metaAttributes) {
+        this.session = session;
+        this.metaAttributes = metaAttributes;
+    }
+
+    /**
+     * Reads values of the current row of the source result set.
+     * Values are fetched with attribute value handlers so they do not depend on the source cursor.
+     */
+    @NotNull
+    public static Object[] fetchRowValues(@NotNull DBCSession session, @NotNull DBCResultSet resultSet, @NotNull List<DBCAttributeMetaData> metaAttributes, @NotNull DBDValueHandler[] valueHandlers) throws DBCException {
+        return fetchRowValues(session, resultSet, metaAttributes, valueHandlers, null);
+    }
+
+    /**
+     * Reads values of the current row of the source result set into the specified array.
+     * The array is reused if it has the right size, otherwise a new one is created.
+     */
+    @NotNull
+    public static Object[] fetchRowValues(@NotNull DBCSession session, @NotNull DBCResultSet resultSet, @NotNull List<DBCAttributeMetaData> metaAttributes, @NotNull DBDValueHandler[] valueHandlers, @Nullable Object[] target) throws DBCException {
+        Object[] values = target != null && target.length == metaAttributes.size() ? target : new Object[metaAttributes.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valueHandlers[i].fetchValueObject(session, resultSet, metaAttributes.get(i), i);
+        }
+        return values;
+    }
+
+    @NotNull
+    public static DBDValueHandler[] getValueHandlers(@NotNull DBCSession session, @NotNull List<DBCAttributeMetaData> metaAttributes) {
+        DBDValueHandler[] valueHandlers = new DBDValueHandler[metaAttributes.size()];
+        for (int i = 0; i < valueHandlers.length; i++) {
+            valueHandlers[i] = DBUtils.findValueHandler(session, metaAttributes.get(i));
+        }
+        return valueHandlers;
+    }
+
+    public void setCurrentRow(Object[] row) {
+        this.curRow = row;
+    }
+
+    @Override
+    public DBCSession getSession() {
+        return session;
+    }
+
+    @Override
+    public DBCStatement getSourceStatement() {
+        return null;
+    }
+
+    @Override
+    public Object getAttributeValue(int index) throws DBCException {
+        if (curRow == null) {
+            throw new DBCException("No current row");
+        }
+        if (index < 0 || index >= curRow.length) {
+            throw new DBCException("Attribute index out of range (" + index + "/" + curRow.length + ")");
+        }
+        return curRow[index];
+    }
+
+    @Override
+    public Object getAttributeValue(String name) throws DBCException {
+        for (int i = 0; i < metaAttributes.size(); i++) {
+            if (metaAttributes.get(i).getName().equals(name)) {
+                return getAttributeValue(i);
+            }
+        }
+        throw new DBCException("Attribute '" + name + "' not found");
+    }
+
+    @Override
+    public DBDValueMeta getAttributeValueMeta(int index) throws DBCException {
+        return null;
+    }
+
+    @Override
+    public DBDValueMeta getRowMeta() throws DBCException {
+        return null;
+    }
+
+    @Override
+    public boolean nextRow() throws DBCException {
+        // Rows are pushed by the owner
+        return false;
+    }
+
+    @Override
+    public boolean moveTo(int position) throws DBCException {
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public DBCResultSetMetaData getMeta() throws DBCException {
+        return new LocalResultSetMeta(metaAttributes);
+    }
+
+    @Override
+    public String getResultSetName() throws DBCException {
+        return null;
+    }
+
+    @Override
+    public Object getFeature(String name) {
+        if (FEATURE_NAME_LOCAL.equals(name)) {
+            return true;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        curRow = null;
+    }
+}
@@ -267,6 +267,8 @@ public class DatabaseTransferConsumer implements IDataTransferConsumer<DatabaseC
                     try {
                         bulkLoadManager = bulkLoader.createBulkLoad(
                             targetSession, targetObject, attributes, executionSource, settings.getCommitAfterRows(), options);
+                    } catch (DBCFeatureNotSupportedException e) {
+                        log.warn("Bulk load is not available, use regular insert: " + e.getMessage());
                     } catch (Exception e) {
                         throw new DBCException("Error creating bulk loader", e);
                     }
@@ -843,6 +845,30 @@ public class DatabaseTransferConsumer implements IDataTransferConsumer<DatabaseC
         return settings;
     }
 
+    /**
+     * Checks whether additional consumers may load data into the same target simultaneously.
+     * Each consumer must use its own connection for that.
+     */
+    public boolean isParallelLoadSupported() {
+        if (isPreview || settings == null || containerMapping == null || !settings.isOpenNewConnections()) {
+            return false;
+        }
+        DBSObject targetDB = getTargetObject() != null ? getTargetObject() : settings.getContainer();
+        return targetDB != null && targetDB.getDataSource() != null &&
+            !targetDB.getDataSource().getContainer().getDriver().isEmbedded();
+    }
+
+    /**
+     * Creates a consumer which loads data into the same target with the same settings.
+     * Its fetchStart must be called with positive offset so the target won't be truncated again.
+     */
+    @NotNull
+    public DatabaseTransferConsumer createParallelConsumer() {
+        DatabaseTransferConsumer consumer = new DatabaseTransferConsumer();
+        consumer.initTransfer(getSourceObject(), settings, new TransferParameters(), null, null);
+        return consumer;
+    }
+
     @Override
     @NotNull
     public DBCStatistics getStatistics() {
@@ -0,0 +1,458 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer.database;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBPEvaluationContext;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDDataFilter;
+import org.jkiss.dbeaver.model.data.DBDDataReceiver;
+import org.jkiss.dbeaver.model.data.DBDValueHandler;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.impl.AbstractExecutionSource;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.sql.SQLUtils;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.dbeaver.model.struct.DBSEntity;
+import org.jkiss.dbeaver.model.struct.DBSEntityAttribute;
+import org.jkiss.dbeaver.utils.GeneralUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads container data in background jobs while the consumer writes rows in the caller thread.
+ *
+ * In partitioned mode a single table is read in several key ranges simultaneously. In pipelined mode the whole data
+ * is read by one job. Readers always use their own isolated execution contexts: JDBC connections are not thread-safe
+ * and the source context may be used by the consumer thread at the same time.
+ * Fetched rows are buffered in bounded queues (which block readers when the consumer is behind)
+ * and passed to the consumer either in partition order or as soon as they arrive.
+ * Row arrays are recycled after the consumer has processed them.
+ */
+class DatabaseTransferPartitionReader {
+
+    private static final Log log = Log.getLog(DatabaseTransferPartitionReader.class);
+
+    private static final int PARTITION_BUFFER_SIZE = 10000;
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final Object[] END_OF_PARTITION = new Object[0];
+
+    private final DBSDataContainer dataContainer;
+    private final DatabaseProducerSettings settings;
+    private final long readFlags;
+
+    private final DBCStatistics statistics = new DBCStatistics();
+    private final BlockingQueue<Object[]> freeRows = new ArrayBlockingQueue<>(PARTITION_BUFFER_SIZE);
+    private volatile List<DBCAttributeMetaData> metaAttributes;
+    private volatile boolean canceled;
+    private volatile Throwable readError;
+
+    DatabaseTransferPartitionReader(@NotNull DBSDataContainer dataContainer, @NotNull DatabaseProducerSettings settings, long readFlags) {
+        this.dataContainer = dataContainer;
+        this.settings = settings;
+        this.readFlags = readFlags;
+    }
+
+    /**
+     * Splits container data into key ranges.
+     * Ranges are made on the leading column of the table unique key which must be numeric and not null.
+     *
+     * @return partition filters or null if container can't be partitioned
+     */
+    @Nullable
+    List<DBDDataFilter> makePartitionFilters(
+        @NotNull DBCSession session,
+        @NotNull DBCExecutionSource source,
+        @Nullable DBDDataFilter dataFilter) throws DBException
+    {
+        DBRProgressMonitor monitor = session.getProgressMonitor();
+        int partitionCount = settings.getPartitionCount();
+        DBSEntity entity = dataContainer instanceof DBSEntity ? (DBSEntity) dataContainer : GeneralUtils.adapt(dataContainer, DBSEntity.class);
+        if (partitionCount < 2 || entity == null) {
+            return null;
+        }
+        if (dataFilter != null && dataFilter.isAnyConstraint() && dataFilter.hasConditions()) {
+            log.debug("Partitioned read can't be used with OR filter - fallback to single query");
+            return null;
+        }
+        if (dataFilter != null && dataFilter.hasOrdering()) {
+            // Rows of different partitions can't be merged in custom order
+            log.debug("Partitioned read can't be used with custom ordering - fallback to single query");
+            return null;
+        }
+        if (!canBufferRows(monitor)) {
+            return null;
+        }
+        List<? extends DBSEntityAttribute> keyAttributes = DBUtils.getBestTableIdentifier(monitor, entity);
+        if (keyAttributes.isEmpty()) {
+            log.debug("No unique key found in '" + entity.getName() + "' - fallback to single query");
+            return null;
+        }
+        DBSEntityAttribute keyAttribute = keyAttributes.get(0);
+        if (keyAttribute.getDataKind() != DBPDataKind.NUMERIC || !keyAttribute.isRequired()) {
+            log.debug("Key column '" + keyAttribute.getName() + "' is not a non-null number - fallback to single query");
+            return null;
+        }
+
+        DBPDataSource dataSource = session.getDataSource();
+        String keyName = DBUtils.getQuotedIdentifier(keyAttribute);
+        StringBuilder query = new StringBuilder();
+        query.append("SELECT MIN(").append(keyName).append("),MAX(").append(keyName).append(") FROM ")
+            .append(DBUtils.getObjectFullName(entity, DBPEvaluationContext.DML));
+        SQLUtils.appendQueryConditions(dataSource, query, null, dataFilter);
+
+        BigDecimal minValue, maxValue;
+        try (DBCStatement dbStat = DBUtils.makeStatement(source, session, DBCStatementType.QUERY, query.toString(), 0, 0)) {
+            if (!dbStat.executeStatement()) {
+                return null;
+            }
+            try (DBCResultSet dbResult = dbStat.openResultSet()) {
+                if (dbResult == null || !dbResult.nextRow()) {
+                    return null;
+                }
+                minValue = toBigDecimal(dbResult.getAttributeValue(0));
+                maxValue = toBigDecimal(dbResult.getAttributeValue(1));
+            }
+        }
+        if (minValue == null || maxValue == null) {
+            // Empty table
+            return null;
+        }
+        boolean integerKey = minValue.stripTrailingZeros().scale() <= 0 && maxValue.stripTrailingZeros().scale() <= 0;
+        BigDecimal step = maxValue.subtract(minValue).divide(BigDecimal.valueOf(partitionCount), 10, RoundingMode.FLOOR);
+        if (integerKey) {
+            step = step.setScale(0, RoundingMode.FLOOR);
+        }
+        if (step.signum() <= 0) {
+            return null;
+        }
+
+        String sourceCondition = dataFilter == null ? null : dataFilter.getWhere();
+        List<DBDDataFilter> filters = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            StringBuilder condition = new StringBuilder();
+            if (i > 0) {
+                condition.append(keyName).append(" >= ").append(minValue.add(step.multiply(BigDecimal.valueOf(i))).toPlainString());
+            }
+            if (i < partitionCount - 1) {
+                if (i > 0) condition.append(" AND ");
+                condition.append(keyName).append(" < ").append(minValue.add(step.multiply(BigDecimal.valueOf(i + 1))).toPlainString());
+            }
+            DBDDataFilter partitionFilter = dataFilter == null ? new DBDDataFilter() : new DBDDataFilter(dataFilter);
+            DatabaseTransferUtils.appendFilterCondition(partitionFilter, sourceCondition, condition.toString());
+            if (settings.isPartitionsOrdered()) {
+                // Partitions are written one after another, so rows must be sorted inside each partition
+                partitionFilter.setOrder(keyName);
+            }
+            filters.add(partitionFilter);
+        }
+        return filters;
+    }
+
+    /**
+     * Checks that fetched rows do not depend on the source cursor and thus can be buffered.
+     */
+    boolean canBufferRows(@NotNull DBRProgressMonitor monitor) throws DBException {
+        DBSEntity entity = dataContainer instanceof DBSEntity ? (DBSEntity) dataContainer : GeneralUtils.adapt(dataContainer, DBSEntity.class);
+        if (entity == null) {
+            // Result set structure is unknown until it is opened
+            return false;
+        }
+        Collection<? extends DBSEntityAttribute> attributes = entity.getAttributes(monitor);
+        if (attributes != null) {
+            for (DBSEntityAttribute attribute : attributes) {
+                DBPDataKind dataKind = attribute.getDataKind();
+                if (dataKind == DBPDataKind.CONTENT || dataKind.isComplex()) {
+                    // LOBs and structures may depend on the source cursor so they can't be buffered
+                    log.debug("Table '" + entity.getName() + "' has complex column '" + attribute.getName() + "' - rows can't be buffered");
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads all partitions in parallel and passes rows to the consumer.
+     */
+    @NotNull
+    DBCStatistics readPartitions(
+        @NotNull DBCSession session,
+        @NotNull DBDDataReceiver consumer,
+        @NotNull List<DBDDataFilter> partitionFilters) throws DBException
+    {
+        return readInBackground(session, consumer, partitionFilters, true);
+    }
+
+    /**
+     * Reads data in a background job (using an isolated execution context) while consumer writes rows in the caller thread.
+     * Fetch latency of the source and write latency of the target overlap.
+     */
+    @NotNull
+    DBCStatistics readPipelined(
+        @NotNull DBCSession session,
+        @NotNull DBDDataReceiver consumer,
+        @Nullable DBDDataFilter dataFilter) throws DBException
+    {
+        return readInBackground(session, consumer, Collections.singletonList(dataFilter), false);
+    }
+
+    @NotNull
+    private DBCStatistics readInBackground(
+        @NotNull DBCSession session,
+        @NotNull DBDDataReceiver consumer,
+        @NotNull List<DBDDataFilter> partitionFilters,
+        boolean partitioned) throws DBException
+    {
+        DBRProgressMonitor monitor = session.getProgressMonitor();
+        DBCExecutionContext context = session.getExecutionContext();
+
+        List<BlockingQueue<Object[]>> queues = new ArrayList<>(partitionFilters.size());
+        List<PartitionReadJob> jobs = new ArrayList<>(partitionFilters.size());
+        for (int i = 0; i < partitionFilters.size(); i++) {
+            BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(PARTITION_BUFFER_SIZE);
+            queues.add(queue);
+            jobs.add(new PartitionReadJob(i, context, partitioned, partitionFilters.get(i), queue));
+        }
+        for (PartitionReadJob job : jobs) {
+            job.schedule();
+        }
+
+        DatabaseTransferBufferedResultSet resultSet = null;
+        try {
+            boolean[] finished = new boolean[queues.size()];
+            int activePartitions = queues.size();
+            int curPartition = 0, emptyPolls = 0;
+            while (activePartitions > 0) {
+                if (monitor.isCanceled()) {
+                    canceled = true;
+                    break;
+                }
+                if (finished[curPartition]) {
+                    curPartition = (curPartition + 1) % queues.size();
+                    continue;
+                }
+                Object[] row;
+                try {
+                    if (settings.isPartitionsOrdered() || emptyPolls >= activePartitions) {
+                        // Wait for the data
+                        row = queues.get(curPartition).poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                        emptyPolls = 0;
+                    } else {
+                        row = queues.get(curPartition).poll();
+                    }
+                } catch (InterruptedException e) {
+                    canceled = true;
+                    break;
+                }
+                if (row == END_OF_PARTITION) {
+                    finished[curPartition] = true;
+                    activePartitions--;
+                    curPartition = settings.isPartitionsOrdered() ? curPartition + 1 : (curPartition + 1) % queues.size();
+                    continue;
+                }
+                if (readError != null) {
+                    canceled = true;
+                    break;
+                }
+                if (row == null) {
+                    if (!settings.isPartitionsOrdered()) {
+                        emptyPolls++;
+                        curPartition = (curPartition + 1) % queues.size();
+                    }
+                    continue;
+                }
+                emptyPolls = 0;
+                if (resultSet == null) {
+                    resultSet = startConsumer(session, consumer);
+                }
+                resultSet.setCurrentRow(row);
+                consumer.fetchRow(session, resultSet);
+                // Consumer doesn't keep row arrays so they can be reused by readers
+                freeRows.offer(row);
+            }
+            if (resultSet == null && metaAttributes != null && !canceled) {
+                // No rows at all. Let consumer write its header anyway.
+                resultSet = startConsumer(session, consumer);
+            }
+            if (resultSet != null) {
+                consumer.fetchEnd(session, resultSet);
+            }
+        } finally {
+            // Stop readers which are still active (on error or cancel)
+            canceled = true;
+            for (int i = 0; i < jobs.size(); i++) {
+                // Unblock readers
+                queues.get(i).clear();
+                try {
+                    jobs.get(i).join();
+                } catch (InterruptedException e) {
+                    log.debug("Partition reader join interrupted");
+                }
+            }
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            consumer.close();
+        }
+        if (readError != null) {
+            throw new DBException("Error reading table partition", readError);
+        }
+        return statistics;
+    }
+
+    private DatabaseTransferBufferedResultSet startConsumer(@NotNull DBCSession session, @NotNull DBDDataReceiver consumer) throws DBCException {
+        DatabaseTransferBufferedResultSet resultSet = new DatabaseTransferBufferedResultSet(session, metaAttributes);
+        consumer.fetchStart(session, resultSet, -1, -1);
+        return resultSet;
+    }
+
+    private class PartitionReadJob extends AbstractJob {
+        private final int partitionNumber;
+        private final DBCExecutionContext sourceContext;
+        private final DBDDataFilter partitionFilter;
+        private final BlockingQueue<Object[]> queue;
+
+        PartitionReadJob(int partitionNumber, @NotNull DBCExecutionContext sourceContext, boolean partitioned, @Nullable DBDDataFilter partitionFilter, @NotNull BlockingQueue<Object[]> queue) {
+            super(partitioned ?
+                "Read partition " + (partitionNumber + 1) + " of " + dataContainer.getName() :
+                "Read " + dataContainer.getName());
+            this.partitionNumber = partitionNumber;
+            this.sourceContext = sourceContext;
+            this.partitionFilter = partitionFilter;
+            this.queue = queue;
+            setUser(false);
+            setSystem(true);
+        }
+
+        @Override
+        protected IStatus run(DBRProgressMonitor monitor) {
+            try {
+                DBCExecutionContext context = DBUtils.getObjectOwnerInstance(dataContainer).openIsolatedContext(
+                    monitor, "Data transfer reader " + (partitionNumber + 1), sourceContext);
+                try (DBCSession session = context.openSession(monitor, DBCExecutionPurpose.UTIL, getName())) {
+                    DBCStatistics partitionStatistics = dataContainer.readData(
+                        new AbstractExecutionSource(dataContainer, context, this),
+                        session,
+                        new PartitionDataReceiver(queue),
+                        partitionFilter,
+                        -1,
+                        -1,
+                        readFlags,
+                        settings.getFetchSize());
+                    synchronized (statistics) {
+                        statistics.accumulate(partitionStatistics);
+                    }
+                } finally {
+                    context.close();
+                }
+            } catch (Throwable e) {
+                if (!canceled) {
+                    log.debug("Error reading partition " + (partitionNumber + 1), e);
+                    if (readError == null) {
+                        readError = e;
+                    }
+                }
+            } finally {
+                putRow(queue, END_OF_PARTITION);
+            }
+            return Status.OK_STATUS;
+        }
+    }
+
+    private class PartitionDataReceiver implements DBDDataReceiver {
+        private final BlockingQueue<Object[]> queue;
+        private List<DBCAttributeMetaData> partitionMeta;
+        private DBDValueHandler[] valueHandlers;
+
+        PartitionDataReceiver(@NotNull BlockingQueue<Object[]> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void fetchStart(DBCSession session, DBCResultSet resultSet, long offset, long maxRows) throws DBCException {
+            partitionMeta = resultSet.getMeta().getAttributes();
+            valueHandlers = DatabaseTransferBufferedResultSet.getValueHandlers(session, partitionMeta);
+            if (metaAttributes == null) {
+                metaAttributes = partitionMeta;
+            }
+        }
+
+        @Override
+        public void fetchRow(DBCSession session, DBCResultSet resultSet) throws DBCException {
+            if (canceled) {
+                throw new DBCException("Partition read canceled");
+            }
+            putRow(queue, DatabaseTransferBufferedResultSet.fetchRowValues(session, resultSet, partitionMeta, valueHandlers, freeRows.poll()));
+        }
+
+        @Override
+        public void fetchEnd(DBCSession session, DBCResultSet resultSet) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Nullable
+    private static BigDecimal toBigDecimal(@Nullable Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        try {
+            return new BigDecimal(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void putRow(@NotNull BlockingQueue<Object[]> queue, @NotNull Object[] row) {
+        try {
+            while (!queue.offer(row, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (canceled && row != END_OF_PARTITION) {
+                    return;
+                }
+                if (canceled) {
+                    // Consumer doesn't read anymore - make room for the end marker
+                    queue.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            canceled = true;
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.*;
 import org.jkiss.dbeaver.model.app.DBPProject;
 import org.jkiss.dbeaver.model.data.DBDDataFilter;
+import org.jkiss.dbeaver.model.data.DBDDataReceiver;
 import org.jkiss.dbeaver.model.exec.*;
 import org.jkiss.dbeaver.model.impl.AbstractExecutionSource;
 import org.jkiss.dbeaver.model.impl.DataSourceContextProvider;
@@ -35,9 +36,11 @@ import org.jkiss.dbeaver.model.sql.SQLQuery;
 import org.jkiss.dbeaver.model.sql.SQLQueryContainer;
 import org.jkiss.dbeaver.model.sql.SQLScriptContext;
 import org.jkiss.dbeaver.model.sql.SQLScriptElement;
+import org.jkiss.dbeaver.model.sql.SQLUtils;
 import org.jkiss.dbeaver.model.sql.data.SQLQueryDataContainer;
 import org.jkiss.dbeaver.model.struct.DBSDataContainer;
 import org.jkiss.dbeaver.model.struct.DBSEntity;
+import org.jkiss.dbeaver.model.struct.DBSEntityAttribute;
 import org.jkiss.dbeaver.model.task.DBTTask;
 import org.jkiss.dbeaver.model.task.DBTaskUtils;
 import org.jkiss.dbeaver.runtime.DBWorkbench;
@@ -53,6 +56,7 @@ import org.jkiss.utils.CommonUtils;
 import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -254,9 +258,30 @@ public class DatabaseTransferProducer implements IDataTransferProducer<DatabaseP
                             monitor.subTask("Read data");
 
                             // Perform export
-                            if (settings.getExtractType() == DatabaseProducerSettings.ExtractType.SINGLE_QUERY) {
+                            List<DBDDataFilter> partitionFilters = null;
+                            DatabaseTransferPartitionReader partitionReader = null;
+                            if (settings.getExtractType() == DatabaseProducerSettings.ExtractType.SINGLE_QUERY && settings.getPartitionCount() > 1 && !selectiveExportFromUI) {
+                                partitionReader = new DatabaseTransferPartitionReader(dataContainer, settings, readFlags);
+                                partitionFilters = partitionReader.makePartitionFilters(session, transferSource, dataFilter);
+                            }
+                            boolean pipelined = false;
+                            if (partitionFilters == null && settings.getExtractType() == DatabaseProducerSettings.ExtractType.SINGLE_QUERY && settings.isPipelined() && !selectiveExportFromUI) {
+                                partitionReader = new DatabaseTransferPartitionReader(dataContainer, settings, readFlags);
+                                pipelined = partitionReader.canBufferRows(monitor);
+                            }
+                            if (partitionFilters != null) {
+                                // Read key ranges in parallel
+                                producerStatistics.accumulate(partitionReader.readPartitions(session, consumer, partitionFilters));
+                            } else if (pipelined) {
+                                // Fetch in background while consumer writes
+                                producerStatistics.accumulate(partitionReader.readPipelined(session, consumer, dataFilter));
+                            } else if (settings.getExtractType() == DatabaseProducerSettings.ExtractType.SINGLE_QUERY) {
                                 // Just do it in single query
                                 producerStatistics.accumulate(dataContainer.readData(transferSource, session, consumer, dataFilter, -1, -1, readFlags, settings.getFetchSize()));
+                            } else if (settings.getExtractType() == DatabaseProducerSettings.ExtractType.KEYSET_SEGMENTS &&
+                                readDataByKeySegments(monitor, session, transferSource, consumer, settings, readFlags))
+                            {
+                                // Data was read by key ranges
                             } else {
                                 // Read all data by segments
                                 long offset = 0;
@@ -302,6 +327,160 @@ public class DatabaseTransferProducer implements IDataTransferProducer<DatabaseP
         });
     }
 
+    /**
+     * Reads data by segments which continue from the last unique key value of the previous segment.
+     * Unlike offset-based segments each query costs the same regardless of its position in the table.
+     *
+     * @return false if keyset pagination can't be used for this container (no unique key, custom ordering, etc)
+     */
+    private boolean readDataByKeySegments(
+        @NotNull DBRProgressMonitor monitor,
+        @NotNull DBCSession session,
+        @NotNull DBCExecutionSource transferSource,
+        @NotNull IDataTransferConsumer consumer,
+        @NotNull DatabaseProducerSettings settings,
+        long readFlags) throws DBException
+    {
+        DBSEntity entity = dataContainer instanceof DBSEntity ? (DBSEntity) dataContainer : GeneralUtils.adapt(dataContainer, DBSEntity.class);
+        if (entity == null) {
+            log.debug("Keyset segments are not supported for '" + dataContainer.getName() + "' - fallback to offset segments");
+            return false;
+        }
+        if (dataFilter != null && (dataFilter.hasOrdering() || (dataFilter.isAnyConstraint() && dataFilter.hasConditions()))) {
+            log.debug("Keyset segments can't be used with custom data ordering - fallback to offset segments");
+            return false;
+        }
+        List<? extends DBSEntityAttribute> keyAttributes = DBUtils.getBestTableIdentifier(monitor, entity);
+        if (keyAttributes.isEmpty()) {
+            log.debug("No unique key found in '" + entity.getName() + "' - fallback to offset segments");
+            return false;
+        }
+        for (DBSEntityAttribute attribute : keyAttributes) {
+            if (!attribute.isRequired()) {
+                // Nullable values can't be compared
+                log.debug("Unique key column '" + attribute.getName() + "' is nullable - fallback to offset segments");
+                return false;
+            }
+        }
+
+        DBPDataSource dataSource = session.getDataSource();
+        DBDDataFilter segmentFilter = dataFilter == null ? new DBDDataFilter() : new DBDDataFilter(dataFilter);
+        String sourceCondition = segmentFilter.getWhere();
+        StringBuilder order = new StringBuilder();
+        for (DBSEntityAttribute attribute : keyAttributes) {
+            if (order.length() > 0) order.append(',');
+            order.append(DBUtils.getQuotedIdentifier(attribute));
+        }
+        segmentFilter.setOrder(order.toString());
+
+        int segmentSize = settings.getSegmentSize();
+        for (; ; ) {
+            KeysetDataReceiver segmentReceiver = new KeysetDataReceiver(consumer, keyAttributes);
+            DBCStatistics statistics = dataContainer.readData(
+                transferSource, session, segmentReceiver, segmentFilter, 0, segmentSize, readFlags, settings.getFetchSize());
+            if (statistics == null) {
+                break;
+            }
+            producerStatistics.accumulate(statistics);
+            Object[] lastKey = segmentReceiver.getLastKey();
+            if (statistics.getRowsFetched() < segmentSize || lastKey == null || monitor.isCanceled()) {
+                // Done
+                break;
+            }
+            String keyCondition = makeKeysetCondition(dataSource, keyAttributes, lastKey);
+            DatabaseTransferUtils.appendFilterCondition(segmentFilter, sourceCondition, keyCondition);
+        }
+        return true;
+    }
+
+    /**
+     * Generates condition (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ...
+     * Row value comparison (k1,k2) > (v1,v2) would be simpler but it isn't supported by all databases.
+     */
+    private static String makeKeysetCondition(@NotNull DBPDataSource dataSource, @NotNull List<? extends DBSEntityAttribute> keyAttributes, @NotNull Object[] keyValues) {
+        StringBuilder condition = new StringBuilder();
+        for (int i = 0; i < keyAttributes.size(); i++) {
+            if (i > 0) condition.append(" OR ");
+            condition.append('(');
+            for (int k = 0; k <= i; k++) {
+                DBSEntityAttribute attribute = keyAttributes.get(k);
+                if (k > 0) condition.append(" AND ");
+                condition
+                    .append(DBUtils.getQuotedIdentifier(attribute))
+                    .append(k == i ? " > " : " = ")
+                    .append(SQLUtils.convertValueToSQL(dataSource, attribute, keyValues[k]));
+            }
+            condition.append(')');
+        }
+        return condition.toString();
+    }
+
+    /**
+     * Passes rows to the target consumer and remembers key values of the last fetched row
+     */
+    private static class KeysetDataReceiver implements DBDDataReceiver {
+        private final DBDDataReceiver target;
+        private final List<? extends DBSEntityAttribute> keyAttributes;
+        private int[] keyIndexes;
+        private Object[] lastKey;
+
+        KeysetDataReceiver(@NotNull DBDDataReceiver target, @NotNull List<? extends DBSEntityAttribute> keyAttributes) {
+            this.target = target;
+            this.keyAttributes = keyAttributes;
+        }
+
+        @Nullable
+        Object[] getLastKey() {
+            return lastKey;
+        }
+
+        @Override
+        public void fetchStart(DBCSession session, DBCResultSet resultSet, long offset, long maxRows) throws DBCException {
+            List<DBCAttributeMetaData> metaAttributes = resultSet.getMeta().getAttributes();
+            keyIndexes = new int[keyAttributes.size()];
+            for (int i = 0; i < keyIndexes.length; i++) {
+                keyIndexes[i] = -1;
+                String keyName = keyAttributes.get(i).getName();
+                for (int k = 0; k < metaAttributes.size(); k++) {
+                    if (keyName.equalsIgnoreCase(metaAttributes.get(k).getName())) {
+                        keyIndexes[i] = k;
+                        break;
+                    }
+                }
+                if (keyIndexes[i] < 0) {
+                    throw new DBCException("Unique key column '" + keyName + "' not found in result set");
+                }
+            }
+            target.fetchStart(session, resultSet, offset, maxRows);
+        }
+
+        @Override
+        public void fetchRow(DBCSession session, DBCResultSet resultSet) throws DBCException {
+            target.fetchRow(session, resultSet);
+            Object[] rowKey = new Object[keyIndexes.length];
+            for (int i = 0; i < keyIndexes.length; i++) {
+                rowKey[i] = resultSet.getAttributeValue(keyIndexes[i]);
+            }
+            lastKey = rowKey;
+        }
+
+        @Override
+        public void fetchEnd(DBCSession session, DBCResultSet resultSet) throws DBCException {
+            target.fetchEnd(session, resultSet);
+        }
+
+        @Override
+        public void close() {
+            target.close();
+        }
+
+        @NotNull
+        @Override
+        public DBCStatistics getStatistics() {
+            return target.getStatistics();
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof DatabaseTransferProducer &&
@@ -21,6 +21,7 @@ import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.*;
+import org.jkiss.dbeaver.model.data.DBDDataFilter;
 import org.jkiss.dbeaver.model.edit.*;
 import org.jkiss.dbeaver.model.exec.*;
 import org.jkiss.dbeaver.model.impl.DBObjectNameCaseTransformer;
@@ -373,6 +374,16 @@ public class DatabaseTransferUtils {
         commandContext.saveChanges(monitor, options);
     }
 
+    /**
+     * Appends extra condition to the filter's WHERE clause.
+     * Source filter must not use OR between constraints (see {@link DBDDataFilter#isAnyConstraint()}).
+     */
+    public static void appendFilterCondition(@NotNull DBDDataFilter filter, @Nullable String sourceCondition, @NotNull String condition) {
+        filter.setWhere(CommonUtils.isEmpty(sourceCondition) ?
+            condition :
+            "(" + sourceCondition + ") AND (" + condition + ")");
+    }
+
     public static Pair<DBPDataKind, String> getDataType(String value) {
         if (CommonUtils.isEmpty(value)) {
             return DATA_TYPE_UNKNOWN;
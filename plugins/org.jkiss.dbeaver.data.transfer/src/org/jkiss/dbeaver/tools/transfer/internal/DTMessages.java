@@ -40,6 +40,10 @@ public class DTMessages extends NLS {
 	public static String data_transfer_wizard_output_checkbox_selected_columns_only;
 	public static String data_transfer_wizard_output_checkbox_selected_rows_only;
 	public static String data_transfer_wizard_output_combo_extract_type_item_by_segments;
+	public static String data_transfer_wizard_output_combo_extract_type_item_by_key_segments;
+	public static String data_transfer_wizard_output_label_partition_count;
+	public static String data_transfer_wizard_output_checkbox_partitions_ordered;
+	public static String data_transfer_wizard_output_checkbox_pipelined;
 	public static String data_transfer_wizard_output_combo_extract_type_item_single_query;
 	public static String data_transfer_wizard_output_description;
 	public static String data_transfer_wizard_output_dialog_directory_message;
@@ -52,6 +52,7 @@ import org.jkiss.utils.IOUtils;
 import org.jkiss.utils.io.ByteOrderMark;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -109,6 +110,7 @@ public class StreamTransferConsumer implements IDataTransferConsumer<StreamConsu
     };
 
     public static final int OUT_FILE_BUFFER_SIZE = 100000;
+    public static final int OUT_TEXT_BUFFER_SIZE = StreamTransferWriter.DEFAULT_BUFFER_SIZE;
 
     private IStreamDataExporter processor;
     private StreamConsumerSettings settings;
@@ -117,6 +119,7 @@ public class StreamTransferConsumer implements IDataTransferConsumer<StreamConsu
     private OutputStream outputStream;
     private ZipOutputStream zipStream;
     private PrintWriter writer;
+    private StreamTransferWriter textWriter;
     private int multiFileNumber;
     private long bytesWritten = 0;
 
@@ -188,9 +191,9 @@ public class StreamTransferConsumer implements IDataTransferConsumer<StreamConsu
     public void fetchRow(DBCSession session, DBCResultSet resultSet) throws DBCException {
         try {
             // Check for file split
-            if (settings.isSplitOutFiles() && !parameters.isBinary && !firstRow) {
-                writer.flush();
-                if (bytesWritten >= settings.getMaxOutFileSize()) {
+            if (settings.isSplitOutFiles() && !parameters.isBinary && !firstRow && textWriter != null) {
+                // Take into account data buffered by writer. Do not flush it on every row.
+                if (bytesWritten + textWriter.getPendingBytes() >= settings.getMaxOutFileSize()) {
                     // Make new file
                     createNewOutFile();
                 }
@@ -357,12 +360,30 @@ public class StreamTransferConsumer implements IDataTransferConsumer<StreamConsu
         }
 
         if (!parameters.isBinary) {
-            this.writer = new PrintWriter(new OutputStreamWriter(this.outputStream, settings.getOutputEncoding()), true);
+            // No auto flush: data is written to the stream when text buffer is full or on explicit flush
+            this.textWriter = new StreamTransferWriter(this.outputStream, getOutputCharset(), OUT_TEXT_BUFFER_SIZE);
+            this.writer = new PrintWriter(this.textWriter, false);
+        }
+    }
+
+    private Charset getOutputCharset() throws IOException {
+        String encoding = settings.getOutputEncoding();
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedEncodingException(encoding);
         }
     }
 
     private void closeOutputStreams() {
-        if (this.writer != null) {
+        if (this.textWriter != null) {
+            try {
+                this.textWriter.finish();
+            } catch (IOException e) {
+                log.debug(e);
+            }
+            this.textWriter = null;
+        } else if (this.writer != null) {
             this.writer.flush();
         }
 
@@ -740,7 +761,6 @@ public class StreamTransferConsumer implements IDataTransferConsumer<StreamConsu
                 }
             } else {
                 try (final InputStream stream = cs.getContentStream()) {
-                    exportSite.flush();
                     final DBPDataSource dataSource = dataContainer.getDataSource();
                     switch (settings.getLobEncoding()) {
                         case BASE64: {
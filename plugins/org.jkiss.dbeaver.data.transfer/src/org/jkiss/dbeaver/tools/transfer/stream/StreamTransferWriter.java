@@ -0,0 +1,226 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer.stream;
+
+import org.jkiss.code.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+
+/**
+ * Buffered writer of exported text.
+ *
+ * Characters are collected in a reusable buffer and encoded straight into a reusable byte buffer,
+ * which is written to the target stream only when it is full or on explicit flush.
+ * For ASCII-compatible charsets ASCII characters are copied without the charset encoder.
+ */
+public class StreamTransferWriter extends Writer {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final OutputStream out;
+    private final CharsetEncoder encoder;
+    private final boolean asciiCompatible;
+    private final char[] chars;
+    private int charCount;
+    private final ByteBuffer bytes;
+    private boolean finished;
+
+    public StreamTransferWriter(@NotNull OutputStream out, @NotNull Charset charset, int bufferSize) {
+        this.out = out;
+        this.encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = isAsciiCompatible(charset);
+        this.chars = new char[bufferSize];
+        this.bytes = ByteBuffer.allocate(bufferSize);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (charCount == chars.length) {
+            encodeChars();
+        }
+        chars[charCount++] = (char) c;
+    }
+
+    @Override
+    public void write(@NotNull char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            if (charCount == chars.length) {
+                encodeChars();
+            }
+            int count = Math.min(len, chars.length - charCount);
+            System.arraycopy(cbuf, off, chars, charCount, count);
+            charCount += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void write(@NotNull String str, int off, int len) throws IOException {
+        while (len > 0) {
+            if (charCount == chars.length) {
+                encodeChars();
+            }
+            int count = Math.min(len, chars.length - charCount);
+            str.getChars(off, off + count, chars, charCount);
+            charCount += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Returns number of bytes which were written to the writer but not yet passed to the target stream.
+     * Does not perform any IO unless internal buffer is full.
+     */
+    public int getPendingBytes() throws IOException {
+        encodeChars();
+        return bytes.position();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encodeChars();
+        flushBytes();
+        out.flush();
+    }
+
+    /**
+     * Encodes all remaining characters and flushes them to the target stream. The target stream is not closed.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        encodeChars();
+        CharBuffer rest = CharBuffer.wrap(chars, 0, charCount);
+        while (encoder.encode(rest, bytes, true).isOverflow()) {
+            flushBytes();
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            flushBytes();
+        }
+        charCount = 0;
+        finished = true;
+        flushBytes();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private void encodeChars() throws IOException {
+        final byte[] dst = bytes.array();
+        int pos = 0;
+        while (pos < charCount) {
+            int end = charCount;
+            if (asciiCompatible) {
+                int bytePos = bytes.position();
+                int byteLimit = bytes.limit();
+                while (pos < charCount && bytePos < byteLimit) {
+                    char c = chars[pos];
+                    if (c >= 0x80) {
+                        break;
+                    }
+                    dst[bytePos++] = (byte) c;
+                    pos++;
+                }
+                bytes.position(bytePos);
+                if (bytePos == byteLimit) {
+                    flushBytes();
+                    continue;
+                }
+                if (pos == charCount) {
+                    break;
+                }
+                // Encode non-ASCII characters up to the next ASCII one
+                end = pos + 1;
+                while (end < charCount && chars[end] >= 0x80) {
+                    end++;
+                }
+            }
+            CharBuffer src = CharBuffer.wrap(chars, pos, end - pos);
+            while (encoder.encode(src, bytes, false).isOverflow()) {
+                flushBytes();
+            }
+            pos = src.position();
+            if (pos < end) {
+                if (end == charCount) {
+                    // Unpaired high surrogate at the end of buffer. Keep it till the next write.
+                    break;
+                }
+                // Unpaired surrogate followed by ASCII character
+                if (!bytes.hasRemaining()) {
+                    flushBytes();
+                }
+                bytes.put((byte) '?');
+                pos++;
+            }
+        }
+        int rest = charCount - pos;
+        if (rest > 0 && pos > 0) {
+            System.arraycopy(chars, pos, chars, 0, rest);
+        }
+        charCount = rest;
+    }
+
+    private void flushBytes() throws IOException {
+        if (bytes.position() > 0) {
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        }
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1)) {
+            return true;
+        }
+        if (!charset.canEncode()) {
+            return false;
+        }
+        // Check that all ASCII characters are encoded as single bytes with the same code
+        char[] ascii = new char[0x80];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (char) i;
+        }
+        try {
+            ByteBuffer encoded = charset.newEncoder().encode(CharBuffer.wrap(ascii));
+            if (encoded.remaining() != ascii.length) {
+                return false;
+            }
+            for (int i = 0; i < ascii.length; i++) {
+                if (encoded.get(i) != i) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,397 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer.stream.exporter;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDContent;
+import org.jkiss.dbeaver.model.exec.DBCResultSet;
+import org.jkiss.dbeaver.model.exec.DBCSession;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.tools.transfer.stream.IStreamDataExporterSite;
+import org.jkiss.dbeaver.utils.ContentUtils;
+import org.jkiss.utils.CommonUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.*;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Apache Parquet exporter.
+ *
+ * Column types are chosen by attribute data kind, type and value handler's value class.
+ * Rows are batched into column vectors and written as row groups.
+ */
+public class DataExporterParquet extends StreamExporterAbstract {
+
+    public static final String PROP_ROW_GROUP_SIZE = "rowGroupSize";
+    public static final String PROP_COMPRESSION = "compression";
+
+    private static final int DEFAULT_ROW_GROUP_SIZE = 100000;
+    private static final long MAX_ROW_GROUP_BYTES = 128 * 1024 * 1024;
+    private static final int MAX_DECIMAL_PRECISION = 38;
+
+    private enum ColumnKind {
+        BOOLEAN,
+        INT32,
+        INT64,
+        FLOAT,
+        DOUBLE,
+        DECIMAL,
+        DATE,
+        TIME,
+        TIMESTAMP,
+        STRING,
+        BINARY
+    }
+
+    private DBDAttributeBinding[] columns;
+    private ColumnKind[] columnKinds;
+    private int[] decimalScales;
+    private ParquetWriter.PhysicalType[] decimalTypes;
+    private ParquetWriter writer;
+    private int rowGroupSize;
+    private ParquetWriter.Compression compression;
+
+    @Override
+    public void init(IStreamDataExporterSite site) throws DBException {
+        super.init(site);
+        rowGroupSize = CommonUtils.toInt(site.getProperties().get(PROP_ROW_GROUP_SIZE), DEFAULT_ROW_GROUP_SIZE);
+        if (rowGroupSize <= 0) {
+            rowGroupSize = DEFAULT_ROW_GROUP_SIZE;
+        }
+        compression = CommonUtils.valueOf(
+            ParquetWriter.Compression.class,
+            CommonUtils.toString(site.getProperties().get(PROP_COMPRESSION)),
+            ParquetWriter.Compression.GZIP);
+    }
+
+    @Override
+    public void exportHeader(DBCSession session) throws DBException, IOException {
+        columns = getSite().getAttributes();
+        columnKinds = new ColumnKind[columns.length];
+        decimalScales = new int[columns.length];
+        decimalTypes = new ParquetWriter.PhysicalType[columns.length];
+        writer = new ParquetWriter(getOutputStream(), compression);
+
+        Set<String> columnNames = new HashSet<>();
+        for (int i = 0; i < columns.length; i++) {
+            DBDAttributeBinding column = columns[i];
+            String columnName = column.getLabel();
+            if (CommonUtils.isEmpty(columnName)) {
+                columnName = column.getName();
+            }
+            // Parquet readers don't accept duplicate column names
+            String uniqueName = columnName;
+            for (int index = 2; !columnNames.add(uniqueName); index++) {
+                uniqueName = columnName + "_" + index;
+            }
+
+            ColumnKind kind = getColumnKind(column);
+            columnKinds[i] = kind;
+            switch (kind) {
+                case BOOLEAN:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.BOOLEAN, ParquetWriter.CONVERTED_NONE, 0, 0);
+                    break;
+                case INT32:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.INT32, ParquetWriter.CONVERTED_NONE, 0, 0);
+                    break;
+                case INT64:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.INT64, ParquetWriter.CONVERTED_NONE, 0, 0);
+                    break;
+                case FLOAT:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.FLOAT, ParquetWriter.CONVERTED_NONE, 0, 0);
+                    break;
+                case DOUBLE:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.DOUBLE, ParquetWriter.CONVERTED_NONE, 0, 0);
+                    break;
+                case DECIMAL: {
+                    int precision = CommonUtils.toInt(column.getPrecision());
+                    int scale = CommonUtils.toInt(column.getScale());
+                    ParquetWriter.PhysicalType physicalType = precision <= 9 ? ParquetWriter.PhysicalType.INT32 :
+                        precision <= 18 ? ParquetWriter.PhysicalType.INT64 : ParquetWriter.PhysicalType.BYTE_ARRAY;
+                    decimalScales[i] = scale;
+                    decimalTypes[i] = physicalType;
+                    writer.addColumn(uniqueName, physicalType, ParquetWriter.CONVERTED_DECIMAL, precision, scale);
+                    break;
+                }
+                case DATE:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.INT32, ParquetWriter.CONVERTED_DATE, 0, 0);
+                    break;
+                case TIME:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.INT32, ParquetWriter.CONVERTED_TIME_MILLIS, 0, 0);
+                    break;
+                case TIMESTAMP:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.INT64, ParquetWriter.CONVERTED_TIMESTAMP_MICROS, 0, 0);
+                    break;
+                case BINARY:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.BYTE_ARRAY, ParquetWriter.CONVERTED_NONE, 0, 0);
+                    break;
+                default:
+                    writer.addColumn(uniqueName, ParquetWriter.PhysicalType.BYTE_ARRAY, ParquetWriter.CONVERTED_UTF8, 0, 0);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void exportRow(DBCSession session, DBCResultSet resultSet, Object[] row) throws DBException, IOException {
+        for (int i = 0; i < columns.length; i++) {
+            Object value = row[i];
+            if (DBUtils.isNullValue(value)) {
+                writer.addNull(i);
+                continue;
+            }
+            try {
+                writeValue(session.getProgressMonitor(), i, value);
+            } finally {
+                if (value instanceof DBDContent) {
+                    ((DBDContent) value).release();
+                }
+            }
+        }
+        writer.endRow();
+        if (writer.getRowCount() >= rowGroupSize || writer.getBufferedSize() >= MAX_ROW_GROUP_BYTES) {
+            writer.flushRowGroup();
+        }
+    }
+
+    @Override
+    public void exportFooter(DBRProgressMonitor monitor) throws DBException, IOException {
+        if (writer != null) {
+            writer.finish();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        writer = null;
+        super.dispose();
+    }
+
+    private void writeValue(@NotNull DBRProgressMonitor monitor, int index, @NotNull Object value) throws DBException {
+        DBDAttributeBinding column = columns[index];
+        switch (columnKinds[index]) {
+            case BOOLEAN:
+                if (value instanceof Boolean) {
+                    writer.addBoolean(index, (Boolean) value);
+                } else if (value instanceof Number) {
+                    writer.addBoolean(index, ((Number) value).intValue() != 0);
+                } else {
+                    throw unsupportedValue(column, value);
+                }
+                break;
+            case INT32:
+                writer.addInt(index, toNumber(column, value).intValue());
+                break;
+            case INT64:
+                writer.addLong(index, toNumber(column, value).longValue());
+                break;
+            case FLOAT:
+                writer.addFloat(index, toNumber(column, value).floatValue());
+                break;
+            case DOUBLE:
+                writer.addDouble(index, toNumber(column, value).doubleValue());
+                break;
+            case DECIMAL: {
+                Number number = toNumber(column, value);
+                BigDecimal decimal = number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+                BigInteger unscaled = decimal.setScale(decimalScales[index], RoundingMode.HALF_UP).unscaledValue();
+                switch (decimalTypes[index]) {
+                    case INT32:
+                        if (unscaled.bitLength() > 31) {
+                            throw new DBException("Value " + decimal + " doesn't fit precision of column '" + column.getName() + "'");
+                        }
+                        writer.addInt(index, unscaled.intValue());
+                        break;
+                    case INT64:
+                        if (unscaled.bitLength() > 63) {
+                            throw new DBException("Value " + decimal + " doesn't fit precision of column '" + column.getName() + "'");
+                        }
+                        writer.addLong(index, unscaled.longValue());
+                        break;
+                    default:
+                        writer.addBinary(index, unscaled.toByteArray());
+                        break;
+                }
+                break;
+            }
+            case DATE:
+                writer.addInt(index, (int) toLocalDateTime(column, value).toLocalDate().toEpochDay());
+                break;
+            case TIME:
+                if (value instanceof OffsetTime) {
+                    value = ((OffsetTime) value).toLocalTime();
+                }
+                LocalTime time = value instanceof LocalTime ? (LocalTime) value : toLocalDateTime(column, value).toLocalTime();
+                writer.addInt(index, (int) (time.toNanoOfDay() / 1_000_000));
+                break;
+            case TIMESTAMP:
+                writer.addLong(index, toEpochMicros(column, value));
+                break;
+            case BINARY:
+                if (value instanceof byte[]) {
+                    writer.addBinary(index, (byte[]) value);
+                } else if (value instanceof DBDContent) {
+                    byte[] bytes = ContentUtils.getContentBinaryValue(monitor, (DBDContent) value);
+                    writer.addBinary(index, bytes == null ? new byte[0] : bytes);
+                } else {
+                    writer.addBinary(index, getValueDisplayString(column, value).getBytes(StandardCharsets.UTF_8));
+                }
+                break;
+            default: {
+                String text;
+                if (value instanceof String) {
+                    text = (String) value;
+                } else if (value instanceof DBDContent) {
+                    text = CommonUtils.notEmpty(ContentUtils.getContentStringValue(monitor, (DBDContent) value));
+                } else {
+                    text = getValueDisplayString(column, value);
+                }
+                writer.addBinary(index, text.getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+        }
+    }
+
+    @NotNull
+    private static ColumnKind getColumnKind(@NotNull DBDAttributeBinding column) {
+        Class<?> valueType = column.getValueHandler().getValueObjectType(column);
+        int typeId = column.getTypeID();
+        switch (column.getDataKind()) {
+            case BOOLEAN:
+                return ColumnKind.BOOLEAN;
+            case NUMERIC:
+                if (valueType == Integer.class || valueType == Short.class || valueType == Byte.class) {
+                    return ColumnKind.INT32;
+                } else if (valueType == Long.class) {
+                    return ColumnKind.INT64;
+                } else if (valueType == Float.class) {
+                    return ColumnKind.FLOAT;
+                } else if (valueType == Double.class) {
+                    return ColumnKind.DOUBLE;
+                }
+                switch (typeId) {
+                    case Types.TINYINT:
+                    case Types.SMALLINT:
+                    case Types.INTEGER:
+                        return ColumnKind.INT32;
+                    case Types.BIGINT:
+                        return ColumnKind.INT64;
+                    case Types.REAL:
+                        return ColumnKind.FLOAT;
+                    case Types.FLOAT:
+                    case Types.DOUBLE:
+                        return ColumnKind.DOUBLE;
+                    default:
+                        break;
+                }
+                int precision = CommonUtils.toInt(column.getPrecision());
+                int scale = CommonUtils.toInt(column.getScale());
+                if (precision > 0 && precision <= MAX_DECIMAL_PRECISION && scale >= 0 && scale <= precision) {
+                    return ColumnKind.DECIMAL;
+                }
+                // Unknown precision. Keep exact value as text
+                return ColumnKind.STRING;
+            case DATETIME:
+                switch (typeId) {
+                    case Types.DATE:
+                        return ColumnKind.DATE;
+                    case Types.TIME:
+                    case Types.TIME_WITH_TIMEZONE:
+                        return ColumnKind.TIME;
+                    default:
+                        return ColumnKind.TIMESTAMP;
+                }
+            case BINARY:
+                return ColumnKind.BINARY;
+            case CONTENT:
+                switch (typeId) {
+                    case Types.BLOB:
+                    case Types.BINARY:
+                    case Types.VARBINARY:
+                    case Types.LONGVARBINARY:
+                        return ColumnKind.BINARY;
+                    default:
+                        return ColumnKind.STRING;
+                }
+            default:
+                return ColumnKind.STRING;
+        }
+    }
+
+    @NotNull
+    private static Number toNumber(@NotNull DBDAttributeBinding column, @NotNull Object value) throws DBException {
+        if (value instanceof Number) {
+            return (Number) value;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        throw unsupportedValue(column, value);
+    }
+
+    @NotNull
+    private static LocalDateTime toLocalDateTime(@NotNull DBDAttributeBinding column, @NotNull Object value) throws DBException {
+        if (value instanceof Date) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(((Date) value).getTime()), ZoneId.systemDefault());
+        } else if (value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        } else if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay();
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toLocalDateTime();
+        } else if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toLocalDateTime();
+        }
+        throw unsupportedValue(column, value);
+    }
+
+    private static long toEpochMicros(@NotNull DBDAttributeBinding column, @NotNull Object value) throws DBException {
+        Instant instant;
+        if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime() * 1000;
+        } else if (value instanceof Instant) {
+            instant = (Instant) value;
+        } else if (value instanceof OffsetDateTime) {
+            instant = ((OffsetDateTime) value).toInstant();
+        } else if (value instanceof ZonedDateTime) {
+            instant = ((ZonedDateTime) value).toInstant();
+        } else {
+            instant = toLocalDateTime(column, value).atZone(ZoneId.systemDefault()).toInstant();
+        }
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1000;
+    }
+
+    @NotNull
+    private static DBException unsupportedValue(@NotNull DBDAttributeBinding column, @NotNull Object value) {
+        return new DBException("Value of type " + value.getClass().getName() + " can't be exported to Parquet column '" + column.getName() + "'");
+    }
+
+}
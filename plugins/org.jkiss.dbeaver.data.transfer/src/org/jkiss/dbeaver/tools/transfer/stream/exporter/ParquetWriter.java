@@ -0,0 +1,544 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer.stream.exporter;
+
+import org.jkiss.code.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal Apache Parquet file writer.
+ *
+ * Writes a flat schema of optional columns. Values of the current row group are buffered in typed
+ * column vectors (already PLAIN-encoded) and each column chunk is written as a single data page.
+ * Page headers and file metadata are encoded with Thrift compact protocol.
+ */
+public class ParquetWriter {
+
+    public enum PhysicalType {
+        BOOLEAN(0),
+        INT32(1),
+        INT64(2),
+        FLOAT(4),
+        DOUBLE(5),
+        BYTE_ARRAY(6);
+
+        private final int id;
+
+        PhysicalType(int id) {
+            this.id = id;
+        }
+    }
+
+    public enum Compression {
+        NONE(0),
+        GZIP(2);
+
+        private final int id;
+
+        Compression(int id) {
+            this.id = id;
+        }
+    }
+
+    // Converted types (logical types of parquet format 1.x)
+    public static final int CONVERTED_NONE = -1;
+    public static final int CONVERTED_UTF8 = 0;
+    public static final int CONVERTED_DECIMAL = 5;
+    public static final int CONVERTED_DATE = 6;
+    public static final int CONVERTED_TIME_MILLIS = 7;
+    public static final int CONVERTED_TIMESTAMP_MICROS = 10;
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final String CREATED_BY = "DBeaver";
+
+    private static final int PAGE_TYPE_DATA = 0;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    private static final int REPETITION_OPTIONAL = 1;
+
+    private final OutputStream out;
+    private final Compression compression;
+    private final List<Column> columns = new ArrayList<>();
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private final ByteBuilder pageBuffer = new ByteBuilder();
+    private final ByteBuilder compressBuffer = new ByteBuilder();
+    private final ThriftWriter thrift = new ThriftWriter();
+    private long position;
+    private int rowCount;
+    private long totalRows;
+    private boolean started;
+
+    public ParquetWriter(@NotNull OutputStream out, @NotNull Compression compression) {
+        this.out = out;
+        this.compression = compression;
+    }
+
+    /**
+     * Adds optional column. All columns must be added before the first row.
+     *
+     * @return column index
+     */
+    public int addColumn(@NotNull String name, @NotNull PhysicalType type, int convertedType, int precision, int scale) {
+        if (started) {
+            throw new IllegalStateException("Columns can't be added after the first row");
+        }
+        columns.add(new Column(name, type, convertedType, precision, scale));
+        return columns.size() - 1;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns approximate size of buffered row group data
+     */
+    public long getBufferedSize() {
+        long size = 0;
+        for (Column column : columns) {
+            size += column.values.size + column.definitions.getByteCount();
+        }
+        return size;
+    }
+
+    public void addNull(int column) {
+        columns.get(column).definitions.add(false);
+    }
+
+    public void addBoolean(int column, boolean value) {
+        Column c = columns.get(column);
+        c.definitions.add(true);
+        c.booleans.add(value);
+    }
+
+    public void addInt(int column, int value) {
+        Column c = columns.get(column);
+        c.definitions.add(true);
+        c.values.writeIntLE(value);
+    }
+
+    public void addLong(int column, long value) {
+        Column c = columns.get(column);
+        c.definitions.add(true);
+        c.values.writeLongLE(value);
+    }
+
+    public void addFloat(int column, float value) {
+        addInt(column, Float.floatToIntBits(value));
+    }
+
+    public void addDouble(int column, double value) {
+        addLong(column, Double.doubleToLongBits(value));
+    }
+
+    public void addBinary(int column, @NotNull byte[] value) {
+        Column c = columns.get(column);
+        c.definitions.add(true);
+        c.values.writeIntLE(value.length);
+        c.values.write(value, 0, value.length);
+    }
+
+    /**
+     * Finishes the current row. A value (or null) must be added for each column.
+     */
+    public void endRow() throws IOException {
+        if (!started) {
+            writeBytes(MAGIC, 0, MAGIC.length);
+            started = true;
+        }
+        rowCount++;
+    }
+
+    /**
+     * Writes all buffered rows as a new row group.
+     */
+    public void flushRowGroup() throws IOException {
+        if (rowCount == 0) {
+            return;
+        }
+        RowGroup rowGroup = new RowGroup(rowCount);
+        for (Column column : columns) {
+            if (column.definitions.count != rowCount) {
+                throw new IllegalStateException("Column '" + column.name + "' has " + column.definitions.count + " values while row count is " + rowCount);
+            }
+            rowGroup.chunks.add(writeColumnChunk(column));
+            rowGroup.totalByteSize += rowGroup.chunks.get(rowGroup.chunks.size() - 1).uncompressedSize;
+        }
+        rowGroups.add(rowGroup);
+        totalRows += rowCount;
+        rowCount = 0;
+    }
+
+    /**
+     * Writes remaining rows and file footer. The target stream is not closed.
+     */
+    public void finish() throws IOException {
+        if (!started) {
+            // Empty file still must start with magic
+            writeBytes(MAGIC, 0, MAGIC.length);
+            started = true;
+        }
+        flushRowGroup();
+        writeFileMetaData();
+        ByteBuilder footer = thrift.buffer;
+        writeBytes(footer.data, 0, footer.size);
+        byte[] footerLength = {
+            (byte) footer.size, (byte) (footer.size >>> 8), (byte) (footer.size >>> 16), (byte) (footer.size >>> 24)
+        };
+        writeBytes(footerLength, 0, footerLength.length);
+        writeBytes(MAGIC, 0, MAGIC.length);
+        out.flush();
+    }
+
+    private ColumnChunk writeColumnChunk(Column column) throws IOException {
+        // Page data: definition levels (length-prefixed RLE/bit-packed hybrid) followed by non-null values
+        ByteBuilder page = pageBuffer;
+        page.reset();
+        page.writeIntLE(0);
+        BitBuilder definitions = column.definitions;
+        int groupCount = (definitions.count + 7) / 8;
+        page.writeVarint((groupCount << 1) | 1);
+        page.write(definitions.data, 0, groupCount);
+        int levelsLength = page.size - 4;
+        page.data[0] = (byte) levelsLength;
+        page.data[1] = (byte) (levelsLength >>> 8);
+        page.data[2] = (byte) (levelsLength >>> 16);
+        page.data[3] = (byte) (levelsLength >>> 24);
+        if (column.type == PhysicalType.BOOLEAN) {
+            page.write(column.booleans.data, 0, column.booleans.getByteCount());
+        } else {
+            page.write(column.values.data, 0, column.values.size);
+        }
+
+        ByteBuilder pageData = page;
+        if (compression == Compression.GZIP) {
+            compressBuffer.reset();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressBuffer, 64 * 1024)) {
+                gzip.write(page.data, 0, page.size);
+            }
+            pageData = compressBuffer;
+        }
+
+        ThriftWriter header = thrift;
+        header.reset();
+        header.structBegin();
+        header.fieldI32(1, PAGE_TYPE_DATA);
+        header.fieldI32(2, page.size);
+        header.fieldI32(3, pageData.size);
+        header.fieldStructBegin(5);
+        header.fieldI32(1, definitions.count);
+        header.fieldI32(2, ENCODING_PLAIN);
+        header.fieldI32(3, ENCODING_RLE);
+        header.fieldI32(4, ENCODING_RLE);
+        header.structEnd();
+        header.structEnd();
+
+        ColumnChunk chunk = new ColumnChunk();
+        chunk.offset = position;
+        chunk.valueCount = definitions.count;
+        chunk.uncompressedSize = header.buffer.size + page.size;
+        chunk.compressedSize = header.buffer.size + pageData.size;
+        writeBytes(header.buffer.data, 0, header.buffer.size);
+        writeBytes(pageData.data, 0, pageData.size);
+
+        column.definitions.reset();
+        column.booleans.reset();
+        column.values.reset();
+        return chunk;
+    }
+
+    private void writeFileMetaData() {
+        ThriftWriter meta = thrift;
+        meta.reset();
+        meta.structBegin();
+        meta.fieldI32(1, 1);
+        meta.fieldListBegin(2, ThriftWriter.TYPE_STRUCT, columns.size() + 1);
+        {
+            // Schema root
+            meta.structBegin();
+            meta.fieldString(4, "schema");
+            meta.fieldI32(5, columns.size());
+            meta.structEnd();
+            for (Column column : columns) {
+                meta.structBegin();
+                meta.fieldI32(1, column.type.id);
+                meta.fieldI32(3, REPETITION_OPTIONAL);
+                meta.fieldString(4, column.name);
+                if (column.convertedType != CONVERTED_NONE) {
+                    meta.fieldI32(6, column.convertedType);
+                }
+                if (column.convertedType == CONVERTED_DECIMAL) {
+                    meta.fieldI32(7, column.scale);
+                    meta.fieldI32(8, column.precision);
+                }
+                meta.structEnd();
+            }
+        }
+        meta.fieldI64(3, totalRows);
+        meta.fieldListBegin(4, ThriftWriter.TYPE_STRUCT, rowGroups.size());
+        for (RowGroup rowGroup : rowGroups) {
+            meta.structBegin();
+            meta.fieldListBegin(1, ThriftWriter.TYPE_STRUCT, columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                ColumnChunk chunk = rowGroup.chunks.get(i);
+                meta.structBegin();
+                meta.fieldI64(2, chunk.offset);
+                meta.fieldStructBegin(3);
+                {
+                    meta.fieldI32(1, column.type.id);
+                    meta.fieldListBegin(2, ThriftWriter.TYPE_I32, 2);
+                    meta.writeI32(ENCODING_PLAIN);
+                    meta.writeI32(ENCODING_RLE);
+                    meta.fieldListBegin(3, ThriftWriter.TYPE_BINARY, 1);
+                    meta.writeString(column.name);
+                    meta.fieldI32(4, compression.id);
+                    meta.fieldI64(5, chunk.valueCount);
+                    meta.fieldI64(6, chunk.uncompressedSize);
+                    meta.fieldI64(7, chunk.compressedSize);
+                    meta.fieldI64(9, chunk.offset);
+                }
+                meta.structEnd();
+                meta.structEnd();
+            }
+            meta.fieldI64(2, rowGroup.totalByteSize);
+            meta.fieldI64(3, rowGroup.rowCount);
+            meta.structEnd();
+        }
+        meta.fieldString(6, CREATED_BY);
+        meta.structEnd();
+    }
+
+    private void writeBytes(byte[] data, int offset, int length) throws IOException {
+        out.write(data, offset, length);
+        position += length;
+    }
+
+    private static class Column {
+        private final String name;
+        private final PhysicalType type;
+        private final int convertedType;
+        private final int precision;
+        private final int scale;
+        private final BitBuilder definitions = new BitBuilder();
+        private final BitBuilder booleans = new BitBuilder();
+        private final ByteBuilder values = new ByteBuilder();
+
+        Column(String name, PhysicalType type, int convertedType, int precision, int scale) {
+            this.name = name;
+            this.type = type;
+            this.convertedType = convertedType;
+            this.precision = precision;
+            this.scale = scale;
+        }
+    }
+
+    private static class RowGroup {
+        private final long rowCount;
+        private final List<ColumnChunk> chunks = new ArrayList<>();
+        private long totalByteSize;
+
+        RowGroup(long rowCount) {
+            this.rowCount = rowCount;
+        }
+    }
+
+    private static class ColumnChunk {
+        private long offset;
+        private long valueCount;
+        private long uncompressedSize;
+        private long compressedSize;
+    }
+
+    /**
+     * Growable byte array with little-endian and varint encoding
+     */
+    private static class ByteBuilder extends OutputStream {
+        private byte[] data = new byte[1024];
+        private int size;
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            data[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, data, size, len);
+            size += len;
+        }
+
+        void writeIntLE(int value) {
+            ensureCapacity(4);
+            data[size++] = (byte) value;
+            data[size++] = (byte) (value >>> 8);
+            data[size++] = (byte) (value >>> 16);
+            data[size++] = (byte) (value >>> 24);
+        }
+
+        void writeLongLE(long value) {
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) {
+                data[size++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensureCapacity(int count) {
+            if (size + count > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + count));
+            }
+        }
+    }
+
+    /**
+     * Bits packed LSB first, as required by both PLAIN boolean and bit-packed RLE encodings
+     */
+    private static class BitBuilder {
+        private byte[] data = new byte[128];
+        private int count;
+
+        void add(boolean value) {
+            int index = count >>> 3;
+            if (index == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            if ((count & 7) == 0) {
+                data[index] = 0;
+            }
+            if (value) {
+                data[index] |= 1 << (count & 7);
+            }
+            count++;
+        }
+
+        int getByteCount() {
+            return (count + 7) >>> 3;
+        }
+
+        void reset() {
+            count = 0;
+        }
+    }
+
+    /**
+     * Thrift compact protocol encoder
+     */
+    private static class ThriftWriter {
+        static final int TYPE_I32 = 5;
+        static final int TYPE_I64 = 6;
+        static final int TYPE_BINARY = 8;
+        static final int TYPE_LIST = 9;
+        static final int TYPE_STRUCT = 12;
+
+        private final ByteBuilder buffer = new ByteBuilder();
+        private int[] fieldStack = new int[8];
+        private int depth;
+        private int lastFieldId;
+
+        void reset() {
+            buffer.reset();
+            depth = 0;
+            lastFieldId = 0;
+        }
+
+        void structBegin() {
+            if (depth == fieldStack.length) {
+                fieldStack = Arrays.copyOf(fieldStack, depth * 2);
+            }
+            fieldStack[depth++] = lastFieldId;
+            lastFieldId = 0;
+        }
+
+        void structEnd() {
+            buffer.write(0);
+            lastFieldId = fieldStack[--depth];
+        }
+
+        void fieldI32(int id, int value) {
+            fieldHeader(id, TYPE_I32);
+            writeI32(value);
+        }
+
+        void fieldI64(int id, long value) {
+            fieldHeader(id, TYPE_I64);
+            buffer.writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void fieldString(int id, String value) {
+            fieldHeader(id, TYPE_BINARY);
+            writeString(value);
+        }
+
+        void fieldStructBegin(int id) {
+            fieldHeader(id, TYPE_STRUCT);
+            structBegin();
+        }
+
+        void fieldListBegin(int id, int elementType, int size) {
+            fieldHeader(id, TYPE_LIST);
+            if (size < 15) {
+                buffer.write((size << 4) | elementType);
+            } else {
+                buffer.write(0xF0 | elementType);
+                buffer.writeVarint(size);
+            }
+        }
+
+        void writeI32(int value) {
+            buffer.writeVarint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.writeVarint(bytes.length);
+            buffer.write(bytes, 0, bytes.length);
+        }
+
+        private void fieldHeader(int id, int type) {
+            int delta = id - lastFieldId;
+            if (delta > 0 && delta <= 15) {
+                buffer.write((delta << 4) | type);
+            } else {
+                buffer.write(type);
+                writeI32(id);
+            }
+            lastFieldId = id;
+        }
+    }
+
+}
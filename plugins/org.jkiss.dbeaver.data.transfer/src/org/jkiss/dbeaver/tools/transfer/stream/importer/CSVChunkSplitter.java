@@ -0,0 +1,137 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer.stream.importer;
+
+import org.jkiss.code.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongPredicate;
+
+/**
+ * Splits CSV file into chunks which end on record boundaries.
+ *
+ * Scans raw bytes and tracks quote state the same way as CSVParser does, so line breaks inside
+ * quoted values never become chunk boundaries. Works only for charsets where ASCII bytes can't
+ * be a part of multi-byte characters (UTF-8 and single-byte charsets).
+ */
+public class CSVChunkSplitter {
+
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private static final int PENDING_NONE = 0;
+    private static final int PENDING_QUOTE = 1;
+    private static final int PENDING_ESCAPE = 2;
+
+    private final int delimiter;
+    private final int quoteChar;
+    private final int escapeChar;
+
+    public CSVChunkSplitter(char delimiter, char quoteChar, char escapeChar) {
+        this.delimiter = delimiter;
+        this.quoteChar = quoteChar;
+        this.escapeChar = escapeChar;
+    }
+
+    public static boolean isSupported(@NotNull Charset charset, char delimiter, char quoteChar, char escapeChar) {
+        if (delimiter >= 0x80 || quoteChar >= 0x80 || escapeChar >= 0x80) {
+            return false;
+        }
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) ||
+            (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f);
+    }
+
+    /**
+     * Reads the whole stream and reports offsets of chunk ends.
+     * Each chunk (except the last one) is at least chunkSize bytes long and ends right after a record delimiter.
+     * The last reported offset is the stream length.
+     *
+     * @param chunkHandler receives chunk end offset. Returns false to stop splitting.
+     */
+    public void split(@NotNull InputStream input, long chunkSize, @NotNull LongPredicate chunkHandler) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        boolean inQuotes = false, inField = false;
+        int pending = PENDING_NONE;
+        boolean pendingContext = false;
+        boolean recordEnded = false, lastCR = false;
+        long offset = 0, nextBoundary = chunkSize;
+
+        for (boolean firstBuffer = true; ; firstBuffer = false) {
+            int count = input.read(buffer);
+            if (count < 0) {
+                break;
+            }
+            int start = 0;
+            if (firstBuffer && count >= UTF8_BOM.length &&
+                buffer[0] == UTF8_BOM[0] && buffer[1] == UTF8_BOM[1] && buffer[2] == UTF8_BOM[2])
+            {
+                // BOM is removed by reader so it doesn't affect field state
+                start = UTF8_BOM.length;
+            }
+            for (int i = start; i < count; i++) {
+                int b = buffer[i];
+                if (recordEnded && !(lastCR && b == '\n')) {
+                    // New record starts here
+                    recordEnded = false;
+                    long position = offset + i;
+                    if (position >= nextBoundary) {
+                        if (!chunkHandler.test(position)) {
+                            return;
+                        }
+                        nextBoundary = position + chunkSize;
+                    }
+                }
+                lastCR = false;
+                if (pending != PENDING_NONE) {
+                    int prevPending = pending;
+                    pending = PENDING_NONE;
+                    if (pendingContext && (b == quoteChar || (prevPending == PENDING_ESCAPE && b == escapeChar))) {
+                        // Escaped character
+                        continue;
+                    }
+                    if (prevPending == PENDING_QUOTE) {
+                        inQuotes = !inQuotes;
+                    }
+                }
+                if (b == '\n' || b == '\r') {
+                    if (!inQuotes) {
+                        inField = false;
+                        recordEnded = true;
+                    }
+                    lastCR = b == '\r';
+                } else if (b == escapeChar) {
+                    pending = PENDING_ESCAPE;
+                    pendingContext = inQuotes || inField;
+                } else if (b == quoteChar) {
+                    pending = PENDING_QUOTE;
+                    pendingContext = inQuotes || inField;
+                    inField = !inField;
+                } else if (b == delimiter && !inQuotes) {
+                    inField = false;
+                } else {
+                    inField = true;
+                }
+            }
+            offset += count;
+        }
+        chunkHandler.test(offset);
+    }
+
+}
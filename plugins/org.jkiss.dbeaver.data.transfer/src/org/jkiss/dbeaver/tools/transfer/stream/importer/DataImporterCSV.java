@@ -16,6 +16,8 @@
  */
 package org.jkiss.dbeaver.tools.transfer.stream.importer;
 
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
@@ -27,14 +29,17 @@ import org.jkiss.dbeaver.model.exec.DBCExecutionContext;
 import org.jkiss.dbeaver.model.exec.DBCExecutionPurpose;
 import org.jkiss.dbeaver.model.exec.DBCSession;
 import org.jkiss.dbeaver.model.impl.local.LocalStatement;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
 import org.jkiss.dbeaver.tools.transfer.IDataTransferConsumer;
+import org.jkiss.dbeaver.tools.transfer.database.DatabaseTransferConsumer;
 import org.jkiss.dbeaver.tools.transfer.database.DatabaseTransferUtils;
 import org.jkiss.dbeaver.tools.transfer.stream.*;
 import org.jkiss.dbeaver.utils.GeneralUtils;
 import org.jkiss.utils.CommonUtils;
 import org.jkiss.utils.Pair;
 import org.jkiss.utils.csv.CSVReader;
+import org.jkiss.utils.csv.CSVTokenizer;
 import org.jkiss.utils.io.BOMInputStream;
 
 import java.io.*;
@@ -42,6 +47,11 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * CSV importer
@@ -56,8 +66,14 @@ public class DataImporterCSV extends StreamImporterAbstract {
     private static final String PROP_NULL_STRING = "nullString";
     private static final String PROP_EMPTY_STRING_NULL = "emptyStringNull";
     private static final String PROP_ESCAPE_CHAR = "escapeChar";
+    private static final String PROP_PARALLEL_READERS = "parallelReaders";
     public static final int READ_BUFFER_SIZE = 255 * 1024;
 
+    private static final long MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long[] END_OF_CHUNKS = new long[0];
+
     public enum HeaderPosition {
         none,
         top,
@@ -170,16 +186,31 @@ public class DataImporterCSV extends StreamImporterAbstract {
     }
 
     private CSVReader openCSVReader(Reader reader, Map<String, Object> processorProperties) {
-        String delimiter = StreamTransferUtils.getDelimiterString(processorProperties, PROP_DELIMITER);
+        return new CSVReader(reader, getDelimiter(processorProperties), getQuoteChar(processorProperties), getEscapeChar(processorProperties));
+    }
+
+    private CSVTokenizer openCSVTokenizer(Reader reader, Map<String, Object> processorProperties) {
+        return new CSVTokenizer(reader, getDelimiter(processorProperties), getQuoteChar(processorProperties), getEscapeChar(processorProperties));
+    }
+
+    private static char getDelimiter(Map<String, Object> processorProperties) {
+        return StreamTransferUtils.getDelimiterString(processorProperties, PROP_DELIMITER).charAt(0);
+    }
+
+    private static char getQuoteChar(Map<String, Object> processorProperties) {
         String quoteChar = CommonUtils.toString(processorProperties.get(PROP_QUOTE_CHAR));
         if (CommonUtils.isEmpty(quoteChar)) {
             quoteChar = "'";
         }
+        return quoteChar.charAt(0);
+    }
+
+    private static char getEscapeChar(Map<String, Object> processorProperties) {
         String escapeChar = CommonUtils.toString(processorProperties.get(PROP_ESCAPE_CHAR));
         if (CommonUtils.isEmpty(escapeChar)) {
             escapeChar = "\\";
         }
-        return new CSVReader(reader, delimiter.charAt(0), quoteChar.charAt(0), escapeChar.charAt(0));
+        return escapeChar.charAt(0);
     }
 
     private Reader openStreamReader(InputStream inputStream, Map<String, Object> processorProperties, boolean useBufferedStream) throws UnsupportedEncodingException {
@@ -215,8 +246,7 @@ public class DataImporterCSV extends StreamImporterAbstract {
         StreamEntityMapping entityMapping = site.getSourceObject();
         Map<String, Object> properties = site.getProcessorProperties();
         HeaderPosition headerPosition = getHeaderPosition(properties);
-        boolean emptyStringNull = CommonUtils.getBoolean(properties.get(PROP_EMPTY_STRING_NULL), false);
-        String nullValueMark = CommonUtils.toString(properties.get(PROP_NULL_STRING));
+        int maxRows = site.getSettings().getMaxRows();
 
         DBCExecutionContext context = streamDataSource.getDefaultInstance().getDefaultContext(monitor, false);
         try (DBCSession producerSession = context.openSession(monitor, DBCExecutionPurpose.UTIL, "Transfer stream data")) {
@@ -227,62 +257,16 @@ public class DataImporterCSV extends StreamImporterAbstract {
 
             applyTransformHints(resultSet, consumer, properties, PROP_TIMESTAMP_FORMAT, PROP_TIMESTAMP_ZONE);
 
-            try (Reader reader = openStreamReader(inputStream, properties, true)) {
-                try (CSVReader csvReader = openCSVReader(reader, properties)) {
-
-                    int maxRows = site.getSettings().getMaxRows();
-                    int targetAttrSize = entityMapping.getStreamColumns().size();
-                    boolean headerRead = false;
-                    for (int lineNum = 0; ; ) {
-                        if (monitor.isCanceled()) {
-                            break;
-                        }
-                        String[] line = csvReader.readNext();
-                        if (line == null) {
-                            break;
-                        }
-                        if (line.length == 0) {
-                            continue;
-                        }
-                        if (headerPosition != HeaderPosition.none && !headerRead) {
-                            // First line is a header
-                            headerRead = true;
-                            continue;
-                        }
-                        if (maxRows > 0 && lineNum >= maxRows) {
-                            break;
-                        }
-
-                        if (line.length < targetAttrSize) {
-                            // Stream row may be shorter than header
-                            String[] newLine = new String[targetAttrSize];
-                            System.arraycopy(line, 0, newLine, 0, line.length);
-                            for (int i = line.length; i < targetAttrSize; i++) {
-                                newLine[i] = null;
-                            }
-                            line = newLine;
-                        }
-                        if (emptyStringNull) {
-                            for (int i = 0; i < line.length; i++) {
-                                if ("".equals(line[i])) {
-                                    line[i] = null;
-                                }
-                            }
-                        }
-                        if (!CommonUtils.isEmpty(nullValueMark)) {
-                            for (int i = 0; i < line.length; i++) {
-                                if (nullValueMark.equals(line[i])) {
-                                    line[i] = null;
-                                }
-                            }
-                        }
-
-                        resultSet.setStreamRow(line);
-                        consumer.fetchRow(producerSession, resultSet);
-                        lineNum++;
-
-                        if (DBFetchProgress.monitorFetchProgress(lineNum)) {
-                            monitor.subTask(lineNum + " rows processed");
+            try {
+                int readerCount = getParallelReaderCount(consumer, properties, maxRows);
+                if (readerCount > 1) {
+                    new ParallelImport(entityMapping.getInputFile(), readerCount).run(
+                        monitor, streamDataSource, producerSession, resultSet, (DatabaseTransferConsumer) consumer);
+                } else {
+                    try (Reader reader = openStreamReader(inputStream, properties, true)) {
+                        try (CSVTokenizer tokenizer = openCSVTokenizer(reader, properties)) {
+                            importRecords(monitor, producerSession, resultSet, consumer, tokenizer,
+                                headerPosition != HeaderPosition.none, maxRows, new AtomicLong());
                         }
                     }
                 }
@@ -299,4 +283,327 @@ public class DataImporterCSV extends StreamImporterAbstract {
 
     }
 
+    private void importRecords(
+        @NotNull DBRProgressMonitor monitor,
+        @NotNull DBCSession session,
+        @NotNull StreamTransferResultSet resultSet,
+        @NotNull IDataTransferConsumer consumer,
+        @NotNull CSVTokenizer tokenizer,
+        boolean skipHeader,
+        int maxRows,
+        @NotNull AtomicLong totalRows) throws IOException, DBException
+    {
+        Map<String, Object> properties = getSite().getProcessorProperties();
+        boolean emptyStringNull = CommonUtils.getBoolean(properties.get(PROP_EMPTY_STRING_NULL), false);
+        String nullValueMark = CommonUtils.nullIfEmpty(CommonUtils.toString(properties.get(PROP_NULL_STRING)));
+        int targetAttrSize = getSite().getSourceObject().getStreamColumns().size();
+        boolean headerRead = false;
+        for (int lineNum = 0; ; ) {
+            if (monitor.isCanceled()) {
+                break;
+            }
+            if (!tokenizer.nextRecord()) {
+                break;
+            }
+            int fieldCount = tokenizer.getFieldCount();
+            if (fieldCount == 0) {
+                continue;
+            }
+            if (skipHeader && !headerRead) {
+                // First line is a header
+                headerRead = true;
+                continue;
+            }
+            if (maxRows > 0 && lineNum >= maxRows) {
+                break;
+            }
+
+            // Stream row may be shorter than header
+            String[] line = new String[Math.max(fieldCount, targetAttrSize)];
+            for (int i = 0; i < fieldCount; i++) {
+                // Null values are checked on the tokenizer buffer, so no strings are created for them
+                if ((emptyStringNull && tokenizer.getLength(i) == 0) || (nullValueMark != null && tokenizer.fieldEquals(i, nullValueMark))) {
+                    continue;
+                }
+                line[i] = tokenizer.getString(i);
+            }
+
+            resultSet.setStreamRow(line);
+            consumer.fetchRow(session, resultSet);
+            lineNum++;
+
+            long rowCount = totalRows.incrementAndGet();
+            if (DBFetchProgress.monitorFetchProgress(rowCount)) {
+                monitor.subTask(rowCount + " rows processed");
+            }
+        }
+    }
+
+    private int getParallelReaderCount(@NotNull IDataTransferConsumer consumer, @NotNull Map<String, Object> properties, int maxRows) {
+        int readerCount = CommonUtils.toInt(properties.get(PROP_PARALLEL_READERS), 1);
+        if (readerCount < 2 || maxRows > 0) {
+            return 1;
+        }
+        if (!(consumer instanceof DatabaseTransferConsumer) || !((DatabaseTransferConsumer) consumer).isParallelLoadSupported()) {
+            log.debug("Parallel CSV import requires separate target connections - fallback to single reader");
+            return 1;
+        }
+        File inputFile = getSite().getSourceObject().getInputFile();
+        if (inputFile == null || !inputFile.isFile() || inputFile.length() < MIN_CHUNK_SIZE * 2) {
+            return 1;
+        }
+        Charset charset;
+        try {
+            charset = Charset.forName(CommonUtils.toString(properties.get(PROP_ENCODING), GeneralUtils.UTF8_ENCODING));
+        } catch (IllegalArgumentException e) {
+            return 1;
+        }
+        if (!CSVChunkSplitter.isSupported(charset, getDelimiter(properties), getQuoteChar(properties), getEscapeChar(properties))) {
+            log.debug("File '" + inputFile.getName() + "' can't be split with encoding " + charset.name() + " - fallback to single reader");
+            return 1;
+        }
+        return readerCount;
+    }
+
+    /**
+     * Imports file chunks simultaneously.
+     *
+     * File is split on record boundaries by a background job. Chunks are parsed by reader jobs,
+     * each of them loads rows with its own consumer (and target connection). The primary consumer
+     * reads chunks in the caller thread. Rows order in the target is not preserved.
+     */
+    private class ParallelImport {
+        private final File inputFile;
+        private final int readerCount;
+        private final BlockingQueue<long[]> chunks = new LinkedBlockingQueue<>();
+        private final AtomicLong totalRows = new AtomicLong();
+        private final CountDownLatch jobsFinished;
+        private final List<AbstractJob> jobs = new ArrayList<>();
+        private volatile boolean canceled;
+        private volatile Throwable importError;
+
+        ParallelImport(@NotNull File inputFile, int readerCount) {
+            this.inputFile = inputFile;
+            this.readerCount = readerCount;
+            // Split job and additional readers
+            this.jobsFinished = new CountDownLatch(readerCount);
+        }
+
+        void run(
+            @NotNull DBRProgressMonitor monitor,
+            @NotNull DBPDataSource streamDataSource,
+            @NotNull DBCSession session,
+            @NotNull StreamTransferResultSet resultSet,
+            @NotNull DatabaseTransferConsumer consumer) throws DBException
+        {
+            List<DatabaseTransferConsumer> readerConsumers = new ArrayList<>();
+            jobs.add(new SplitJob());
+            for (int i = 1; i < readerCount; i++) {
+                DatabaseTransferConsumer readerConsumer = consumer.createParallelConsumer();
+                readerConsumers.add(readerConsumer);
+                jobs.add(new ChunkReadJob(i, streamDataSource, readerConsumer));
+            }
+            for (AbstractJob job : jobs) {
+                job.schedule();
+            }
+            try {
+                readChunks(monitor, session, resultSet, consumer);
+            } catch (Throwable e) {
+                setError(e);
+            }
+            try {
+                while (!jobsFinished.await(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    if (monitor.isCanceled()) {
+                        cancel();
+                    }
+                }
+            } catch (InterruptedException e) {
+                cancel();
+            }
+            for (DatabaseTransferConsumer readerConsumer : readerConsumers) {
+                consumer.getStatistics().accumulate(readerConsumer.getStatistics());
+            }
+            if (importError != null) {
+                throw new DBException("Error importing CSV file chunk", importError);
+            }
+        }
+
+        private void readChunks(
+            @NotNull DBRProgressMonitor monitor,
+            @NotNull DBCSession session,
+            @NotNull StreamTransferResultSet resultSet,
+            @NotNull DatabaseTransferConsumer consumer) throws IOException, DBException, InterruptedException
+        {
+            Map<String, Object> properties = getSite().getProcessorProperties();
+            boolean skipHeader = getHeaderPosition(properties) != HeaderPosition.none;
+            while (!canceled && !monitor.isCanceled()) {
+                long[] chunk = chunks.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    continue;
+                }
+                if (chunk == END_OF_CHUNKS) {
+                    break;
+                }
+                try (FileInputStream chunkStream = new FileInputStream(inputFile)) {
+                    chunkStream.getChannel().position(chunk[0]);
+                    try (Reader reader = openStreamReader(new ChunkInputStream(chunkStream, chunk[1] - chunk[0]), properties, true)) {
+                        try (CSVTokenizer tokenizer = openCSVTokenizer(reader, properties)) {
+                            importRecords(monitor, session, resultSet, consumer, tokenizer, skipHeader && chunk[0] == 0, -1, totalRows);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void setError(@NotNull Throwable error) {
+            if (!canceled) {
+                log.debug("Error importing CSV file chunk", error);
+                importError = error;
+            }
+            cancel();
+        }
+
+        private void cancel() {
+            canceled = true;
+            for (AbstractJob job : jobs) {
+                job.cancel();
+            }
+        }
+
+        private class SplitJob extends AbstractJob {
+            SplitJob() {
+                super("Split " + inputFile.getName());
+                setUser(false);
+                setSystem(true);
+            }
+
+            @Override
+            protected IStatus run(DBRProgressMonitor monitor) {
+                Map<String, Object> properties = getSite().getProcessorProperties();
+                long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, inputFile.length() / (readerCount * 4L)));
+                CSVChunkSplitter splitter = new CSVChunkSplitter(getDelimiter(properties), getQuoteChar(properties), getEscapeChar(properties));
+                long[] chunkStart = new long[1];
+                try (InputStream inputStream = new FileInputStream(inputFile)) {
+                    splitter.split(inputStream, chunkSize, chunkEnd -> {
+                        if (canceled || monitor.isCanceled()) {
+                            return false;
+                        }
+                        if (chunkEnd > chunkStart[0]) {
+                            chunks.add(new long[]{chunkStart[0], chunkEnd});
+                            chunkStart[0] = chunkEnd;
+                        }
+                        return true;
+                    });
+                } catch (Throwable e) {
+                    setError(e);
+                } finally {
+                    for (int i = 0; i < readerCount; i++) {
+                        chunks.add(END_OF_CHUNKS);
+                    }
+                    jobsFinished.countDown();
+                }
+                return Status.OK_STATUS;
+            }
+        }
+
+        private class ChunkReadJob extends AbstractJob {
+            private final DBPDataSource streamDataSource;
+            private final DatabaseTransferConsumer consumer;
+
+            ChunkReadJob(int readerNumber, @NotNull DBPDataSource streamDataSource, @NotNull DatabaseTransferConsumer consumer) {
+                super("Import " + inputFile.getName() + " (reader " + (readerNumber + 1) + ")");
+                this.streamDataSource = streamDataSource;
+                this.consumer = consumer;
+                setUser(false);
+                setSystem(true);
+            }
+
+            @Override
+            protected IStatus run(DBRProgressMonitor monitor) {
+                try {
+                    DBCExecutionContext context = streamDataSource.getDefaultInstance().getDefaultContext(monitor, false);
+                    try (DBCSession session = context.openSession(monitor, DBCExecutionPurpose.UTIL, "Transfer stream data")) {
+                        LocalStatement localStatement = new LocalStatement(session, "SELECT * FROM Stream");
+                        StreamTransferResultSet resultSet = new StreamTransferResultSet(session, localStatement, getSite().getSourceObject());
+                        // Non-zero offset: target was already prepared (truncated) by the primary consumer
+                        consumer.fetchStart(session, resultSet, 1, -1);
+                        try {
+                            applyTransformHints(resultSet, consumer, getSite().getProcessorProperties(), PROP_TIMESTAMP_FORMAT, PROP_TIMESTAMP_ZONE);
+                            readChunks(monitor, session, resultSet, consumer);
+                        } finally {
+                            try {
+                                consumer.fetchEnd(session, resultSet);
+                            } finally {
+                                consumer.close();
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    setError(e);
+                } finally {
+                    jobsFinished.countDown();
+                }
+                return Status.OK_STATUS;
+            }
+        }
+    }
+
+    /**
+     * Reads a limited number of bytes from the underlying stream. Doesn't close it.
+     */
+    private static class ChunkInputStream extends FilterInputStream {
+        private long remaining;
+
+        ChunkInputStream(@NotNull InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(@NotNull byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = in.read(b, off, (int) Math.min(len, remaining));
+            if (count > 0) {
+                remaining -= count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // Underlying stream is closed by the owner
+        }
+    }
+
 }
@@ -147,6 +147,12 @@ public class DiagramObjectCollector {
         throws DBException
     {
         Collection<DBSEntity> tables = collectTables(monitor, roots, settings, showViews);
+        try {
+            // Read columns of all tables at once instead of a query per table
+            DBStructUtils.cacheEntityAttributes(monitor, tables);
+        } catch (DBException e) {
+            log.debug("Error caching table columns: " + e.getMessage());
+        }
         for (DBSEntity table : tables) {
             if (DBUtils.isHiddenObject(table)) {
                 // Skip hidden tables
@@ -0,0 +1,270 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ext.mssql.model;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPEvaluationContext;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDContent;
+import org.jkiss.dbeaver.model.data.DBDValue;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCSession;
+import org.jkiss.dbeaver.model.struct.DBSAttributeBase;
+import org.jkiss.dbeaver.model.struct.DBSDataBulkLoader;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.dbeaver.model.struct.DBSEntity;
+import org.jkiss.dbeaver.utils.ContentUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.*;
+
+/**
+ * Bulk loader based on SQLServerBulkCopy (Microsoft JDBC driver).
+ *
+ * Rows are buffered and written to the server by the bulk copy API on each flush.
+ * Driver classes are accessed with reflection, rows are passed via a proxy of the driver bulk data interface.
+ */
+public class SQLServerBulkCopyLoader implements DBSDataBulkLoader, DBSDataBulkLoader.BulkLoadManager {
+
+    private static final Log log = Log.getLog(SQLServerBulkCopyLoader.class);
+
+    private final SQLServerDataSource dataSource;
+    private DBSAttributeBase[] attributes;
+    private Object bulkCopy;
+    private Method writeToServerMethod;
+    private Class<?> bulkDataInterface;
+    private final List<Object[]> rows = new ArrayList<>();
+    private long rowCount;
+
+    public SQLServerBulkCopyLoader(SQLServerDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @NotNull
+    @Override
+    public BulkLoadManager createBulkLoad(
+        @NotNull DBCSession session,
+        @NotNull DBSDataContainer dataContainer,
+        @NotNull DBSAttributeBase[] attributes,
+        @NotNull DBCExecutionSource source,
+        int batchSize,
+        Map<String, Object> options) throws DBCException
+    {
+        if (!(dataContainer instanceof DBSEntity)) {
+            throw new DBCException("Bulk copy can't be used for " + dataContainer.getName());
+        }
+        this.attributes = attributes;
+        try {
+            // Use reflection to create bulk copy
+            Connection connection = ((JDBCSession) session).getOriginal();
+            ClassLoader driverClassLoader = connection.getClass().getClassLoader();
+
+            Class<?> bulkCopyClass = Class.forName("com.microsoft.sqlserver.jdbc.SQLServerBulkCopy", true, driverClassLoader);
+            Class<?> optionsClass = Class.forName("com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions", true, driverClassLoader);
+
+            bulkCopy = bulkCopyClass.getConstructor(Connection.class).newInstance(connection);
+
+            Object copyOptions = optionsClass.getConstructor().newInstance();
+            optionsClass.getMethod("setBatchSize", Integer.TYPE).invoke(copyOptions, batchSize);
+            optionsClass.getMethod("setBulkCopyTimeout", Integer.TYPE).invoke(copyOptions, 0);
+            // Insert NULLs as is (like regular INSERT does)
+            optionsClass.getMethod("setKeepNulls", Boolean.TYPE).invoke(copyOptions, true);
+            boolean hasIdentity = false;
+            for (DBSAttributeBase attr : attributes) {
+                if (attr.isAutoGenerated()) {
+                    hasIdentity = true;
+                    break;
+                }
+            }
+            optionsClass.getMethod("setKeepIdentity", Boolean.TYPE).invoke(copyOptions, hasIdentity);
+            bulkCopyClass.getMethod("setBulkCopyOptions", optionsClass).invoke(bulkCopy, copyOptions);
+
+            bulkCopyClass.getMethod("setDestinationTableName", String.class).invoke(
+                bulkCopy, DBUtils.getObjectFullName(dataContainer, DBPEvaluationContext.DML));
+            Method addColumnMapping = bulkCopyClass.getMethod("addColumnMapping", Integer.TYPE, String.class);
+            for (int i = 0; i < attributes.length; i++) {
+                addColumnMapping.invoke(bulkCopy, i + 1, attributes[i].getName());
+            }
+
+            // ISQLServerBulkData was introduced in driver 7.x. Older drivers use ISQLServerBulkRecord.
+            for (Method method : bulkCopyClass.getMethods()) {
+                if (method.getName().equals("writeToServer") && method.getParameterCount() == 1) {
+                    Class<?> paramType = method.getParameterTypes()[0];
+                    if (paramType.getName().endsWith(".ISQLServerBulkData") ||
+                        (writeToServerMethod == null && paramType.getName().endsWith(".ISQLServerBulkRecord")))
+                    {
+                        writeToServerMethod = method;
+                        bulkDataInterface = paramType;
+                    }
+                }
+            }
+            if (writeToServerMethod == null) {
+                throw new DBCException("Bulk copy API is not supported by the driver");
+            }
+        } catch (DBCException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DBCException("Can't instantiate SQLServerBulkCopy", e);
+        }
+        return this;
+    }
+
+    @Override
+    public void addRow(@NotNull DBCSession session, @NotNull Object[] attributeValues) throws DBCException {
+        Object[] row = new Object[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            Object value = attributeValues[i];
+            if (DBUtils.isNullValue(value)) {
+                value = null;
+            } else if (value instanceof DBDContent) {
+                DBDContent content = (DBDContent) value;
+                if (ContentUtils.isTextContent(content)) {
+                    value = ContentUtils.getContentStringValue(session.getProgressMonitor(), content);
+                } else {
+                    value = ContentUtils.getContentBinaryValue(session.getProgressMonitor(), content);
+                }
+            } else if (value instanceof DBDValue) {
+                value = ((DBDValue) value).getRawValue();
+            }
+            row[i] = value;
+        }
+        rows.add(row);
+    }
+
+    @Override
+    public void flushRows(@NotNull DBCSession session) throws DBCException {
+        if (!rows.isEmpty()) {
+            session.getProgressMonitor().subTask("Bulk copy (" + (rowCount + rows.size()) + ")");
+            try {
+                writeToServerMethod.invoke(bulkCopy, createBulkData(rows.iterator()));
+            } catch (Throwable e) {
+                if (e instanceof InvocationTargetException) {
+                    e = ((InvocationTargetException) e).getTargetException();
+                }
+                throw new DBCException("Error copying dataset on remote server", e);
+            }
+            rowCount += rows.size();
+            rows.clear();
+        }
+
+        // Commit changes
+        DBCTransactionManager txnManager = DBUtils.getTransactionManager(session.getExecutionContext());
+        if (txnManager != null && !txnManager.isAutoCommit()) {
+            txnManager.commit(session);
+        }
+    }
+
+    @Override
+    public void finishBulkLoad(@NotNull DBCSession session) throws DBCException {
+        flushRows(session);
+        log.debug("Bulk copy finished (" + rowCount + ")");
+    }
+
+    /**
+     * Creates ISQLServerBulkData (or ISQLServerBulkRecord) implementation which reads buffered rows.
+     * Column metadata comes from target attributes. Values are passed as objects, so date/time formatters
+     * (used by the driver to parse string values) are not needed.
+     */
+    private Object createBulkData(Iterator<Object[]> rowIterator) {
+        Set<Integer> ordinals = new LinkedHashSet<>();
+        for (int i = 1; i <= attributes.length; i++) {
+            ordinals.add(i);
+        }
+        Object[][] currentRow = new Object[1][];
+        return Proxy.newProxyInstance(
+            bulkDataInterface.getClassLoader(),
+            new Class[]{ bulkDataInterface },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getColumnOrdinals":
+                        return ordinals;
+                    case "getColumnName":
+                        return attributes[(Integer) args[0] - 1].getName();
+                    case "getColumnType":
+                        return attributes[(Integer) args[0] - 1].getTypeID();
+                    case "getPrecision":
+                        return getPrecision(attributes[(Integer) args[0] - 1]);
+                    case "getScale": {
+                        Integer scale = attributes[(Integer) args[0] - 1].getScale();
+                        return scale == null ? 0 : scale;
+                    }
+                    case "isAutoIncrement":
+                        return false;
+                    case "addColumnMetadata":
+                    case "setTimestampWithTimezoneFormat":
+                    case "setTimeWithTimezoneFormat":
+                        // Metadata is provided by attributes
+                        return null;
+                    case "getColumnDateTimeFormatter":
+                        return null;
+                    case "next":
+                        if (rowIterator.hasNext()) {
+                            currentRow[0] = rowIterator.next();
+                            return true;
+                        }
+                        return false;
+                    case "getRowData":
+                        return currentRow[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "DBeaver bulk data";
+                    default:
+                        // Method of a newer driver API version
+                        log.debug("Unknown bulk data method '" + method.getName() + "' - return default value");
+                        return getDefaultValue(method.getReturnType());
+                }
+            });
+    }
+
+    private static Object getDefaultValue(Class<?> type) {
+        if (type.isPrimitive() && type != Void.TYPE) {
+            // Zero value of the primitive type
+            return Array.get(Array.newInstance(type, 1), 0);
+        }
+        return null;
+    }
+
+    private static int getPrecision(DBSAttributeBase attribute) {
+        Integer precision = attribute.getPrecision();
+        if (precision != null && precision > 0) {
+            return precision;
+        }
+        long maxLength = attribute.getMaxLength();
+        return maxLength <= 0 ? 0 : (int) Math.min(maxLength, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() {
+        rows.clear();
+        if (bulkCopy != null) {
+            try {
+                bulkCopy.getClass().getMethod("close").invoke(bulkCopy);
+            } catch (Exception e) {
+                log.debug("Error closing bulk copy", e);
+            }
+            bulkCopy = null;
+        }
+    }
+}
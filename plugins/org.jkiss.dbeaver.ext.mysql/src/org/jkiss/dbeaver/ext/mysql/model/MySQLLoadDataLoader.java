@@ -0,0 +1,266 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ext.mysql.model;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPEvaluationContext;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDContent;
+import org.jkiss.dbeaver.model.data.DBDDisplayFormat;
+import org.jkiss.dbeaver.model.data.DBDValueHandler;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCSession;
+import org.jkiss.dbeaver.model.impl.jdbc.JDBCUtils;
+import org.jkiss.dbeaver.model.struct.DBSAttributeBase;
+import org.jkiss.dbeaver.model.struct.DBSDataBulkLoader;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.dbeaver.model.struct.DBSEntity;
+import org.jkiss.dbeaver.runtime.DBWorkbench;
+import org.jkiss.dbeaver.utils.ContentUtils;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Bulk loader based on LOAD DATA LOCAL INFILE.
+ *
+ * Rows are serialized in the LOAD DATA default (tab separated) format and sent in chunks.
+ * If driver supports it (MySQL Connector/J, MariaDB Connector/J 2.x) the chunk is streamed directly
+ * from memory, otherwise it is written to a temp file.
+ *
+ * Local data loading must be enabled on both sides: local_infile server variable and
+ * allowLoadLocalInfile (MySQL) or allowLocalInfile (MariaDB) driver property. Both are disabled by default
+ * in recent versions. They are checked before the load, if local loading is disabled then
+ * {@link DBCFeatureNotSupportedException} is thrown and the caller falls back to regular inserts.
+ */
+public class MySQLLoadDataLoader implements DBSDataBulkLoader, DBSDataBulkLoader.BulkLoadManager {
+
+    private static final Log log = Log.getLog(MySQLLoadDataLoader.class);
+
+    private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final byte[] NULL_VALUE = {'\\', 'N'};
+
+    private final MySQLDataSource dataSource;
+    private DBSAttributeBase[] attributes;
+    private DBDValueHandler[] valueHandlers;
+    // Query part after the file name
+    private String loadTarget;
+    private ByteArrayOutputStream chunk;
+    private int chunkRows;
+    private long rowCount;
+    private File chunkFile;
+
+    public MySQLLoadDataLoader(MySQLDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @NotNull
+    @Override
+    public BulkLoadManager createBulkLoad(
+        @NotNull DBCSession session,
+        @NotNull DBSDataContainer dataContainer,
+        @NotNull DBSAttributeBase[] attributes,
+        @NotNull DBCExecutionSource source,
+        int batchSize,
+        Map<String, Object> options) throws DBCException
+    {
+        if (!(dataContainer instanceof DBSEntity)) {
+            throw new DBCException("LOAD DATA can't be used for " + dataContainer.getName());
+        }
+        this.attributes = attributes;
+        this.valueHandlers = new DBDValueHandler[attributes.length];
+        StringBuilder columns = new StringBuilder();
+        for (int i = 0; i < attributes.length; i++) {
+            valueHandlers[i] = DBUtils.findValueHandler(session, attributes[i]);
+            if (i > 0) {
+                columns.append(",");
+            }
+            columns.append(DBUtils.getQuotedIdentifier(dataSource, attributes[i].getName()));
+        }
+        this.loadTarget = " INTO TABLE " +
+            DBUtils.getObjectFullName(dataContainer, DBPEvaluationContext.DML) +
+            " CHARACTER SET " + (dataSource.isMariaDB() || dataSource.isServerVersionAtLeast(5, 5) ? "utf8mb4" : "utf8") +
+            " (" + columns + ")";
+        checkLocalInfile((JDBCSession) session);
+        this.chunk = new ByteArrayOutputStream(1024 * 1024);
+        return this;
+    }
+
+    private void checkLocalInfile(JDBCSession session) throws DBCException {
+        String localInfile;
+        try {
+            localInfile = JDBCUtils.queryString(session, "SELECT @@local_infile");
+        } catch (SQLException e) {
+            throw new DBCFeatureNotSupportedException("Can't read local_infile server variable", e);
+        }
+        if (!"1".equals(localInfile) && !"ON".equalsIgnoreCase(localInfile)) {
+            throw new DBCFeatureNotSupportedException("LOAD DATA LOCAL is disabled on server (local_infile=" + localInfile + ")");
+        }
+        // Driver property can't be read in a portable way. Load empty data to check it.
+        try {
+            executeLoad(session, new byte[0]);
+        } catch (Exception e) {
+            close();
+            throw new DBCFeatureNotSupportedException("LOAD DATA LOCAL is disabled in driver (allowLoadLocalInfile property)", e);
+        }
+    }
+
+    @Override
+    public void addRow(@NotNull DBCSession session, @NotNull Object[] attributeValues) throws DBCException {
+        for (int i = 0; i < attributes.length; i++) {
+            if (i > 0) {
+                chunk.write('\t');
+            }
+            writeValue(session, i, attributeValues[i]);
+        }
+        chunk.write('\n');
+        chunkRows++;
+        if (chunk.size() >= MAX_CHUNK_SIZE) {
+            loadChunk(session);
+        }
+    }
+
+    private void writeValue(DBCSession session, int index, Object value) throws DBCException {
+        if (DBUtils.isNullValue(value)) {
+            chunk.write(NULL_VALUE, 0, NULL_VALUE.length);
+            return;
+        }
+        if (value instanceof DBDContent) {
+            DBDContent content = (DBDContent) value;
+            if (ContentUtils.isTextContent(content)) {
+                value = ContentUtils.getContentStringValue(session.getProgressMonitor(), content);
+            } else {
+                value = ContentUtils.getContentBinaryValue(session.getProgressMonitor(), content);
+            }
+            if (value == null) {
+                chunk.write(NULL_VALUE, 0, NULL_VALUE.length);
+                return;
+            }
+        }
+        byte[] bytes;
+        if (value instanceof byte[]) {
+            bytes = (byte[]) value;
+        } else if (value instanceof Boolean) {
+            bytes = new byte[] { (byte) ((Boolean) value ? '1' : '0') };
+        } else if (value instanceof BigDecimal) {
+            bytes = ((BigDecimal) value).toPlainString().getBytes(StandardCharsets.US_ASCII);
+        } else if (value instanceof Number) {
+            bytes = value.toString().getBytes(StandardCharsets.US_ASCII);
+        } else if (value instanceof String) {
+            bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+        } else {
+            bytes = valueHandlers[index].getValueDisplayString(attributes[index], value, DBDDisplayFormat.NATIVE).getBytes(StandardCharsets.UTF_8);
+        }
+        for (byte b : bytes) {
+            switch (b) {
+                case '\\': chunk.write('\\'); chunk.write('\\'); break;
+                case '\t': chunk.write('\\'); chunk.write('t'); break;
+                case '\n': chunk.write('\\'); chunk.write('n'); break;
+                case '\r': chunk.write('\\'); chunk.write('r'); break;
+                case 0: chunk.write('\\'); chunk.write('0'); break;
+                default: chunk.write(b); break;
+            }
+        }
+    }
+
+    @Override
+    public void flushRows(@NotNull DBCSession session) throws DBCException {
+        loadChunk(session);
+        // Commit changes
+        DBCTransactionManager txnManager = DBUtils.getTransactionManager(session.getExecutionContext());
+        if (txnManager != null && !txnManager.isAutoCommit()) {
+            txnManager.commit(session);
+        }
+    }
+
+    @Override
+    public void finishBulkLoad(@NotNull DBCSession session) throws DBCException {
+        flushRows(session);
+        log.debug("Data has been loaded (" + rowCount + ")");
+    }
+
+    private void loadChunk(DBCSession session) throws DBCException {
+        if (chunkRows == 0) {
+            return;
+        }
+        session.getProgressMonitor().subTask("Load data (" + (rowCount + chunkRows) + ")");
+        try {
+            executeLoad((JDBCSession) session, chunk.toByteArray());
+        } catch (Exception e) {
+            throw new DBCException("Error loading data on remote server", e);
+        }
+        rowCount += chunkRows;
+        chunkRows = 0;
+        chunk.reset();
+    }
+
+    private void executeLoad(JDBCSession session, byte[] data) throws Exception {
+        Connection connection = session.getOriginal();
+        try (Statement statement = connection.createStatement()) {
+            Method setStreamMethod = findStreamSetter(statement);
+            String fileName;
+            if (setStreamMethod != null) {
+                // File name is ignored when input stream is set
+                fileName = "dbeaver-stream";
+                setStreamMethod.invoke(statement, new ByteArrayInputStream(data));
+            } else {
+                if (chunkFile == null) {
+                    File tempFolder = DBWorkbench.getPlatform().getTempFolder(session.getProgressMonitor(), "mysql-load-datasets");
+                    chunkFile = new File(tempFolder, "load-" + System.currentTimeMillis() + ".tsv");  //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                try (OutputStream out = new FileOutputStream(chunkFile)) {
+                    out.write(data);
+                }
+                fileName = chunkFile.getAbsolutePath().replace('\\', '/');
+            }
+            statement.execute("LOAD DATA LOCAL INFILE '" + fileName.replace("'", "''") + "'" + loadTarget);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getTargetException();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private static Method findStreamSetter(Statement statement) {
+        try {
+            return statement.getClass().getMethod("setLocalInfileInputStream", InputStream.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        chunk = null;
+        if (chunkFile != null && chunkFile.exists()) {
+            try {
+                Files.delete(chunkFile.toPath());
+            } catch (IOException e) {
+                log.debug("Error deleting data file " + chunkFile.getAbsolutePath());
+                chunkFile.deleteOnExit();
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.jkiss.dbeaver.model.exec.*;
 import org.jkiss.dbeaver.model.exec.jdbc.*;
 import org.jkiss.dbeaver.model.exec.plan.DBCQueryPlanner;
 import org.jkiss.dbeaver.model.impl.jdbc.*;
+import org.jkiss.dbeaver.model.impl.jdbc.cache.JDBCMetadataChangeProvider;
 import org.jkiss.dbeaver.model.impl.jdbc.cache.JDBCObjectCache;
 import org.jkiss.dbeaver.model.impl.jdbc.cache.JDBCStructCache;
 import org.jkiss.dbeaver.model.meta.Association;
@@ -41,6 +42,7 @@ import org.jkiss.dbeaver.model.meta.ForTest;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
 import org.jkiss.dbeaver.model.sql.SQLConstants;
 import org.jkiss.dbeaver.model.sql.SQLState;
+import org.jkiss.dbeaver.model.struct.DBSDataBulkLoader;
 import org.jkiss.dbeaver.model.struct.DBSDataType;
 import org.jkiss.dbeaver.model.struct.DBSObject;
 import org.jkiss.dbeaver.model.struct.DBSObjectFilter;
@@ -60,7 +62,7 @@ import java.util.regex.Pattern;
 /**
  * GenericDataSource
  */
-public class OracleDataSource extends JDBCDataSource implements DBPObjectStatisticsCollector, IAdaptable {
+public class OracleDataSource extends JDBCDataSource implements DBPObjectStatisticsCollector, JDBCMetadataChangeProvider, IAdaptable {
     private static final Log log = Log.getLog(OracleDataSource.class);
 
     final public SchemaCache schemaCache = new SchemaCache();
@@ -541,6 +543,8 @@ public class OracleDataSource extends JDBCDataSource implements DBPObjectStatist
             return adapter.cast(new OracleQueryPlanner(this));
         } else if(adapter == DBAUserPasswordManager.class) {
             return adapter.cast(new OracleChangeUserPasswordManager(this));
+        } else if (adapter == DBSDataBulkLoader.class) {
+            return adapter.cast(new OracleDirectPathLoader(this));
         }
         return super.getAdapter(adapter);
     }
@@ -806,6 +810,49 @@ public class OracleDataSource extends JDBCDataSource implements DBPObjectStatist
         }
     }
 
+    @Nullable
+    @Override
+    public String getMetadataVersion(@NotNull DBRProgressMonitor monitor, @NotNull Collection<String> schemaNames) throws DBException {
+        // Last DDL time and count (changes when objects are dropped) of objects in the cached schemas and of the users.
+        // IN list is limited to 1000 items, all objects are checked for more schemas.
+        String sysPrefix = OracleUtils.getSysSchemaPrefix(this);
+        boolean filterSchemas = schemaNames.size() <= 1000;
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT (SELECT TO_CHAR(MAX(LAST_DDL_TIME),'YYYYMMDDHH24MISS') || ':' || COUNT(*) FROM ")
+            .append(sysPrefix).append("ALL_OBJECTS");
+        if (filterSchemas) {
+            if (schemaNames.isEmpty()) {
+                sql.append(" WHERE 1=0");
+            } else {
+                sql.append(" WHERE OWNER IN (");
+                for (int i = 0; i < schemaNames.size(); i++) {
+                    sql.append(i == 0 ? "?" : ",?");
+                }
+                sql.append(")");
+            }
+        }
+        sql.append("),\n(SELECT TO_CHAR(MAX(CREATED),'YYYYMMDDHH24MISS') || ':' || COUNT(*) FROM ")
+            .append(sysPrefix).append("ALL_USERS) FROM DUAL");
+        try (JDBCSession session = DBUtils.openMetaSession(monitor, this, "Read metadata version")) {
+            try (JDBCPreparedStatement dbStat = session.prepareStatement(sql.toString())) {
+                if (filterSchemas) {
+                    int index = 1;
+                    for (String schemaName : schemaNames) {
+                        dbStat.setString(index++, schemaName);
+                    }
+                }
+                try (JDBCResultSet dbResult = dbStat.executeQuery()) {
+                    if (dbResult.next()) {
+                        return dbResult.getString(1) + "/" + dbResult.getString(2);
+                    }
+                    return null;
+                }
+            }
+        } catch (SQLException e) {
+            throw new DBException("Can't read metadata version", e, this);
+        }
+    }
+
     private class OracleOutputReader implements DBCServerOutputReader {
         @Override
         public boolean isServerOutputEnabled() {
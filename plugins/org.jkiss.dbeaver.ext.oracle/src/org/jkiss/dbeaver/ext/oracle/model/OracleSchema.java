@@ -35,6 +35,7 @@ import org.jkiss.dbeaver.model.meta.Association;
 import org.jkiss.dbeaver.model.meta.Property;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
 import org.jkiss.dbeaver.model.struct.DBSEntity;
+import org.jkiss.dbeaver.model.struct.DBSEntityAttributeBatchLoader;
 import org.jkiss.dbeaver.model.struct.DBSObject;
 import org.jkiss.dbeaver.model.struct.rdb.DBSProcedureContainer;
 import org.jkiss.dbeaver.model.struct.rdb.DBSProcedureType;
@@ -50,7 +51,7 @@ import java.util.stream.Collectors;
 /**
  * OracleSchema
  */
-public class OracleSchema extends OracleGlobalObject implements DBSSchema, DBPRefreshableObject, DBPSystemObject, DBSProcedureContainer, DBPObjectStatisticsCollector
+public class OracleSchema extends OracleGlobalObject implements DBSSchema, DBPRefreshableObject, DBPSystemObject, DBSProcedureContainer, DBPObjectStatisticsCollector, DBSEntityAttributeBatchLoader
 {
     private static final Log log = Log.getLog(OracleSchema.class);
 
@@ -415,6 +416,17 @@ public class OracleSchema extends OracleGlobalObject implements DBSSchema, DBPRe
         }
     }
 
+    @Override
+    public void cacheEntityAttributes(@NotNull DBRProgressMonitor monitor, @NotNull Collection<? extends DBSEntity> entities) throws DBException {
+        List<OracleTableBase> tables = new ArrayList<>();
+        for (DBSEntity entity : entities) {
+            if (entity instanceof OracleTableBase && entity.getParentObject() == this) {
+                tables.add((OracleTableBase) entity);
+            }
+        }
+        tableCache.loadChildrenBatch(monitor, this, tables);
+    }
+
     @Override
     public synchronized DBSObject refreshObject(@NotNull DBRProgressMonitor monitor)
         throws DBException
@@ -567,6 +579,19 @@ public class OracleSchema extends OracleGlobalObject implements DBSSchema, DBPRe
         @Override
         protected JDBCStatement prepareChildrenStatement(@NotNull JDBCSession session, @NotNull OracleSchema owner, @Nullable OracleTableBase forTable)
             throws SQLException
+        {
+            return prepareColumnsStatement(session, owner, forTable == null ? null : Collections.singletonList(forTable));
+        }
+
+        @Override
+        protected JDBCStatement prepareChildrenBatchStatement(@NotNull JDBCSession session, @NotNull OracleSchema owner, @NotNull List<OracleTableBase> forTables)
+            throws SQLException
+        {
+            return prepareColumnsStatement(session, owner, forTables);
+        }
+
+        private JDBCStatement prepareColumnsStatement(@NotNull JDBCSession session, @NotNull OracleSchema owner, @Nullable List<OracleTableBase> forTables)
+            throws SQLException
         {
             String colsView;
             if (!owner.getDataSource().isViewAvailable(session.getProgressMonitor(), OracleConstants.SCHEMA_SYS, "ALL_TAB_COLS")) {
@@ -580,8 +605,16 @@ public class OracleSchema extends OracleGlobalObject implements DBSSchema, DBPRe
                     "FROM ").append(OracleUtils.getAdminAllViewPrefix(session.getProgressMonitor(), getDataSource(), colsView)).append(" c\n" +
 //                    "LEFT OUTER JOIN " + OracleUtils.getSysSchemaPrefix(getDataSource()) + "ALL_COL_COMMENTS cc ON CC.OWNER=c.OWNER AND cc.TABLE_NAME=c.TABLE_NAME AND cc.COLUMN_NAME=c.COLUMN_NAME\n" +
                     "WHERE c.OWNER=?");
-            if (forTable != null) {
-                sql.append(" AND c.TABLE_NAME=?");
+            if (forTables != null) {
+                if (forTables.size() == 1) {
+                    sql.append(" AND c.TABLE_NAME=?");
+                } else {
+                    sql.append(" AND c.TABLE_NAME IN (");
+                    for (int i = 0; i < forTables.size(); i++) {
+                        sql.append(i == 0 ? "?" : ",?");
+                    }
+                    sql.append(")");
+                }
             }
 /*
             sql.append("\nORDER BY ");
@@ -592,8 +625,10 @@ public class OracleSchema extends OracleGlobalObject implements DBSSchema, DBPRe
 */
             JDBCPreparedStatement dbStat = session.prepareStatement(sql.toString());
             dbStat.setString(1, owner.getName());
-            if (forTable != null) {
-                dbStat.setString(2, forTable.getName());
+            if (forTables != null) {
+                for (int i = 0; i < forTables.size(); i++) {
+                    dbStat.setString(i + 2, forTables.get(i).getName());
+                }
             }
             return dbStat;
         }
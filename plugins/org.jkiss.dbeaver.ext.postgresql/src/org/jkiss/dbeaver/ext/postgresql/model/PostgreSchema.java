@@ -68,7 +68,8 @@ public class PostgreSchema implements
     PostgreObject,
     PostgreScriptObject,
     PostgrePrivilegeOwner,
-    DBPScriptObjectExt2
+    DBPScriptObjectExt2,
+    DBSEntityAttributeBatchLoader
 {
 
     private static final Log log = Log.getLog(PostgreSchema.class);
@@ -383,6 +384,17 @@ public class PostgreSchema implements
         }
     }
 
+    @Override
+    public void cacheEntityAttributes(@NotNull DBRProgressMonitor monitor, @NotNull Collection<? extends DBSEntity> entities) throws DBException {
+        List<PostgreTableBase> tables = new ArrayList<>();
+        for (DBSEntity entity : entities) {
+            if (entity instanceof PostgreTableBase && entity.getParentObject() == this) {
+                tables.add((PostgreTableBase) entity);
+            }
+        }
+        getTableCache().loadChildrenBatch(monitor, this, tables);
+    }
+
     private void cacheTableInheritance(DBRProgressMonitor monitor) throws DBException {
         try (JDBCSession session = DBUtils.openMetaSession(monitor, this, "Load table inheritance info")) {
             try (JDBCPreparedStatement dbStat = session.prepareStatement(
@@ -779,6 +791,29 @@ public class PostgreSchema implements
             return dbStat;
         }
 
+        @Override
+        protected JDBCStatement prepareChildrenBatchStatement(@NotNull JDBCSession session, @NotNull PostgreTableContainer container, @NotNull List<PostgreTableBase> forTables)
+            throws SQLException {
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT c.relname,a.*,pg_catalog.pg_get_expr(ad.adbin, ad.adrelid, true) as def_value,dsc.description")
+                .append(getTableColumnsQueryExtraParameters(container.getSchema(), null))
+                .append("\nFROM pg_catalog.pg_attribute a")
+                .append("\nINNER JOIN pg_catalog.pg_class c ON (a.attrelid=c.oid)")
+                .append("\nLEFT OUTER JOIN pg_catalog.pg_attrdef ad ON (a.attrelid=ad.adrelid AND a.attnum = ad.adnum)")
+                .append("\nLEFT OUTER JOIN pg_catalog.pg_description dsc ON (c.oid=dsc.objoid AND a.attnum = dsc.objsubid)")
+                .append("\nWHERE NOT a.attisdropped AND c.oid IN (");
+            for (int i = 0; i < forTables.size(); i++) {
+                sql.append(i == 0 ? "?" : ",?");
+            }
+            sql.append(") ORDER BY a.attnum");
+
+            JDBCPreparedStatement dbStat = session.prepareStatement(sql.toString());
+            for (int i = 0; i < forTables.size(); i++) {
+                dbStat.setLong(i + 1, forTables.get(i).getObjectId());
+            }
+            return dbStat;
+        }
+
         @Override
         protected PostgreTableColumn fetchChild(@NotNull JDBCSession session, @NotNull PostgreTableContainer container, @NotNull PostgreTableBase table, @NotNull JDBCResultSet dbResult)
             throws SQLException, DBException {
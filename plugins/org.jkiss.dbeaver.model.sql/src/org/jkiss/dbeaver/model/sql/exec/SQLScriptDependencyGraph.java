@@ -0,0 +1,296 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.sql.exec;
+
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.alter.Alter;
+import net.sf.jsqlparser.statement.create.index.CreateIndex;
+import net.sf.jsqlparser.statement.create.table.CreateTable;
+import net.sf.jsqlparser.statement.create.view.AlterView;
+import net.sf.jsqlparser.statement.create.view.CreateView;
+import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.drop.Drop;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.merge.Merge;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.truncate.Truncate;
+import net.sf.jsqlparser.statement.update.Update;
+import net.sf.jsqlparser.statement.upsert.Upsert;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.sql.SQLQuery;
+import org.jkiss.dbeaver.model.sql.SQLScriptElement;
+import org.jkiss.utils.CommonUtils;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dependencies between script statements.
+ * <p>
+ * Statement depends on all previous statements which write tables it reads or writes
+ * and on all previous statements which read tables it writes.
+ * Tables are compared by name without schema, so statements on same named tables in different schemas are ordered too.
+ * Foreign keys declared by the script DDL (REFERENCES clause) link tables: DDL reads the referenced table
+ * and writes to a table also read its referenced and referencing tables.
+ * Foreign keys of existing tables are unknown to the script and aren't considered.
+ * Statements which can't be analyzed (control commands, procedural blocks, unparsed statements, SELECT INTO)
+ * are barriers: they wait for all previous statements and all following statements wait for them.
+ * <p>
+ * Statements which change session state (SET, USE, ALTER SESSION) or use temporary tables affect only
+ * the connection they run in, so script with such statements can't be spread among several connections.
+ */
+public class SQLScriptDependencyGraph {
+
+    private static final Pattern REFERENCES_PATTERN = Pattern.compile(
+        "\\bREFERENCES\\s+((?:(?:\"[^\"]+\"|`[^`]+`|\\[[^\\]]+\\]|[\\w$#]+)\\.)*(?:\"[^\"]+\"|`[^`]+`|\\[[^\\]]+\\]|[\\w$#]+))",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern SESSION_STATEMENT_PATTERN = Pattern.compile(
+        "^(?:SET|USE|RESET|ALTER\\s+SESSION|DECLARE\\s+(?:GLOBAL|LOCAL)\\s+TEMPORARY|" +
+            "CREATE\\s+(?:OR\\s+REPLACE\\s+)?(?:(?:GLOBAL|LOCAL)\\s+)?TEMP(?:ORARY)?)\\b",
+        Pattern.CASE_INSENSITIVE);
+    // SQL Server local temporary tables
+    private static final Pattern TEMP_TABLE_PATTERN = Pattern.compile("\\b(?:INTO|TABLE|FROM|JOIN|UPDATE)\\s+#", Pattern.CASE_INSENSITIVE);
+
+    private final List<SQLScriptElement> elements;
+    private final int[][] dependencies;
+    private final boolean[] barriers;
+    private final boolean sessionStatements;
+
+    private static class TableAccess {
+        private final Set<String> reads = new HashSet<>();
+        private final Set<String> writes = new HashSet<>();
+
+        boolean conflictsWith(@NotNull TableAccess previous) {
+            return intersects(previous.writes, writes) || intersects(previous.writes, reads) || intersects(previous.reads, writes);
+        }
+
+        private static boolean intersects(Set<String> set1, Set<String> set2) {
+            for (String name : set1) {
+                if (set2.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public SQLScriptDependencyGraph(@NotNull List<SQLScriptElement> elements) {
+        this.elements = elements;
+        this.dependencies = new int[elements.size()][];
+        this.barriers = new boolean[elements.size()];
+
+        boolean hasSessionStatements = false;
+        Map<String, Set<String>> references = new HashMap<>();
+        TableAccess[] accesses = new TableAccess[elements.size()];
+        int lastBarrier = -1;
+        for (int i = 0; i < elements.size(); i++) {
+            SQLScriptElement element = elements.get(i);
+            hasSessionStatements |= isSessionStatement(element);
+            TableAccess access = analyzeElement(element, references);
+            accesses[i] = access;
+            List<Integer> depends = new ArrayList<>();
+            if (access == null) {
+                barriers[i] = true;
+                for (int k = lastBarrier < 0 ? 0 : lastBarrier; k < i; k++) {
+                    depends.add(k);
+                }
+                lastBarrier = i;
+            } else {
+                if (lastBarrier >= 0) {
+                    depends.add(lastBarrier);
+                }
+                for (int k = lastBarrier + 1; k < i; k++) {
+                    if (access.conflictsWith(accesses[k])) {
+                        depends.add(k);
+                    }
+                }
+            }
+            dependencies[i] = depends.stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.sessionStatements = hasSessionStatements;
+    }
+
+    public int getSize() {
+        return elements.size();
+    }
+
+    @NotNull
+    public SQLScriptElement getElement(int index) {
+        return elements.get(index);
+    }
+
+    /**
+     * Indexes of previous statements which must be finished before the statement execution
+     */
+    @NotNull
+    public int[] getDependencies(int index) {
+        return dependencies[index];
+    }
+
+    public boolean isBarrier(int index) {
+        return barriers[index];
+    }
+
+    /**
+     * Checks whether there are at least two statements which can be executed at the same time
+     */
+    public boolean hasIndependentStatements() {
+        for (int i = 1; i < dependencies.length; i++) {
+            if (dependencies[i].length == 0 || dependencies[i][dependencies[i].length - 1] != i - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether script changes session state or uses temporary tables.
+     * Such script must run in a single connection.
+     */
+    public boolean hasSessionStatements() {
+        return sessionStatements;
+    }
+
+    private static boolean isSessionStatement(@NotNull SQLScriptElement element) {
+        if (!(element instanceof SQLQuery)) {
+            // Control commands are processed by the client
+            return false;
+        }
+        String text = element.getText().trim();
+        return SESSION_STATEMENT_PATTERN.matcher(text).find() || TEMP_TABLE_PATTERN.matcher(text).find();
+    }
+
+    @Nullable
+    private static TableAccess analyzeElement(@NotNull SQLScriptElement element, @NotNull Map<String, Set<String>> references) {
+        if (!(element instanceof SQLQuery)) {
+            return null;
+        }
+        Statement statement = ((SQLQuery) element).getStatement();
+        if (statement == null) {
+            return null;
+        }
+        TableAccess access = new TableAccess();
+        Table target;
+        if (statement instanceof Select) {
+            if (((Select) statement).getSelectBody() instanceof PlainSelect &&
+                !CommonUtils.isEmpty(((PlainSelect) ((Select) statement).getSelectBody()).getIntoTables())) {
+                return null;
+            }
+            target = null;
+        } else if (statement instanceof Insert) {
+            target = ((Insert) statement).getTable();
+        } else if (statement instanceof Update) {
+            target = ((Update) statement).getTable();
+        } else if (statement instanceof Delete) {
+            target = ((Delete) statement).getTable();
+            if (((Delete) statement).getTables() != null) {
+                for (Table table : ((Delete) statement).getTables()) {
+                    access.writes.add(getTableKey(table));
+                }
+            }
+        } else if (statement instanceof Merge) {
+            target = ((Merge) statement).getTable();
+        } else if (statement instanceof Upsert) {
+            target = ((Upsert) statement).getTable();
+        } else if (statement instanceof Truncate) {
+            target = ((Truncate) statement).getTable();
+        } else if (statement instanceof CreateTable) {
+            target = ((CreateTable) statement).getTable();
+        } else if (statement instanceof CreateIndex) {
+            target = ((CreateIndex) statement).getTable();
+            if (((CreateIndex) statement).getIndex() != null) {
+                // Index name is used by DROP INDEX
+                access.writes.add(getTableKey(CommonUtils.notEmpty(((CreateIndex) statement).getIndex().getName())));
+            }
+        } else if (statement instanceof CreateView) {
+            target = ((CreateView) statement).getView();
+        } else if (statement instanceof AlterView) {
+            target = ((AlterView) statement).getView();
+        } else if (statement instanceof Alter) {
+            target = ((Alter) statement).getTable();
+        } else if (statement instanceof Drop) {
+            String objectType = ((Drop) statement).getType();
+            if (!"TABLE".equalsIgnoreCase(objectType) && !"VIEW".equalsIgnoreCase(objectType) && !"INDEX".equalsIgnoreCase(objectType)) {
+                // Functions, procedures and other objects may be used by any statement
+                return null;
+            }
+            target = ((Drop) statement).getName();
+        } else {
+            return null;
+        }
+        if (target != null) {
+            access.writes.add(getTableKey(target));
+        } else if (!(statement instanceof Select)) {
+            return null;
+        }
+        try {
+            for (String tableName : new TablesNamesFinder().getTableList(statement)) {
+                access.reads.add(getTableKey(tableName));
+            }
+        } catch (UnsupportedOperationException e) {
+            // Table names finder doesn't support DDL statements. Plain DDL reads nothing besides its target.
+            if ((statement instanceof CreateTable && ((CreateTable) statement).getSelect() != null) ||
+                statement instanceof CreateView || statement instanceof AlterView)
+            {
+                return null;
+            }
+        }
+        if (statement instanceof CreateTable || statement instanceof Alter) {
+            // Foreign keys
+            Matcher matcher = REFERENCES_PATTERN.matcher(element.getText());
+            while (matcher.find()) {
+                String referencedTable = getTableKey(matcher.group(1));
+                access.reads.add(referencedTable);
+                for (String table : access.writes) {
+                    references.computeIfAbsent(table, k -> new HashSet<>()).add(referencedTable);
+                    references.computeIfAbsent(referencedTable, k -> new HashSet<>()).add(table);
+                }
+            }
+        } else {
+            // Writes check referenced rows and cascade to referencing rows
+            for (String table : access.writes.toArray(new String[0])) {
+                Set<String> linkedTables = references.get(table);
+                if (linkedTables != null) {
+                    access.reads.addAll(linkedTables);
+                }
+            }
+        }
+        return access;
+    }
+
+    @NotNull
+    private static String getTableKey(@NotNull Table table) {
+        return getTableKey(CommonUtils.notEmpty(table.getName()));
+    }
+
+    // Last name part without quotes
+    @NotNull
+    private static String getTableKey(@NotNull String tableName) {
+        int divPos = tableName.lastIndexOf('.');
+        String name = divPos < 0 ? tableName : tableName.substring(divPos + 1);
+        if (name.length() > 1 && "\"`[".indexOf(name.charAt(0)) >= 0) {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+}
@@ -46,6 +46,10 @@ public class SQLParserContext {
     @Nullable
     private DBPPreferenceStore preferenceStore;
 
+    private boolean scriptIndexEnabled;
+    // Indexes by script mode and delimiters keeping
+    private final SQLScriptIndex[] scriptIndexes = new SQLScriptIndex[4];
+
     public SQLParserContext(@Nullable DBPDataSource dataSource, @NotNull SQLSyntaxManager syntaxManager, @NotNull SQLRuleManager ruleManager, @NotNull IDocument document) {
         this.dataSource = dataSource;
         this.syntaxManager = syntaxManager;
@@ -99,6 +103,36 @@ public class SQLParserContext {
         this.preferenceStore = preferenceStore;
     }
 
+    /**
+     * Enables index of script elements shared by all parser calls with this context.
+     * Index is updated incrementally on document changes, so context must be disposed after use.
+     */
+    public void enableScriptIndex() {
+        this.scriptIndexEnabled = true;
+    }
+
+    @Nullable
+    synchronized SQLScriptIndex getScriptIndex(boolean scriptMode, boolean keepDelimiters) {
+        if (!scriptIndexEnabled) {
+            return null;
+        }
+        int index = (scriptMode ? 2 : 0) + (keepDelimiters ? 1 : 0);
+        if (scriptIndexes[index] == null) {
+            scriptIndexes[index] = new SQLScriptIndex(this, scriptMode, keepDelimiters);
+        }
+        return scriptIndexes[index];
+    }
+
+    public synchronized void dispose() {
+        scriptIndexEnabled = false;
+        for (int i = 0; i < scriptIndexes.length; i++) {
+            if (scriptIndexes[i] != null) {
+                scriptIndexes[i].dispose();
+                scriptIndexes[i] = null;
+            }
+        }
+    }
+
     void startScriptEvaluation() {
         getScanner().startEval();
     }
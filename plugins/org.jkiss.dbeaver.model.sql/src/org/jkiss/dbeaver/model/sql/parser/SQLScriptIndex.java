@@ -0,0 +1,308 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.sql.parser;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.sql.SQLControlCommand;
+import org.jkiss.dbeaver.model.sql.SQLQuery;
+import org.jkiss.dbeaver.model.sql.SQLScriptElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of script elements of the whole document.
+ * <p>
+ * Document listener only records changes. Before the next lookup index drops elements touched by the changes
+ * (and one element before them, as its end may depend on the following text), shifts the following elements
+ * and parses document from the end of the last unchanged element until parsed element matches a cached one.
+ * <p>
+ * Elements are stored as prototypes, each lookup returns new element instances.
+ * Scripts which redefine statement delimiter can't be parsed from the middle, so index is disabled for them.
+ * After the next document change the whole document is parsed again, as the delimiter command may be removed.
+ */
+class SQLScriptIndex implements IDocumentListener {
+
+    private static final Log log = Log.getLog(SQLScriptIndex.class);
+
+    private final SQLParserContext context;
+    private final boolean scriptMode;
+    private final boolean keepDelimiters;
+
+    private final List<Entry> entries = new ArrayList<>();
+    // Index of the first entry after document part which must be parsed again, -1 if all entries are valid
+    private int damagedIndex = 0;
+    private boolean delimiterRedefined;
+
+    // Guarded by pendingEdits
+    private final List<Edit> pendingEdits = new ArrayList<>();
+    private int editsCount;
+
+    private static class Entry {
+        private final SQLScriptElement element;
+        private final int length;
+        private int offset;
+
+        Entry(SQLScriptElement element) {
+            this.element = element;
+            this.offset = element.getOffset();
+            this.length = element.getLength();
+        }
+
+        int getEnd() {
+            return offset + length;
+        }
+    }
+
+    private static class Edit {
+        private final int offset;
+        private final int removedLength;
+        private final int insertedLength;
+
+        Edit(int offset, int removedLength, int insertedLength) {
+            this.offset = offset;
+            this.removedLength = removedLength;
+            this.insertedLength = insertedLength;
+        }
+    }
+
+    SQLScriptIndex(@NotNull SQLParserContext context, boolean scriptMode, boolean keepDelimiters) {
+        this.context = context;
+        this.scriptMode = scriptMode;
+        this.keepDelimiters = keepDelimiters;
+        context.getDocument().addDocumentListener(this);
+    }
+
+    void dispose() {
+        context.getDocument().removeDocumentListener(this);
+    }
+
+    @Override
+    public void documentAboutToBeChanged(DocumentEvent event) {
+        // nothing
+    }
+
+    @Override
+    public void documentChanged(DocumentEvent event) {
+        synchronized (pendingEdits) {
+            pendingEdits.add(new Edit(event.getOffset(), event.getLength(), event.getText() == null ? 0 : event.getText().length()));
+            editsCount++;
+        }
+    }
+
+    /**
+     * Adds indexed elements which start at the given offset and end before the end offset.
+     * Element is taken only if all text up to the next element is in the range, as element end may depend on it.
+     * Elements are the same as {@link SQLScriptParser#parseQuery} returns when it is called sequentially from the start offset.
+     *
+     * @return offset after the last added element or -1 if index can't be used for the given start offset
+     */
+    synchronized int collectElements(int startOffset, int endOffset, @NotNull List<SQLScriptElement> result) {
+        int appliedEdits = applyPendingEdits();
+        if (damagedIndex >= 0 && !delimiterRedefined) {
+            reparseDamagedPart();
+            if (getEditsCount() != appliedEdits) {
+                // Document was changed during parsing. Parsed elements may not correspond neither old nor new text
+                entries.clear();
+                damagedIndex = 0;
+                return -1;
+            }
+        }
+        if (delimiterRedefined) {
+            return -1;
+        }
+
+        int index = findFirstStartingAfter(startOffset - 1);
+        int boundary = index == 0 ? 0 : entries.get(index - 1).getEnd();
+        if (boundary > startOffset || !isBlank(boundary, startOffset)) {
+            // Statements parsed from the middle of other statement differ from indexed ones
+            return -1;
+        }
+        int docLength = context.getDocument().getLength();
+        int offset = startOffset;
+        for (; index < entries.size(); index++) {
+            Entry entry = entries.get(index);
+            int followingOffset = index + 1 < entries.size() ? entries.get(index + 1).offset : docLength;
+            if (followingOffset > endOffset) {
+                break;
+            }
+            result.add(createElement(entry));
+            offset = entry.getEnd();
+        }
+        return offset;
+    }
+
+    private int getEditsCount() {
+        synchronized (pendingEdits) {
+            return editsCount;
+        }
+    }
+
+    /**
+     * Drops entries touched by the document changes and shifts the following entries
+     * @return number of document changes made since index creation
+     */
+    private int applyPendingEdits() {
+        List<Edit> edits;
+        int appliedEdits;
+        synchronized (pendingEdits) {
+            appliedEdits = editsCount;
+            if (pendingEdits.isEmpty()) {
+                return appliedEdits;
+            }
+            edits = new ArrayList<>(pendingEdits);
+            pendingEdits.clear();
+        }
+        if (delimiterRedefined) {
+            // Delimiter command may be removed by these changes. Check the whole document again.
+            delimiterRedefined = false;
+            entries.clear();
+            damagedIndex = 0;
+            return appliedEdits;
+        }
+        for (Edit edit : edits) {
+            int first = Math.max(0, findFirstEndingAfter(edit.offset - 1) - 1);
+            int last = findFirstStartingAfter(edit.offset + edit.removedLength);
+            if (damagedIndex >= 0) {
+                // Keep single damaged part
+                first = Math.min(first, damagedIndex);
+                last = Math.max(last, damagedIndex);
+            }
+            entries.subList(first, last).clear();
+            int delta = edit.insertedLength - edit.removedLength;
+            for (int i = first; i < entries.size(); i++) {
+                entries.get(i).offset += delta;
+            }
+            damagedIndex = first;
+        }
+        return appliedEdits;
+    }
+
+    private void reparseDamagedPart() {
+        IDocument document = context.getDocument();
+        int docLength = document.getLength();
+        int queryOffset = damagedIndex == 0 ? 0 : entries.get(damagedIndex - 1).getEnd();
+        int next = damagedIndex;
+        List<Entry> parsed = new ArrayList<>();
+
+        context.startScriptEvaluation();
+        try {
+            for (; ; ) {
+                SQLScriptElement element = SQLScriptParser.parseQuery(
+                    context, queryOffset, docLength, queryOffset, scriptMode, keepDelimiters);
+                if (element == null) {
+                    next = entries.size();
+                    break;
+                }
+                if (element instanceof SQLControlCommand && ((SQLControlCommand) element).isEmptyCommand()) {
+                    // Delimiter redefinition affects all following statements
+                    delimiterRedefined = true;
+                    entries.clear();
+                    damagedIndex = -1;
+                    return;
+                }
+                Entry entry = new Entry(element);
+                while (next < entries.size() && entries.get(next).offset < entry.offset) {
+                    next++;
+                }
+                if (next < entries.size() && entries.get(next).offset == entry.offset && entries.get(next).length == entry.length) {
+                    // Parsing came to the unchanged part of the document
+                    break;
+                }
+                while (next < entries.size() && entries.get(next).offset < entry.getEnd()) {
+                    next++;
+                }
+                parsed.add(entry);
+                if (entry.getEnd() <= queryOffset) {
+                    log.debug("Empty script element at " + queryOffset);
+                    next = entries.size();
+                    break;
+                }
+                queryOffset = entry.getEnd();
+            }
+        } finally {
+            context.endScriptEvaluation();
+        }
+        entries.subList(damagedIndex, next).clear();
+        entries.addAll(damagedIndex, parsed);
+        damagedIndex = -1;
+    }
+
+    @NotNull
+    private SQLScriptElement createElement(@NotNull Entry entry) {
+        if (entry.element instanceof SQLControlCommand) {
+            SQLControlCommand command = (SQLControlCommand) entry.element;
+            return new SQLControlCommand(
+                context.getDataSource(),
+                context.getSyntaxManager(),
+                command.getText(),
+                command.getCommandId(),
+                entry.offset,
+                entry.length,
+                command.isEmptyCommand());
+        }
+        return new SQLQuery(context.getDataSource(), entry.element.getOriginalText(), entry.offset, entry.length);
+    }
+
+    private boolean isBlank(int start, int end) {
+        IDocument document = context.getDocument();
+        try {
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(document.getChar(i))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (BadLocationException e) {
+            return false;
+        }
+    }
+
+    // First entry which ends after the offset
+    private int findFirstEndingAfter(int offset) {
+        int low = 0, high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).getEnd() > offset) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // First entry which starts after the offset
+    private int findFirstStartingAfter(int offset) {
+        int low = 0, high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).offset > offset) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+}
@@ -760,9 +760,19 @@ public class SQLScriptParser {
             return queryList;
         }
 
+        int queryOffset = startOffset;
+        SQLScriptIndex scriptIndex = parserContext.getScriptIndex(scriptMode, keepDelimiters);
+        if (scriptIndex != null) {
+            // Take already parsed queries, the rest of the range (if any) is parsed as usual
+            int indexedOffset = scriptIndex.collectElements(startOffset, startOffset + length, queryList);
+            if (indexedOffset >= 0) {
+                queryOffset = indexedOffset;
+            }
+        }
+
         parserContext.startScriptEvaluation();
         try {
-            for (int queryOffset = startOffset; ; ) {
+            for (; ; ) {
                 SQLScriptElement query = parseQuery(
                     parserContext, queryOffset, startOffset + length, queryOffset, scriptMode, keepDelimiters);
                 if (query == null) {
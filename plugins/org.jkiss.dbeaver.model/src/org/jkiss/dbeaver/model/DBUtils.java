@@ -55,8 +55,11 @@ import org.jkiss.utils.CommonUtils;
 import org.jkiss.utils.Pair;
 
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.IntFunction;
 
 /**
  * DBUtils
@@ -742,17 +745,33 @@ public final class DBUtils {
         if (attribute.isCustom()) {
             return DBVUtils.executeExpression(((DBDAttributeBindingCustom)attribute).getEntityAttribute(), allAttributes, row);
         }
+        return getAttributeValue(attribute, allAttributes, index -> row[index], row.length);
+    }
+
+    /**
+     * Reads attribute value from the row values accessed by index.
+     * Allows to read values of rows which do not keep values array (e.g. columnar storage) without copying.
+     */
+    @Nullable
+    public static Object getAttributeValue(@NotNull DBDAttributeBinding attribute, DBDAttributeBinding[] allAttributes, @NotNull IntFunction<Object> row, int rowLength) {
+        if (attribute.isCustom()) {
+            Object[] values = new Object[rowLength];
+            for (int i = 0; i < rowLength; i++) {
+                values[i] = row.apply(i);
+            }
+            return DBVUtils.executeExpression(((DBDAttributeBindingCustom)attribute).getEntityAttribute(), allAttributes, values);
+        }
         int depth = attribute.getLevel();
         if (depth == 0) {
             final int index = attribute.getOrdinalPosition();
-            if (index >= row.length) {
-                log.debug("Bad attribute '" + attribute.getName() + "' index: " + index + " is out of row values' bounds (" + row.length + ")");
+            if (index >= rowLength) {
+                log.debug("Bad attribute '" + attribute.getName() + "' index: " + index + " is out of row values' bounds (" + rowLength + ")");
                 return null;
             } else {
-                return row[index];
+                return row.apply(index);
             }
         }
-        Object curValue = row[attribute.getTopParent().getOrdinalPosition()];
+        Object curValue = row.apply(attribute.getTopParent().getOrdinalPosition());
 
         for (int i = 0; i < depth; i++) {
             if (curValue == null) {
@@ -2003,7 +2022,7 @@ public final class DBUtils {
 
     /**
      * Compares two values read from database.
-     * Main difference with regular compare is that all numbers are compared as doubles (i.e. data type oesn't matter).
+     * Main difference with regular compare is that all numbers are compared by value (i.e. data type doesn't matter).
      * Also checks DBValue for nullability
      */
     public static int compareDataValues(Object cell1, Object cell2) {
@@ -2015,7 +2034,7 @@ public final class DBUtils {
             return -1;
         } else if (cell1 instanceof Number && cell2 instanceof Number) {
             // Actual data type for the same column may differ (e.g. partially read from server, partially added on client side)
-            return CommonUtils.compareNumbers((Number) cell1, (Number) cell2);
+            return compareNumbers((Number) cell1, (Number) cell2);
         } else if (cell1 instanceof Comparable && cell1.getClass() == cell2.getClass()) {
             return ((Comparable) cell1).compareTo(cell2);
         } else {
@@ -2025,7 +2044,7 @@ public final class DBUtils {
                     return -1;
                 }
                 if (num2 instanceof Number) {
-                    return CommonUtils.compareNumbers((Number) cell1, (Number) num2);
+                    return compareNumbers((Number) cell1, (Number) num2);
                 }
             } else if (cell2 instanceof Number) {
                 Object num1 = GeneralUtils.convertString(String.valueOf(cell1), cell2.getClass());
@@ -2033,7 +2052,7 @@ public final class DBUtils {
                     return 1;
                 }
                 if (num1 instanceof Number) {
-                    return CommonUtils.compareNumbers((Number) num1, (Number) cell2);
+                    return compareNumbers((Number) num1, (Number) cell2);
                 }
             }
             String str1 = String.valueOf(cell1);
@@ -2042,6 +2061,48 @@ public final class DBUtils {
         }
     }
 
+    /**
+     * Compares numbers of any type by value.
+     * Integers are compared as longs, floating point numbers as doubles, all other combinations as decimals.
+     * Floating point numbers are converted to decimals by their string representation (like literals are),
+     * so float 0.1 is equal to decimal 0.1.
+     */
+    public static int compareNumbers(@NotNull Number value1, @NotNull Number value2) {
+        if (isIntegerNumber(value1) && isIntegerNumber(value2)) {
+            return Long.compare(value1.longValue(), value2.longValue());
+        }
+        if ((value1 instanceof Double || value1 instanceof Float) && (value2 instanceof Double || value2 instanceof Float)) {
+            return Double.compare(value1.doubleValue(), value2.doubleValue());
+        }
+        BigDecimal decimal1 = toBigDecimal(value1), decimal2 = toBigDecimal(value2);
+        if (decimal1 == null || decimal2 == null) {
+            // NaN or infinity
+            return Double.compare(value1.doubleValue(), value2.doubleValue());
+        }
+        return decimal1.compareTo(decimal2);
+    }
+
+    private static boolean isIntegerNumber(@NotNull Number value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    @Nullable
+    private static BigDecimal toBigDecimal(@NotNull Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (isIntegerNumber(value)) {
+            return BigDecimal.valueOf(value.longValue());
+        } else if (value instanceof Float) {
+            float floatValue = value.floatValue();
+            return Float.isNaN(floatValue) || Float.isInfinite(floatValue) ? null : new BigDecimal(Float.toString(floatValue));
+        } else {
+            double doubleValue = value.doubleValue();
+            return Double.isNaN(doubleValue) || Double.isInfinite(doubleValue) ? null : BigDecimal.valueOf(doubleValue);
+        }
+    }
+
     public static DBSEntity getEntityFromMetaData(DBRProgressMonitor monitor, DBCExecutionContext executionContext, DBCEntityMetaData entityMeta) throws DBException {
         final DBSObjectContainer objectContainer = getAdapter(DBSObjectContainer.class, executionContext.getDataSource());
         if (objectContainer != null) {
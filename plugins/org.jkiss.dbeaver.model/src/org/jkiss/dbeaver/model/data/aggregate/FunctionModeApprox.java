@@ -0,0 +1,73 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.data.aggregate;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Most frequent value found with Misra-Gries summary.
+ * Value is found for sure if its frequency is greater than 1/MAX_COUNTERS of all values.
+ */
+public class FunctionModeApprox implements IAggregateFunction {
+
+    private static final int MAX_COUNTERS = 100;
+
+    private final Map<Object, Long> counters = new HashMap<>();
+
+    @Override
+    public boolean accumulate(Object value, boolean aggregateAsStrings) {
+        Number num = FunctionNumeric.getNumeric(value);
+        if (num != null) {
+            value = num;
+        }
+        if (value == null) {
+            return false;
+        }
+        Long counter = counters.get(value);
+        if (counter != null) {
+            counters.put(value, counter + 1);
+        } else if (counters.size() < MAX_COUNTERS) {
+            counters.put(value, 1L);
+        } else {
+            // Decrement all counters
+            for (Iterator<Map.Entry<Object, Long>> iter = counters.entrySet().iterator(); iter.hasNext(); ) {
+                Map.Entry<Object, Long> entry = iter.next();
+                if (entry.getValue() <= 1) {
+                    iter.remove();
+                } else {
+                    entry.setValue(entry.getValue() - 1);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Object getResult(int valueCount) {
+        Object maxValue = null;
+        long maxCount = 0;
+        for (Map.Entry<Object, Long> entry : counters.entrySet()) {
+            if (entry.getValue() > maxCount) {
+                maxCount = entry.getValue();
+                maxValue = entry.getKey();
+            }
+        }
+        return maxValue;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.data.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * Exact percentile of numeric values. Values are interpolated between closest ranks.
+ */
+public abstract class FunctionPercentile extends FunctionNumeric {
+
+    private final double quantile;
+    private double[] values = new double[64];
+    private int count;
+
+    protected FunctionPercentile(double quantile) {
+        this.quantile = quantile;
+    }
+
+    @Override
+    public boolean accumulate(Object value, boolean aggregateAsStrings) {
+        Number num = getNumeric(value);
+        if (num == null) {
+            return false;
+        }
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = num.doubleValue();
+        return true;
+    }
+
+    @Override
+    public Object getResult(int valueCount) {
+        if (count == 0) {
+            return null;
+        }
+        Arrays.sort(values, 0, count);
+        double pos = quantile * (count - 1);
+        int lower = (int) Math.floor(pos);
+        int upper = Math.min(lower + 1, count - 1);
+        return values[lower] + (values[upper] - values[lower]) * (pos - lower);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.data.aggregate;
+
+/**
+ * Approximate percentile of numeric values. Uses constant memory.
+ */
+public abstract class FunctionPercentileApprox extends FunctionNumeric {
+
+    private final double quantile;
+    private final QuantileSketch sketch = new QuantileSketch();
+
+    protected FunctionPercentileApprox(double quantile) {
+        this.quantile = quantile;
+    }
+
+    @Override
+    public boolean accumulate(Object value, boolean aggregateAsStrings) {
+        Number num = getNumeric(value);
+        if (num == null) {
+            return false;
+        }
+        sketch.update(num.doubleValue());
+        return true;
+    }
+
+    @Override
+    public Object getResult(int valueCount) {
+        if (sketch.getCount() == 0) {
+            return null;
+        }
+        return sketch.getQuantile(quantile);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.data.aggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * KLL quantiles sketch.
+ * Keeps O(k) values of the stream, so quantiles are approximate (rank error is about 1.5% for default k).
+ */
+public class QuantileSketch {
+
+    private static final int DEFAULT_K = 200;
+    private static final double CAPACITY_FACTOR = 2.0 / 3.0;
+
+    private final int k;
+    // Fixed seed makes results reproducible for the same values
+    private final Random random = new Random(0);
+    private final List<Compactor> compactors = new ArrayList<>();
+    private int size;
+    private int maxSize;
+    private long count;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        this.k = k;
+        grow();
+    }
+
+    public void update(double value) {
+        compactors.get(0).add(value);
+        size++;
+        count++;
+        if (size >= maxSize) {
+            compress();
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns approximate value of the specified quantile (0..1) or NaN if sketch is empty.
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double[] values = new double[size];
+        long[] weights = new long[size];
+        int pos = 0;
+        for (int level = 0; level < compactors.size(); level++) {
+            Compactor compactor = compactors.get(level);
+            for (int i = 0; i < compactor.size; i++) {
+                values[pos] = compactor.values[i];
+                weights[pos] = 1L << level;
+                pos++;
+            }
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (o1, o2) -> Double.compare(values[o1], values[o2]));
+        long totalWeight = 0;
+        for (long weight : weights) {
+            totalWeight += weight;
+        }
+        double targetWeight = quantile * totalWeight;
+        long curWeight = 0;
+        for (Integer index : order) {
+            curWeight += weights[index];
+            if (curWeight >= targetWeight) {
+                return values[index];
+            }
+        }
+        return values[order[size - 1]];
+    }
+
+    private int getCapacity(int level) {
+        int depth = compactors.size() - level - 1;
+        return (int) Math.ceil(Math.pow(CAPACITY_FACTOR, depth) * k) + 1;
+    }
+
+    private void grow() {
+        compactors.add(new Compactor());
+        maxSize = 0;
+        for (int level = 0; level < compactors.size(); level++) {
+            maxSize += getCapacity(level);
+        }
+    }
+
+    private void compress() {
+        for (int level = 0; level < compactors.size(); level++) {
+            Compactor compactor = compactors.get(level);
+            if (compactor.size >= getCapacity(level)) {
+                if (level + 1 >= compactors.size()) {
+                    grow();
+                }
+                Compactor next = compactors.get(level + 1);
+                // Sort and promote each second value to the next level. Odd value stays on the current level
+                Arrays.sort(compactor.values, 0, compactor.size);
+                int offset = random.nextBoolean() ? 1 : 0;
+                int pairs = compactor.size / 2;
+                for (int i = 0; i < pairs; i++) {
+                    next.add(compactor.values[compactor.size - 2 * pairs + 2 * i + offset]);
+                }
+                compactor.size -= 2 * pairs;
+                size -= pairs;
+                break;
+            }
+        }
+    }
+
+    private static class Compactor {
+        private double[] values = new double[16];
+        private int size;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
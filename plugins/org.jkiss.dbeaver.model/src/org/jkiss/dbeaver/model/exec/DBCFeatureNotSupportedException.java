@@ -27,4 +27,12 @@ public class DBCFeatureNotSupportedException extends DBCException
     public DBCFeatureNotSupportedException() {
         super("Not supported");
     }
+
+    public DBCFeatureNotSupportedException(String message) {
+        super(message);
+    }
+
+    public DBCFeatureNotSupportedException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
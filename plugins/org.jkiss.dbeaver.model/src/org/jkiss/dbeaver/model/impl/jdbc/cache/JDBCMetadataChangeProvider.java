@@ -0,0 +1,40 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.impl.jdbc.cache;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+
+import java.util.Collection;
+
+/**
+ * Data source which can detect metadata changes.
+ * Used to validate metadata snapshot (see {@link JDBCMetadataSnapshot}).
+ */
+public interface JDBCMetadataChangeProvider {
+
+    /**
+     * Returns value which changes after any change of objects in the specified schemas or of the schema list
+     * (usually the last DDL time together with the objects count) or null if it can't be determined.
+     * Values are compared exactly, so they must not be hashed.
+     */
+    @Nullable
+    String getMetadataVersion(@NotNull DBRProgressMonitor monitor, @NotNull Collection<String> schemaNames) throws DBException;
+
+}
@@ -0,0 +1,796 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.impl.jdbc.cache;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.ModelPreferences;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBPDataSourceContainer;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCResultSet;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCSession;
+import org.jkiss.dbeaver.model.meta.ForTest;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.struct.DBSObject;
+import org.jkiss.dbeaver.model.struct.rdb.DBSSchema;
+
+import java.io.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent snapshot of metadata read by JDBC caches.
+ * <p>
+ * Snapshot keeps values which caches read from metadata result sets (not the objects themselves).
+ * On the next connect the same fetchObject/fetchChild code creates objects from the snapshot without metadata queries.
+ * Each entry is used once per connection, cache refresh reads metadata from the database and updates the entry.
+ * Result sets which can't be reproduced (driver specific values, result set metadata access) are not saved.
+ * <p>
+ * Snapshot is used only by data sources which implement {@link JDBCMetadataChangeProvider}, others can't detect
+ * that saved metadata is outdated. Snapshot keeps names of schemas its entries belong to and metadata version
+ * of these schemas. Version is read in background on connect and entries are discarded if it differs from
+ * the version of the saved snapshot. Metadata loads wait for the validation for a short time only.
+ */
+public class JDBCMetadataSnapshot {
+
+    private static final Log log = Log.getLog(JDBCMetadataSnapshot.class);
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int FILE_MAGIC = 0x44424D53;
+    private static final String SNAPSHOT_FOLDER = "metadata-snapshots"; //$NON-NLS-1$
+    private static final String SNAPSHOT_FILE_EXT = ".snapshot"; //$NON-NLS-1$
+    private static final long SAVE_DELAY = 2000;
+    private static final long VALIDATION_TIMEOUT = 2000;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_BYTE = 3;
+    private static final byte TYPE_SHORT = 4;
+    private static final byte TYPE_INT = 5;
+    private static final byte TYPE_LONG = 6;
+    private static final byte TYPE_FLOAT = 7;
+    private static final byte TYPE_DOUBLE = 8;
+    private static final byte TYPE_DECIMAL = 9;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_DATE = 11;
+    private static final byte TYPE_TIME = 12;
+    private static final byte TYPE_UTIL_DATE = 13;
+    private static final byte TYPE_BYTES = 14;
+    private static final byte TYPE_ERROR = 15;
+
+    // Value which wasn't read from the result set row
+    private static final Object MISSING = new Object();
+
+    // Snapshot must not keep data source, otherwise it will never be removed from this map
+    private static final Map<DBPDataSource, JDBCMetadataSnapshot> snapshots = new WeakHashMap<>();
+
+    @Nullable
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    // Entries which were replayed or read from the database in this connection
+    private final Set<String> usedKeys = new HashSet<>();
+    // Schemas of the saved and used entries. Metadata version covers these schemas.
+    private final Set<String> schemaNames = new TreeSet<>();
+    private String savedMetadataVersion;
+    private String metadataVersion;
+    private volatile CountDownLatch validation;
+    private AbstractJob saveJob;
+
+    /**
+     * Values read from the result set. Rows keep values by key index, keys are getter names with column labels.
+     */
+    static class Entry {
+        private final List<String> keys = new ArrayList<>();
+        private final Map<String, Integer> keyIndexes = new HashMap<>();
+        private final List<Object[]> rows = new ArrayList<>();
+
+        int getRowCount() {
+            return rows.size();
+        }
+
+        private void addRow() {
+            Object[] row = new Object[keys.size()];
+            Arrays.fill(row, MISSING);
+            rows.add(row);
+        }
+
+        private int getKeyIndex(@NotNull String key) {
+            Integer index = keyIndexes.get(key);
+            if (index == null) {
+                index = keys.size();
+                keys.add(key);
+                keyIndexes.put(key, index);
+            }
+            return index;
+        }
+
+        private void setValue(int rowIndex, int keyIndex, @Nullable Object value) {
+            Object[] row = rows.get(rowIndex);
+            if (keyIndex >= row.length) {
+                int oldLength = row.length;
+                row = Arrays.copyOf(row, keys.size());
+                Arrays.fill(row, oldLength, row.length, MISSING);
+                rows.set(rowIndex, row);
+            }
+            row[keyIndex] = value;
+        }
+
+        @Nullable
+        private Object getValue(int rowIndex, @NotNull String key) {
+            Integer index = keyIndexes.get(key);
+            Object[] row = rows.get(rowIndex);
+            return index == null || index >= row.length ? MISSING : row[index];
+        }
+    }
+
+    // Error thrown by the getter. Drivers don't support some columns, caches handle such errors.
+    private static class ErrorValue {
+        private final String message;
+
+        ErrorValue(@Nullable String message) {
+            this.message = message == null ? "" : message;
+        }
+    }
+
+    @ForTest
+    public JDBCMetadataSnapshot(@Nullable Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns snapshot of the data source or null if metadata snapshots are disabled or not supported by the data source.
+     * Snapshot file is read on the first call after connect.
+     */
+    @Nullable
+    public static JDBCMetadataSnapshot getSnapshot(@NotNull DBPDataSource dataSource) {
+        DBPDataSourceContainer container = dataSource.getContainer();
+        if (!(dataSource instanceof JDBCMetadataChangeProvider) ||
+            !container.getPreferenceStore().getBoolean(ModelPreferences.META_SNAPSHOT_ENABLED))
+        {
+            return null;
+        }
+        synchronized (snapshots) {
+            JDBCMetadataSnapshot snapshot = snapshots.get(dataSource);
+            if (snapshot == null) {
+                Path file = getSnapshotFile(container);
+                snapshot = new JDBCMetadataSnapshot(file);
+                if (file != null && Files.exists(file)) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        snapshot.read(in);
+                    } catch (Exception e) {
+                        log.debug("Can't read metadata snapshot '" + file + "': " + e.getMessage());
+                        snapshot.entries.clear();
+                    }
+                }
+                snapshot.startValidation((JDBCMetadataChangeProvider) dataSource);
+                snapshots.put(dataSource, snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Entry key. Cache class and owner identify metadata query.
+     * Owner schema is added to the schemas covered by the metadata version.
+     */
+    @NotNull
+    public String makeEntryKey(@NotNull Object cache, @NotNull DBSObject owner, @Nullable DBSObject forObject) {
+        DBSSchema schema = owner instanceof DBSSchema ? (DBSSchema) owner : DBUtils.getParentOfType(DBSSchema.class, owner);
+        if (schema != null) {
+            synchronized (this) {
+                schemaNames.add(schema.getName());
+            }
+        }
+        return cache.getClass().getName() + "|" + DBUtils.getObjectFullId(owner) + "|" + (forObject == null ? "*" : forObject.getName());
+    }
+
+    /**
+     * Returns result set with values saved in snapshot or null if entry is missing or was already used in this connection.
+     * Use {@link #isCompleted(JDBCResultSet)} after reading to check that all values were found in the snapshot.
+     */
+    @Nullable
+    public JDBCResultSet openResultSet(@NotNull JDBCSession session, @NotNull String key) {
+        CountDownLatch validation = this.validation;
+        if (validation != null) {
+            try {
+                if (!validation.await(VALIDATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    log.debug("Metadata snapshot validation timed out");
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        Entry entry;
+        synchronized (this) {
+            if (!usedKeys.add(key)) {
+                return null;
+            }
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        return (JDBCResultSet) Proxy.newProxyInstance(
+            JDBCMetadataSnapshot.class.getClassLoader(),
+            new Class[] { JDBCResultSet.class },
+            new ReplayHandler(session, entry));
+    }
+
+    /**
+     * Wraps metadata result set. Values read from it are saved in snapshot when all rows are read.
+     */
+    @NotNull
+    public JDBCResultSet recordResultSet(@NotNull String key, @NotNull JDBCResultSet resultSet) {
+        synchronized (this) {
+            // Saved values are replaced when all rows are read
+            usedKeys.add(key);
+            entries.remove(key);
+        }
+        return (JDBCResultSet) Proxy.newProxyInstance(
+            JDBCMetadataSnapshot.class.getClassLoader(),
+            new Class[] { JDBCResultSet.class },
+            new RecordingHandler(key, resultSet));
+    }
+
+    /**
+     * Checks that result set returned by {@link #openResultSet(JDBCSession, String)} was read till the end
+     * and all requested values were found.
+     */
+    public static boolean isCompleted(@NotNull JDBCResultSet resultSet) {
+        if (!Proxy.isProxyClass(resultSet.getClass())) {
+            return false;
+        }
+        InvocationHandler handler = Proxy.getInvocationHandler(resultSet);
+        return handler instanceof ReplayHandler && ((ReplayHandler) handler).completed && !((ReplayHandler) handler).failed;
+    }
+
+    @Nullable
+    private static Path getSnapshotFile(@NotNull DBPDataSourceContainer container) {
+        try {
+            String fileName = container.getId().replaceAll("[^\\w.\\-]", "_") + SNAPSHOT_FILE_EXT;
+            return container.getProject().getMetadataFolder(false).resolve(SNAPSHOT_FOLDER).resolve(fileName);
+        } catch (Exception e) {
+            log.debug("Can't get metadata snapshot location: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized void putEntry(@NotNull String key, @NotNull Entry entry) {
+        entries.put(key, entry);
+        if (file != null) {
+            if (saveJob == null) {
+                saveJob = new AbstractJob("Save metadata snapshot") {
+                    @Override
+                    protected IStatus run(DBRProgressMonitor monitor) {
+                        save();
+                        return Status.OK_STATUS;
+                    }
+                };
+                saveJob.setSystem(true);
+            }
+            saveJob.schedule(SAVE_DELAY);
+        }
+    }
+
+    private void startValidation(@NotNull JDBCMetadataChangeProvider provider) {
+        List<String> validatedSchemas;
+        synchronized (this) {
+            validatedSchemas = new ArrayList<>(schemaNames);
+        }
+        validation = new CountDownLatch(1);
+        new AbstractJob("Validate metadata snapshot") {
+            @Override
+            protected IStatus run(DBRProgressMonitor monitor) {
+                String currentVersion = null;
+                try {
+                    currentVersion = provider.getMetadataVersion(monitor, validatedSchemas);
+                } catch (Exception e) {
+                    log.debug("Can't read metadata version: " + e.getMessage());
+                } finally {
+                    validate(currentVersion);
+                    validation.countDown();
+                }
+                return Status.OK_STATUS;
+            }
+        }.schedule();
+    }
+
+    /**
+     * Discards saved entries if metadata version differs from the saved one.
+     * Schemas added later in this connection aren't covered by the version, so the next validation
+     * reads version of more schemas and discards the whole snapshot once.
+     */
+    @ForTest
+    public synchronized void validate(@Nullable String currentVersion) {
+        metadataVersion = currentVersion;
+        if (currentVersion == null || !currentVersion.equals(savedMetadataVersion)) {
+            // Keep only entries read from the database in this connection
+            entries.keySet().retainAll(usedKeys);
+        }
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                write(out);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.debug("Can't save metadata snapshot '" + file + "': " + e.getMessage());
+        }
+    }
+
+    @ForTest
+    public void write(@NotNull OutputStream stream) throws IOException {
+        Map<String, Entry> entriesCopy;
+        String entriesVersion;
+        List<String> entriesSchemas;
+        synchronized (this) {
+            entriesCopy = new LinkedHashMap<>(entries);
+            entriesVersion = metadataVersion;
+            entriesSchemas = new ArrayList<>(schemaNames);
+        }
+        GZIPOutputStream gzipStream = new GZIPOutputStream(stream);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzipStream));
+        StringPool pool = new StringPool();
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeBoolean(entriesVersion != null);
+        pool.writeString(out, entriesVersion == null ? "" : entriesVersion);
+        out.writeInt(entriesSchemas.size());
+        for (String schemaName : entriesSchemas) {
+            pool.writeString(out, schemaName);
+        }
+        out.writeInt(entriesCopy.size());
+        for (Map.Entry<String, Entry> mapEntry : entriesCopy.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            pool.writeString(out, mapEntry.getKey());
+            out.writeInt(entry.keys.size());
+            for (String key : entry.keys) {
+                pool.writeString(out, key);
+            }
+            out.writeInt(entry.rows.size());
+            for (Object[] row : entry.rows) {
+                int valueCount = 0;
+                for (Object value : row) {
+                    if (value != MISSING) {
+                        valueCount++;
+                    }
+                }
+                out.writeInt(valueCount);
+                for (int i = 0; i < row.length; i++) {
+                    if (row[i] != MISSING) {
+                        out.writeInt(i);
+                        writeValue(out, pool, row[i]);
+                    }
+                }
+            }
+        }
+        out.flush();
+        gzipStream.finish();
+    }
+
+    @ForTest
+    public void read(@NotNull InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream)));
+        if (in.readInt() != FILE_MAGIC) {
+            throw new IOException("Bad metadata snapshot file");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported metadata snapshot version " + version);
+        }
+        in.readLong();
+        List<String> pool = new ArrayList<>();
+        boolean hasVersion = in.readBoolean();
+        String fileVersion = readString(in, pool);
+        List<String> fileSchemas = new ArrayList<>();
+        int schemaCount = in.readInt();
+        for (int i = 0; i < schemaCount; i++) {
+            fileSchemas.add(readString(in, pool));
+        }
+        Map<String, Entry> fileEntries = new HashMap<>();
+        int entryCount = in.readInt();
+        for (int i = 0; i < entryCount; i++) {
+            String entryKey = readString(in, pool);
+            Entry entry = new Entry();
+            int keyCount = in.readInt();
+            for (int k = 0; k < keyCount; k++) {
+                entry.getKeyIndex(readString(in, pool));
+            }
+            int rowCount = in.readInt();
+            for (int r = 0; r < rowCount; r++) {
+                entry.addRow();
+                int valueCount = in.readInt();
+                for (int v = 0; v < valueCount; v++) {
+                    int keyIndex = in.readInt();
+                    if (keyIndex < 0 || keyIndex >= keyCount) {
+                        throw new IOException("Bad value index " + keyIndex);
+                    }
+                    entry.setValue(r, keyIndex, readValue(in, pool));
+                }
+            }
+            fileEntries.put(entryKey, entry);
+        }
+        synchronized (this) {
+            savedMetadataVersion = hasVersion ? fileVersion : null;
+            schemaNames.addAll(fileSchemas);
+            entries.putAll(fileEntries);
+        }
+    }
+
+    private static boolean isSupportedValue(@Nullable Object value) {
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Byte ||
+            value instanceof Short || value instanceof Integer || value instanceof Long || value instanceof Float ||
+            value instanceof Double || value instanceof BigDecimal || value instanceof java.util.Date || value instanceof byte[];
+    }
+
+    private static void writeValue(@NotNull DataOutputStream out, @NotNull StringPool pool, @Nullable Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            pool.writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeByte(TYPE_SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(TYPE_DECIMAL);
+            pool.writeString(out, value.toString());
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TYPE_TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TYPE_TIME);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof java.util.Date) {
+            out.writeByte(TYPE_UTIL_DATE);
+            out.writeLong(((java.util.Date) value).getTime());
+        } else if (value instanceof byte[]) {
+            out.writeByte(TYPE_BYTES);
+            out.writeInt(((byte[]) value).length);
+            out.write((byte[]) value);
+        } else if (value instanceof ErrorValue) {
+            out.writeByte(TYPE_ERROR);
+            pool.writeString(out, ((ErrorValue) value).message);
+        } else {
+            throw new IOException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    @Nullable
+    private static Object readValue(@NotNull DataInputStream in, @NotNull List<String> pool) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in, pool);
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_BYTE:
+                return in.readByte();
+            case TYPE_SHORT:
+                return in.readShort();
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_DECIMAL:
+                return new BigDecimal(readString(in, pool));
+            case TYPE_TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            }
+            case TYPE_DATE:
+                return new java.sql.Date(in.readLong());
+            case TYPE_TIME:
+                return new Time(in.readLong());
+            case TYPE_UTIL_DATE:
+                return new java.util.Date(in.readLong());
+            case TYPE_BYTES: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case TYPE_ERROR:
+                return new ErrorValue(readString(in, pool));
+            default:
+                throw new IOException("Bad value type " + type);
+        }
+    }
+
+    @NotNull
+    private static String readString(@NotNull DataInputStream in, @NotNull List<String> pool) throws IOException {
+        int index = in.readInt();
+        if (index >= 0) {
+            if (index >= pool.size()) {
+                throw new IOException("Bad string index " + index);
+            }
+            return pool.get(index);
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        String str = new String(bytes, StandardCharsets.UTF_8);
+        pool.add(str);
+        return str;
+    }
+
+    // Schema, table and type names are repeated many times, each string is written once
+    private static class StringPool {
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        void writeString(@NotNull DataOutputStream out, @NotNull String str) throws IOException {
+            Integer index = indexes.get(str);
+            if (index != null) {
+                out.writeInt(index);
+            } else {
+                indexes.put(str, indexes.size());
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(-1);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static boolean isValueGetter(@NotNull Method method, @Nullable Object[] args) {
+        String name = method.getName();
+        return args != null && args.length == 1 && (args[0] instanceof String || args[0] instanceof Integer) &&
+            (name.startsWith("get") || name.equals("findColumn"));
+    }
+
+    @NotNull
+    private static String getValueKey(@NotNull Method method, @NotNull Object[] args) {
+        return method.getName() + ":" + (args[0] instanceof String ? ((String) args[0]).toUpperCase(Locale.ENGLISH) : "#" + args[0]);
+    }
+
+    @Nullable
+    private static Object invokeObjectMethod(@NotNull Object proxy, @NotNull Method method, @Nullable Object[] args, @NotNull String description) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return description;
+        }
+    }
+
+    private class RecordingHandler implements InvocationHandler {
+        private final String key;
+        private final JDBCResultSet resultSet;
+        private final Entry entry = new Entry();
+        private boolean replayable = true;
+        private boolean finished;
+
+        RecordingHandler(@NotNull String key, @NotNull JDBCResultSet resultSet) {
+            this.key = key;
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args, "Snapshot recorder of " + resultSet);
+            }
+            boolean valueGetter = isValueGetter(method, args);
+            int rowIndex = entry.rows.size() - 1;
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                Throwable error = e.getTargetException();
+                if (valueGetter && rowIndex >= 0 && error instanceof SQLException) {
+                    entry.setValue(rowIndex, entry.getKeyIndex(getValueKey(method, args)), new ErrorValue(error.getMessage()));
+                } else {
+                    replayable = false;
+                }
+                throw error;
+            }
+            switch (method.getName()) {
+                case "next":
+                    if (Boolean.TRUE.equals(result)) {
+                        entry.addRow();
+                    } else if (!finished) {
+                        finished = true;
+                        if (replayable) {
+                            putEntry(key, entry);
+                        }
+                    }
+                    break;
+                case "close":
+                case "isClosed":
+                case "wasNull":
+                case "getSession":
+                    break;
+                default:
+                    if (valueGetter && rowIndex >= 0) {
+                        Object value = result;
+                        if (method.getReturnType().isPrimitive() && resultSet.wasNull()) {
+                            value = null;
+                        }
+                        if (isSupportedValue(value)) {
+                            entry.setValue(rowIndex, entry.getKeyIndex(getValueKey(method, args)), copyValue(value));
+                        } else {
+                            replayable = false;
+                        }
+                    } else {
+                        replayable = false;
+                    }
+                    break;
+            }
+            return result;
+        }
+    }
+
+    private static class ReplayHandler implements InvocationHandler {
+        private final JDBCSession session;
+        private final Entry entry;
+        private int rowIndex = -1;
+        private boolean lastNull;
+        private boolean completed;
+        private boolean failed;
+
+        ReplayHandler(@NotNull JDBCSession session, @NotNull Entry entry) {
+            this.session = session;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args, "Metadata snapshot result set");
+            }
+            switch (method.getName()) {
+                case "next":
+                    if (rowIndex < entry.getRowCount()) {
+                        rowIndex++;
+                    }
+                    if (rowIndex < entry.getRowCount()) {
+                        return true;
+                    }
+                    completed = true;
+                    return false;
+                case "close":
+                    return null;
+                case "isClosed":
+                    return false;
+                case "wasNull":
+                    return lastNull;
+                case "getSession":
+                    return session;
+            }
+            if (isValueGetter(method, args) && rowIndex >= 0 && rowIndex < entry.getRowCount()) {
+                Object value = entry.getValue(rowIndex, getValueKey(method, args));
+                if (value instanceof ErrorValue) {
+                    throw new SQLException(((ErrorValue) value).message);
+                }
+                if (value != MISSING) {
+                    lastNull = value == null;
+                    if (value == null) {
+                        return getDefaultValue(method.getReturnType());
+                    }
+                    return copyValue(value);
+                }
+            }
+            // Cache reads something which wasn't read when the snapshot was saved
+            failed = true;
+            String message = "Value " + method.getName() + (args == null ? "" : Arrays.toString(args)) + " is not in metadata snapshot";
+            for (Class<?> exceptionType : method.getExceptionTypes()) {
+                if (exceptionType.isAssignableFrom(SQLException.class)) {
+                    throw new SQLException(message);
+                } else if (exceptionType.isAssignableFrom(DBCException.class)) {
+                    throw new DBCException(message);
+                }
+            }
+            throw new IllegalStateException(message);
+        }
+    }
+
+    @Nullable
+    private static Object getDefaultValue(@NotNull Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        } else if (type == Boolean.TYPE) {
+            return false;
+        } else if (type == Byte.TYPE) {
+            return (byte) 0;
+        } else if (type == Short.TYPE) {
+            return (short) 0;
+        } else if (type == Integer.TYPE) {
+            return 0;
+        } else if (type == Long.TYPE) {
+            return 0L;
+        } else if (type == Float.TYPE) {
+            return 0f;
+        } else if (type == Double.TYPE) {
+            return 0d;
+        }
+        return null;
+    }
+
+    // Dates and byte arrays are mutable
+    @Nullable
+    private static Object copyValue(@Nullable Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        } else if (value instanceof java.util.Date) {
+            return ((java.util.Date) value).clone();
+        }
+        return value;
+    }
+
+}
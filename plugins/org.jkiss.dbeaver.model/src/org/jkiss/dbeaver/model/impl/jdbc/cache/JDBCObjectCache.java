@@ -103,33 +103,31 @@ public abstract class JDBCObjectCache<OWNER extends DBSObject, OBJECT extends DB
             try {
                 try (JDBCSession session = DBUtils.openMetaSession(monitor, owner, "Load objects from " + owner.getName())) {
                     beforeCacheLoading(session, owner);
-                    try (JDBCStatement dbStat = prepareObjectsStatement(session, owner)) {
-                        monitor.subTask("Load " + getCacheName());
-                        dbStat.setFetchSize(DBConstants.METADATA_FETCH_SIZE);
-                        dbStat.executeStatement();
-                        JDBCResultSet dbResult = dbStat.getResultSet();
-                        if (dbResult != null) {
-                            try {
-                                while (dbResult.next()) {
-                                    if (monitor.isCanceled()) {
-                                        return;
+                    try {
+                        JDBCMetadataSnapshot snapshot = JDBCMetadataSnapshot.getSnapshot(dataSource);
+                        String snapshotKey = snapshot == null ? null : snapshot.makeEntryKey(this, owner, null);
+                        boolean snapshotLoaded = snapshot != null && loadSnapshotObjects(monitor, session, owner, snapshot, snapshotKey, tmpObjectList);
+                        if (monitor.isCanceled()) {
+                            return;
+                        }
+                        if (!snapshotLoaded) {
+                            try (JDBCStatement dbStat = prepareObjectsStatement(session, owner)) {
+                                monitor.subTask("Load " + getCacheName());
+                                dbStat.setFetchSize(DBConstants.METADATA_FETCH_SIZE);
+                                dbStat.executeStatement();
+                                JDBCResultSet dbResult = dbStat.getResultSet();
+                                if (dbResult != null) {
+                                    if (snapshot != null) {
+                                        dbResult = snapshot.recordResultSet(snapshotKey, dbResult);
                                     }
-
-                                    OBJECT object = fetchObject(session, owner, dbResult);
-                                    if (object == null || !isValidObject(monitor, owner, object)) {
-                                        continue;
-                                    }
-                                    tmpObjectList.add(object);
-
-                                    // Do not log every object load. This overheats UI in case of long lists
-                                    //monitor.subTask(object.getName());
-                                    if (tmpObjectList.size() == maximumCacheSize) {
-                                        log.warn("Maximum cache size exceeded (" + maximumCacheSize + ") in " + this);
-                                        break;
+                                    try {
+                                        if (!fetchObjects(monitor, session, owner, dbResult, tmpObjectList)) {
+                                            return;
+                                        }
+                                    } finally {
+                                        dbResult.close();
                                     }
                                 }
-                            } finally {
-                                dbResult.close();
                             }
                         }
                     } finally {
@@ -161,6 +159,52 @@ public abstract class JDBCObjectCache<OWNER extends DBSObject, OBJECT extends DB
         this.invalidateObjects(monitor, owner, new CacheIterator());
     }
 
+    /**
+     * Reads objects from the result set. Returns false if loading was canceled.
+     */
+    private boolean fetchObjects(DBRProgressMonitor monitor, JDBCSession session, OWNER owner, JDBCResultSet dbResult, List<OBJECT> objects)
+        throws SQLException, DBException
+    {
+        while (dbResult.next()) {
+            if (monitor.isCanceled()) {
+                return false;
+            }
+
+            OBJECT object = fetchObject(session, owner, dbResult);
+            if (object == null || !isValidObject(monitor, owner, object)) {
+                continue;
+            }
+            objects.add(object);
+
+            // Do not log every object load. This overheats UI in case of long lists
+            //monitor.subTask(object.getName());
+            if (objects.size() == maximumCacheSize) {
+                log.warn("Maximum cache size exceeded (" + maximumCacheSize + ") in " + this);
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads objects from the metadata snapshot. Returns false if snapshot doesn't contain all necessary values.
+     */
+    private boolean loadSnapshotObjects(DBRProgressMonitor monitor, JDBCSession session, OWNER owner, JDBCMetadataSnapshot snapshot, String snapshotKey, List<OBJECT> objects) {
+        JDBCResultSet dbResult = snapshot.openResultSet(session, snapshotKey);
+        if (dbResult == null) {
+            return false;
+        }
+        try {
+            if (fetchObjects(monitor, session, owner, dbResult, objects) && JDBCMetadataSnapshot.isCompleted(dbResult)) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.debug("Can't read " + getCacheName() + " from metadata snapshot: " + e.getMessage());
+        }
+        objects.clear();
+        return false;
+    }
+
     public void beforeCacheLoading(JDBCSession session, OWNER owner) throws DBException {
         // Do nothing
     }
@@ -47,9 +47,16 @@ public abstract class JDBCStructCache<OWNER extends DBSObject, OBJECT extends DB
 {
     private static final Log log = Log.getLog(JDBCStructCache.class);
 
+    // Maximum number of objects in one children query. Some databases limit IN-list size (e.g. Oracle - 1000)
+    private static final int CHILDREN_BATCH_SIZE = 500;
+    // Children of all objects are read if at least 1/FULL_READ_RATIO of objects was requested
+    private static final int FULL_READ_RATIO = 4;
+
     private final Object objectNameColumn;
     private volatile boolean childrenCached = false;
     private final Map<OBJECT, SimpleObjectCache<OBJECT, CHILD>> childrenCache = new IdentityHashMap<>();
+    // Incremented on each children cache clear. Children read before the clear may be outdated.
+    private int childrenCacheVersion;
 
     abstract protected JDBCStatement prepareChildrenStatement(@NotNull JDBCSession session, @NotNull OWNER owner, @Nullable OBJECT forObject)
         throws SQLException;
@@ -57,6 +64,19 @@ public abstract class JDBCStructCache<OWNER extends DBSObject, OBJECT extends DB
     abstract protected CHILD fetchChild(@NotNull JDBCSession session, @NotNull OWNER owner, @NotNull OBJECT parent, @NotNull JDBCResultSet dbResult)
         throws SQLException, DBException;
 
+    /**
+     * Prepares statement which reads children of all specified objects (e.g. with IN-list of object names or IDs).
+     * Result set must contain the object name column.
+     *
+     * @return statement or null if cache can't read children of several objects at once
+     */
+    @Nullable
+    protected JDBCStatement prepareChildrenBatchStatement(@NotNull JDBCSession session, @NotNull OWNER owner, @NotNull List<OBJECT> forObjects)
+        throws SQLException
+    {
+        return null;
+    }
+
     protected JDBCStructCache(Object objectNameColumn)
     {
         this.objectNameColumn = objectNameColumn;
@@ -92,90 +112,221 @@ public abstract class JDBCStructCache<OWNER extends DBSObject, OBJECT extends DB
         try (JDBCSession session = DBUtils.openMetaSession(monitor, owner, "Load child objects")) {
             Map<OBJECT, List<CHILD>> objectMap = new HashMap<>();
 
-            // Load columns
-            try (JDBCStatement dbStat = prepareChildrenStatement(session, owner, forObject)) {
-                dbStat.setFetchSize(DBConstants.METADATA_FETCH_SIZE);
-                dbStat.executeStatement();
-                JDBCResultSet dbResult = dbStat.getResultSet();
-                if (dbResult != null) {
+            JDBCMetadataSnapshot snapshot = JDBCMetadataSnapshot.getSnapshot(dataSource);
+            String snapshotKey = snapshot == null ? null : snapshot.makeEntryKey(this, owner, forObject);
+            boolean snapshotLoaded = snapshot != null && loadSnapshotChildren(monitor, session, owner, forObject, snapshot, snapshotKey, objectMap);
+            if (monitor.isCanceled()) {
+                return;
+            }
+            if (!snapshotLoaded) {
+                // Load columns
+                try (JDBCStatement dbStat = prepareChildrenStatement(session, owner, forObject)) {
+                    dbStat.setFetchSize(DBConstants.METADATA_FETCH_SIZE);
+                    dbStat.executeStatement();
+                    JDBCResultSet dbResult = dbStat.getResultSet();
+                    if (dbResult == null) {
+                        return;
+                    }
+                    if (snapshot != null) {
+                        dbResult = snapshot.recordResultSet(snapshotKey, dbResult);
+                    }
                     try {
-                        while (dbResult.next()) {
-                            if (monitor.isCanceled()) {
-                                return;
-                            }
-                            OBJECT object = forObject;
-                            if (object == null) {
-                                String objectName;
-                                if (objectNameColumn instanceof Number) {
-                                    objectName = JDBCUtils.safeGetString(dbResult, ((Number) objectNameColumn).intValue());
-                                } else {
-                                    objectName = JDBCUtils.safeGetStringTrimmed(dbResult, objectNameColumn.toString());
-                                }
-                                if (objectName == null) {
-                                    log.debug("NULL object name in " + this);
-                                    continue;
-                                }
-
-                                object = super.getCachedObject(objectName);
-                                if (object == null) {
-                                    log.debug("Object '" + objectName + "' not found in struct cache (" + getClass().getSimpleName() + ")");
-                                    continue;
-                                }
-                            }
-                            if (isChildrenCached(object)) {
-                                // Already read
-                                continue;
-                            }
-                            CHILD child = fetchChild(session, owner, object, dbResult);
-                            if (child == null) {
-                                continue;
-                            }
-
-                            // Add to map
-                            List<CHILD> children = objectMap.get(object);
-                            if (children == null) {
-                                children = new ArrayList<>();
-                                objectMap.put(object, children);
-                            }
-                            children.add(child);
-                        }
-
-                        if (monitor.isCanceled()) {
+                        if (!fetchChildren(monitor, session, owner, forObject, dbResult, objectMap)) {
                             return;
                         }
+                    } finally {
+                        dbResult.close();
+                    }
+                }
+            }
 
-                        // All children are read. Now assign them to parents
-                        for (Map.Entry<OBJECT, List<CHILD>> colEntry : objectMap.entrySet()) {
-                            if (!isChildrenCached(colEntry.getKey())) {
-                                // isChildrenCached may return true if the same cache was read in other thread
-                                // just skip
-                                cacheChildren(colEntry.getKey(), colEntry.getValue());
-                            }
+            // All children are read. Now assign them to parents
+            for (Map.Entry<OBJECT, List<CHILD>> colEntry : objectMap.entrySet()) {
+                // Children may be already read by the batch load in other thread, just skip them
+                cacheChildrenIfAbsent(colEntry.getKey(), colEntry.getValue());
+            }
+            if (forObject == null) {
+                if (objectMap.isEmpty()) {
+                    // Nothing was read. May be it means empty list of children
+                    // but possibly this feature is not supported [JDBC: SQLite]
+                } else {
+                    // Now set empty column list for other tables
+                    for (OBJECT tmpObject : getAllObjects(monitor, owner)) {
+                        if (!objectMap.containsKey(tmpObject)) {
+                            cacheChildrenIfAbsent(tmpObject, new ArrayList<>());
                         }
-                        if (forObject == null) {
-                            if (objectMap.isEmpty()) {
-                                // Nothing was read. May be it means empty list of children
-                                // but possibly this feature is not supported [JDBC: SQLite]
-                            } else {
-                                // Now set empty column list for other tables
-                                for (OBJECT tmpObject : getAllObjects(monitor, owner)) {
-                                    if (!isChildrenCached(tmpObject) && !objectMap.containsKey(tmpObject)) {
-                                        cacheChildren(tmpObject, new ArrayList<>());
-                                    }
-                                }
-                                this.childrenCached = true;
+                    }
+                    this.childrenCached = true;
+                }
+            } else if (!objectMap.containsKey(forObject)) {
+                cacheChildrenIfAbsent(forObject, new ArrayList<>());
+            }
+        } catch (SQLException ex) {
+            throw new DBException(ex, dataSource);
+        }
+    }
+
+    /**
+     * Reads children of several objects.
+     * If cache supports batch statements (see {@link #prepareChildrenBatchStatement(JDBCSession, DBSObject, List)})
+     * then children are read with one query per batch. Cache isn't locked while batch query is executed,
+     * children of each object are cached after the query unless they were cached by other thread meanwhile.
+     * Results are dropped if children cache was cleared (e.g. refreshed) during the query.
+     * Otherwise reads children of all objects if significant part of them is requested or children of each object separately.
+     *
+     * @param monitor
+     *            monitor
+     * @param forObjects
+     *            objects for which to read children. Objects with cached children are skipped.
+     * @throws org.jkiss.dbeaver.DBException
+     *             on error
+     */
+    public void loadChildrenBatch(DBRProgressMonitor monitor, OWNER owner, Collection<OBJECT> forObjects) throws DBException
+    {
+        int cacheVersion;
+        synchronized (childrenCache) {
+            cacheVersion = childrenCacheVersion;
+        }
+        List<OBJECT> objects = new ArrayList<>();
+        Set<OBJECT> objectSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (OBJECT object : forObjects) {
+            if (object.isPersisted() && !isChildrenCached(object) && objectSet.add(object)) {
+                objects.add(object);
+            }
+        }
+        if (objects.isEmpty() || this.childrenCached || monitor.isCanceled()) {
+            return;
+        }
+        if (objects.size() == 1) {
+            loadChildren(monitor, owner, objects.get(0));
+            return;
+        }
+
+        DBPDataSource dataSource = owner.getDataSource();
+        if (dataSource == null) {
+            throw new DBException(ModelMessages.error_not_connected_to_database);
+        }
+        // Children are linked to parents by name
+        List<OBJECT> allObjects = getAllObjects(monitor, owner);
+
+        boolean batchSupported = true;
+        try (JDBCSession session = DBUtils.openMetaSession(monitor, owner, "Load child objects")) {
+            for (int i = 0; i < objects.size(); i += CHILDREN_BATCH_SIZE) {
+                List<OBJECT> batch = objects.subList(i, Math.min(i + CHILDREN_BATCH_SIZE, objects.size()));
+                Map<OBJECT, List<CHILD>> objectMap = new HashMap<>();
+                try (JDBCStatement dbStat = prepareChildrenBatchStatement(session, owner, batch)) {
+                    if (dbStat == null) {
+                        batchSupported = false;
+                        break;
+                    }
+                    dbStat.setFetchSize(DBConstants.METADATA_FETCH_SIZE);
+                    dbStat.executeStatement();
+                    JDBCResultSet dbResult = dbStat.getResultSet();
+                    if (dbResult != null) {
+                        try {
+                            if (!fetchChildren(monitor, session, owner, null, dbResult, objectMap)) {
+                                return;
                             }
-                        } else if (!objectMap.containsKey(forObject)) {
-                            cacheChildren(forObject, new ArrayList<>());
+                        } finally {
+                            dbResult.close();
                         }
-                    } finally {
-                        dbResult.close();
+                    }
+                }
+                synchronized (childrenCache) {
+                    if (childrenCacheVersion != cacheVersion) {
+                        return;
+                    }
+                    // Query reads children of all batch objects, so objects without children have empty lists
+                    for (OBJECT object : batch) {
+                        List<CHILD> children = objectMap.get(object);
+                        cacheChildrenIfAbsent(object, children == null ? new ArrayList<>() : children);
                     }
                 }
             }
         } catch (SQLException ex) {
             throw new DBException(ex, dataSource);
         }
+
+        if (!batchSupported) {
+            if (objects.size() * FULL_READ_RATIO >= allObjects.size()) {
+                loadChildren(monitor, owner, null);
+            } else {
+                for (OBJECT object : objects) {
+                    if (monitor.isCanceled()) {
+                        break;
+                    }
+                    loadChildren(monitor, owner, object);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads children from the result set. Returns false if loading was canceled.
+     */
+    private boolean fetchChildren(DBRProgressMonitor monitor, JDBCSession session, OWNER owner, @Nullable OBJECT forObject, JDBCResultSet dbResult, Map<OBJECT, List<CHILD>> objectMap)
+        throws SQLException, DBException
+    {
+        while (dbResult.next()) {
+            if (monitor.isCanceled()) {
+                return false;
+            }
+            OBJECT object = forObject;
+            if (object == null) {
+                String objectName;
+                if (objectNameColumn instanceof Number) {
+                    objectName = JDBCUtils.safeGetString(dbResult, ((Number) objectNameColumn).intValue());
+                } else {
+                    objectName = JDBCUtils.safeGetStringTrimmed(dbResult, objectNameColumn.toString());
+                }
+                if (objectName == null) {
+                    log.debug("NULL object name in " + this);
+                    continue;
+                }
+
+                object = super.getCachedObject(objectName);
+                if (object == null) {
+                    log.debug("Object '" + objectName + "' not found in struct cache (" + getClass().getSimpleName() + ")");
+                    continue;
+                }
+            }
+            if (isChildrenCached(object)) {
+                // Already read
+                continue;
+            }
+            CHILD child = fetchChild(session, owner, object, dbResult);
+            if (child == null) {
+                continue;
+            }
+
+            // Add to map
+            List<CHILD> children = objectMap.get(object);
+            if (children == null) {
+                children = new ArrayList<>();
+                objectMap.put(object, children);
+            }
+            children.add(child);
+        }
+        return !monitor.isCanceled();
+    }
+
+    /**
+     * Reads children from the metadata snapshot. Returns false if snapshot doesn't contain all necessary values.
+     */
+    private boolean loadSnapshotChildren(DBRProgressMonitor monitor, JDBCSession session, OWNER owner, @Nullable OBJECT forObject, JDBCMetadataSnapshot snapshot, String snapshotKey, Map<OBJECT, List<CHILD>> objectMap) {
+        JDBCResultSet dbResult = snapshot.openResultSet(session, snapshotKey);
+        if (dbResult == null) {
+            return false;
+        }
+        try {
+            if (fetchChildren(monitor, session, owner, forObject, dbResult, objectMap) && JDBCMetadataSnapshot.isCompleted(dbResult)) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.debug("Can't read " + getClass().getSimpleName() + " children from metadata snapshot: " + e.getMessage());
+        }
+        objectMap.clear();
+        return false;
     }
 
     @Override
@@ -244,6 +395,7 @@ public abstract class JDBCStructCache<OWNER extends DBSObject, OBJECT extends DB
                 this.childrenCache.clear();
             }
             childrenCached = false;
+            childrenCacheVersion++;
         }
     }
 
@@ -269,4 +421,13 @@ public abstract class JDBCStructCache<OWNER extends DBSObject, OBJECT extends DB
         }
     }
 
+    private void cacheChildrenIfAbsent(OBJECT parent, List<CHILD> children)
+    {
+        synchronized (childrenCache) {
+            if (!childrenCache.containsKey(parent)) {
+                cacheChildren(parent, children);
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -23,6 +23,9 @@ import org.jkiss.dbeaver.model.exec.*;
 import org.jkiss.dbeaver.model.sql.SQLDialect;
 import org.jkiss.utils.CommonUtils;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 /**
  * Data source information
  */
@@ -43,6 +46,9 @@ public class QMMConnectionInfo extends QMMObject {
     private QMMStatementInfo statementStack;
     private QMMStatementExecuteInfo executionStack;
     private QMMTransactionInfo transaction;
+    // Fast lookup of open statements and their last executions (stacks above keep the whole history)
+    private final Map<DBCStatement, QMMStatementInfo> openStatements = new IdentityHashMap<>();
+    private final Map<DBCStatement, QMMStatementExecuteInfo> openExecutions = new IdentityHashMap<>();
     //private Throwable stack;
 
     public QMMConnectionInfo(DBCExecutionContext context, boolean transactional) {
@@ -66,7 +72,11 @@ public class QMMConnectionInfo extends QMMObject {
     }
 
     public QMMConnectionInfo(long openTime, long closeTime, String containerId, String containerName, String driverId, DBPConnectionConfiguration connectionConfiguration, String instanceID, String contextName, boolean transactional) {
-        super(openTime, closeTime);
+        this(generateObjectId(), openTime, closeTime, containerId, containerName, driverId, connectionConfiguration, instanceID, contextName, transactional);
+    }
+
+    public QMMConnectionInfo(long objectId, long openTime, long closeTime, String containerId, String containerName, String driverId, DBPConnectionConfiguration connectionConfiguration, String instanceID, String contextName, boolean transactional) {
+        super(objectId, openTime, closeTime);
         this.project = null;
         this.containerId = containerId;
         this.containerName = containerName;
@@ -91,6 +101,8 @@ public class QMMConnectionInfo extends QMMObject {
                 stat.close();
             }
         }
+        openStatements.clear();
+        openExecutions.clear();
         super.close();
     }
 
@@ -155,7 +167,9 @@ public class QMMConnectionInfo extends QMMObject {
 
     public QMMStatementInfo openStatement(DBCStatement statement)
     {
-        return this.statementStack = new QMMStatementInfo(this, statement, this.statementStack);
+        this.statementStack = new QMMStatementInfo(this, statement, this.statementStack);
+        openStatements.put(statement, this.statementStack);
+        return this.statementStack;
     }
 
     public QMMStatementInfo closeStatement(DBCStatement statement, long rows)
@@ -164,11 +178,11 @@ public class QMMConnectionInfo extends QMMObject {
         if (execution != null && execution.getUpdateRowCount() < 0) {
             execution.close(rows, null);
         }
-        for (QMMStatementInfo stat = this.statementStack; stat != null; stat = stat.getPrevious()) {
-            if (stat.getReference() == statement) {
-                stat.close();
-                return stat;
-            }
+        openExecutions.remove(statement);
+        QMMStatementInfo stat = openStatements.remove(statement);
+        if (stat != null) {
+            stat.close();
+            return stat;
         }
         log.warn("Statement " + statement + " meta info not found");
         return null;
@@ -176,23 +190,16 @@ public class QMMConnectionInfo extends QMMObject {
 
     public QMMStatementInfo getStatement(DBCStatement statement)
     {
-        for (QMMStatementInfo stat = this.statementStack; stat != null; stat = stat.getPrevious()) {
-            if (stat.getReference() == statement) {
-                return stat;
-            }
+        QMMStatementInfo stat = openStatements.get(statement);
+        if (stat == null) {
+            log.warn("Statement " + statement + " meta info not found");
         }
-        log.warn("Statement " + statement + " meta info not found");
-        return null;
+        return stat;
     }
 
     public QMMStatementExecuteInfo getExecution(DBCStatement statement)
     {
-        for (QMMStatementExecuteInfo exec = this.executionStack; exec != null; exec = exec.getPrevious()) {
-            if (exec.getStatement().getReference() == statement) {
-                return exec;
-            }
-        }
-        return null;
+        return openExecutions.get(statement);
     }
 
     public QMMStatementExecuteInfo beginExecution(DBCStatement statement)
@@ -204,11 +211,13 @@ public class QMMConnectionInfo extends QMMObject {
             final QMMTransactionSavepointInfo savepoint =
                 isTransactional() && getTransaction() != null ?
                     getTransaction().getCurrentSavepoint() : null;
-            return this.executionStack = new QMMStatementExecuteInfo(
+            this.executionStack = new QMMStatementExecuteInfo(
                 stat,
                 savepoint,
                 queryString,
                 this.executionStack);
+            openExecutions.put(statement, this.executionStack);
+            return this.executionStack;
         } else {
             return null;
         }
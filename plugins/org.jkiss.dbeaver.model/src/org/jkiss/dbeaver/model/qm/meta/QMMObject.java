@@ -43,7 +43,11 @@ public abstract class QMMObject {
     }
 
     protected QMMObject(long openTime, long closeTime) {
-        this.objectId = generateObjectId();
+        this(generateObjectId(), openTime, closeTime);
+    }
+
+    protected QMMObject(long objectId, long openTime, long closeTime) {
+        this.objectId = objectId;
         this.openTime = openTime;
         this.closeTime = closeTime;
     }
@@ -103,7 +107,7 @@ public abstract class QMMObject {
         this.updated = false;
     }
 
-    private static synchronized long generateObjectId() {
+    protected static synchronized long generateObjectId() {
         globalObjectId++;
         return globalObjectId;
     }
@@ -62,10 +62,19 @@ public class QMMStatementExecuteInfo extends QMMObject {
     }
 
     public QMMStatementExecuteInfo(long openTime, long closeTime, QMMStatementInfo stmt, String queryString, long rowCount, int errorCode, String errorMessage, long fetchBeginTime, long fetchEndTime, boolean transactional) {
-        super(openTime, closeTime);
+        this(generateObjectId(), openTime, closeTime, stmt, null, queryString, rowCount, -1, errorCode, errorMessage, fetchBeginTime, fetchEndTime, transactional);
+    }
+
+    public QMMStatementExecuteInfo(long objectId, long openTime, long closeTime, QMMStatementInfo stmt, QMMTransactionSavepointInfo savepoint, String queryString, long rowCount, long updateRowCount, int errorCode, String errorMessage, long fetchBeginTime, long fetchEndTime, boolean transactional) {
+        super(objectId, openTime, closeTime);
         this.statement = stmt;
+        this.savepoint = savepoint;
+        if (savepoint != null) {
+            savepoint.setLastExecute(this);
+        }
         this.queryString = queryString;
         this.fetchRowCount = rowCount;
+        this.updateRowCount = updateRowCount;
         this.errorCode = errorCode;
         this.errorMessage = errorMessage;
         this.fetchBeginTime = fetchBeginTime;
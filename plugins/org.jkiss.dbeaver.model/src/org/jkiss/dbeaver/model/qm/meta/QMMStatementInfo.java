@@ -38,7 +38,11 @@ public class QMMStatementInfo extends QMMObject {
     }
 
     public QMMStatementInfo(long openTime, long closeTime, QMMConnectionInfo session, DBCExecutionPurpose purpose) {
-        super(openTime, closeTime);
+        this(generateObjectId(), openTime, closeTime, session, purpose);
+    }
+
+    public QMMStatementInfo(long objectId, long openTime, long closeTime, QMMConnectionInfo session, DBCExecutionPurpose purpose) {
+        super(objectId, openTime, closeTime);
         this.connection = session;
         this.purpose = purpose;
         this.previous = null;
@@ -35,6 +35,17 @@ public class QMMTransactionInfo extends QMMObject {
         this.savepointStack = new QMMTransactionSavepointInfo(this, null, null, null);
     }
 
+    public QMMTransactionInfo(long objectId, long openTime, long closeTime, QMMConnectionInfo connection, boolean committed) {
+        super(objectId, openTime, closeTime);
+        this.connection = connection;
+        this.previous = null;
+        this.committed = committed;
+        this.savepointStack = new QMMTransactionSavepointInfo(this, null, null, null);
+        if (closeTime > 0) {
+            this.savepointStack.close(committed);
+        }
+    }
+
     void commit() {
         this.committed = true;
         for (QMMTransactionSavepointInfo sp = savepointStack; sp != null; sp = sp.getPrevious()) {
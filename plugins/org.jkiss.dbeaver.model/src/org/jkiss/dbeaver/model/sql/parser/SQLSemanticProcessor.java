@@ -21,9 +21,7 @@ import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.LongValue;
 import net.sf.jsqlparser.expression.Parenthesis;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
-import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
-import net.sf.jsqlparser.parser.StringProvider;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.schema.Table;
 import net.sf.jsqlparser.statement.Statement;
@@ -47,7 +45,6 @@ import org.jkiss.dbeaver.model.sql.SQLUtils;
 import org.jkiss.dbeaver.model.struct.DBSAttributeBase;
 import org.jkiss.dbeaver.model.struct.DBSEntity;
 import org.jkiss.dbeaver.model.struct.DBSEntityAttribute;
-import org.jkiss.utils.ArrayUtils;
 import org.jkiss.utils.CommonUtils;
 
 import java.util.ArrayList;
@@ -62,25 +59,11 @@ public class SQLSemanticProcessor {
 
     private static final String NESTED_QUERY_AlIAS = "z_q";
 
-    private static final boolean ALLOW_COMPLEX_PARSING = false;
-
+    /**
+     * Parses SQL statement. Parsed statements are cached, each call returns a new statement instance.
+     */
     public static Statement parseQuery(@Nullable SQLDialect dialect, @NotNull String sql) throws DBCException {
-        CCJSqlParser parser = new CCJSqlParser(new StringProvider(sql));
-        try {
-            parser.withAllowComplexParsing(ALLOW_COMPLEX_PARSING);
-            if (dialect != null) {
-                // Enable square brackets
-                for (String[] qs : ArrayUtils.safeArray(dialect.getIdentifierQuoteStrings())) {
-                    if (qs.length == 2 && "[".equals(qs[0]) && "]".equals(qs[1])) {
-                        parser.withSquareBracketQuotation(true);
-                        break;
-                    }
-                }
-            }
-            return parser.Statement();
-        } catch (Exception e) {
-            throw new DBCException("Error parsing SQL query", e);
-        }
+        return SQLStatementCache.parseStatement(dialect, sql);
     }
 
     public static Statement parseQuery(@NotNull String sql) throws DBCException {
@@ -0,0 +1,454 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.sql.parser;
+
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.parser.Node;
+import net.sf.jsqlparser.parser.StringProvider;
+import net.sf.jsqlparser.parser.Token;
+import net.sf.jsqlparser.statement.Statement;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.ModelPreferences;
+import org.jkiss.dbeaver.bundle.ModelActivator;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.jkiss.dbeaver.model.sql.SQLDialect;
+import org.jkiss.utils.ArrayUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared cache of parsed SQL statements.
+ * <p>
+ * The same query text is parsed by the query itself, by query transformers, by result set panels and again
+ * on each re-execution. Statements are mutable, so cache keeps its own instances and returns copies.
+ * Parsing runs in a small pool of parser threads with a time budget. Text which wasn't parsed in time is reported
+ * as unparsable and its parse is interrupted, so a pathological statement doesn't occupy the parser thread.
+ * Such statement stays in cache as timed out and isn't parsed again.
+ */
+public class SQLStatementCache {
+
+    private static final Log log = Log.getLog(SQLStatementCache.class);
+
+    public static final int MAX_CACHE_SIZE = 500;
+    // Huge texts (e.g. data scripts) are parsed once and keeping them in memory makes no sense
+    public static final int MAX_CACHED_TEXT_LENGTH = 100000;
+
+    private static final boolean ALLOW_COMPLEX_PARSING = false;
+
+    private static final Map<StatementKey, ParseTask> cache = new LinkedHashMap<StatementKey, ParseTask>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<StatementKey, ParseTask> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private static final int MAX_PARSE_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int MAX_PARSE_QUEUE_SIZE = 100;
+
+    private static final ThreadPoolExecutor parseExecutor = new ThreadPoolExecutor(
+        MAX_PARSE_THREADS, MAX_PARSE_THREADS,
+        30, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(MAX_PARSE_QUEUE_SIZE),
+        runnable -> {
+            Thread thread = new Thread(runnable, "SQL statement parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    static {
+        parseExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+    private static final AtomicLong timeoutCount = new AtomicLong();
+
+    private static final Map<Class<?>, Field[]> copyFields = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Constructor<?>> copyConstructors = new ConcurrentHashMap<>();
+
+    private static class StatementParser implements Callable<Statement> {
+        private final boolean squareBrackets;
+        private final String text;
+        private final boolean detach;
+        private volatile CCJSqlParser parser;
+        private volatile boolean interrupted;
+        private volatile boolean detached;
+
+        StatementParser(boolean squareBrackets, String text, boolean detach) {
+            this.squareBrackets = squareBrackets;
+            this.text = text;
+            this.detach = detach;
+        }
+
+        @Override
+        public Statement call() throws DBCException {
+            CCJSqlParser parser = createParser(squareBrackets, text);
+            this.parser = parser;
+            if (interrupted) {
+                // Interrupted right before the parse start
+                parser.interrupted = true;
+            }
+            Statement statement = parse(parser);
+            if (detach) {
+                Statement detachedStatement = detachStatement(statement);
+                if (detachedStatement != null) {
+                    detached = true;
+                    return detachedStatement;
+                }
+            }
+            return statement;
+        }
+
+        /**
+         * Stops the parse. Returns false if parse wasn't started yet.
+         */
+        boolean interrupt() {
+            interrupted = true;
+            CCJSqlParser parser = this.parser;
+            if (parser != null) {
+                parser.interrupted = true;
+            }
+            return parser != null;
+        }
+    }
+
+    private static class ParseTask extends FutureTask<Statement> {
+        private final StatementParser parser;
+        private volatile boolean timedOut;
+
+        ParseTask(StatementParser parser) {
+            super(parser);
+            this.parser = parser;
+        }
+
+        /**
+         * Stops the parse. Returns false if parse wasn't started yet (e.g. all parser threads were busy).
+         */
+        boolean abandon() {
+            timedOut = true;
+            boolean started = parser.interrupt();
+            cancel(true);
+            return started;
+        }
+    }
+
+    private static class StatementKey {
+        private final boolean squareBrackets;
+        private final String text;
+        private final int hash;
+
+        StatementKey(boolean squareBrackets, String text) {
+            this.squareBrackets = squareBrackets;
+            this.text = text;
+            this.hash = text.hashCode() * 31 + (squareBrackets ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey key = (StatementKey) obj;
+            return squareBrackets == key.squareBrackets && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Parses statement or takes it from the cache.
+     * Result is a new statement instance which can be freely modified by the caller.
+     *
+     * @throws DBCException if text can't be parsed or parsing takes more than the configured timeout
+     */
+    @NotNull
+    public static Statement parseStatement(@Nullable SQLDialect dialect, @NotNull String sql) throws DBCException {
+        String text = sql.trim();
+        boolean squareBrackets = isSquareBracketQuotation(dialect);
+        if (text.length() > MAX_CACHED_TEXT_LENGTH) {
+            missCount.incrementAndGet();
+            return parseUncached(squareBrackets, text);
+        }
+        StatementKey key = new StatementKey(squareBrackets, text);
+        ParseTask task;
+        boolean created = false;
+        synchronized (cache) {
+            task = cache.get(key);
+            if (task == null) {
+                task = new ParseTask(new StatementParser(squareBrackets, text, true));
+                cache.put(key, task);
+                created = true;
+            }
+        }
+        if (created) {
+            missCount.incrementAndGet();
+            try {
+                startParse(task);
+            } catch (DBCException e) {
+                removeTask(key, task);
+                throw e;
+            }
+        } else {
+            hitCount.incrementAndGet();
+            if (task.timedOut) {
+                // Do not wait for the same pathological statement again
+                timeoutCount.incrementAndGet();
+                throw new DBCException("SQL query parse timed out");
+            }
+        }
+        Statement statement = waitForStatement(key, task, text);
+        if (task.parser.detached) {
+            try {
+                return copyObject(statement, new IdentityHashMap<>());
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.debug("Can't copy cached statement: " + e.getMessage());
+            }
+        }
+        // Statement can't be copied, so it can't be shared. Do not keep it in cache.
+        removeTask(key, task);
+        if (created && !task.parser.detached) {
+            // Parsed for this request, nobody else gets this instance
+            return statement;
+        }
+        return parseUncached(squareBrackets, text);
+    }
+
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    public static long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @NotNull
+    private static Statement parseUncached(boolean squareBrackets, @NotNull String text) throws DBCException {
+        ParseTask task = new ParseTask(new StatementParser(squareBrackets, text, false));
+        startParse(task);
+        return waitForStatement(null, task, text);
+    }
+
+    private static void startParse(@NotNull ParseTask task) throws DBCException {
+        try {
+            parseExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            timeoutCount.incrementAndGet();
+            throw new DBCException("SQL parser is busy", e);
+        }
+    }
+
+    private static void removeTask(@NotNull StatementKey key, @NotNull ParseTask task) {
+        synchronized (cache) {
+            cache.remove(key, task);
+        }
+    }
+
+    @NotNull
+    private static Statement waitForStatement(@Nullable StatementKey key, @NotNull ParseTask task, @NotNull String text) throws DBCException {
+        long timeout = getParseTimeout();
+        try {
+            return timeout <= 0 ? task.get() : task.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (!task.abandon() && key != null) {
+                // Parse didn't even start, the statement itself is probably fine
+                removeTask(key, task);
+            }
+            timeoutCount.incrementAndGet();
+            log.debug("SQL query parse timed out (" + timeout + "ms): " + (text.length() > 100 ? text.substring(0, 100) + "..." : text));
+            throw new DBCException("SQL query parse timed out");
+        } catch (CancellationException e) {
+            // Abandoned by another request
+            timeoutCount.incrementAndGet();
+            throw new DBCException("SQL query parse timed out");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DBCException && cause.getCause() != null) {
+                // Parse errors are cached, do not rethrow the same exception instance
+                cause = cause.getCause();
+            }
+            throw new DBCException("Error parsing SQL query", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBCException("SQL query parse interrupted", e);
+        }
+    }
+
+    @NotNull
+    private static CCJSqlParser createParser(boolean squareBrackets, @NotNull String sql) {
+        CCJSqlParser parser = new CCJSqlParser(new StringProvider(sql));
+        parser.withAllowComplexParsing(ALLOW_COMPLEX_PARSING);
+        if (squareBrackets) {
+            parser.withSquareBracketQuotation(true);
+        }
+        return parser;
+    }
+
+    @NotNull
+    private static Statement parse(@NotNull CCJSqlParser parser) throws DBCException {
+        try {
+            return parser.Statement();
+        } catch (Throwable e) {
+            throw new DBCException("Error parsing SQL query", e);
+        }
+    }
+
+    private static boolean isSquareBracketQuotation(@Nullable SQLDialect dialect) {
+        if (dialect != null) {
+            for (String[] qs : ArrayUtils.safeArray(dialect.getIdentifierQuoteStrings())) {
+                if (qs.length == 2 && "[".equals(qs[0]) && "]".equals(qs[1])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long getParseTimeout() {
+        if (ModelActivator.getInstance() == null) {
+            // Standalone mode (tests)
+            return 0;
+        }
+        return ModelPreferences.getPreferences().getLong(ModelPreferences.SQL_PARSE_TIMEOUT);
+    }
+
+    /**
+     * Makes statement copy without links to the parser tree, so the cached statement doesn't keep all parser tokens.
+     * Returns null if statement can't be copied.
+     */
+    @Nullable
+    private static Statement detachStatement(@NotNull Statement statement) {
+        try {
+            return copyObject(statement, new IdentityHashMap<>());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Can't detach parsed statement: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Deep copy of the parsed statement. Statement objects are plain beans, other java objects are treated as immutable.
+    @SuppressWarnings("unchecked")
+    private static <T> T copyObject(@Nullable T object, @NotNull Map<Object, Object> copies) throws ReflectiveOperationException {
+        if (object == null || isImmutable(object)) {
+            return object;
+        }
+        if (object instanceof Node || object instanceof Token) {
+            return null;
+        }
+        Object copy = copies.get(object);
+        if (copy != null) {
+            return (T) copy;
+        }
+        Class<?> objectClass = object.getClass();
+        if (objectClass.isArray()) {
+            int length = Array.getLength(object);
+            copy = Array.newInstance(objectClass.getComponentType(), length);
+            copies.put(object, copy);
+            for (int i = 0; i < length; i++) {
+                Array.set(copy, i, copyObject(Array.get(object, i), copies));
+            }
+        } else if (object instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) object).size());
+            copies.put(object, list);
+            for (Object item : (List<?>) object) {
+                list.add(copyObject(item, copies));
+            }
+            copy = list;
+        } else if (object instanceof Set) {
+            Set<Object> set = new LinkedHashSet<>();
+            copies.put(object, set);
+            for (Object item : (Set<?>) object) {
+                set.add(copyObject(item, copies));
+            }
+            copy = set;
+        } else if (object instanceof Map) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            copies.put(object, map);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                map.put(copyObject(entry.getKey(), copies), copyObject(entry.getValue(), copies));
+            }
+            copy = map;
+        } else {
+            copy = getCopyConstructor(objectClass).newInstance();
+            copies.put(object, copy);
+            for (Field field : getCopyFields(objectClass)) {
+                field.set(copy, copyObject(field.get(object), copies));
+            }
+        }
+        return (T) copy;
+    }
+
+    private static boolean isImmutable(@NotNull Object object) {
+        Class<?> objectClass = object.getClass();
+        return objectClass.isPrimitive() || objectClass.isEnum() || object instanceof Enum ||
+            (!objectClass.isArray() && !(object instanceof Collection) && !(object instanceof Map) &&
+                objectClass.getName().startsWith("java."));
+    }
+
+    @NotNull
+    private static Constructor<?> getCopyConstructor(@NotNull Class<?> objectClass) throws NoSuchMethodException {
+        Constructor<?> constructor = copyConstructors.get(objectClass);
+        if (constructor == null) {
+            constructor = objectClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            copyConstructors.put(objectClass, constructor);
+        }
+        return constructor;
+    }
+
+    @NotNull
+    private static Field[] getCopyFields(@NotNull Class<?> objectClass) {
+        Field[] fields = copyFields.get(objectClass);
+        if (fields == null) {
+            List<Field> fieldList = new ArrayList<>();
+            for (Class<?> c = objectClass; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fieldList.add(field);
+                }
+            }
+            fields = fieldList.toArray(new Field[0]);
+            copyFields.put(objectClass, fields);
+        }
+        return fields;
+    }
+
+}
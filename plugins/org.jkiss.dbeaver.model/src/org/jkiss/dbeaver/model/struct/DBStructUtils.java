@@ -268,6 +268,28 @@ public final class DBStructUtils {
         monitor.done();
     }
 
+    /**
+     * Caches attributes of entities. Entities of containers which support batch loading
+     * (see {@link DBSEntityAttributeBatchLoader}) are read with a few queries instead of one query per entity.
+     */
+    public static void cacheEntityAttributes(@NotNull DBRProgressMonitor monitor, @NotNull Collection<? extends DBSEntity> entities) throws DBException {
+        Map<DBSEntityAttributeBatchLoader, List<DBSEntity>> containerEntities = new LinkedHashMap<>();
+        for (DBSEntity entity : entities) {
+            DBSObject container = entity.getParentObject();
+            if (container instanceof DBSEntityAttributeBatchLoader) {
+                containerEntities.computeIfAbsent((DBSEntityAttributeBatchLoader) container, c -> new ArrayList<>()).add(entity);
+            }
+        }
+        for (Map.Entry<DBSEntityAttributeBatchLoader, List<DBSEntity>> entry : containerEntities.entrySet()) {
+            if (monitor.isCanceled()) {
+                break;
+            }
+            if (entry.getValue().size() > 1) {
+                entry.getKey().cacheEntityAttributes(monitor, entry.getValue());
+            }
+        }
+    }
+
     public static String mapTargetDataType(DBSObject objectContainer, DBSTypedObject srcTypedObject, boolean addModifiers) {
         boolean isBindingWithEntityAttr = false;
         if (srcTypedObject instanceof DBDAttributeBinding) {
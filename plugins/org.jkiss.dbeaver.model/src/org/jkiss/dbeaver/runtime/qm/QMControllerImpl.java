@@ -33,8 +33,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -181,51 +179,33 @@ public class QMControllerImpl implements QMController {
             @Nullable QMEventFilter filter)
             throws DBException
         {
-            List<QMMetaEvent> pastEvents = metaHandler.getPastEvents();
-            Collections.reverse(pastEvents);
-            if (criteria.getObjectTypes() != null || criteria.getQueryTypes() != null) {
-                // Filter by query type and object type
-                for (Iterator<QMMetaEvent> iter = pastEvents.iterator(); iter.hasNext(); ) {
-                    QMMetaEvent event = iter.next();
-                    if (criteria.getObjectTypes() != null) {
-                        if (!matchesObjectType(event.getObject(), criteria.getObjectTypes())) {
-                            iter.remove();
-                            continue;
-                        }
-                    }
-                    if (filter != null && !filter.accept(event)) {
-                        iter.remove();
-                        continue;
-                    }
-                    if (criteria.getQueryTypes() != null) {
-                        QMMStatementInfo statementInfo = null;
-                        if (event.getObject() instanceof QMMStatementInfo) {
-                            statementInfo = (QMMStatementInfo) event.getObject();
-                        } else if (event.getObject() instanceof QMMStatementExecuteInfo) {
-                            statementInfo = ((QMMStatementExecuteInfo) event.getObject()).getStatement();
-                        }
-                        if (statementInfo != null &&
-                            !ArrayUtils.contains(criteria.getQueryTypes(), statementInfo.getPurpose()))
-                        {
-                            iter.remove();
-                        }
+            // Events are filtered while they are read from the history buffer
+            String searchString = CommonUtils.isEmpty(criteria.getSearchString()) ? null : criteria.getSearchString().toLowerCase();
+            List<QMMetaEvent> pastEvents = metaHandler.getPastEvents(event -> {
+                if (criteria.getObjectTypes() != null) {
+                    if (!matchesObjectType(event.getObject(), criteria.getObjectTypes())) {
+                        return false;
                     }
                 }
-            }
-            if (CommonUtils.isEmpty(criteria.getSearchString())) {
-                return new QMUtils.ListCursorImpl(pastEvents);
-            } else {
-                String searchString = criteria.getSearchString().toLowerCase();
-                List<QMMetaEvent> filtered = new ArrayList<>();
-                for (QMMetaEvent event : pastEvents) {
-                    if (event.getObject().getText().toLowerCase().contains(searchString) &&
-                        (filter == null || filter.accept(event)))
+                if (filter != null && !filter.accept(event)) {
+                    return false;
+                }
+                if (criteria.getQueryTypes() != null) {
+                    QMMStatementInfo statementInfo = null;
+                    if (event.getObject() instanceof QMMStatementInfo) {
+                        statementInfo = (QMMStatementInfo) event.getObject();
+                    } else if (event.getObject() instanceof QMMStatementExecuteInfo) {
+                        statementInfo = ((QMMStatementExecuteInfo) event.getObject()).getStatement();
+                    }
+                    if (statementInfo != null &&
+                        !ArrayUtils.contains(criteria.getQueryTypes(), statementInfo.getPurpose()))
                     {
-                        filtered.add(event);
+                        return false;
                     }
                 }
-                return new QMUtils.ListCursorImpl(filtered);
-            }
+                return searchString == null || event.getObject().getText().toLowerCase().contains(searchString);
+            });
+            return new QMUtils.ListCursorImpl(pastEvents);
         }
 
         private boolean matchesObjectType(QMMObject object, QMObjectType[] objectTypes) {
@@ -0,0 +1,573 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.runtime.qm;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.auth.SMSessionPersistent;
+import org.jkiss.dbeaver.model.connection.DBPConnectionConfiguration;
+import org.jkiss.dbeaver.model.exec.DBCExecutionPurpose;
+import org.jkiss.dbeaver.model.qm.QMEventAction;
+import org.jkiss.dbeaver.model.qm.QMMetaEvent;
+import org.jkiss.dbeaver.model.qm.meta.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Bounded query history storage.
+ *
+ * Events are serialized into compact binary records which are kept in a direct (off-heap) ring buffer.
+ * When the buffer is full the oldest records are evicted. Only connection descriptors and app sessions
+ * (which are shared by many records) are kept on heap.
+ * Events read from the buffer are detached copies of the original meta objects. Records keep the original
+ * object ids, so all events of the same object (e.g. begin and end of execution) refer to one detached object
+ * which has the state of the latest record.
+ */
+class QMMHistoryBuffer {
+
+    private static final byte TYPE_CONNECTION = 0;
+    private static final byte TYPE_TRANSACTION = 1;
+    private static final byte TYPE_STATEMENT = 2;
+    private static final byte TYPE_EXECUTE = 3;
+
+    // Marks the end of data before the buffer end
+    private static final int WRAP_MARKER = -1;
+    // length + type + action + open time + close time + connection index + session index + object id
+    private static final int RECORD_HEADER_SIZE = 4 + 1 + 1 + 8 + 8 + 4 + 4 + 8;
+    private static final int ACTION_OFFSET = 4 + 1;
+    private static final int CLOSE_TIME_OFFSET = 4 + 1 + 1 + 8;
+    private static final int CONNECTION_INDEX_OFFSET = 4 + 1 + 1 + 8 + 8;
+    private static final int SESSION_INDEX_OFFSET = CONNECTION_INDEX_OFFSET + 4;
+    private static final int OBJECT_ID_OFFSET = SESSION_INDEX_OFFSET + 4;
+    private static final int MAX_STRING_LENGTH = 64 * 1024;
+    // Number of records decoded under the buffer lock at once
+    private static final int READ_CHUNK_SIZE = 1000;
+
+    private static class ConnectionDescriptor {
+        final int index;
+        final long objectId;
+        final long openTime;
+        final String containerId;
+        final String containerName;
+        final String driverId;
+        final DBPConnectionConfiguration connectionConfiguration;
+        final String instanceId;
+        final String contextName;
+        final boolean transactional;
+        int recordCount;
+
+        ConnectionDescriptor(int index, QMMConnectionInfo connection) {
+            this.index = index;
+            this.objectId = connection.getObjectId();
+            this.openTime = connection.getOpenTime();
+            this.containerId = connection.getContainerId();
+            this.containerName = connection.getContainerName();
+            this.driverId = connection.getDriverId();
+            this.connectionConfiguration = connection.getConnectionConfiguration();
+            this.instanceId = connection.getInstanceId();
+            this.contextName = connection.getContextName();
+            this.transactional = connection.isTransactional();
+        }
+
+        QMMConnectionInfo createConnection(long closeTime) {
+            return new QMMConnectionInfo(objectId, openTime, closeTime, containerId, containerName, driverId, connectionConfiguration, instanceId, contextName, transactional);
+        }
+    }
+
+    /**
+     * State of a single read. Objects are decoded from their latest records and shared by all their events.
+     * Decoded object is released after its last event was read.
+     * Records are addressed by their index in the read snapshot, objects by their index in the sorted object ids.
+     */
+    private static class ReadContext {
+        // Sequence number of the first record
+        final long firstSequence;
+        final int[] positions;
+        final int[] recordObjects;
+        final long[] objectIds;
+        final int[] latestRecords;
+        final int[] eventCounts;
+        final QMMObject[] objects;
+        final Map<Integer, QMMConnectionInfo> connections = new HashMap<>();
+
+        ReadContext(long firstSequence, int[] positions, long[] recordObjectIds) {
+            this.firstSequence = firstSequence;
+            this.positions = positions;
+
+            long[] ids = recordObjectIds.clone();
+            Arrays.sort(ids);
+            int objectCount = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[objectCount++] = ids[i];
+                }
+            }
+            this.objectIds = Arrays.copyOf(ids, objectCount);
+            this.recordObjects = new int[positions.length];
+            this.latestRecords = new int[objectCount];
+            this.eventCounts = new int[objectCount];
+            this.objects = new QMMObject[objectCount];
+            for (int i = 0; i < positions.length; i++) {
+                int objectIndex = getObjectIndex(recordObjectIds[i]);
+                recordObjects[i] = objectIndex;
+                latestRecords[objectIndex] = i;
+                eventCounts[objectIndex]++;
+            }
+        }
+
+        int getObjectIndex(long objectId) {
+            return Arrays.binarySearch(objectIds, objectId);
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int maxStringLength;
+    // Position of the oldest record
+    private int tail;
+    // Position for the next record
+    private int head;
+    private int recordCount;
+    // Number of records evicted (or cleared) since the buffer creation. It is the sequence number of the oldest record.
+    private long evictedCount;
+
+    private final Map<Long, ConnectionDescriptor> connectionsById = new HashMap<>();
+    private final Map<Integer, ConnectionDescriptor> connectionsByIndex = new HashMap<>();
+    private int lastConnectionIndex;
+    private final List<SMSessionPersistent> sessions = new ArrayList<>();
+
+    QMMHistoryBuffer(int capacity) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.maxStringLength = Math.min(MAX_STRING_LENGTH, capacity / 16);
+    }
+
+    int getCapacity() {
+        return buffer.capacity();
+    }
+
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    synchronized void addEvents(@NotNull Collection<QMMetaEvent> events) {
+        for (QMMetaEvent event : events) {
+            addEvent(event);
+        }
+    }
+
+    synchronized void addEvent(@NotNull QMMetaEvent event) {
+        QMMObject object = event.getObject();
+        QMMConnectionInfo connection = object.getConnection();
+        if (connection == null) {
+            return;
+        }
+        byte type;
+        String queryString = null, errorMessage = null;
+        if (object instanceof QMMConnectionInfo) {
+            type = TYPE_CONNECTION;
+        } else if (object instanceof QMMTransactionInfo || object instanceof QMMTransactionSavepointInfo) {
+            type = TYPE_TRANSACTION;
+        } else if (object instanceof QMMStatementInfo) {
+            type = TYPE_STATEMENT;
+        } else if (object instanceof QMMStatementExecuteInfo) {
+            type = TYPE_EXECUTE;
+            queryString = ((QMMStatementExecuteInfo) object).getQueryString();
+            errorMessage = ((QMMStatementExecuteInfo) object).getErrorMessage();
+        } else {
+            return;
+        }
+        byte[] queryBytes = encodeString(queryString);
+        byte[] errorBytes = encodeString(errorMessage);
+        int recordSize = RECORD_HEADER_SIZE + getBodySize(type, queryBytes, errorBytes);
+        if (!ensureSpace(recordSize)) {
+            return;
+        }
+
+        ConnectionDescriptor descriptor = connectionsById.get(connection.getObjectId());
+        if (descriptor == null) {
+            descriptor = new ConnectionDescriptor(++lastConnectionIndex, connection);
+            connectionsById.put(connection.getObjectId(), descriptor);
+            connectionsByIndex.put(descriptor.index, descriptor);
+        }
+        descriptor.recordCount++;
+
+        buffer.position(head);
+        buffer.putInt(recordSize);
+        buffer.put(type);
+        buffer.put((byte) event.getAction().getId());
+        buffer.putLong(object.getOpenTime());
+        buffer.putLong(object.getCloseTime());
+        buffer.putInt(descriptor.index);
+        buffer.putInt(getSessionIndex(event.getQmAppSessionPersistent()));
+        buffer.putLong(object.getObjectId());
+        switch (type) {
+            case TYPE_CONNECTION:
+                buffer.put((byte) (((QMMConnectionInfo) object).isTransactional() ? 1 : 0));
+                break;
+            case TYPE_TRANSACTION: {
+                boolean committed = object instanceof QMMTransactionInfo ?
+                    ((QMMTransactionInfo) object).isCommitted() :
+                    ((QMMTransactionSavepointInfo) object).isCommitted();
+                buffer.put((byte) (committed ? 1 : 0));
+                break;
+            }
+            case TYPE_STATEMENT:
+                writeStatement((QMMStatementInfo) object);
+                break;
+            case TYPE_EXECUTE: {
+                QMMStatementExecuteInfo exec = (QMMStatementExecuteInfo) object;
+                writeStatement(exec.getStatement());
+                QMMTransactionSavepointInfo savepoint = exec.getSavepoint();
+                buffer.putLong(savepoint == null ? 0 : savepoint.getTransaction().getObjectId());
+                buffer.putLong(exec.getFetchRowCount());
+                buffer.putLong(exec.getUpdateRowCount());
+                buffer.putInt(exec.getErrorCode());
+                buffer.putLong(exec.getFetchBeginTime());
+                buffer.putLong(exec.getFetchEndTime());
+                buffer.put((byte) (exec.isTransactional() ? 1 : 0));
+                writeString(queryBytes);
+                writeString(errorBytes);
+                break;
+            }
+        }
+        head += recordSize;
+        recordCount++;
+    }
+
+    /**
+     * Reads all stored events. Oldest events come first.
+     */
+    @NotNull
+    List<QMMetaEvent> readEvents() {
+        return readEvents(null, false);
+    }
+
+    /**
+     * Reads stored events which match the filter.
+     * Records are decoded one by one, so only matched events are kept on heap.
+     * Buffer lock is held only while record positions are collected and while a chunk of records is decoded,
+     * so new events are added during the read. Records evicted during the read are skipped.
+     */
+    @NotNull
+    List<QMMetaEvent> readEvents(@Nullable Predicate<QMMetaEvent> filter, boolean newestFirst) {
+        ReadContext context = createReadContext();
+        int count = context.positions.length;
+        List<QMMetaEvent> events = new ArrayList<>(filter == null ? count : 100);
+        QMMetaEvent[] chunk = new QMMetaEvent[Math.min(count, READ_CHUNK_SIZE)];
+        for (int start = 0; start < count; start += chunk.length) {
+            int chunkSize = Math.min(chunk.length, count - start);
+            synchronized (this) {
+                for (int i = 0; i < chunkSize; i++) {
+                    int index = start + i;
+                    chunk[i] = readEvent(newestFirst ? count - index - 1 : index, context);
+                }
+            }
+            for (int i = 0; i < chunkSize; i++) {
+                QMMetaEvent event = chunk[i];
+                chunk[i] = null;
+                if (event != null && (filter == null || filter.test(event))) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    synchronized void clear() {
+        evictedCount += recordCount;
+        head = tail = recordCount = 0;
+        connectionsById.clear();
+        connectionsByIndex.clear();
+        sessions.clear();
+    }
+
+    private synchronized ReadContext createReadContext() {
+        int[] positions = new int[recordCount];
+        long[] objectIds = new long[recordCount];
+        int position = tail;
+        for (int i = 0; i < recordCount; i++) {
+            if (isWrapAt(position)) {
+                position = 0;
+            }
+            positions[i] = position;
+            objectIds[i] = buffer.getLong(position + OBJECT_ID_OFFSET);
+            position += buffer.getInt(position);
+        }
+        return new ReadContext(evictedCount, positions, objectIds);
+    }
+
+    /**
+     * Checks that record wasn't evicted after the read start
+     */
+    private boolean isAvailable(int record, ReadContext context) {
+        return context.firstSequence + record >= evictedCount;
+    }
+
+    /**
+     * Returns null if record was evicted
+     */
+    @Nullable
+    private QMMetaEvent readEvent(int record, ReadContext context) {
+        int objectIndex = context.recordObjects[record];
+        QMMetaEvent event = null;
+        // Object latest record is not older than this one, so it is available as well
+        if (isAvailable(record, context)) {
+            int position = context.positions[record];
+            QMEventAction action = QMEventAction.getById(buffer.get(position + ACTION_OFFSET));
+            SMSessionPersistent session = sessions.get(buffer.getInt(position + SESSION_INDEX_OFFSET));
+            event = new QMMetaEvent(getObject(objectIndex, context), action, session);
+        }
+        if (--context.eventCounts[objectIndex] <= 0) {
+            // Last event of this object
+            context.objects[objectIndex] = null;
+        }
+        return event;
+    }
+
+    private QMMObject getObject(int objectIndex, ReadContext context) {
+        QMMObject object = context.objects[objectIndex];
+        if (object == null) {
+            object = decodeObject(context.positions[context.latestRecords[objectIndex]], context);
+            context.objects[objectIndex] = object;
+        }
+        return object;
+    }
+
+    /**
+     * Returns object decoded from its own records or null if there are no such records
+     */
+    @Nullable
+    private QMMObject findObject(long objectId, ReadContext context) {
+        int objectIndex = context.getObjectIndex(objectId);
+        if (objectIndex < 0) {
+            return null;
+        }
+        QMMObject object = context.objects[objectIndex];
+        if (object == null && isAvailable(context.latestRecords[objectIndex], context)) {
+            object = getObject(objectIndex, context);
+        }
+        return object;
+    }
+
+    private QMMObject decodeObject(int position, ReadContext context) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + 4);
+        byte type = record.get();
+        record.get();
+        long openTime = record.getLong();
+        long closeTime = record.getLong();
+        ConnectionDescriptor descriptor = connectionsByIndex.get(record.getInt());
+        record.getInt();
+        long objectId = record.getLong();
+        QMMConnectionInfo connection = getConnection(descriptor, context);
+
+        switch (type) {
+            case TYPE_CONNECTION:
+                return connection;
+            case TYPE_TRANSACTION:
+                return new QMMTransactionInfo(objectId, openTime, closeTime, connection, record.get() != 0);
+            case TYPE_STATEMENT:
+                return readStatement(record, connection);
+            default: {
+                QMMStatementInfo statement = readStatement(record, connection);
+                QMMObject statementObject = findObject(statement.getObjectId(), context);
+                if (statementObject instanceof QMMStatementInfo) {
+                    // Statement has its own records
+                    statement = (QMMStatementInfo) statementObject;
+                }
+                long transactionId = record.getLong();
+                QMMTransactionSavepointInfo savepoint = null;
+                if (transactionId != 0) {
+                    QMMObject transaction = findObject(transactionId, context);
+                    if (transaction == null) {
+                        transaction = new QMMTransactionInfo(transactionId, openTime, 0, connection, false);
+                    }
+                    if (transaction instanceof QMMTransactionInfo) {
+                        savepoint = ((QMMTransactionInfo) transaction).getCurrentSavepoint();
+                    }
+                }
+                long fetchRowCount = record.getLong();
+                long updateRowCount = record.getLong();
+                int errorCode = record.getInt();
+                long fetchBeginTime = record.getLong();
+                long fetchEndTime = record.getLong();
+                boolean transactional = record.get() != 0;
+                String queryString = readString(record);
+                String errorMessage = readString(record);
+                return new QMMStatementExecuteInfo(
+                    objectId, openTime, closeTime, statement, savepoint, queryString,
+                    fetchRowCount, updateRowCount, errorCode, errorMessage,
+                    fetchBeginTime, fetchEndTime, transactional);
+            }
+        }
+    }
+
+    private QMMConnectionInfo getConnection(ConnectionDescriptor descriptor, ReadContext context) {
+        return context.connections.computeIfAbsent(descriptor.index, index -> {
+            // Connection state is taken from its latest record
+            int objectIndex = context.getObjectIndex(descriptor.objectId);
+            long closeTime = 0;
+            if (objectIndex >= 0 && isAvailable(context.latestRecords[objectIndex], context)) {
+                closeTime = buffer.getLong(context.positions[context.latestRecords[objectIndex]] + CLOSE_TIME_OFFSET);
+            }
+            return descriptor.createConnection(closeTime);
+        });
+    }
+
+    private static int getBodySize(byte type, byte[] queryBytes, byte[] errorBytes) {
+        switch (type) {
+            case TYPE_CONNECTION:
+            case TYPE_TRANSACTION:
+                return 1;
+            case TYPE_STATEMENT:
+                return 4 + 8 + 8 + 8;
+            default:
+                return 4 + 8 + 8 + 8 + 8 + 8 + 8 + 4 + 8 + 8 + 1 +
+                    4 + (queryBytes == null ? 0 : queryBytes.length) +
+                    4 + (errorBytes == null ? 0 : errorBytes.length);
+        }
+    }
+
+    private void writeStatement(QMMStatementInfo statement) {
+        buffer.putInt(statement == null || statement.getPurpose() == null ? -1 : statement.getPurpose().ordinal());
+        buffer.putLong(statement == null ? 0 : statement.getOpenTime());
+        buffer.putLong(statement == null ? 0 : statement.getCloseTime());
+        buffer.putLong(statement == null ? 0 : statement.getObjectId());
+    }
+
+    private static QMMStatementInfo readStatement(ByteBuffer record, QMMConnectionInfo connection) {
+        int purpose = record.getInt();
+        long openTime = record.getLong();
+        long closeTime = record.getLong();
+        long objectId = record.getLong();
+        DBCExecutionPurpose executionPurpose = purpose < 0 ? DBCExecutionPurpose.USER : DBCExecutionPurpose.values()[purpose];
+        if (objectId == 0) {
+            // Execution without statement
+            return new QMMStatementInfo(openTime, closeTime, connection, executionPurpose);
+        }
+        return new QMMStatementInfo(objectId, openTime, closeTime, connection, executionPurpose);
+    }
+
+    @Nullable
+    private byte[] encodeString(@Nullable String str) {
+        if (str == null) {
+            return null;
+        }
+        if (str.length() > maxStringLength) {
+            str = str.substring(0, maxStringLength);
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxStringLength) {
+            // Multi-byte characters. Cut on a character boundary.
+            int length = maxStringLength;
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+            bytes = Arrays.copyOf(bytes, length);
+        }
+        return bytes;
+    }
+
+    private void writeString(@Nullable byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    @Nullable
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int getSessionIndex(SMSessionPersistent session) {
+        // There are very few app sessions, linear search by identity is fine
+        for (int i = 0; i < sessions.size(); i++) {
+            if (sessions.get(i) == session) {
+                return i;
+            }
+        }
+        sessions.add(session);
+        return sessions.size() - 1;
+    }
+
+    private boolean isWrapAt(int position) {
+        return buffer.capacity() - position < 4 || buffer.getInt(position) == WRAP_MARKER;
+    }
+
+    /**
+     * Evicts oldest records until there is a contiguous space for a new record at head position
+     */
+    private boolean ensureSpace(int recordSize) {
+        int capacity = buffer.capacity();
+        if (recordSize > capacity) {
+            return false;
+        }
+        for (;;) {
+            if (recordCount == 0) {
+                head = tail = 0;
+                return true;
+            }
+            if (head > tail) {
+                // Free space is [head, capacity) and [0, tail)
+                if (capacity - head >= recordSize) {
+                    return true;
+                }
+                if (capacity - head >= 4) {
+                    buffer.putInt(head, WRAP_MARKER);
+                }
+                head = 0;
+                continue;
+            }
+            // Free space is [head, tail)
+            if (tail - head >= recordSize) {
+                return true;
+            }
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        if (isWrapAt(tail)) {
+            tail = 0;
+        }
+        int recordSize = buffer.getInt(tail);
+        int connectionIndex = buffer.getInt(tail + CONNECTION_INDEX_OFFSET);
+        ConnectionDescriptor descriptor = connectionsByIndex.get(connectionIndex);
+        if (descriptor != null && --descriptor.recordCount <= 0) {
+            connectionsByIndex.remove(connectionIndex);
+            connectionsById.values().remove(descriptor);
+        }
+        tail += recordSize;
+        recordCount--;
+        evictedCount++;
+        if (recordCount > 0 && isWrapAt(tail)) {
+            tail = 0;
+        }
+    }
+
+}
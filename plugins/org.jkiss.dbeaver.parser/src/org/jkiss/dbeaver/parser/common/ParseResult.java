@@ -16,8 +16,10 @@
  */
 package org.jkiss.dbeaver.parser.common;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
 import org.jkiss.dbeaver.parser.common.grammar.GrammarInfo;
@@ -33,6 +35,7 @@ public class ParseResult {
     private final ParserState boundary;
     private final List<ParserState> results;
     private final List<ParseTreeNode> trees;
+    private boolean treesCollected;
     
     public ParseResult(String text, GrammarInfo grammar, ParserState boundary, List<ParserState> results) {
         this.text = text;
@@ -52,8 +55,9 @@ public class ParseResult {
      * @return a collection of parse trees. If there is no ambiguity in grammar then only one tree will be returned.
      */
     public List<ParseTreeNode> getTrees(boolean withWhitespaces) {
-        if (this.trees.size() != this.results.size()) {
+        if (!this.treesCollected) {
             this.collectOperations(withWhitespaces);
+            this.treesCollected = true;
         }
         return Collections.unmodifiableList(this.trees);
     }
@@ -65,24 +69,68 @@ public class ParseResult {
     private void collectOperations(boolean withWhitespaces) {
         //System.out.println("Results { ");
         for (ParserState result : results) {
-            List<ParserState> states = new ArrayList<>();
-            for (ParserState state = result; state != null; state = state.getPrev()) {
-                states.add(state);
+            for (List<ParserState> states : collectDerivations(result)) {
+                /*int pos = 0;
+                for (ParserState state : states) {
+                    if (state.getStep() != null && state.getStep().getPattern() != null) {
+                        System.out.println("\t\t\"" + text.substring(pos, state.getPosition()) + "\" @" + pos + " is " + state.getStep().getPattern());
+                    }
+                    pos = state.getPosition();
+                }*/
+
+                ParseTreeNode tree = makeParseTree(withWhitespaces, states);
+                //System.out.println(tree.collectString());
+                trees.add(tree);
             }
-            Collections.reverse(states);
-            /*int pos = 0;
-            for (ParserState state : states) {
-                if (state.getStep() != null && state.getStep().getPattern() != null) {
-                    System.out.println("\t\t\"" + text.substring(pos, state.getPosition()) + "\" @" + pos + " is " + state.getStep().getPattern());
+        }
+        //System.out.println("} ");
+    }
+
+    /**
+     * Element of the parsing steps sequence being collected from its end
+     */
+    private static class DerivationStep {
+        private final ParserState state;
+        private final DerivationStep next;
+
+        public DerivationStep(ParserState state, DerivationStep next) {
+            this.state = state;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Collect all sequences of parsing steps leading to the given state.
+     * Equivalent states were merged by the parser, so each alternative of the state starts another sequence.
+     * @param result final parser state
+     * @return sequences of parser states in the text order
+     */
+    private static List<List<ParserState>> collectDerivations(ParserState result) {
+        List<List<ParserState>> derivations = new ArrayList<>();
+        Deque<DerivationStep> stack = new ArrayDeque<>();
+        pushVariants(stack, result, null);
+        while (!stack.isEmpty()) {
+            DerivationStep step = stack.pop();
+            ParserState prev = step.state.getPrev();
+            if (prev == null) {
+                List<ParserState> states = new ArrayList<>();
+                for (DerivationStep s = step; s != null; s = s.next) {
+                    states.add(s.state);
                 }
-                pos = state.getPosition();
-            }*/
+                derivations.add(states);
+            } else {
+                pushVariants(stack, prev, step);
+            }
+        }
+        return derivations;
+    }
 
-            ParseTreeNode tree = makeParseTree(withWhitespaces, states);
-            //System.out.println(tree.collectString());
-            trees.add(tree);
+    private static void pushVariants(Deque<DerivationStep> stack, ParserState state, DerivationStep next) {
+        List<ParserState> alternatives = state.getAlternatives();
+        for (int i = alternatives.size() - 1; i >= 0; i--) {
+            stack.push(new DerivationStep(alternatives.get(i), next));
         }
-        //System.out.println("} ");
+        stack.push(new DerivationStep(state, next));
     }
 
     /**
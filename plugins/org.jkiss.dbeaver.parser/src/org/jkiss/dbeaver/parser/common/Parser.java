@@ -30,53 +30,116 @@ public class Parser {
         this.fsm = fsm;
     }
 
+    /**
+     * Set of the parser states at the same text position.
+     * States with the same finite state machine node and parsing context are equivalent,
+     * so only the first of them is evaluated and others are kept as its alternatives.
+     */
+    private static class StatesSet {
+        private final List<ParserState> states = new ArrayList<>();
+        private final Map<StateKey, ParserState> statesByKey = new HashMap<>();
+
+        public void add(ParserState state) {
+            ParserState existing = statesByKey.putIfAbsent(new StateKey(state), state);
+            if (existing == null) {
+                states.add(state);
+            } else {
+                existing.addAlternative(state);
+            }
+        }
+    }
+
+    private static class StateKey {
+        private final ParserFsmNode fsmState;
+        private final ParserStack stack;
+
+        public StateKey(ParserState state) {
+            this.fsmState = state.getFsmState();
+            this.stack = state.getStack();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StateKey)) {
+                return false;
+            }
+            StateKey other = (StateKey) obj;
+            return this.fsmState == other.fsmState && this.stack.equals(other.stack);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.fsmState) + this.stack.hashCode();
+        }
+    }
+
     /**
      * Parse text
      * @param text
      * @return result of parsing represented with discovered valid sequences of terminals
      */
     public ParseResult parse(String text) {
-        Deque<ParserState> queue = new ArrayDeque<>();
+        int length = text.length();
+        // parser states by text position
+        List<StatesSet> chart = new ArrayList<>(Collections.nCopies(length + 1, null));
+        StatesSet initialStates = new StatesSet();
         for (ParserFsmNode initialState : fsm.getInitialStates()) {
-            queue.addLast(ParserState.initial(initialState));
+            initialStates.add(ParserState.initial(initialState));
         }
+        chart.set(0, initialStates);
 
+        ParserTermsMatcher termsMatcher = new ParserTermsMatcher(fsm.getTerminals(), text);
         ArrayList<ParserDispatchResult> dispatchResults = new ArrayList<>();
         
         ParserState boundary = null;
 
-        // runs parser finite state machine by dispatching over series of text positions representing terminals being matched
-        // and evaluating parsing context until the final state is reached at the end of the text
-        List<ParserState> results = new ArrayList<>();
-        while (!queue.isEmpty()) {
-            ParserState state = queue.removeFirst();
-            if (boundary == null || boundary.getPosition() > state.getPosition()) {
-                boundary = state;
+        // runs parser finite state machine by dispatching over series of text positions in ascending order
+        // representing terminals being matched and evaluating parsing context until the final state is reached
+        // at the end of the text. Each position is visited once, all states at the position are evaluated together.
+        StatesSet results = new StatesSet();
+        for (int position = 0; position <= length; position++) {
+            StatesSet statesSet = chart.get(position);
+            if (statesSet == null) {
+                continue;
             }
+            // states set grows while zero-length steps are evaluated
+            for (int i = 0; i < statesSet.states.size(); i++) {
+                ParserState state = statesSet.states.get(i);
+                if (boundary == null || boundary.getPosition() > state.getPosition()) {
+                    boundary = state;
+                }
+
+                dispatchResults.clear();
+                state.getFsmState().dispatch(termsMatcher, position, dispatchResults);
 
-            dispatchResults.clear();
-            state.getFsmState().dispatch(text, state.getPosition(), dispatchResults);
-
-            for (ParserDispatchResult result : dispatchResults) {
-                ParserStack newStack = evaluateOperations(state.getStack(), result.getStep().getOperations());
-                //System.out.println("\tevaluating " + state.getFsmState() + " --> " + result.getStep().getTo());
-                if (newStack != null) {
-                    //System.out.println("\t\taccepted");
-                    ParserState nextState = state.capture(result.getEnd(), result.getStep().getTo(), result.getStep(), newStack);
-                    if (result.getStep().getTo() == null || result.getStep().getTo().isEnd()) {
-                        if (nextState.getPosition() >= text.length()) {
-                            results.add(nextState);
+                for (ParserDispatchResult result : dispatchResults) {
+                    ParserStack newStack = evaluateOperations(state.getStack(), result.getStep().getOperations());
+                    //System.out.println("\tevaluating " + state.getFsmState() + " --> " + result.getStep().getTo());
+                    if (newStack != null) {
+                        //System.out.println("\t\taccepted");
+                        ParserState nextState = state.capture(result.getEnd(), result.getStep().getTo(), result.getStep(), newStack);
+                        if (result.getStep().getTo() == null || result.getStep().getTo().isEnd()) {
+                            if (nextState.getPosition() >= length) {
+                                results.add(nextState);
+                            }
+                        } else {
+                            StatesSet nextStates = chart.get(nextState.getPosition());
+                            if (nextStates == null) {
+                                nextStates = new StatesSet();
+                                chart.set(nextState.getPosition(), nextStates);
+                            }
+                            nextStates.add(nextState);
                         }
-                    } else {
-                        queue.add(nextState);
-                    }
-                }// else {
-                    //System.out.println("\t\tdropped");
-                //}
+                    }// else {
+                        //System.out.println("\t\tdropped");
+                    //}
+                }
             }
+            // no more states can appear at this position
+            chart.set(position, null);
         }
 
-        return new ParseResult(text, grammar, boundary, results);
+        return new ParseResult(text, grammar, boundary, results.states);
     }
 
     /**
@@ -16,7 +16,12 @@
  */
 package org.jkiss.dbeaver.parser.common;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +30,7 @@ import java.util.stream.Collectors;
 class ParserFsm {
     private final List<ParserFsmNode> initialStates;
     private final List<ParserFsmNode> allStates;
+    private final List<Pattern> terminals = new ArrayList<>();
 
     public ParserFsm(List<ParserFsmNode> initialStates, List<ParserFsmNode> parseFsmStates) {
         this.initialStates = initialStates;
@@ -36,12 +42,25 @@ class ParserFsm {
     }
 
     /**
-     * Prepare common recognizing pattern for all possible terminals associated with presented parsing steps
+     * Terminals patterns compiled once for all finite state machine states
+     */
+    public List<Pattern> getTerminals() {
+        return Collections.unmodifiableList(terminals);
+    }
+
+    /**
+     * Collect and compile patterns of all possible terminals associated with presented parsing steps
      * for all finite state machine states
      */
     public void prepare() {
+        Map<String, Integer> termIds = new HashMap<>();
         for (ParserFsmNode state : this.allStates) {
-            state.prepare();
+            state.prepare(termIds);
+        }
+        String[] patterns = new String[termIds.size()];
+        termIds.forEach((pattern, id) -> patterns[id] = pattern);
+        for (String pattern : patterns) {
+            this.terminals.add(Pattern.compile(pattern));
         }
     }
     
@@ -18,11 +18,9 @@ package org.jkiss.dbeaver.parser.common;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.jkiss.dbeaver.parser.common.grammar.nfa.GrammarNfaOperation;
 
@@ -32,21 +30,20 @@ import org.jkiss.dbeaver.parser.common.grammar.nfa.GrammarNfaOperation;
 class ParserFsmNode {
     private final int id;
     private final List<ParserFsmStep> steps = new ArrayList<>();
-    private final Map<String, TermGroup> stepsByTermGroup = new HashMap<>();
+    private final List<TermGroup> termGroups = new ArrayList<>();
     private final List<ParserFsmStep> finalSteps = new ArrayList<>();
     private final boolean isEnd;
-    private Pattern pattern;
 
     /**
      * A bunch of transitions associated with the same terminal
      */
     private static class TermGroup {
-        private final String groupName;
+        private final int termId;
         private final String pattern;
         private final List<ParserFsmStep> steps;
 
-        public TermGroup(String groupName, String pattern, List<ParserFsmStep> steps) {
-            this.groupName = groupName;
+        public TermGroup(int termId, String pattern, List<ParserFsmStep> steps) {
+            this.termId = termId;
             this.pattern = pattern;
             this.steps = steps;
         }
@@ -81,10 +78,11 @@ class ParserFsmNode {
     }
 
     /**
-     * Prepare common recognizing pattern for all possible terminals associated with presented parsing steps
+     * Group presented parsing steps by terminals, registering terminals patterns in the common collection
+     * @param termIds indexes of all terminals of the finite state machine by their patterns
      */
-    public void prepare() {
-        Map<String, List<ParserFsmStep>> stepsByTerm = new HashMap<>();
+    public void prepare(Map<String, Integer> termIds) {
+        Map<String, List<ParserFsmStep>> stepsByTerm = new LinkedHashMap<>();
         for (ParserFsmStep s : this.steps) {
             if (s.getPattern() != null) {
                 stepsByTerm.computeIfAbsent(s.getPattern(), p -> new ArrayList<>()).add(s);
@@ -93,32 +91,24 @@ class ParserFsmNode {
             }
         }
 
-        List<String> parts = new ArrayList<>(stepsByTerm.size());
         for (var step : stepsByTerm.entrySet()) {
-            String groupName = "g" + this.stepsByTermGroup.size();
-            parts.add("(?<" + groupName + ">(" + step.getKey() + "))");
-            this.stepsByTermGroup.put(groupName, new TermGroup(groupName, step.getKey(), step.getValue()));
+            int termId = termIds.computeIfAbsent(step.getKey(), p -> termIds.size());
+            this.termGroups.add(new TermGroup(termId, step.getKey(), step.getValue()));
         }
-        this.pattern = Pattern.compile("(" + String.join("|", parts) + ")");
     }
 
     /**
-     * Fills given collection with parsing steps by the terminal matched at the given position in the text
-     * @param text
+     * Fills given collection with parsing steps by the terminals matched at the given position in the text
+     * @param matcher of the terminals in the text
      * @param position
      */
-    public void dispatch(String text, int position, ArrayList<ParserDispatchResult> results) {
-        Matcher matcher = this.pattern.matcher(text);
-        if (matcher.find(position)) {
-            for (TermGroup g : this.stepsByTermGroup.values()) {
-                int end = matcher.end(g.groupName);
-                if (end >= 0 && matcher.start(g.groupName) == position) {
-                    for (ParserFsmStep step : g.steps) {
-                        //if (s.getTo() != null) {
-                        //    System.out.println("found " + g.pattern + " at " + position + "  " + s.getFrom().id + " --> " + s.getTo().id);
-                        //}
-                        results.add(new ParserDispatchResult(end, step));
-                    }
+    public void dispatch(ParserTermsMatcher matcher, int position, ArrayList<ParserDispatchResult> results) {
+        for (TermGroup g : this.termGroups) {
+            int end = matcher.match(g.termId, position);
+            if (end >= 0) {
+                for (ParserFsmStep step : g.steps) {
+                    //System.out.println("found " + g.pattern + " at " + position + "  " + step.getFrom().id + " --> " + step.getTo());
+                    results.add(new ParserDispatchResult(end, step));
                 }
             }
         }
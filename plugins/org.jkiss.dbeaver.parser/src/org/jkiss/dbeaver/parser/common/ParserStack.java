@@ -19,7 +19,9 @@ package org.jkiss.dbeaver.parser.common;
 import org.jkiss.dbeaver.parser.common.grammar.GrammarRule;
 
 /**
- * Parsing context
+ * Parsing context.
+ * Stacks are immutable and share their bottom entries, so equal stacks are compared
+ * only down to their common entry. Hash of the whole stack is calculated once on push.
  */
 class ParserStack {
     private final ParserStack prev;
@@ -27,12 +29,18 @@ class ParserStack {
     private final int exprId;
     private final int exprPosition;
     private final GrammarRule rule;
+    private final int hash;
 
     private ParserStack(ParserStack prev, int exprId, int exprPosition, GrammarRule rule) {
         this.prev = prev;
         this.exprId = exprId;
         this.exprPosition = exprPosition;
         this.rule = rule;
+        int hash = prev == null ? 0 : prev.hash;
+        hash = 31 * hash + exprId;
+        hash = 31 * hash + exprPosition;
+        hash = 31 * hash + (rule == null ? 0 : rule.getId());
+        this.hash = hash;
     }
 
     public int getExprId() {
@@ -58,5 +66,28 @@ class ParserStack {
     public ParserStack pop() {
         return this.prev;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ParserStack)) {
+            return false;
+        }
+        ParserStack a = this;
+        ParserStack b = (ParserStack) obj;
+        while (a != b) {
+            if (a == null || b == null || a.hash != b.hash || a.exprId != b.exprId
+                || a.exprPosition != b.exprPosition || a.rule != b.rule) {
+                return false;
+            }
+            a = a.prev;
+            b = b.prev;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
 }
 
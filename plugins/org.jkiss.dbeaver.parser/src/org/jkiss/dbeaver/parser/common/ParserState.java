@@ -16,6 +16,10 @@
  */
 package org.jkiss.dbeaver.parser.common;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * State of the parser
  */
@@ -25,6 +29,7 @@ class ParserState {
     private final int position;
     private final ParserFsmStep step;
     private final ParserStack stack;
+    private List<ParserState> alternatives;
 
     private ParserState(ParserState prev, int position, ParserFsmNode fsmState, ParserFsmStep step, ParserStack stack) {
         this.prev = prev;
@@ -54,6 +59,21 @@ class ParserState {
         return stack;
     }
 
+    /**
+     * Equivalent states reached by the other ways. They are not evaluated by the parser
+     * and only keep their own previous states and steps to build all possible parse trees.
+     */
+    public List<ParserState> getAlternatives() {
+        return alternatives == null ? Collections.emptyList() : alternatives;
+    }
+
+    public void addAlternative(ParserState state) {
+        if (alternatives == null) {
+            alternatives = new ArrayList<>();
+        }
+        alternatives.add(state);
+    }
+
     public static ParserState initial(ParserFsmNode state) {
         return new ParserState(null, 0, state, null, ParserStack.initial());
     }
@@ -0,0 +1,73 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.parser.common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matcher of the precompiled grammar terminals in the text.
+ * Each terminal is matched at most once per text position,
+ * results are cached for the current position since parser visits positions in ascending order.
+ */
+class ParserTermsMatcher {
+    private static final int NOT_MATCHED = -1;
+    private static final int UNKNOWN = -2;
+
+    private final String text;
+    private final List<Pattern> terminals;
+    private final Matcher[] matchers;
+    private final int[] ends;
+    private int position = -1;
+
+    public ParserTermsMatcher(List<Pattern> terminals, String text) {
+        this.text = text;
+        this.terminals = terminals;
+        this.matchers = new Matcher[terminals.size()];
+        this.ends = new int[terminals.size()];
+    }
+
+    /**
+     * Match terminal exactly at the given position
+     * @param termId terminal index
+     * @param position in the text
+     * @return end position of the matched text or -1 if terminal doesn't match
+     */
+    public int match(int termId, int position) {
+        if (position != this.position) {
+            Arrays.fill(this.ends, UNKNOWN);
+            this.position = position;
+        }
+        int end = this.ends[termId];
+        if (end == UNKNOWN) {
+            Matcher matcher = this.matchers[termId];
+            if (matcher == null) {
+                matcher = this.terminals.get(termId).matcher(this.text);
+                // let lookarounds and word boundaries see the text before the position
+                matcher.useTransparentBounds(true);
+                matcher.useAnchoringBounds(false);
+                this.matchers[termId] = matcher;
+            }
+            matcher.region(position, this.text.length());
+            end = matcher.lookingAt() ? matcher.end() : NOT_MATCHED;
+            this.ends[termId] = end;
+        }
+        return end;
+    }
+}
@@ -122,7 +122,7 @@ class GridCellRenderer extends AbstractRenderer {
             switch (columnAlign) {
                 // Center
                 case IGridContentProvider.ALIGN_CENTER: {
-                    Point textSize = gc.textExtent(text);
+                    Point textSize = grid.textExtentCache.textExtent(gc, text);
                     gc.drawString(
                         text,
                         bounds.x + (bounds.width - textSize.x) / 2,
@@ -133,7 +133,7 @@ class GridCellRenderer extends AbstractRenderer {
                 }
                 case IGridContentProvider.ALIGN_RIGHT: {
                     // Right (numbers, datetimes)
-                    Point textSize = gc.textExtent(text);
+                    Point textSize = grid.textExtentCache.textExtent(gc, text);
                     int valueWidth = textSize.x + INSIDE_MARGIN;
                     if (imageBounds != null) {
                         valueWidth += imageBounds.width + INSIDE_MARGIN;
@@ -210,7 +210,7 @@ class GridCellRenderer extends AbstractRenderer {
             Rectangle imageBounds;
             if (isToggle) {
                 String cellText = grid.getCellText(colElement, rowElement);
-                Point textSize = grid.sizingGC.textExtent(cellText);
+                Point textSize = grid.textExtentCache.textExtent(grid.sizingGC, cellText);
                 imageBounds = new Rectangle(0, 0, textSize.x, textSize.y);
             } else {
                 DBPImage cellImage = grid.getCellImage(colElement, rowElement);
@@ -26,7 +26,9 @@ import org.jkiss.dbeaver.ui.DBeaverIcons;
 import org.jkiss.utils.CommonUtils;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Grid column info.
@@ -219,13 +221,13 @@ class GridColumn {
         {
             int textWidth;
             if (Boolean.TRUE.equals(labelProvider.getGridOption(IGridLabelProvider.OPTION_EXCLUDE_COLUMN_NAME_FOR_WIDTH_CALC))) {
-                textWidth = grid.sizingGC.stringExtent("X").x;
+                textWidth = grid.textExtentCache.stringExtent(grid.sizingGC, "X").x;
             } else {
                 String text = labelProvider.getText(element);
                 String description = labelProvider.getDescription(element);
-                textWidth = grid.sizingGC.stringExtent(text).x;
+                textWidth = grid.textExtentCache.stringExtent(grid.sizingGC, text).x;
                 if (!CommonUtils.isEmpty(description)) {
-                    int descWidth = grid.sizingGC.stringExtent(description).x;
+                    int descWidth = grid.textExtentCache.stringExtent(grid.sizingGC, description).x;
                     if (descWidth > textWidth) {
                         textWidth = descWidth;
                     }
@@ -271,9 +273,9 @@ class GridColumn {
             int topIndex = grid.getTopIndex();
             int bottomIndex = grid.getBottomIndex();
             if (topIndex >= 0 && bottomIndex >= topIndex) {
-                int itemCount = grid.getItemCount();
-                for (int i = topIndex; i <= bottomIndex && i < itemCount; i++) {
-                    newWidth = Math.max(newWidth, computeCellWidth(element, grid.getRowElement(i)));
+                int lastRow = Math.min(bottomIndex, grid.getItemCount() - 1);
+                if (lastRow >= topIndex) {
+                    newWidth = Math.max(newWidth, computeCellsWidth(topIndex, lastRow));
                 }
             }
         } else {
@@ -297,12 +299,28 @@ class GridColumn {
         }
 	}
 
-    private int computeCellWidth(Object col, Object row) {
+    private int computeCellsWidth(int firstRow, int lastRow) {
+        int maxMarginsWidth = 0;
+        int maxTextWidth = 0;
+        // Each distinct text is measured once, repeated texts of other columns and rows come from the extent cache
+        Set<String> texts = new HashSet<>();
+        for (int i = firstRow; i <= lastRow; i++) {
+            Object row = grid.getRowElement(i);
+            String cellText = grid.getCellText(element, row);
+            maxMarginsWidth = Math.max(maxMarginsWidth, computeCellMarginsWidth(element, row, cellText));
+            if (texts.add(cellText)) {
+                maxTextWidth = Math.max(maxTextWidth, grid.textExtentCache.textExtent(grid.sizingGC, cellText).x);
+            }
+        }
+        return maxMarginsWidth + maxTextWidth;
+    }
+
+    // Cell width without text
+    private int computeCellMarginsWidth(Object col, Object row, String cellText) {
         int x = 0;
 
         x += leftMargin;
 
-        String cellText = grid.getCellText(col, row);
         int state = grid.getContentProvider().getCellState(col, row, cellText);
         Rectangle imageBounds;
         if (GridCellRenderer.isLinkState(state)) {
@@ -315,7 +333,7 @@ class GridColumn {
             x += imageBounds.width + insideMargin;
         }
 
-        x += grid.sizingGC.textExtent(cellText).x + rightMargin;
+        x += rightMargin;
         return x;
     }
 
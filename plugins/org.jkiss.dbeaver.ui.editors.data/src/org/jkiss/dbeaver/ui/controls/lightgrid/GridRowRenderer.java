@@ -108,7 +108,7 @@ class GridRowRenderer extends AbstractRenderer {
         int y = bounds.y;
         int selectionOffset = 0;
 
-        y += (bounds.height - gc.stringExtent(text).y) / 2;
+        y += (bounds.height - grid.textExtentCache.stringExtent(gc, text).y) / 2;
 
         Font font = grid.getLabelProvider().getFont(element);
         if (font == null) {
@@ -134,7 +134,7 @@ class GridRowRenderer extends AbstractRenderer {
             width += GridRowRenderer.IMAGE_SPACING;
         }
         String rowText = grid.getLabelProvider().getText(element);
-        Point ext = grid.sizingGC.stringExtent(rowText);
+        Point ext = grid.textExtentCache.stringExtent(grid.sizingGC, rowText);
         width += ext.x;
         width += level * GridRowRenderer.LEVEL_SPACING;
         return width;
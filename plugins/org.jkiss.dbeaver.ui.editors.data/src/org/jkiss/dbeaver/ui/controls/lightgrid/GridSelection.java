@@ -0,0 +1,500 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package  org.jkiss.dbeaver.ui.controls.lightgrid;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+
+import java.util.*;
+
+/**
+ * Set of grid cells stored as row ranges.
+ * Each range is a sequence of rows with the same set of selected columns.
+ * Adjacent ranges always have different columns, so select all or selection of whole columns is a single range.
+ * Contains check and size are computed from ranges, positions are created only during iteration
+ * (in the {@link GridPos.PosComparator} order).
+ */
+public class GridSelection extends AbstractSet<GridPos> {
+
+    // Ranges by the first row
+    private final TreeMap<Integer, RowRange> ranges = new TreeMap<>();
+
+    private static class RowRange {
+        private int firstRow;
+        private int lastRow;
+        private final BitSet columns;
+
+        RowRange(int firstRow, int lastRow, BitSet columns) {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.columns = columns;
+        }
+
+        long getCellCount() {
+            return (long) (lastRow - firstRow + 1) * columns.cardinality();
+        }
+    }
+
+    public GridSelection() {
+    }
+
+    public GridSelection(@NotNull Collection<GridPos> cells) {
+        addAll(cells);
+    }
+
+    /**
+     * Adds rectangle of cells. Bounds are inclusive.
+     */
+    public void addRange(int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        if (firstRow > lastRow || firstColumn > lastColumn || firstColumn < 0) {
+            return;
+        }
+        BitSet columns = new BitSet();
+        columns.set(firstColumn, lastColumn + 1);
+        updateRange(firstRow, lastRow, columns, true);
+    }
+
+    /**
+     * Removes rectangle of cells. Bounds are inclusive.
+     */
+    public void removeRange(int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        if (firstRow > lastRow || firstColumn > lastColumn || firstColumn < 0) {
+            return;
+        }
+        BitSet columns = new BitSet();
+        columns.set(firstColumn, lastColumn + 1);
+        updateRange(firstRow, lastRow, columns, false);
+    }
+
+    /**
+     * Removes all cells in rows after the specified one
+     */
+    public void removeRowsAfter(int row) {
+        Map.Entry<Integer, RowRange> entry = ranges.floorEntry(row);
+        if (entry != null && entry.getValue().lastRow > row) {
+            entry.getValue().lastRow = row;
+        }
+        ranges.tailMap(row, false).clear();
+    }
+
+    public boolean contains(int col, int row) {
+        RowRange range = getRange(row);
+        return range != null && col >= 0 && range.columns.get(col);
+    }
+
+    public boolean isRowSelected(int row) {
+        return getRange(row) != null;
+    }
+
+    public int getRowCount() {
+        long count = 0;
+        for (RowRange range : ranges.values()) {
+            count += range.lastRow - range.firstRow + 1;
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Indexes of rows which have at least one selected cell, in ascending order
+     */
+    @NotNull
+    public Collection<Integer> getRows() {
+        return new AbstractCollection<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new RowIterator();
+            }
+
+            @Override
+            public int size() {
+                return getRowCount();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && isRowSelected((Integer) o);
+            }
+        };
+    }
+
+    /**
+     * Indexes of columns which have at least one selected cell
+     */
+    @NotNull
+    public BitSet getColumns() {
+        BitSet columns = new BitSet();
+        for (RowRange range : ranges.values()) {
+            columns.or(range.columns);
+        }
+        return columns;
+    }
+
+    @Override
+    public int size() {
+        long count = 0;
+        for (RowRange range : ranges.values()) {
+            count += range.getCellCount();
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        ranges.clear();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof GridPos && contains(((GridPos) o).col, ((GridPos) o).row);
+    }
+
+    @Override
+    public boolean add(GridPos pos) {
+        if (pos.col < 0 || contains(pos.col, pos.row)) {
+            return false;
+        }
+        BitSet columns = new BitSet();
+        columns.set(pos.col);
+        updateRange(pos.row, pos.row, columns, true);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        GridPos pos = (GridPos) o;
+        BitSet columns = new BitSet();
+        columns.set(pos.col);
+        updateRange(pos.row, pos.row, columns, false);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends GridPos> c) {
+        if (c instanceof GridSelection) {
+            int oldSize = size();
+            for (RowRange range : ((GridSelection) c).ranges.values()) {
+                updateRange(range.firstRow, range.lastRow, range.columns, true);
+            }
+            return size() != oldSize;
+        }
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof GridSelection) {
+            int oldSize = size();
+            for (RowRange range : ((GridSelection) c).ranges.values()) {
+                updateRange(range.firstRow, range.lastRow, range.columns, false);
+            }
+            return size() != oldSize;
+        }
+        boolean modified = false;
+        for (Object o : c) {
+            modified |= remove(o);
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> c) {
+        GridSelection retained;
+        if (c instanceof GridSelection) {
+            retained = (GridSelection) c;
+        } else {
+            retained = new GridSelection();
+            for (Object o : c) {
+                if (o instanceof GridPos && contains(o)) {
+                    retained.add((GridPos) o);
+                }
+            }
+        }
+        int oldSize = size();
+        TreeMap<Integer, RowRange> intersection = new TreeMap<>();
+        for (RowRange range : ranges.values()) {
+            Integer fromRow = retained.ranges.floorKey(range.firstRow);
+            for (RowRange range2 : retained.ranges.subMap(fromRow == null ? range.firstRow : fromRow, true, range.lastRow, true).values()) {
+                int firstRow = Math.max(range.firstRow, range2.firstRow);
+                int lastRow = Math.min(range.lastRow, range2.lastRow);
+                if (firstRow > lastRow) {
+                    continue;
+                }
+                BitSet columns = (BitSet) range.columns.clone();
+                columns.and(range2.columns);
+                if (!columns.isEmpty()) {
+                    intersection.put(firstRow, new RowRange(firstRow, lastRow, columns));
+                }
+            }
+        }
+        ranges.clear();
+        ranges.putAll(intersection);
+        if (!ranges.isEmpty()) {
+            mergeRanges(ranges.firstKey(), ranges.lastEntry().getValue().lastRow);
+        }
+        return size() != oldSize;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof GridSelection) {
+            for (RowRange range : ((GridSelection) c).ranges.values()) {
+                if (!containsRange(range)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.containsAll(c);
+    }
+
+    @NotNull
+    @Override
+    public Iterator<GridPos> iterator() {
+        return new CellIterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof GridSelection) {
+            // Ranges are always normalized, so equal selections have equal ranges
+            Collection<RowRange> ranges2 = ((GridSelection) o).ranges.values();
+            if (ranges.size() != ranges2.size()) {
+                return false;
+            }
+            Iterator<RowRange> iter2 = ranges2.iterator();
+            for (RowRange range : ranges.values()) {
+                RowRange range2 = iter2.next();
+                if (range.firstRow != range2.firstRow || range.lastRow != range2.lastRow || !range.columns.equals(range2.columns)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * Same as sum of GridPos hash codes (col ^ row), but computed per bit from ranges:
+     * each bit adds its weight for every cell where exactly one of column and row has it.
+     */
+    @Override
+    public int hashCode() {
+        long hash = 0;
+        for (RowRange range : ranges.values()) {
+            long rowCount = range.lastRow - range.firstRow + 1;
+            long columnCount = range.columns.cardinality();
+            for (int bit = 0; bit < Integer.SIZE - 1; bit++) {
+                long rowsWithBit = countWithBit(range.firstRow, range.lastRow + 1L, bit);
+                long columnsWithBit = 0;
+                for (int col = range.columns.nextSetBit(0); col >= 0; ) {
+                    int endCol = range.columns.nextClearBit(col);
+                    columnsWithBit += countWithBit(col, endCol, bit);
+                    col = range.columns.nextSetBit(endCol);
+                }
+                long cells = columnsWithBit * (rowCount - rowsWithBit) + (columnCount - columnsWithBit) * rowsWithBit;
+                // Overflow is fine, hash is a sum modulo 2^32
+                hash += cells << bit;
+            }
+        }
+        return (int) hash;
+    }
+
+    // Number of values in [from, to) which have the specified bit set
+    private static long countWithBit(long from, long to, int bit) {
+        return countWithBit(to, bit) - countWithBit(from, bit);
+    }
+
+    // Number of values in [0, to) which have the specified bit set
+    private static long countWithBit(long to, int bit) {
+        long period = 1L << (bit + 1);
+        long half = 1L << bit;
+        return (to / period) * half + Math.max(0, to % period - half);
+    }
+
+    @Nullable
+    private RowRange getRange(int row) {
+        Map.Entry<Integer, RowRange> entry = ranges.floorEntry(row);
+        if (entry == null || entry.getValue().lastRow < row) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    private boolean containsRange(@NotNull RowRange range) {
+        int row = range.firstRow;
+        while (row <= range.lastRow) {
+            RowRange ownRange = getRange(row);
+            if (ownRange == null) {
+                return false;
+            }
+            BitSet missing = (BitSet) range.columns.clone();
+            missing.andNot(ownRange.columns);
+            if (!missing.isEmpty()) {
+                return false;
+            }
+            row = ownRange.lastRow + 1;
+        }
+        return true;
+    }
+
+    private void updateRange(int firstRow, int lastRow, @NotNull BitSet columns, boolean add) {
+        splitAt(firstRow);
+        splitAt(lastRow + 1);
+        List<Integer> emptyRanges = new ArrayList<>();
+        int nextRow = firstRow;
+        for (RowRange range : new ArrayList<>(ranges.subMap(firstRow, true, lastRow, true).values())) {
+            if (add) {
+                if (range.firstRow > nextRow) {
+                    ranges.put(nextRow, new RowRange(nextRow, range.firstRow - 1, (BitSet) columns.clone()));
+                }
+                range.columns.or(columns);
+                nextRow = range.lastRow + 1;
+            } else {
+                range.columns.andNot(columns);
+                if (range.columns.isEmpty()) {
+                    emptyRanges.add(range.firstRow);
+                }
+            }
+        }
+        if (add && nextRow <= lastRow) {
+            ranges.put(nextRow, new RowRange(nextRow, lastRow, (BitSet) columns.clone()));
+        }
+        for (Integer row : emptyRanges) {
+            ranges.remove(row);
+        }
+        mergeRanges(firstRow, lastRow);
+    }
+
+    // Splits range which contains the row, so the row becomes a first row of a range
+    private void splitAt(int row) {
+        Map.Entry<Integer, RowRange> entry = ranges.lowerEntry(row);
+        if (entry != null && entry.getValue().lastRow >= row) {
+            RowRange range = entry.getValue();
+            ranges.put(row, new RowRange(row, range.lastRow, (BitSet) range.columns.clone()));
+            range.lastRow = row - 1;
+        }
+    }
+
+    // Merges adjacent ranges with the same columns in the specified rows and at their bounds
+    private void mergeRanges(int firstRow, int lastRow) {
+        Integer fromRow = ranges.lowerKey(firstRow);
+        if (fromRow == null) {
+            fromRow = firstRow;
+        }
+        RowRange prevRange = null;
+        for (Iterator<RowRange> iter = ranges.tailMap(fromRow, true).values().iterator(); iter.hasNext(); ) {
+            RowRange range = iter.next();
+            if (prevRange != null && prevRange.lastRow + 1 == range.firstRow && prevRange.columns.equals(range.columns)) {
+                prevRange.lastRow = range.lastRow;
+                iter.remove();
+            } else {
+                if (range.firstRow > lastRow + 1) {
+                    break;
+                }
+                prevRange = range;
+            }
+        }
+    }
+
+    private class RowIterator implements Iterator<Integer> {
+        private final Iterator<RowRange> rangeIterator = ranges.values().iterator();
+        private RowRange range;
+        private int row;
+
+        @Override
+        public boolean hasNext() {
+            return (range != null && row <= range.lastRow) || rangeIterator.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            if (range == null || row > range.lastRow) {
+                range = rangeIterator.next();
+                row = range.firstRow;
+            }
+            return row++;
+        }
+    }
+
+    // Keeps position of the next cell instead of ranges iterator, so cells can be removed during iteration
+    private class CellIterator implements Iterator<GridPos> {
+        private RowRange range;
+        private int row;
+        private int col = -1;
+        private GridPos lastPos;
+
+        CellIterator() {
+            Map.Entry<Integer, RowRange> entry = ranges.firstEntry();
+            if (entry != null) {
+                range = entry.getValue();
+                row = range.firstRow;
+                col = range.columns.nextSetBit(0);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return col >= 0;
+        }
+
+        @Override
+        public GridPos next() {
+            if (col < 0) {
+                throw new NoSuchElementException();
+            }
+            if (range == null) {
+                // Ranges were changed by remove
+                range = getRange(row);
+            }
+            lastPos = new GridPos(col, row);
+            col = range.columns.nextSetBit(col + 1);
+            if (col < 0) {
+                if (row < range.lastRow) {
+                    row++;
+                    col = range.columns.nextSetBit(0);
+                } else {
+                    Map.Entry<Integer, RowRange> entry = ranges.higherEntry(range.lastRow);
+                    if (entry != null) {
+                        range = entry.getValue();
+                        row = range.firstRow;
+                        col = range.columns.nextSetBit(0);
+                    }
+                }
+            }
+            return lastPos;
+        }
+
+        @Override
+        public void remove() {
+            if (lastPos == null) {
+                throw new IllegalStateException();
+            }
+            GridSelection.this.remove(lastPos);
+            lastPos = null;
+            range = null;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package  org.jkiss.dbeaver.ui.controls.lightgrid;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+
+import java.util.Iterator;
+
+/**
+ * Copy of the grid cell selection together with the grid row and column elements.
+ * Doesn't depend on further grid changes, so it may be read outside of the UI thread.
+ */
+public class GridSelectionSnapshot implements Iterable<GridPos> {
+
+    private final GridSelection cells;
+    private final Object[] columnElements;
+    private final Object[] rowElements;
+
+    GridSelectionSnapshot(@NotNull GridSelection cells, @NotNull Object[] columnElements, @NotNull Object[] rowElements) {
+        this.cells = cells;
+        this.columnElements = columnElements;
+        this.rowElements = rowElements;
+    }
+
+    @NotNull
+    public GridSelection getCells() {
+        return cells;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    @Nullable
+    public Object getColumnElement(int col) {
+        return col >= 0 && col < columnElements.length ? columnElements[col] : null;
+    }
+
+    @Nullable
+    public Object getRowElement(int row) {
+        return row >= 0 && row < rowElements.length ? rowElements[row] : null;
+    }
+
+    @Nullable
+    public GridCell posToCell(@NotNull GridPos pos) {
+        if (pos.col < 0 || pos.row < 0 || pos.col >= columnElements.length || pos.row >= rowElements.length) {
+            return null;
+        }
+        return new GridCell(columnElements[pos.col], rowElements[pos.row]);
+    }
+
+    @NotNull
+    @Override
+    public Iterator<GridPos> iterator() {
+        return cells.iterator();
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package  org.jkiss.dbeaver.ui.controls.lightgrid;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Point;
+import org.jkiss.code.NotNull;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Text extents cache.
+ * Native text measurement is slow and the same cell values are measured again on each paint.
+ * Extents are cached per font. Width of plain ASCII text in monospace font is computed from the text length.
+ */
+class GridTextExtentCache {
+
+    private static final int MAX_FONTS = 16;
+    private static final int MAX_TEXTS_PER_FONT = 5000;
+    // Long texts are rarely repeated, there is no need to keep them in memory
+    private static final int MAX_TEXT_LENGTH = 1000;
+
+    private final Map<Font, FontExtents> fontExtents = new HashMap<>();
+
+    private static class FontExtents {
+        // Char width of monospace font or 0
+        private final int charWidth;
+        private final int height;
+        private final Map<String, Point> textExtents = new ExtentMap();
+        private final Map<String, Point> stringExtents = new ExtentMap();
+
+        FontExtents(@NotNull GC gc) {
+            Point extent = gc.stringExtent("W");
+            int width = extent.x;
+            if (gc.stringExtent("i").x == width && gc.stringExtent(" ").x == width && gc.stringExtent("0").x == width &&
+                gc.stringExtent("iW0 ").x == width * 4)
+            {
+                this.charWidth = width;
+            } else {
+                this.charWidth = 0;
+            }
+            this.height = extent.y;
+        }
+    }
+
+    private static class ExtentMap extends LinkedHashMap<String, Point> {
+        ExtentMap() {
+            super(256, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Point> eldest) {
+            return size() > MAX_TEXTS_PER_FONT;
+        }
+    }
+
+    /**
+     * Same as {@link GC#textExtent(String)} for the current GC font
+     */
+    @NotNull
+    Point textExtent(@NotNull GC gc, @NotNull String text) {
+        return getExtent(gc, text, true);
+    }
+
+    /**
+     * Same as {@link GC#stringExtent(String)} for the current GC font
+     */
+    @NotNull
+    Point stringExtent(@NotNull GC gc, @NotNull String text) {
+        return getExtent(gc, text, false);
+    }
+
+    void clear() {
+        fontExtents.clear();
+    }
+
+    @NotNull
+    private Point getExtent(@NotNull GC gc, @NotNull String text, boolean expandText) {
+        if (text.length() > MAX_TEXT_LENGTH) {
+            return measureText(gc, text, expandText);
+        }
+        Font font = gc.getFont();
+        FontExtents extents = fontExtents.get(font);
+        if (extents == null) {
+            if (fontExtents.size() >= MAX_FONTS) {
+                fontExtents.clear();
+            }
+            extents = new FontExtents(gc);
+            fontExtents.put(font, extents);
+        }
+        if (extents.charWidth > 0 && isPlainText(text)) {
+            return new Point(text.length() * extents.charWidth, extents.height);
+        }
+        Map<String, Point> cache = expandText ? extents.textExtents : extents.stringExtents;
+        Point extent = cache.get(text);
+        if (extent == null) {
+            extent = measureText(gc, text, expandText);
+            cache.put(text, extent);
+        }
+        return new Point(extent.x, extent.y);
+    }
+
+    @NotNull
+    private static Point measureText(@NotNull GC gc, @NotNull String text, boolean expandText) {
+        return expandText ? gc.textExtent(text) : gc.stringExtent(text);
+    }
+
+    // Printable ASCII characters have the same width in monospace fonts. Tabs, line feeds and wide characters don't.
+    private static boolean isPlainText(@NotNull String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c > 0x7E) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -37,7 +37,6 @@ import org.jkiss.dbeaver.ui.editors.data.internal.DataEditorsMessages;
 import org.jkiss.dbeaver.utils.RuntimeUtils;
 import org.jkiss.utils.ArrayUtils;
 import org.jkiss.utils.CommonUtils;
-import org.jkiss.utils.IntKeyMap;
 
 import java.util.List;
 import java.util.*;
@@ -135,10 +134,9 @@ public abstract class LightGrid extends Canvas {
      */
     private int focusItem = -1;
 
-    private final Set<GridPos> selectedCells = new TreeSet<>(new GridPos.PosComparator());
-    private final List<GridPos> selectedCellsBeforeRangeSelect = new ArrayList<>();
+    private final GridSelection selectedCells = new GridSelection();
+    private final GridSelection selectedCellsBeforeRangeSelect = new GridSelection();
     private final List<GridColumn> selectedColumns = new ArrayList<>();
-    private final IntKeyMap<Boolean> selectedRows = new IntKeyMap<>();
 
     private boolean cellDragSelectionOccurring = false;
     private boolean cellRowDragSelectionOccurring = false;
@@ -262,6 +260,7 @@ public abstract class LightGrid extends Canvas {
     private Listener disposeListener;
 
     final GC sizingGC;
+    final GridTextExtentCache textExtentCache = new GridTextExtentCache();
     FontMetrics fontMetrics;
     Font normalFont;
     Font boldFont;
@@ -2255,7 +2254,7 @@ public abstract class LightGrid extends Canvas {
             // get the item to draw
             if (row >= 0 && row < getItemCount()) {
 
-                boolean cellInRowSelected = selectedRows.containsKey(row);
+                boolean cellInRowSelected = selectedCells.isRowSelected(row);
 
                 if (rowHeaderVisible) {
                     // row header is actually painted later
@@ -2671,7 +2670,9 @@ public abstract class LightGrid extends Canvas {
             boolean reverseDuplicateSelections,
             EventSource eventSource)
     {
-        return updateCellSelection(Collections.singletonList(newCell), stateMask, dragging, reverseDuplicateSelections, eventSource);
+        GridSelection newCells = new GridSelection();
+        newCells.add(newCell);
+        return updateCellSelection(newCells, stateMask, dragging, reverseDuplicateSelections, eventSource);
     }
 
     /**
@@ -2685,7 +2686,7 @@ public abstract class LightGrid extends Canvas {
      */
     @Nullable
     private Event updateCellSelection(
-        @NotNull List<GridPos> newCells,
+        @NotNull GridSelection newCells,
         int stateMask,
         boolean dragging,
         boolean reverseDuplicateSelections,
@@ -2714,24 +2715,19 @@ public abstract class LightGrid extends Canvas {
             shiftSelectionAnchorItem = -1;
         }
 
-        List<GridPos> oldSelection = null;
+        GridSelection oldSelection = null;
         if (!shift && !ctrl) {
-            if (newCells.size() == 1 &&
-                newCells.size() == selectedCells.size() &&
-                newCells.get(0).equals(selectedCells.iterator().next()))
-            {
+            if (newCells.size() == 1 && newCells.equals(selectedCells)) {
                 return null;
             }
 
             selectedCells.clear();
-            for (GridPos newCell : newCells) {
-                addToCellSelection(newCell);
-            }
+            selectedCells.addAll(newCells);
 
         } else if (shift) {
 
-            GridPos newCell = newCells.get(0); //shift selection should only occur with one cell, ignoring others
-            oldSelection = new ArrayList<>(selectedCells);
+            GridPos newCell = newCells.iterator().next(); //shift selection should only occur with one cell, ignoring others
+            oldSelection = new GridSelection(selectedCells);
 
             if ((focusColumn == null) || (focusItem < 0)) {
                 return null;
@@ -2759,53 +2755,14 @@ public abstract class LightGrid extends Canvas {
             currentColumn = getColumn(newRange.x);
             endColumn = getColumn(newRange.y);
 
-            GridColumn startCol = currentColumn;
-
             if (currentItem > endItem) {
                 int temp = currentItem;
                 currentItem = endItem;
                 endItem = temp;
             }
 
-            boolean firstLoop = true;
-            do {
-                if (!firstLoop) {
-                    currentItem++;
-                }
-
-                firstLoop = false;
-
-                boolean firstLoop2 = true;
-
-                currentColumn = startCol;
-
-                do {
-                    if (!firstLoop2) {
-                        int index = indexOf(currentColumn) + 1;
-
-                        if (index < columns.size()) {
-                            currentColumn = columns.get(index);
-                        } else {
-                            currentColumn = null;
-                        }
-
-                        if (currentColumn != null)
-                            if (indexOf(currentColumn) > indexOf(endColumn))
-                                currentColumn = null;
-                    }
-
-                    firstLoop2 = false;
-
-                    if (currentColumn != null) {
-                        GridPos cell = new GridPos(indexOf(currentColumn), currentItem);
-                        addToCellSelection(cell);
-                    }
-                } while (currentColumn != endColumn && currentColumn != null);
-            } while (currentItem != endItem);
-
-            if (selectedCells.equals(newCells)) {
-                return null;
-            }
+            // Whole rectangle is added as a single range
+            selectedCells.addRange(currentItem, endItem, indexOf(currentColumn), indexOf(endColumn));
 
         } else /*if (eventSource == EventSource.MOUSE)*/ {
             // Ctrl selection works only for mouse events
@@ -2822,8 +2779,8 @@ public abstract class LightGrid extends Canvas {
             if (reverse) {
                 if (alt && newCells.size() == 1) {
                     // Alt pressed - deselect all cells selected in other rows (#6613)
-                    int row = newCells.get(0).row;
-                    newCells = new ArrayList<>();
+                    int row = newCells.iterator().next().row;
+                    newCells = new GridSelection();
                     for (GridColumn col : selectedColumns) {
                         newCells.add(new GridPos(col.getIndex(), row));
                     }
@@ -2832,18 +2789,16 @@ public abstract class LightGrid extends Canvas {
             } else {
                 if (alt && newCells.size() == 1) {
                     // Alt pressed - select all cells selected in other rows (#5988)
-                    int row = newCells.get(0).row;
-                    newCells = new ArrayList<>();
+                    int row = newCells.iterator().next().row;
+                    newCells = new GridSelection();
                     for (GridColumn col : selectedColumns) {
                         newCells.add(new GridPos(col.getIndex(), row));
                     }
                 }
-                for (GridPos newCell : newCells) {
-                    addToCellSelection(newCell);
-                }
+                selectedCells.addAll(newCells);
             }
         }
-        if (oldSelection != null && oldSelection.size() == selectedCells.size() && selectedCells.containsAll(oldSelection)) {
+        if (oldSelection != null && oldSelection.equals(selectedCells)) {
             return null;
         }
 
@@ -2877,18 +2832,10 @@ public abstract class LightGrid extends Canvas {
     {
         //Update the list of which columns have all their cells selected
         selectedColumns.clear();
-        selectedRows.clear();
 
-        IntKeyMap<Boolean> columnIndices = new IntKeyMap<>();
-        for (GridPos cell : selectedCells) {
-            if (cell.col >= 0) {
-                columnIndices.put(cell.col, Boolean.TRUE);
-            }
-            if (cell.row >= 0) {
-                selectedRows.put(cell.row, Boolean.TRUE);
-            }
-        }
-        for (Integer columnIndex : columnIndices.keySet()) {
+        // Selected rows are taken from the selection ranges directly
+        BitSet columnIndices = selectedCells.getColumns();
+        for (int columnIndex = columnIndices.nextSetBit(0); columnIndex >= 0; columnIndex = columnIndices.nextSetBit(columnIndex + 1)) {
             selectedColumns.add(columns.get(columnIndex));
         }
         selectedColumns.sort(Comparator.comparingInt(GridColumn::getIndex));
@@ -3000,6 +2947,7 @@ public abstract class LightGrid extends Canvas {
         UIUtils.dispose(boldFont);
         UIUtils.dispose(italicFont);
         UIUtils.dispose(sizingGC);
+        textExtentCache.clear();
     }
 
     /**
@@ -3092,7 +3040,7 @@ public abstract class LightGrid extends Canvas {
                     }
                 }
             } else if (hoveringOnRowHeader && hoveringRow != null) {
-                if (e.button == 1 && selectedRows.containsKey(hoveringRow) && dragDetect(e)) {
+                if (e.button == 1 && selectedCells.isRowSelected(hoveringRow) && dragDetect(e)) {
                     rowHeaderDragStarted = true;
                     return;
                 }
@@ -3128,7 +3076,7 @@ public abstract class LightGrid extends Canvas {
                         }
                     }
                 }
-                List<GridPos> cells = new ArrayList<>();
+                GridSelection cells = new GridSelection();
 
                 if (e.button == 1) {
                     if (shift) {
@@ -3198,7 +3146,7 @@ public abstract class LightGrid extends Canvas {
             }
 
             if (e.button == 1) {
-                List<GridPos> cells = new ArrayList<>();
+                GridSelection cells = new GridSelection();
                 getCells(col, cells);
                 selectionEvent = updateCellSelection(cells, e.stateMask, false, true, EventSource.MOUSE);
             }
@@ -3264,7 +3212,7 @@ public abstract class LightGrid extends Canvas {
         if (focusItem > row) {
             focusItem = row;
         }
-        selectedCells.removeIf(pos -> pos.row > row);
+        selectedCells.removeRowsAfter(row);
         updateSelectionCache();
         computeHeaderSizes();
         this.scrollValuesObsolete = true;
@@ -3498,7 +3446,7 @@ public abstract class LightGrid extends Canvas {
                         }
                     }
 
-                    List<GridPos> cells = new ArrayList<>();
+                    GridSelection cells = new GridSelection();
 
                     getCells(intentItem, focusItem, cells);
 
@@ -3508,7 +3456,7 @@ public abstract class LightGrid extends Canvas {
                 final GridColumn prevHoveringColumn = hoveringColumn;
                 if (cellColumnDragSelectionOccurring && handleCellHover(e.x, e.y)) {
                     boolean dragging;
-                    List<GridPos> newSelected = new ArrayList<>();
+                    GridSelection newSelected = new GridSelection();
 
                     GridColumn iterCol = hoveringColumn;
                     if (iterCol != null) {
@@ -4233,7 +4181,7 @@ public abstract class LightGrid extends Canvas {
         focusColumn = columns.get(0);
         focusItem = 0;
 
-        List<GridPos> cells = getAllCells();
+        GridSelection cells = getAllCells();
         Event selectionEvent = updateCellSelection(cells, stateMask, false, true, EventSource.KEYBOARD);
 
         focusColumn = oldFocusColumn;
@@ -4285,6 +4233,17 @@ public abstract class LightGrid extends Canvas {
         return Collections.unmodifiableCollection(selectedCells);
     }
 
+    /**
+     * Returns copy of the current cell selection with the current row and column elements.
+     * Selection is copied by ranges, so it is cheap even for huge selections.
+     * Element arrays are replaced (never modified) on grid refresh, so they are shared with the snapshot.
+     */
+    @NotNull
+    public GridSelectionSnapshot getSelectionSnapshot()
+    {
+        return new GridSelectionSnapshot(new GridSelection(selectedCells), columnElements, rowElements);
+    }
+
     public List<GridCell> getCellSelection()
     {
         if (isDisposed() || selectedCells.isEmpty()) {
@@ -4320,7 +4279,7 @@ public abstract class LightGrid extends Canvas {
     }
 
     public boolean isRowSelected(int row) {
-        return selectedRows.containsKey(row);
+        return selectedCells.isRowSelected(row);
     }
 
     /**
@@ -4329,79 +4288,51 @@ public abstract class LightGrid extends Canvas {
      */
     public Collection<Integer> getRowSelection()
     {
-        return Collections.unmodifiableCollection(selectedRows.keySet());
+        return Collections.unmodifiableCollection(selectedCells.getRows());
     }
 
     public int getRowSelectionSize() {
-        return selectedRows.size();
+        return selectedCells.getRowCount();
     }
 
-    private void getCells(GridColumn col, List<GridPos> cells)
+    private void getCells(GridColumn col, GridSelection cells)
     {
         if (col.getChildren() != null) {
             // Get cells for all leafs
             for (int i = 0; i < columns.size(); i++) {
                 if (columns.get(i).isParent(col)) {
-                    for (int k = 0; k < getItemCount(); k++) {
-                        cells.add(new GridPos(i, k));
-                    }
+                    cells.addRange(0, getItemCount() - 1, i, i);
                 }
             }
         } else {
             int colIndex = col.getIndex();
-
-            for (int i = 0; i < getItemCount(); i++) {
-                cells.add(new GridPos(colIndex, i));
-            }
+            cells.addRange(0, getItemCount() - 1, colIndex, colIndex);
         }
     }
 
-    private void getCells(int row, List<GridPos> cells)
+    private void getCells(int row, GridSelection cells)
     {
-        for (int i = 0; i < columns.size(); i++) {
-            cells.add(new GridPos(i, row));
-        }
+        cells.addRange(row, row, 0, columns.size() - 1);
     }
 
-    private List<GridPos> getAllCells()
+    private GridSelection getAllCells()
     {
-        int itemCount = getItemCount();
-        int columnCount = columns.size();
-        List<GridPos> cells = new ArrayList<>(itemCount * columnCount);
-
-        for (int i = 0; i < itemCount; i++) {
-            for (int k = 0; k < columnCount; k++) {
-                cells.add(new GridPos(k, i));
-            }
-        }
+        GridSelection cells = new GridSelection();
+        cells.addRange(0, getItemCount() - 1, 0, columns.size() - 1);
         return cells;
     }
 
-    private List<GridPos> getCells(int row)
+    private GridSelection getCells(int row)
     {
-        List<GridPos> cells = new ArrayList<>();
+        GridSelection cells = new GridSelection();
         getCells(row, cells);
         return cells;
     }
 
 
-    private void getCells(int startRow, int endRow, List<GridPos> cells)
+    private void getCells(int startRow, int endRow, GridSelection cells)
     {
-        boolean descending = (startRow < endRow);
-
-        int iterItem = endRow;
-
-        do {
-            getCells(iterItem, cells);
-
-            if (iterItem == startRow) break;
-
-            if (descending) {
-                iterItem--;
-            } else {
-                iterItem++;
-            }
-        } while (true);
+        cells.addRange(Math.min(startRow, endRow), Math.max(startRow, endRow), 0, columns.size() - 1);
     }
 
     /**
@@ -4487,6 +4418,7 @@ public abstract class LightGrid extends Canvas {
         super.setFont(font);
         sizingGC.setFont(font);
         fontMetrics = sizingGC.getFontMetrics();
+        textExtentCache.clear();
         normalFont = font;
         UIUtils.dispose(boldFont);
         UIUtils.dispose(italicFont);
@@ -4749,7 +4681,7 @@ public abstract class LightGrid extends Canvas {
                         if (isDragSingleRow()) {
                             elements.add(getRowElement(draggingRow));
                         } else {
-                            for (Integer row : selectedRows.keySet()) {
+                            for (Integer row : selectedCells.getRows()) {
                                 elements.add(getRowElement(row));
                             }
                         }
@@ -4759,7 +4691,7 @@ public abstract class LightGrid extends Canvas {
                         if (columns.isEmpty()) {
                             columns = LightGrid.this.columns;
                         }
-                        Set<Integer> rows = selectedRows.keySet();
+                        Collection<Integer> rows = selectedCells.getRows();
                         if (rows.isEmpty()) {
                             rows = Collections.singleton(draggingRow);
                         }
@@ -4888,7 +4820,7 @@ public abstract class LightGrid extends Canvas {
     }
 
     private boolean isDragSingleRow() {
-        return draggingRow != null && !selectedRows.containsKey(draggingRow);
+        return draggingRow != null && !selectedCells.isRowSelected(draggingRow);
     }
 
     public final static class GridColumnTransfer extends LocalObjectTransfer<List<Object>> {
@@ -18,6 +18,7 @@
 package org.jkiss.dbeaver.ui.controls.resultset;
 
 import org.eclipse.jface.action.IMenuManager;
+import org.eclipse.swt.dnd.TextTransfer;
 import org.eclipse.swt.dnd.Transfer;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Composite;
@@ -25,7 +26,12 @@ import org.eclipse.swt.widgets.Control;
 import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.runtime.RunnableWithResult;
+import org.jkiss.dbeaver.ui.UIUtils;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 /**
@@ -127,6 +133,25 @@ public interface IResultSetPresentation {
     @NotNull
     Map<Transfer, Object> copySelection(ResultSetCopySettings settings);
 
+    /**
+     * Writes selected cells as text to the writer.
+     * May be called outside of UI thread. Cut mode isn't supported.
+     * Default implementation writes plain text of {@link #copySelection(ResultSetCopySettings)}.
+     */
+    default void copySelection(@NotNull DBRProgressMonitor monitor, @NotNull ResultSetCopySettings settings, @NotNull Writer writer)
+        throws IOException
+    {
+        Object text = UIUtils.syncExec(new RunnableWithResult<Object>() {
+            @Override
+            public Object runWithResult() {
+                return copySelection(settings).get(TextTransfer.getInstance());
+            }
+        });
+        if (text != null) {
+            writer.write(text.toString());
+        }
+    }
+
     void printResultSet();
 
     void dispose();
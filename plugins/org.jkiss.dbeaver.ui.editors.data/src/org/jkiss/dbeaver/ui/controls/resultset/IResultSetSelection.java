@@ -41,4 +41,14 @@ public interface IResultSetSelection extends IStructuredSelection {
 
     ResultSetRow getElementRow(Object element);
 
+    /**
+     * Returns copy of this selection which doesn't follow further selection and presentation changes.
+     * Elements of the copy may be iterated and resolved outside of the UI thread.
+     * Presentations with small immutable selections may return the selection itself.
+     */
+    @NotNull
+    default IResultSetSelection getSnapshot() {
+        return this;
+    }
+
 }
@@ -0,0 +1,594 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.DBUtils;
+
+import java.io.IOException;
+import java.nio.*;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar storage of fetched rows.
+ *
+ * Each column is kept in a vector specialized by the class of its values: primitive arrays with null bitmaps
+ * for numbers, booleans and dates, dictionary codes for repeating strings and plain object array for everything else.
+ * Values are boxed on read. Store is immutable, rows are detached from it on modification (see {@link ResultSetRow}).
+ *
+ * Primitive and string vectors may be moved to the spill file (see {@link #spill(ResultSetSpillFile)}).
+ * After that they are read from the memory-mapped file regions.
+ */
+class ResultSetColumnStore {
+
+    // Dictionary encoding is used only if distinct strings are less than this part of all values
+    private static final int DICTIONARY_MAX_RATIO = 2;
+    // Rough estimation of object header and reference size
+    private static final int OBJECT_SIZE = 16;
+
+    private final int rowCount;
+    private final ColumnVector[] columns;
+
+    private ResultSetColumnStore(int rowCount, ColumnVector[] columns) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates store with the specified rows. Returns null if rows have different length.
+     */
+    @Nullable
+    static ResultSetColumnStore create(@NotNull List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        int columnCount = rows.get(0).length;
+        for (Object[] row : rows) {
+            if (row.length != columnCount) {
+                return null;
+            }
+        }
+        ColumnVector[] columns = new ColumnVector[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = createVector(rows, i);
+        }
+        return new ResultSetColumnStore(rows.size(), columns);
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    int getColumnCount() {
+        return columns.length;
+    }
+
+    @Nullable
+    Object getValue(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    @NotNull
+    Object[] getRow(int row) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].get(row);
+        }
+        return values;
+    }
+
+    void releaseRow(int row) {
+        for (ColumnVector column : columns) {
+            if (column instanceof ObjectVector) {
+                DBUtils.releaseValue(column.get(row));
+            }
+        }
+    }
+
+    /**
+     * Estimated size of the heap memory used by this store
+     */
+    long getMemorySize() {
+        long size = 0;
+        for (ColumnVector column : columns) {
+            size += column.getMemorySize();
+        }
+        return size;
+    }
+
+    /**
+     * Moves primitive and string vectors into the spill file. Other vectors stay in memory.
+     */
+    void spill(@NotNull ResultSetSpillFile file) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].spill(file);
+        }
+    }
+
+    @NotNull
+    private static ColumnVector createVector(@NotNull List<Object[]> rows, int column) {
+        Class<?> valueClass = null;
+        for (Object[] row : rows) {
+            Object value = row[column];
+            if (value == null) {
+                continue;
+            }
+            if (valueClass == null) {
+                valueClass = value.getClass();
+            } else if (valueClass != value.getClass()) {
+                // Mixed values
+                return new ObjectVector(rows, column);
+            }
+        }
+        if (valueClass == null) {
+            return new ObjectVector(rows, column);
+        } else if (valueClass == Long.class || valueClass == Integer.class || valueClass == Short.class || valueClass == Byte.class) {
+            return new LongVector(rows, column, valueClass);
+        } else if (valueClass == Double.class || valueClass == Float.class) {
+            return new DoubleVector(rows, column, valueClass == Float.class);
+        } else if (valueClass == Boolean.class) {
+            return new BooleanVector(rows, column);
+        } else if (valueClass == Timestamp.class || valueClass == java.sql.Date.class || valueClass == Time.class || valueClass == Date.class) {
+            return new DateVector(rows, column, valueClass);
+        } else if (valueClass == String.class) {
+            ColumnVector vector = DictionaryVector.create(rows, column);
+            if (vector != null) {
+                return vector;
+            }
+        }
+        return new ObjectVector(rows, column);
+    }
+
+    @NotNull
+    private static ByteBuffer allocateRegion(@NotNull ResultSetSpillFile file, long size) throws IOException {
+        return file.allocate(size).order(ByteOrder.nativeOrder());
+    }
+
+    private static abstract class ColumnVector {
+        @Nullable
+        abstract Object get(int row);
+
+        abstract long getMemorySize();
+
+        @NotNull
+        ColumnVector spill(@NotNull ResultSetSpillFile file) throws IOException {
+            return this;
+        }
+    }
+
+    /**
+     * Vector with null bitmap
+     */
+    private static abstract class PrimitiveVector extends ColumnVector {
+        final long[] nulls;
+
+        PrimitiveVector(@NotNull List<Object[]> rows, int column) {
+            long[] nulls = null;
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i)[column] == null) {
+                    if (nulls == null) {
+                        nulls = new long[(rows.size() + 63) >>> 6];
+                    }
+                    nulls[i >>> 6] |= 1L << i;
+                }
+            }
+            this.nulls = nulls;
+        }
+
+        PrimitiveVector(@Nullable long[] nulls) {
+            this.nulls = nulls;
+        }
+
+        boolean isNull(int row) {
+            return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override
+        long getMemorySize() {
+            return nulls == null ? 0 : nulls.length * 8L;
+        }
+    }
+
+    private static class LongVector extends PrimitiveVector {
+        private static final byte TYPE_LONG = 0;
+        private static final byte TYPE_INTEGER = 1;
+        private static final byte TYPE_SHORT = 2;
+        private static final byte TYPE_BYTE = 3;
+
+        private final LongBuffer values;
+        private final byte type;
+
+        LongVector(@NotNull List<Object[]> rows, int column, @NotNull Class<?> valueClass) {
+            super(rows, column);
+            this.type = valueClass == Integer.class ? TYPE_INTEGER :
+                valueClass == Short.class ? TYPE_SHORT :
+                valueClass == Byte.class ? TYPE_BYTE : TYPE_LONG;
+            long[] values = new long[rows.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = rows.get(i)[column];
+                if (value != null) {
+                    values[i] = ((Number) value).longValue();
+                }
+            }
+            this.values = LongBuffer.wrap(values);
+        }
+
+        private LongVector(@Nullable long[] nulls, @NotNull LongBuffer values, byte type) {
+            super(nulls);
+            this.values = values;
+            this.type = type;
+        }
+
+        @Override
+        Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            long value = values.get(row);
+            switch (type) {
+                case TYPE_INTEGER:
+                    return (int) value;
+                case TYPE_SHORT:
+                    return (short) value;
+                case TYPE_BYTE:
+                    return (byte) value;
+                default:
+                    return value;
+            }
+        }
+
+        @Override
+        long getMemorySize() {
+            return super.getMemorySize() + (values.hasArray() ? values.capacity() * 8L : 0);
+        }
+
+        @NotNull
+        @Override
+        ColumnVector spill(@NotNull ResultSetSpillFile file) throws IOException {
+            if (!values.hasArray()) {
+                return this;
+            }
+            LongBuffer buffer = allocateRegion(file, values.capacity() * 8L).asLongBuffer();
+            buffer.put(values.array());
+            return new LongVector(nulls, buffer, type);
+        }
+    }
+
+    private static class DoubleVector extends PrimitiveVector {
+        private final DoubleBuffer values;
+        private final boolean isFloat;
+
+        DoubleVector(@NotNull List<Object[]> rows, int column, boolean isFloat) {
+            super(rows, column);
+            this.isFloat = isFloat;
+            double[] values = new double[rows.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = rows.get(i)[column];
+                if (value != null) {
+                    values[i] = ((Number) value).doubleValue();
+                }
+            }
+            this.values = DoubleBuffer.wrap(values);
+        }
+
+        private DoubleVector(@Nullable long[] nulls, @NotNull DoubleBuffer values, boolean isFloat) {
+            super(nulls);
+            this.values = values;
+            this.isFloat = isFloat;
+        }
+
+        @Override
+        Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return isFloat ? (Object) (float) values.get(row) : (Object) values.get(row);
+        }
+
+        @Override
+        long getMemorySize() {
+            return super.getMemorySize() + (values.hasArray() ? values.capacity() * 8L : 0);
+        }
+
+        @NotNull
+        @Override
+        ColumnVector spill(@NotNull ResultSetSpillFile file) throws IOException {
+            if (!values.hasArray()) {
+                return this;
+            }
+            DoubleBuffer buffer = allocateRegion(file, values.capacity() * 8L).asDoubleBuffer();
+            buffer.put(values.array());
+            return new DoubleVector(nulls, buffer, isFloat);
+        }
+    }
+
+    private static class BooleanVector extends PrimitiveVector {
+        private final long[] values;
+
+        BooleanVector(@NotNull List<Object[]> rows, int column) {
+            super(rows, column);
+            this.values = new long[(rows.size() + 63) >>> 6];
+            for (int i = 0; i < rows.size(); i++) {
+                if (Boolean.TRUE.equals(rows.get(i)[column])) {
+                    values[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            return (values[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override
+        long getMemorySize() {
+            return super.getMemorySize() + values.length * 8L;
+        }
+    }
+
+    private static class DateVector extends PrimitiveVector {
+        private static final byte TYPE_DATE = 0;
+        private static final byte TYPE_SQL_DATE = 1;
+        private static final byte TYPE_TIME = 2;
+        private static final byte TYPE_TIMESTAMP = 3;
+
+        private final LongBuffer millis;
+        // Nanoseconds of timestamps
+        private final IntBuffer nanos;
+        private final byte type;
+
+        DateVector(@NotNull List<Object[]> rows, int column, @NotNull Class<?> valueClass) {
+            super(rows, column);
+            this.type = valueClass == Timestamp.class ? TYPE_TIMESTAMP :
+                valueClass == java.sql.Date.class ? TYPE_SQL_DATE :
+                valueClass == Time.class ? TYPE_TIME : TYPE_DATE;
+            long[] millis = new long[rows.size()];
+            int[] nanos = type == TYPE_TIMESTAMP ? new int[rows.size()] : null;
+            for (int i = 0; i < millis.length; i++) {
+                Object value = rows.get(i)[column];
+                if (value != null) {
+                    millis[i] = ((Date) value).getTime();
+                    if (nanos != null) {
+                        nanos[i] = ((Timestamp) value).getNanos();
+                    }
+                }
+            }
+            this.millis = LongBuffer.wrap(millis);
+            this.nanos = nanos == null ? null : IntBuffer.wrap(nanos);
+        }
+
+        private DateVector(@Nullable long[] nulls, @NotNull LongBuffer millis, @Nullable IntBuffer nanos, byte type) {
+            super(nulls);
+            this.millis = millis;
+            this.nanos = nanos;
+            this.type = type;
+        }
+
+        @Override
+        Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (type) {
+                case TYPE_TIMESTAMP:
+                    Timestamp timestamp = new Timestamp(millis.get(row));
+                    timestamp.setNanos(nanos.get(row));
+                    return timestamp;
+                case TYPE_SQL_DATE:
+                    return new java.sql.Date(millis.get(row));
+                case TYPE_TIME:
+                    return new Time(millis.get(row));
+                default:
+                    return new Date(millis.get(row));
+            }
+        }
+
+        @Override
+        long getMemorySize() {
+            if (!millis.hasArray()) {
+                return super.getMemorySize();
+            }
+            return super.getMemorySize() + millis.capacity() * 8L + (nanos == null ? 0 : nanos.capacity() * 4L);
+        }
+
+        @NotNull
+        @Override
+        ColumnVector spill(@NotNull ResultSetSpillFile file) throws IOException {
+            if (!millis.hasArray()) {
+                return this;
+            }
+            LongBuffer millisBuffer = allocateRegion(file, millis.capacity() * 8L).asLongBuffer();
+            millisBuffer.put(millis.array());
+            IntBuffer nanosBuffer = null;
+            if (nanos != null) {
+                nanosBuffer = allocateRegion(file, nanos.capacity() * 4L).asIntBuffer();
+                nanosBuffer.put(nanos.array());
+            }
+            return new DateVector(nulls, millisBuffer, nanosBuffer, type);
+        }
+    }
+
+    private static class DictionaryVector extends ColumnVector {
+        private final IntBuffer codes;
+        private final String[] dictionary;
+
+        private DictionaryVector(@NotNull IntBuffer codes, @NotNull String[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        @Nullable
+        static DictionaryVector create(@NotNull List<Object[]> rows, int column) {
+            int maxSize = rows.size() / DICTIONARY_MAX_RATIO;
+            Map<String, Integer> codeMap = new HashMap<>();
+            int[] codes = new int[rows.size()];
+            for (int i = 0; i < codes.length; i++) {
+                String value = (String) rows.get(i)[column];
+                if (value == null) {
+                    codes[i] = -1;
+                    continue;
+                }
+                Integer code = codeMap.get(value);
+                if (code == null) {
+                    if (codeMap.size() >= maxSize) {
+                        // Too many distinct values
+                        return null;
+                    }
+                    code = codeMap.size();
+                    codeMap.put(value, code);
+                }
+                codes[i] = code;
+            }
+            String[] dictionary = new String[codeMap.size()];
+            for (Map.Entry<String, Integer> entry : codeMap.entrySet()) {
+                dictionary[entry.getValue()] = entry.getKey();
+            }
+            return new DictionaryVector(IntBuffer.wrap(codes), dictionary);
+        }
+
+        @Override
+        Object get(int row) {
+            int code = codes.get(row);
+            return code < 0 ? null : dictionary[code];
+        }
+
+        @Override
+        long getMemorySize() {
+            long size = codes.hasArray() ? codes.capacity() * 4L : 0;
+            for (String value : dictionary) {
+                size += getStringSize(value);
+            }
+            return size;
+        }
+
+        @NotNull
+        @Override
+        ColumnVector spill(@NotNull ResultSetSpillFile file) throws IOException {
+            if (!codes.hasArray()) {
+                return this;
+            }
+            IntBuffer buffer = allocateRegion(file, codes.capacity() * 4L).asIntBuffer();
+            buffer.put(codes.array());
+            return new DictionaryVector(buffer, dictionary);
+        }
+    }
+
+    private static class ObjectVector extends ColumnVector {
+        private final Object[] values;
+
+        ObjectVector(@NotNull List<Object[]> rows, int column) {
+            this.values = new Object[rows.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = rows.get(i)[column];
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        long getMemorySize() {
+            long size = values.length * 8L;
+            for (Object value : values) {
+                if (value instanceof String) {
+                    size += getStringSize((String) value);
+                } else if (value != null) {
+                    size += OBJECT_SIZE * 2;
+                }
+            }
+            return size;
+        }
+
+        @NotNull
+        @Override
+        ColumnVector spill(@NotNull ResultSetSpillFile file) throws IOException {
+            // Only plain strings may be spilled
+            long charCount = 0;
+            for (Object value : values) {
+                if (value instanceof String) {
+                    charCount += ((String) value).length();
+                } else if (value != null) {
+                    return this;
+                }
+            }
+            if (charCount == 0 || charCount * 2 > Integer.MAX_VALUE) {
+                return this;
+            }
+            return new StringVector(values, charCount, file);
+        }
+    }
+
+    /**
+     * Strings kept in the spill file
+     */
+    private static class StringVector extends ColumnVector {
+        // Start offset of each string. Null strings have negative offset
+        private final IntBuffer offsets;
+        private final CharBuffer chars;
+
+        StringVector(@NotNull Object[] values, long charCount, @NotNull ResultSetSpillFile file) throws IOException {
+            this.offsets = allocateRegion(file, (values.length + 1) * 4L).asIntBuffer();
+            this.chars = allocateRegion(file, charCount * 2).asCharBuffer();
+            int offset = 0;
+            for (int i = 0; i < values.length; i++) {
+                String value = (String) values[i];
+                if (value == null) {
+                    offsets.put(i, -1 - offset);
+                } else {
+                    offsets.put(i, offset);
+                    chars.put(value);
+                    offset += value.length();
+                }
+            }
+            offsets.put(values.length, offset);
+        }
+
+        @Override
+        Object get(int row) {
+            int start = offsets.get(row);
+            if (start < 0) {
+                return null;
+            }
+            int end = offsets.get(row + 1);
+            if (end < 0) {
+                end = -1 - end;
+            }
+            return chars.duplicate().position(start).limit(end).toString();
+        }
+
+        @Override
+        long getMemorySize() {
+            return 0;
+        }
+    }
+
+    private static long getStringSize(@NotNull String value) {
+        return OBJECT_SIZE * 2 + value.length() * 2L;
+    }
+
+}
@@ -42,6 +42,9 @@ class ResultSetDataReceiver implements DBDDataReceiver, DBDDataReceiverInteracti
 
     private static final Log log = Log.getLog(ResultSetDataReceiver.class);
 
+    // Rows are passed to the model by blocks of this size when all rows are fetched
+    private static final int FETCH_ALL_BLOCK_SIZE = 10000;
+
     private ResultSetViewer resultSetViewer;
     private int columnsCount;
     private DBDAttributeBinding[] metaColumns;
@@ -50,6 +53,8 @@ class ResultSetDataReceiver implements DBDDataReceiver, DBDDataReceiverInteracti
     private boolean nextSegmentRead;
     private long offset;
     private long maxRows;
+    // Some rows of the current segment were already passed to the model
+    private boolean blocksAppended;
 
     private boolean paused;
 
@@ -95,6 +100,7 @@ class ResultSetDataReceiver implements DBDDataReceiver, DBDDataReceiverInteracti
         this.rows.clear();
         this.offset = offset;
         this.maxRows = maxRows;
+        this.blocksAppended = false;
 
         if (!nextSegmentRead) {
             // Get columns metadata
@@ -149,6 +155,12 @@ class ResultSetDataReceiver implements DBDDataReceiver, DBDDataReceiverInteracti
             }
         }
         rows.add(row);
+        if (nextSegmentRead && maxRows <= 0 && rows.size() >= FETCH_ALL_BLOCK_SIZE) {
+            // All rows are fetched. Do not keep them all here, model compacts (and spills) them by blocks
+            resultSetViewer.appendData(rows, isResetOldRows() && !blocksAppended);
+            rows = new ArrayList<>();
+            blocksAppended = true;
+        }
     }
 
     @Override
@@ -179,8 +191,7 @@ class ResultSetDataReceiver implements DBDDataReceiver, DBDDataReceiverInteracti
             resultSetViewer.setData(tmpRows, focusRow);
         } else {
             monitor.subTask("Append data");
-            boolean resetOldRows = getDataContainer().getDataSource().getContainer().getPreferenceStore().getBoolean(ModelPreferences.RESULT_SET_REREAD_ON_SCROLLING);
-            resultSetViewer.appendData(tmpRows, resetOldRows);
+            resultSetViewer.appendData(tmpRows, isResetOldRows() && !blocksAppended);
         }
         // Check for more data
         hasMoreData = maxRows > 0 && tmpRows.size() >= maxRows;
@@ -199,6 +210,10 @@ class ResultSetDataReceiver implements DBDDataReceiver, DBDDataReceiverInteracti
         });
     }
 
+    private boolean isResetOldRows() {
+        return getDataContainer().getDataSource().getContainer().getPreferenceStore().getBoolean(ModelPreferences.RESULT_SET_REREAD_ON_SCROLLING);
+    }
+
     private DBSDataContainer getDataContainer() {
         return targetDataContainer != null ? targetDataContainer : resultSetViewer.getDataContainer();
     }
@@ -0,0 +1,582 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import net.sf.jsqlparser.expression.*;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.*;
+import net.sf.jsqlparser.schema.Column;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDAttributeConstraint;
+import org.jkiss.dbeaver.model.data.DBDDataFilter;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.jkiss.dbeaver.model.exec.DBCLogicalOperator;
+import org.jkiss.dbeaver.model.sql.SQLUtils;
+import org.jkiss.dbeaver.model.sql.parser.SQLSemanticProcessor;
+import org.jkiss.utils.CommonUtils;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Client-side rows filter.
+ *
+ * Data filter constraints and simple WHERE expressions (comparisons, IS NULL, IN, BETWEEN
+ * combined with AND/OR/NOT) are compiled into row predicates which follow SQL three-valued logic.
+ * Filters which can't be evaluated on client side have to be applied by the server. It includes string
+ * comparisons and LIKE, because their result depends on the database collation
+ * (see {@link ResultSetUtils#isClientSideComparable(DBDAttributeBinding)}).
+ */
+class ResultSetFilterEvaluator {
+
+    private static final Log log = Log.getLog(ResultSetFilterEvaluator.class);
+
+    // Rows lists smaller than this are filtered in the current thread
+    private static final int PARALLEL_THRESHOLD = 8192;
+    // Attribute criteria is parsed as a condition on this fake column
+    private static final String CRITERIA_ATTRIBUTE = "DBEAVER_CRITERIA_ATTRIBUTE"; //$NON-NLS-1$
+
+    private final ResultSetModel model;
+    @Nullable
+    private final DBPDataSource dataSource;
+    private Condition condition;
+    private boolean parallel = true;
+    @Nullable
+    private DBDAttributeBinding criteriaBinding;
+
+    private ResultSetFilterEvaluator(@NotNull ResultSetModel model) {
+        this.model = model;
+        DBDAttributeBinding[] attributes = model.getAttributes();
+        this.dataSource = attributes.length == 0 ? null : attributes[0].getDataSource();
+    }
+
+    /**
+     * Compiles filter conditions.
+     * Returns null if some condition can't be evaluated on client side.
+     */
+    @Nullable
+    static ResultSetFilterEvaluator create(@NotNull ResultSetModel model, @NotNull DBDDataFilter filter) {
+        ResultSetFilterEvaluator evaluator = new ResultSetFilterEvaluator(model);
+        try {
+            evaluator.condition = evaluator.compileFilter(filter);
+            return evaluator;
+        } catch (Exception e) {
+            log.debug("Data filter can't be evaluated on client side: " + e.getMessage());
+            return null;
+        }
+    }
+
+    boolean matches(@NotNull ResultSetRow row) {
+        return condition.test(row) == Boolean.TRUE;
+    }
+
+    /**
+     * Returns rows which match the filter, in the original order.
+     */
+    @NotNull
+    List<ResultSetRow> filterRows(@NotNull List<ResultSetRow> rows) {
+        int rowCount = rows.size();
+        boolean[] matches = new boolean[rowCount];
+        IntStream indexes = IntStream.range(0, rowCount);
+        if (parallel && rowCount >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> matches[i] = matches(rows.get(i)));
+
+        List<ResultSetRow> result = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            if (matches[i]) {
+                result.add(rows.get(i));
+            }
+        }
+        return result;
+    }
+
+    ////////////////////////////////////////////////////////
+    // Compilation
+
+    @NotNull
+    private Condition compileFilter(@NotNull DBDDataFilter filter) throws DBCException {
+        List<Condition> conditions = new ArrayList<>();
+        for (DBDAttributeConstraint constraint : filter.getConstraints()) {
+            if (constraint.getCriteria() != null || constraint.getOperator() != null) {
+                Condition constraintCondition = compileConstraint(constraint);
+                if (constraintCondition != null) {
+                    conditions.add(constraintCondition);
+                }
+            }
+        }
+        if (!CommonUtils.isEmpty(filter.getWhere())) {
+            conditions.add(compileCondition(SQLSemanticProcessor.parseCondExpression(filter.getWhere(), false)));
+        }
+        if (conditions.isEmpty()) {
+            return row -> Boolean.TRUE;
+        }
+        Condition result = conditions.get(0);
+        for (int i = 1; i < conditions.size(); i++) {
+            result = filter.isAnyConstraint() ? or(result, conditions.get(i)) : and(result, conditions.get(i));
+        }
+        return result;
+    }
+
+    @Nullable
+    private Condition compileConstraint(@NotNull DBDAttributeConstraint constraint) throws DBCException {
+        DBDAttributeBinding binding = constraint.getAttribute() == null ?
+            null : model.getAttributeBinding(constraint.getAttribute());
+        if (binding == null) {
+            binding = findAttribute(constraint.getAttributeName());
+        }
+        if (binding == null) {
+            throw new DBCException("Attribute '" + constraint.getAttributeName() + "' not found");
+        }
+        String criteria = constraint.getCriteria();
+        if (!CommonUtils.isEmpty(criteria)) {
+            // Same as in SQLUtils.getConstraintCondition
+            String condition = criteria.trim();
+            final char firstChar = condition.charAt(0);
+            if (!Character.isLetter(firstChar) && firstChar != '=' && firstChar != '>' && firstChar != '<' && firstChar != '!') {
+                condition = '=' + condition;
+            }
+            criteriaBinding = binding;
+            try {
+                return compileCondition(SQLSemanticProcessor.parseCondExpression(CRITERIA_ATTRIBUTE + " " + condition, false));
+            } finally {
+                criteriaBinding = null;
+            }
+        }
+        DBCLogicalOperator operator = constraint.getOperator();
+        if (operator == null) {
+            return null;
+        }
+        Operand column = columnOperand(binding);
+        Object value = constraint.getValue();
+        if (operator.getArgumentCount() == 0) {
+            switch (operator) {
+                case IS_NULL:
+                    return isNull(column);
+                case IS_NOT_NULL:
+                    return not(isNull(column));
+                default:
+                    throw new DBCException("Unsupported operator " + operator);
+            }
+        }
+        if (DBUtils.isNullValue(value)) {
+            return constraint.isReverseOperator() ? not(isNull(column)) : isNull(column);
+        }
+        Condition result;
+        switch (operator) {
+            case EQUALS:
+                result = compare(column, literal(value), cmp -> cmp == 0);
+                break;
+            case NOT_EQUALS:
+                result = compare(column, literal(value), cmp -> cmp != 0);
+                break;
+            case GREATER:
+                result = compare(column, literal(value), cmp -> cmp > 0);
+                break;
+            case GREATER_EQUALS:
+                result = compare(column, literal(value), cmp -> cmp >= 0);
+                break;
+            case LESS:
+                result = compare(column, literal(value), cmp -> cmp < 0);
+                break;
+            case LESS_EQUALS:
+                result = compare(column, literal(value), cmp -> cmp <= 0);
+                break;
+            case BETWEEN:
+                if (value.getClass().isArray() && Array.getLength(value) == 2) {
+                    result = between(column, literal(Array.get(value, 0)), literal(Array.get(value, 1)));
+                } else {
+                    result = between(column, literal(value), literal(value));
+                }
+                break;
+            case IN: {
+                if (!value.getClass().isArray()) {
+                    value = new Object[] {value};
+                }
+                List<Operand> items = new ArrayList<>();
+                boolean hasNull = false;
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    Object item = Array.get(value, i);
+                    if (DBUtils.isNullValue(item)) {
+                        hasNull = true;
+                    } else {
+                        items.add(literal(item));
+                    }
+                }
+                if (items.isEmpty()) {
+                    return isNull(column);
+                }
+                result = in(column, items);
+                if (hasNull) {
+                    result = or(isNull(column), result);
+                }
+                break;
+            }
+            case ILIKE:
+                // Case insensitive by definition
+                result = like(column, value.toString());
+                break;
+            case REGEX: {
+                Pattern pattern = Pattern.compile(value.toString());
+                result = row -> {
+                    Object cellValue = column.getValue(row);
+                    return DBUtils.isNullValue(cellValue) ? null : pattern.matcher(cellValue.toString()).matches();
+                };
+                break;
+            }
+            default:
+                throw new DBCException("Unsupported operator " + operator);
+        }
+        return constraint.isReverseOperator() ? not(result) : result;
+    }
+
+    @NotNull
+    private Condition compileCondition(@NotNull Expression expression) throws DBCException {
+        if (expression instanceof Parenthesis) {
+            return compileCondition(((Parenthesis) expression).getExpression());
+        } else if (expression instanceof AndExpression) {
+            AndExpression and = (AndExpression) expression;
+            return and(compileCondition(and.getLeftExpression()), compileCondition(and.getRightExpression()));
+        } else if (expression instanceof OrExpression) {
+            OrExpression or = (OrExpression) expression;
+            return or(compileCondition(or.getLeftExpression()), compileCondition(or.getRightExpression()));
+        } else if (expression instanceof NotExpression) {
+            return not(compileCondition(((NotExpression) expression).getExpression()));
+        } else if (expression instanceof EqualsTo) {
+            return compareOperands((BinaryExpression) expression, cmp -> cmp == 0);
+        } else if (expression instanceof NotEqualsTo) {
+            return compareOperands((BinaryExpression) expression, cmp -> cmp != 0);
+        } else if (expression instanceof GreaterThan) {
+            return compareOperands((BinaryExpression) expression, cmp -> cmp > 0);
+        } else if (expression instanceof GreaterThanEquals) {
+            return compareOperands((BinaryExpression) expression, cmp -> cmp >= 0);
+        } else if (expression instanceof MinorThan) {
+            return compareOperands((BinaryExpression) expression, cmp -> cmp < 0);
+        } else if (expression instanceof MinorThanEquals) {
+            return compareOperands((BinaryExpression) expression, cmp -> cmp <= 0);
+        } else if (expression instanceof IsNullExpression) {
+            IsNullExpression isNull = (IsNullExpression) expression;
+            Condition result = isNull(compileOperand(isNull.getLeftExpression()));
+            return isNull.isNot() ? not(result) : result;
+        } else if (expression instanceof InExpression) {
+            InExpression in = (InExpression) expression;
+            if (!(in.getRightItemsList() instanceof ExpressionList)) {
+                throw new DBCException("Only IN with values list is supported");
+            }
+            Operand left = compileOperand(in.getLeftExpression());
+            List<Operand> items = new ArrayList<>();
+            for (Expression item : ((ExpressionList) in.getRightItemsList()).getExpressions()) {
+                items.add(compileOperand(item));
+            }
+            Condition result = in(left, items);
+            return in.isNot() ? not(result) : result;
+        } else if (expression instanceof Between) {
+            Between between = (Between) expression;
+            Condition result = between(
+                compileOperand(between.getLeftExpression()),
+                compileOperand(between.getBetweenExpressionStart()),
+                compileOperand(between.getBetweenExpressionEnd()));
+            return between.isNot() ? not(result) : result;
+        }
+        throw new DBCException("Unsupported expression: " + expression);
+    }
+
+    @NotNull
+    private Condition compareOperands(@NotNull BinaryExpression expression, @NotNull IntPredicate test) throws DBCException {
+        return compare(compileOperand(expression.getLeftExpression()), compileOperand(expression.getRightExpression()), test);
+    }
+
+    @NotNull
+    private Operand compileOperand(@NotNull Expression expression) throws DBCException {
+        if (expression instanceof Parenthesis) {
+            return compileOperand(((Parenthesis) expression).getExpression());
+        } else if (expression instanceof Column) {
+            String columnName = ((Column) expression).getColumnName();
+            if (criteriaBinding != null && CRITERIA_ATTRIBUTE.equals(columnName)) {
+                return columnOperand(criteriaBinding);
+            }
+            DBDAttributeBinding binding = findAttribute(columnName);
+            if (binding != null) {
+                return columnOperand(binding);
+            }
+            if ("true".equalsIgnoreCase(columnName) || "false".equalsIgnoreCase(columnName)) { //$NON-NLS-1$ //$NON-NLS-2$
+                return literal(Boolean.valueOf(columnName));
+            }
+            throw new DBCException("Column '" + columnName + "' not found");
+        } else if (expression instanceof NullValue) {
+            return literal(null);
+        } else if (expression instanceof LongValue) {
+            return literal(((LongValue) expression).getValue());
+        } else if (expression instanceof DoubleValue) {
+            return literal(((DoubleValue) expression).getValue());
+        } else if (expression instanceof StringValue) {
+            return literal(((StringValue) expression).getValue());
+        } else if (expression instanceof DateValue) {
+            return literal(((DateValue) expression).getValue());
+        } else if (expression instanceof TimeValue) {
+            return literal(((TimeValue) expression).getValue());
+        } else if (expression instanceof TimestampValue) {
+            return literal(((TimestampValue) expression).getValue());
+        } else if (expression instanceof SignedExpression) {
+            SignedExpression signed = (SignedExpression) expression;
+            Operand operand = compileOperand(signed.getExpression());
+            if (operand.value instanceof Long && signed.getSign() == '-') {
+                return literal(-(Long) operand.value);
+            } else if (operand.value instanceof Double && signed.getSign() == '-') {
+                return literal(-(Double) operand.value);
+            } else if (operand.value instanceof Number && signed.getSign() == '+') {
+                return operand;
+            }
+        }
+        throw new DBCException("Unsupported operand: " + expression);
+    }
+
+    @NotNull
+    private Operand columnOperand(@NotNull DBDAttributeBinding binding) throws DBCException {
+        switch (binding.getDataKind()) {
+            case BOOLEAN:
+            case NUMERIC:
+            case STRING:
+            case DATETIME:
+                break;
+            default:
+                // Complex values are compared by the server
+                throw new DBCException("Attribute '" + binding.getName() + "' type is not supported");
+        }
+        if (binding.isCustom()) {
+            // Custom attributes values may be calculated on read
+            parallel = false;
+        }
+        return new Operand(binding, null);
+    }
+
+    @NotNull
+    private Operand literal(@Nullable Object value) {
+        return new Operand(null, value);
+    }
+
+    @Nullable
+    private DBDAttributeBinding findAttribute(@NotNull String name) {
+        String attrName = dataSource == null ? name : DBUtils.getUnQuotedIdentifier(dataSource, name);
+        DBDAttributeBinding[] attributes = model.getAttributes();
+        for (DBDAttributeBinding attr : attributes) {
+            if (attr.getName().equals(attrName) || attr.getLabel().equals(attrName)) {
+                return attr;
+            }
+        }
+        for (DBDAttributeBinding attr : attributes) {
+            if (attr.getName().equalsIgnoreCase(attrName) || attr.getLabel().equalsIgnoreCase(attrName)) {
+                return attr;
+            }
+        }
+        return null;
+    }
+
+    ////////////////////////////////////////////////////////
+    // Conditions
+
+    @NotNull
+    private Condition compare(@NotNull Operand left, @NotNull Operand right, @NotNull IntPredicate test) throws DBCException {
+        Operand value1 = left.convertFor(right), value2 = right.convertFor(left);
+        if (!value1.isComparable() || !value2.isComparable()) {
+            throw new DBCException("Strings are compared by the server");
+        }
+        return row -> {
+            Object v1 = value1.getValue(row), v2 = value2.getValue(row);
+            if (DBUtils.isNullValue(v1) || DBUtils.isNullValue(v2)) {
+                return null;
+            }
+            return test.test(compareValues(v1, v2));
+        };
+    }
+
+    @NotNull
+    private Condition between(@NotNull Operand operand, @NotNull Operand start, @NotNull Operand end) throws DBCException {
+        return and(compare(operand, start, cmp -> cmp >= 0), compare(operand, end, cmp -> cmp <= 0));
+    }
+
+    @NotNull
+    private Condition in(@NotNull Operand operand, @NotNull List<Operand> items) throws DBCException {
+        Condition[] equals = new Condition[items.size()];
+        for (int i = 0; i < equals.length; i++) {
+            equals[i] = compare(operand, items.get(i), cmp -> cmp == 0);
+        }
+        return row -> {
+            Boolean result = Boolean.FALSE;
+            for (Condition itemEquals : equals) {
+                Boolean itemResult = itemEquals.test(row);
+                if (itemResult == Boolean.TRUE) {
+                    return Boolean.TRUE;
+                } else if (itemResult == null) {
+                    result = null;
+                }
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Case insensitive LIKE
+     */
+    @NotNull
+    private static Condition like(@NotNull Operand operand, @NotNull String like) {
+        // Same as SQLUtils.matchesLike but the pattern is compiled once
+        Pattern pattern = Pattern.compile(SQLUtils.makeLikePattern(like), Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+        return row -> {
+            Object value = operand.getValue(row);
+            return DBUtils.isNullValue(value) ? null : pattern.matcher(value.toString()).matches();
+        };
+    }
+
+    @NotNull
+    private static Condition isNull(@NotNull Operand operand) {
+        return row -> DBUtils.isNullValue(operand.getValue(row));
+    }
+
+    @NotNull
+    private static Condition not(@NotNull Condition condition) {
+        return row -> {
+            Boolean result = condition.test(row);
+            return result == null ? null : !result;
+        };
+    }
+
+    @NotNull
+    private static Condition and(@NotNull Condition condition1, @NotNull Condition condition2) {
+        return row -> {
+            Boolean result1 = condition1.test(row);
+            if (result1 == Boolean.FALSE) {
+                return Boolean.FALSE;
+            }
+            Boolean result2 = condition2.test(row);
+            if (result2 == Boolean.FALSE) {
+                return Boolean.FALSE;
+            }
+            return result1 == null || result2 == null ? null : Boolean.TRUE;
+        };
+    }
+
+    @NotNull
+    private static Condition or(@NotNull Condition condition1, @NotNull Condition condition2) {
+        return row -> {
+            Boolean result1 = condition1.test(row);
+            if (result1 == Boolean.TRUE) {
+                return Boolean.TRUE;
+            }
+            Boolean result2 = condition2.test(row);
+            if (result2 == Boolean.TRUE) {
+                return Boolean.TRUE;
+            }
+            return result1 == null || result2 == null ? null : Boolean.FALSE;
+        };
+    }
+
+    private static int compareValues(@NotNull Object value1, @NotNull Object value2) {
+        if (value1 instanceof Date && value2 instanceof Date) {
+            // Compare dates of different classes (e.g. timestamp and date literal)
+            int result = Long.compare(((Date) value1).getTime(), ((Date) value2).getTime());
+            if (result == 0 && value1 instanceof Timestamp && value2 instanceof Timestamp) {
+                result = Integer.compare(((Timestamp) value1).getNanos(), ((Timestamp) value2).getNanos());
+            }
+            return result;
+        }
+        return DBUtils.compareDataValues(value1, value2);
+    }
+
+    /**
+     * Condition result. Null means unknown (e.g. comparison with NULL).
+     */
+    private interface Condition {
+        @Nullable
+        Boolean test(@NotNull ResultSetRow row);
+    }
+
+    /**
+     * Attribute value or literal
+     */
+    private class Operand {
+        @Nullable
+        private final DBDAttributeBinding binding;
+        @Nullable
+        private final Object value;
+
+        Operand(@Nullable DBDAttributeBinding binding, @Nullable Object value) {
+            this.binding = binding;
+            this.value = value;
+        }
+
+        @Nullable
+        Object getValue(@NotNull ResultSetRow row) {
+            return binding == null ? value : model.getCellValue(binding, row);
+        }
+
+        /**
+         * Strings (attribute values and literals which weren't converted to the attribute type) are compared by the server
+         */
+        boolean isComparable() {
+            return binding == null ? !(value instanceof String) : ResultSetUtils.isClientSideComparable(binding);
+        }
+
+        /**
+         * Converts string literal to the type of the other operand attribute.
+         * So it is parsed once and not on each comparison.
+         */
+        @NotNull
+        Operand convertFor(@NotNull Operand other) {
+            if (binding != null || other.binding == null || !(value instanceof String)) {
+                return this;
+            }
+            String strValue = ((String) value).trim();
+            try {
+                switch (other.binding.getDataKind()) {
+                    case NUMERIC:
+                        return literal(new BigDecimal(strValue));
+                    case BOOLEAN:
+                        return literal(CommonUtils.toBoolean(strValue));
+                    case DATETIME:
+                        if (strValue.indexOf(':') == -1) {
+                            return literal(java.sql.Date.valueOf(strValue));
+                        } else if (strValue.indexOf('-') == -1) {
+                            return literal(java.sql.Time.valueOf(strValue));
+                        } else {
+                            return literal(Timestamp.valueOf(strValue));
+                        }
+                    default:
+                        return this;
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a valid literal of this type. Compare as is
+                return this;
+            }
+        }
+    }
+
+}
@@ -29,10 +29,12 @@ import org.jkiss.dbeaver.model.DBUtils;
 import org.jkiss.dbeaver.model.data.*;
 import org.jkiss.dbeaver.model.exec.*;
 import org.jkiss.dbeaver.model.exec.trace.DBCTrace;
+import org.jkiss.dbeaver.model.preferences.DBPPreferenceStore;
 import org.jkiss.dbeaver.model.struct.*;
 import org.jkiss.dbeaver.model.virtual.DBVColorOverride;
 import org.jkiss.dbeaver.model.virtual.DBVEntity;
 import org.jkiss.dbeaver.model.virtual.DBVUtils;
+import org.jkiss.dbeaver.runtime.DBWorkbench;
 import org.jkiss.dbeaver.runtime.jobs.DataSourceJob;
 import org.jkiss.dbeaver.ui.UIUtils;
 import org.jkiss.dbeaver.utils.RuntimeUtils;
@@ -58,6 +60,16 @@ public class ResultSetModel {
 
     // Data
     private List<ResultSetRow> curRows = new ArrayList<>();
+    // All fetched rows (in original order) when rows are filtered on client side. curRows keeps only matching rows then
+    @Nullable
+    private List<ResultSetRow> allRows;
+    @Nullable
+    private ResultSetFilterEvaluator localFilter;
+    // Column stores which are still kept in memory, oldest first
+    private final List<ResultSetColumnStore> heapStores = new ArrayList<>();
+    private long heapStoresSize;
+    @Nullable
+    private ResultSetSpillFile spillFile;
     private Long totalRowCount = null;
     private int changesCount = 0;
     private volatile boolean hasData = false;
@@ -338,7 +350,7 @@ public class ResultSetModel {
 
     @NotNull
     public Object[] getRowData(int index) {
-        return curRows.get(index).values;
+        return curRows.get(index).getValues();
     }
 
     @NotNull
@@ -356,7 +368,8 @@ public class ResultSetModel {
 
     @Nullable
     public Object getCellValue(@NotNull DBDAttributeBinding attribute, @NotNull ResultSetRow row) {
-        return DBUtils.getAttributeValue(attribute, attributes, row.values);
+        // Read values by index, without row values copying
+        return DBUtils.getAttributeValue(attribute, attributes, row::getValue, row.getValueCount());
     }
 
     /**
@@ -379,7 +392,7 @@ public class ResultSetModel {
         } else {
             rootIndex = attr.getTopParent().getOrdinalPosition();
         }
-        Object rootValue = row.values[rootIndex];
+        Object rootValue = row.getValue(rootIndex);
         Object ownerValue = depth > 0 ? rootValue : null;
         {
             // Obtain owner value and create all intermediate values
@@ -485,7 +498,7 @@ public class ResultSetModel {
                     e.printStackTrace();
                 }
             } else {
-                row.values[rootIndex] = value;
+                row.setValue(rootIndex, value);
             }
             return true;
         }
@@ -782,22 +795,86 @@ public class ResultSetModel {
     void appendData(@NotNull List<Object[]> rows, boolean resetOldRows) {
         if (resetOldRows) {
             curRows.clear();
+            allRows = null;
+            localFilter = null;
+            closeSpillFile();
         }
         int rowCount = rows.size();
-        int firstRowNum = curRows.size();
+        int firstRowNum = allRows == null ? curRows.size() : allRows.size();
         List<ResultSetRow> newRows = new ArrayList<>(rowCount);
+        // Keep fetched values in columnar form. Rows are detached from the store on modification
+        ResultSetColumnStore store = ResultSetColumnStore.create(rows);
         for (int i = 0; i < rowCount; i++) {
-            newRows.add(
-                new ResultSetRow(firstRowNum + i, rows.get(i)));
+            newRows.add(store == null ?
+                new ResultSetRow(firstRowNum + i, rows.get(i)) :
+                new ResultSetRow(firstRowNum + i, store, i));
+        }
+        if (store != null) {
+            spillColumnStores(store);
+        }
+        if (localFilter != null && allRows != null) {
+            allRows.addAll(newRows);
+            List<ResultSetRow> visibleRows = localFilter.filterRows(newRows);
+            for (int i = 0; i < visibleRows.size(); i++) {
+                visibleRows.get(i).setVisualNumber(curRows.size() + i);
+            }
+            curRows.addAll(visibleRows);
+        } else {
+            curRows.addAll(newRows);
         }
-        curRows.addAll(newRows);
 
         updateRowColors(resetOldRows, newRows);
     }
 
+    /**
+     * Moves oldest column stores to the spill file if stores memory size exceeds configured threshold.
+     * The most recent store always stays in memory.
+     */
+    private synchronized void spillColumnStores(@NotNull ResultSetColumnStore newStore) {
+        long threshold = getSpillThreshold();
+        if (threshold <= 0) {
+            return;
+        }
+        heapStores.add(newStore);
+        heapStoresSize += newStore.getMemorySize();
+        while (heapStoresSize > threshold && heapStores.size() > 1) {
+            ResultSetColumnStore store = heapStores.remove(0);
+            heapStoresSize -= store.getMemorySize();
+            try {
+                if (spillFile == null) {
+                    spillFile = new ResultSetSpillFile();
+                }
+                store.spill(spillFile);
+            } catch (Throwable e) {
+                log.warn("Error moving result set rows to the spill file", e);
+                break;
+            }
+        }
+    }
+
+    private long getSpillThreshold() {
+        DBSDataContainer dataContainer = getDataContainer();
+        DBPPreferenceStore preferenceStore = dataContainer == null || dataContainer.getDataSource() == null ?
+            DBWorkbench.getPlatform().getPreferenceStore() :
+            dataContainer.getDataSource().getContainer().getPreferenceStore();
+        return preferenceStore.getLong(ResultSetPreferences.RESULT_SET_SPILL_THRESHOLD) * 1024 * 1024;
+    }
+
+    private synchronized void closeSpillFile() {
+        heapStores.clear();
+        heapStoresSize = 0;
+        if (spillFile != null) {
+            spillFile.close();
+            spillFile = null;
+        }
+    }
+
     void clearData() {
         // Refresh all rows
+        closeSpillFile();
         this.curRows = new ArrayList<>();
+        this.allRows = null;
+        this.localFilter = null;
         this.totalRowCount = null;
         this.singleSourceEntity = null;
 
@@ -826,11 +903,14 @@ public class ResultSetModel {
 
     @NotNull
     ResultSetRow addNewRow(int rowNum, @NotNull Object[] data) {
-        ResultSetRow newRow = new ResultSetRow(curRows.size(), data);
+        ResultSetRow newRow = new ResultSetRow(allRows == null ? curRows.size() : allRows.size(), data);
         newRow.setVisualNumber(rowNum);
         newRow.setState(ResultSetRow.STATE_ADDED);
         shiftRows(newRow, 1);
         curRows.add(rowNum, newRow);
+        if (allRows != null) {
+            allRows.add(newRow);
+        }
         changesCount++;
         return newRow;
     }
@@ -859,6 +939,9 @@ public class ResultSetModel {
         int index = row.getVisualNumber();
         if (this.curRows.size() > index) {
             this.curRows.remove(index);
+            if (this.allRows != null) {
+                this.allRows.removeIf(r -> r == row);
+            }
             this.shiftRows(row, -1);
         } else {
             log.debug("Error removing row from list: invalid row index: " + index);
@@ -884,6 +967,9 @@ public class ResultSetModel {
             if (row.getVisualNumber() >= relative.getVisualNumber()) {
                 row.setVisualNumber(row.getVisualNumber() + delta);
             }
+        }
+        // Hidden rows keep their numbers too
+        for (ResultSetRow row : allRows == null ? curRows : allRows) {
             if (row.getRowNumber() >= relative.getRowNumber()) {
                 row.setRowNumber(row.getRowNumber() + delta);
             }
@@ -891,7 +977,7 @@ public class ResultSetModel {
     }
 
     void releaseAllData() {
-        final List<ResultSetRow> oldRows = curRows;
+        final List<ResultSetRow> oldRows = allRows == null ? curRows : allRows;
         // Cleanup in separate job.
         // Sometimes model cleanup takes much time (e.g. freeing LOB values)
         // So let's do it in separate job to avoid UI locking
@@ -1022,34 +1108,51 @@ public class ResultSetModel {
         this.dataFilter.setAnyConstraint(filter.isAnyConstraint());
     }
 
+    /**
+     * Filters fetched rows on client side. Rows which don't match the filter are hidden but kept in the model,
+     * so the filter may be changed or reset without data re-read.
+     *
+     * @param filter filter evaluator or null to show all fetched rows
+     */
+    void filterRowsLocally(@Nullable ResultSetFilterEvaluator filter) {
+        if (allRows == null) {
+            if (filter == null) {
+                resetOrdering();
+                return;
+            }
+            allRows = new ArrayList<>(curRows);
+            allRows.sort(Comparator.comparingInt(ResultSetRow::getRowNumber));
+        }
+        localFilter = filter;
+        if (filter == null) {
+            curRows = allRows;
+            allRows = null;
+        } else {
+            curRows = filter.filterRows(allRows);
+        }
+        resetOrdering();
+    }
+
+    boolean isFilteredLocally() {
+        return localFilter != null;
+    }
+
     public void resetOrdering() {
         final boolean hasOrdering = dataFilter.hasOrdering();
 
-        // First sort in original order to reset multi-column orderings
-        curRows.sort(Comparator.comparingInt(ResultSetRow::getRowNumber));
-
         if (hasOrdering) {
-            // Sort locally
-            final List<DBDAttributeConstraint> orderConstraints = dataFilter.getOrderConstraints();
-            curRows.sort((row1, row2) -> {
-                int result = 0;
-                for (DBDAttributeConstraint co : orderConstraints) {
-                    final DBDAttributeBinding binding = getAttributeBinding(co.getAttribute());
-                    if (binding == null) {
-                        continue;
-                    }
-                    Object cell1 = getCellValue(binding, row1);
-                    Object cell2 = getCellValue(binding, row2);
-                    result = DBUtils.compareDataValues(cell1, cell2);
-                    if (co.isOrderDescending()) {
-                        result = -result;
-                    }
-                    if (result != 0) {
-                        break;
-                    }
-                }
-                return result;
-            });
+            // Sort locally. Rows with equal values are kept in original order
+            int[] order = ResultSetSorter.sortRows(this, curRows, dataFilter.getOrderConstraints());
+            ResultSetRow[] sortedRows = new ResultSetRow[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedRows[i] = curRows.get(order[i]);
+            }
+            for (int i = 0; i < sortedRows.length; i++) {
+                curRows.set(i, sortedRows[i]);
+            }
+        } else {
+            // Sort in original order to reset multi-column orderings
+            curRows.sort(Comparator.comparingInt(ResultSetRow::getRowNumber));
         }
         for (int i = 0; i < curRows.size(); i++) {
             curRows.get(i).setVisualNumber(i);
@@ -52,9 +52,12 @@ public class ResultSetRow {
     private int rowNumber;
     // Row number in grid
     private int visualNumber;
-    // Column values
-    @NotNull
-    public Object[] values;
+    // Column values. Null if row values are kept in column store
+    @Nullable
+    private Object[] values;
+    @Nullable
+    private ResultSetColumnStore store;
+    private int storeIndex;
     @Nullable
     public Map<DBDAttributeBinding, Object> changes;
     // Row state
@@ -71,11 +74,62 @@ public class ResultSetRow {
         this.state = STATE_NORMAL;
     }
 
+    ResultSetRow(int rowNumber, @NotNull ResultSetColumnStore store, int storeIndex) {
+        this.rowNumber = rowNumber;
+        this.visualNumber = rowNumber;
+        this.store = store;
+        this.storeIndex = storeIndex;
+        this.state = STATE_NORMAL;
+    }
+
+    /**
+     * Returns row values. For rows kept in column store returns new array on each call,
+     * so modifications must be done with {@link #setValue(int, Object)}.
+     */
     @NotNull
     public Object[] getValues() {
+        if (values == null) {
+            assert store != null;
+            return store.getRow(storeIndex);
+        }
         return values;
     }
 
+    public int getValueCount() {
+        if (values == null) {
+            assert store != null;
+            return store.getColumnCount();
+        }
+        return values.length;
+    }
+
+    @Nullable
+    public Object getValue(int index) {
+        if (values == null) {
+            assert store != null;
+            return store.getValue(storeIndex, index);
+        }
+        return values[index];
+    }
+
+    public void setValue(int index, @Nullable Object value) {
+        detachFromStore();
+        values[index] = value;
+    }
+
+    void setValues(@NotNull Object[] values) {
+        this.values = values;
+        this.store = null;
+    }
+
+    private void detachFromStore() {
+        if (values == null) {
+            assert store != null;
+            values = store.getRow(storeIndex);
+            store = null;
+        }
+    }
+
     public boolean isChanged() {
         return changes != null && !changes.isEmpty();
     }
@@ -132,8 +186,13 @@ public class ResultSetRow {
     }
 
     void release() {
-        for (Object value : values) {
-            DBUtils.releaseValue(value);
+        if (values == null) {
+            assert store != null;
+            store.releaseRow(storeIndex);
+        } else {
+            for (Object value : values) {
+                DBUtils.releaseValue(value);
+            }
         }
         if (changes != null) {
             for (Object oldValue : changes.values()) {
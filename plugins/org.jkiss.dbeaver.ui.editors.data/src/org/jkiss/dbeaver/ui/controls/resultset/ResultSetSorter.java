@@ -0,0 +1,335 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDAttributeConstraint;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Client-side rows sorter.
+ *
+ * Sort keys are extracted from all rows once (as primitives for primitive numbers and dates) and then
+ * rows indexes are sorted with parallel merge sort. Rows with equal keys keep their original order.
+ */
+class ResultSetSorter {
+
+    // Ranges smaller than this are sorted in the current thread
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private final SortKey[] keys;
+    private final int[] rowNumbers;
+
+    private ResultSetSorter(@NotNull SortKey[] keys, @NotNull int[] rowNumbers) {
+        this.keys = keys;
+        this.rowNumbers = rowNumbers;
+    }
+
+    /**
+     * Returns permutation of rows indexes which orders rows by the specified constraints.
+     */
+    @NotNull
+    static int[] sortRows(@NotNull ResultSetModel model, @NotNull List<ResultSetRow> rows, @NotNull List<DBDAttributeConstraint> orderConstraints) {
+        int rowCount = rows.size();
+        List<SortKey> keys = new ArrayList<>();
+        for (DBDAttributeConstraint co : orderConstraints) {
+            final DBDAttributeBinding binding = model.getAttributeBinding(co.getAttribute());
+            if (binding == null) {
+                continue;
+            }
+            Object[] values = new Object[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = model.getCellValue(binding, rows.get(i));
+            }
+            keys.add(createKey(values, co.isOrderDescending()));
+        }
+        int[] rowNumbers = new int[rowCount];
+        int[] order = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            rowNumbers[i] = rows.get(i).getRowNumber();
+            order[i] = i;
+        }
+        ResultSetSorter sorter = new ResultSetSorter(keys.toArray(new SortKey[0]), rowNumbers);
+        int[] buffer = new int[rowCount];
+        if (rowCount < PARALLEL_THRESHOLD * 2) {
+            sorter.mergeSort(order, buffer, 0, rowCount);
+        } else {
+            ForkJoinPool.commonPool().invoke(sorter.new SortTask(order, buffer, 0, rowCount));
+        }
+        return order;
+    }
+
+    private int compare(int row1, int row2) {
+        for (SortKey key : keys) {
+            int result = key.compare(row1, row2);
+            if (result != 0) {
+                return result;
+            }
+        }
+        // Keep original rows order
+        return Integer.compare(rowNumbers[row1], rowNumbers[row2]);
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(order, from, to);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle);
+        mergeSort(order, buffer, middle, to);
+        merge(order, buffer, from, middle, to);
+    }
+
+    private void insertionSort(int[] order, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int row = order[i];
+            int j = i - 1;
+            while (j >= from && compare(order[j], row) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = row;
+        }
+    }
+
+    private void merge(int[] order, int[] buffer, int from, int middle, int to) {
+        if (compare(order[middle - 1], order[middle]) <= 0) {
+            // Already ordered
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from, right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(buffer[left], buffer[right]) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private class SortTask extends RecursiveAction {
+        private final int[] order;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+
+        SortTask(int[] order, int[] buffer, int from, int to) {
+            this.order = order;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < PARALLEL_THRESHOLD * 2) {
+                mergeSort(order, buffer, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new SortTask(order, buffer, from, middle),
+                new SortTask(order, buffer, middle, to));
+            merge(order, buffer, from, middle, to);
+        }
+    }
+
+    ////////////////////////////////////////////////////////
+    // Sort keys
+
+    @NotNull
+    private static SortKey createKey(@NotNull Object[] values, boolean descending) {
+        boolean[] nulls = new boolean[values.length];
+        Class<?> valueClass = null;
+        boolean sameClass = true, allNumbers = true, allIntegers = true, allFloats = true;
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (DBUtils.isNullValue(value)) {
+                nulls[i] = true;
+                continue;
+            }
+            if (valueClass == null) {
+                valueClass = value.getClass();
+            } else if (valueClass != value.getClass()) {
+                sameClass = false;
+            }
+            if (!(value instanceof Number)) {
+                allNumbers = false;
+            }
+            if (!(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+                allIntegers = false;
+            }
+            if (!(value instanceof Double || value instanceof Float)) {
+                allFloats = false;
+            }
+        }
+        if (valueClass == null) {
+            return new ObjectKey(nulls, descending, values, false);
+        }
+        if (allIntegers) {
+            long[] keys = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (!nulls[i]) {
+                    keys[i] = ((Number) values[i]).longValue();
+                }
+            }
+            return new LongKey(nulls, descending, keys);
+        } else if (allFloats) {
+            double[] keys = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (!nulls[i]) {
+                    keys[i] = ((Number) values[i]).doubleValue();
+                }
+            }
+            return new DoubleKey(nulls, descending, keys);
+        } else if (allNumbers) {
+            // Decimals and mixed numbers are compared exactly (see DBUtils.compareNumbers)
+            return new NumberKey(nulls, descending, values);
+        } else if (sameClass && (valueClass == Timestamp.class || valueClass == java.sql.Date.class || valueClass == java.sql.Time.class || valueClass == Date.class)) {
+            long[] keys = new long[values.length];
+            int[] nanos = valueClass == Timestamp.class ? new int[values.length] : null;
+            for (int i = 0; i < values.length; i++) {
+                if (!nulls[i]) {
+                    keys[i] = ((Date) values[i]).getTime();
+                    if (nanos != null) {
+                        nanos[i] = ((Timestamp) values[i]).getNanos();
+                    }
+                }
+            }
+            return new DateKey(nulls, descending, keys, nanos);
+        } else {
+            return new ObjectKey(nulls, descending, values, sameClass && valueClass == String.class);
+        }
+    }
+
+    private static abstract class SortKey {
+        private final boolean[] nulls;
+        private final boolean descending;
+
+        SortKey(boolean[] nulls, boolean descending) {
+            this.nulls = nulls;
+            this.descending = descending;
+        }
+
+        int compare(int row1, int row2) {
+            boolean null1 = nulls[row1], null2 = nulls[row2];
+            int result;
+            if (null1 || null2) {
+                // Nulls go last
+                result = null1 == null2 ? 0 : (null1 ? 1 : -1);
+            } else {
+                result = compareValues(row1, row2);
+            }
+            return descending ? -result : result;
+        }
+
+        abstract int compareValues(int row1, int row2);
+    }
+
+    private static class LongKey extends SortKey {
+        private final long[] keys;
+
+        LongKey(boolean[] nulls, boolean descending, long[] keys) {
+            super(nulls, descending);
+            this.keys = keys;
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            return Long.compare(keys[row1], keys[row2]);
+        }
+    }
+
+    private static class DoubleKey extends SortKey {
+        private final double[] keys;
+
+        DoubleKey(boolean[] nulls, boolean descending, double[] keys) {
+            super(nulls, descending);
+            this.keys = keys;
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            return Double.compare(keys[row1], keys[row2]);
+        }
+    }
+
+    private static class NumberKey extends SortKey {
+        private final Object[] keys;
+
+        NumberKey(boolean[] nulls, boolean descending, Object[] keys) {
+            super(nulls, descending);
+            this.keys = keys;
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            return DBUtils.compareNumbers((Number) keys[row1], (Number) keys[row2]);
+        }
+    }
+
+    private static class DateKey extends SortKey {
+        private final long[] keys;
+        private final int[] nanos;
+
+        DateKey(boolean[] nulls, boolean descending, long[] keys, int[] nanos) {
+            super(nulls, descending);
+            this.keys = keys;
+            this.nanos = nanos;
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            int result = Long.compare(keys[row1], keys[row2]);
+            if (result == 0 && nanos != null) {
+                result = Integer.compare(nanos[row1], nanos[row2]);
+            }
+            return result;
+        }
+    }
+
+    private static class ObjectKey extends SortKey {
+        private final Object[] keys;
+        private final boolean strings;
+
+        ObjectKey(boolean[] nulls, boolean descending, Object[] keys, boolean strings) {
+            super(nulls, descending);
+            this.keys = keys;
+            this.strings = strings;
+        }
+
+        @Override
+        int compareValues(int row1, int row2) {
+            if (strings) {
+                return ((String) keys[row1]).compareTo((String) keys[row2]);
+            }
+            return DBUtils.compareDataValues(keys[row1], keys[row2]);
+        }
+    }
+
+}
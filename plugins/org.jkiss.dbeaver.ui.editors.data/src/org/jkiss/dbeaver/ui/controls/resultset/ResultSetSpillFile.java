@@ -0,0 +1,107 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
+import org.jkiss.dbeaver.runtime.DBWorkbench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Temporary file which keeps result set column vectors moved out of the heap.
+ * File is mapped in memory by large regions, column vectors are allocated inside of them.
+ * This keeps the number of memory mappings small regardless of columns and blocks count.
+ */
+class ResultSetSpillFile {
+
+    private static final Log log = Log.getLog(ResultSetSpillFile.class);
+
+    private static final String SPILL_FOLDER = "resultset-spill"; //$NON-NLS-1$
+
+    // Size of the mapped region. Bigger allocations get their own region
+    static final int REGION_SIZE = 64 * 1024 * 1024;
+    // Allocations are aligned for the primitive buffers
+    private static final int ALIGNMENT = 8;
+
+    private final File file;
+    private final FileChannel channel;
+    private long fileSize;
+    private MappedByteBuffer region;
+    private int regionCount;
+
+    ResultSetSpillFile() throws IOException {
+        this(DBWorkbench.getPlatform().getTempFolder(new VoidProgressMonitor(), SPILL_FOLDER));
+    }
+
+    ResultSetSpillFile(@NotNull File folder) throws IOException {
+        this.file = File.createTempFile("rows", ".bin", folder);
+        this.file.deleteOnExit();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Allocates buffer of the specified size in the current mapped region.
+     * Maps new region at the end of the file if current one has not enough space.
+     */
+    @NotNull
+    synchronized ByteBuffer allocate(long size) throws IOException {
+        if (size <= 0 || size > Integer.MAX_VALUE) {
+            throw new IOException("Bad spill region size: " + size);
+        }
+        int alignedSize = (int) Math.min((size + ALIGNMENT - 1) & -ALIGNMENT, Integer.MAX_VALUE);
+        if (region == null || region.remaining() < size) {
+            long mapSize = Math.max(REGION_SIZE, alignedSize);
+            region = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, mapSize);
+            fileSize += mapSize;
+            regionCount++;
+        }
+        int position = region.position();
+        ByteBuffer buffer = region.duplicate();
+        buffer.limit(position + (int) size);
+        region.position(Math.min(position + alignedSize, region.limit()));
+        return buffer.slice();
+    }
+
+    /**
+     * Number of memory mapped regions
+     */
+    synchronized int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Closes and deletes the file. Regions which are already mapped stay readable until they are garbage collected.
+     */
+    synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Error closing spill file", e);
+        }
+        if (!file.delete()) {
+            log.debug("Can't delete spill file '" + file.getAbsolutePath() + "'");
+        }
+    }
+
+}
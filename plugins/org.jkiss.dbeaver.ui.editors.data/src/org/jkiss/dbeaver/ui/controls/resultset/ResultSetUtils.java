@@ -209,4 +209,20 @@ public class ResultSetUtils
         }
         return null;
     }
+
+    /**
+     * Checks that fetched values of the attribute may be compared in memory in the same way as the database compares them.
+     * String comparison depends on the database collation (case and accent sensitivity, trailing spaces),
+     * which is not known on client side. Such values have to be compared (filtered, grouped) by the server.
+     */
+    public static boolean isClientSideComparable(@NotNull DBDAttributeBinding binding) {
+        switch (binding.getDataKind()) {
+            case BOOLEAN:
+            case NUMERIC:
+            case DATETIME:
+                return true;
+            default:
+                return false;
+        }
+    }
 }
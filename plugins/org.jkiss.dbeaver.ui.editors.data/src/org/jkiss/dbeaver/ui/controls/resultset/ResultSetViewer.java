@@ -3654,6 +3654,9 @@ public class ResultSetViewer extends Viewer
         if (!checkForChanges()) {
             return;
         }
+        if (filterLocally(filter)) {
+            return;
+        }
 
         DBSDataContainer dataContainer = getDataContainer();
         if (dataContainer != null) {
@@ -3671,6 +3674,45 @@ public class ResultSetViewer extends Viewer
         }
     }
 
+    /**
+     * Applies filter to the fetched rows if all of them were read (or ordering mode is client-side)
+     * and filter conditions can be evaluated on client side.
+     */
+    private boolean filterLocally(@NotNull DBDDataFilter filter) {
+        if (ResultSetUtils.getOrderingMode(this) == ResultSetUtils.OrderingMode.SERVER_SIDE ||
+            !model.hasData() || isHasMoreData() || !CommonUtils.isEmpty(filter.getOrder()))
+        {
+            return false;
+        }
+        if (!model.isFilteredLocally() && model.getDataFilter().hasConditions()) {
+            // Fetched rows were already filtered by the server
+            return false;
+        }
+        if (filter.equalFilters(model.getDataFilter(), false)) {
+            // Conditions weren't changed. Data container itself may be changed, so re-read data
+            return false;
+        }
+        ResultSetFilterEvaluator evaluator = null;
+        if (filter.hasConditions()) {
+            evaluator = ResultSetFilterEvaluator.create(model, filter);
+            if (evaluator == null) {
+                return false;
+            }
+        }
+        this.rejectChanges();
+        boolean visibilityChanged = model.setDataFilter(filter);
+        model.filterRowsLocally(evaluator);
+        if (curRow != null && (curRow.getVisualNumber() >= model.getRowCount() || model.getRow(curRow.getVisualNumber()) != curRow)) {
+            // Current row was filtered out
+            setCurrentRow(model.getRowCount() > 0 ? model.getRow(0) : null);
+        }
+        this.getActivePresentation().refreshData(visibilityChanged, false, true);
+        this.updateFiltersText();
+        this.updateStatusMessage();
+        this.updatePanelsContent(false);
+        return true;
+    }
+
     @Override
     public boolean refreshData(@Nullable Runnable onSuccess) {
         if (!verifyQuerySafety() || !checkForChanges()) {
@@ -18,24 +18,38 @@ package org.jkiss.dbeaver.ui.controls.resultset.handler;
 
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.IDialogSettings;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.*;
 import org.eclipse.ui.commands.IElementUpdater;
 import org.eclipse.ui.handlers.HandlerUtil;
 import org.eclipse.ui.menus.UIElement;
+import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.data.DBDDisplayFormat;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.runtime.DBWorkbench;
 import org.jkiss.dbeaver.ui.IActionConstants;
 import org.jkiss.dbeaver.ui.UIUtils;
+import org.jkiss.dbeaver.ui.controls.TextWithOpenFile;
 import org.jkiss.dbeaver.ui.controls.ValueFormatSelector;
 import org.jkiss.dbeaver.ui.controls.resultset.IResultSetController;
+import org.jkiss.dbeaver.ui.controls.resultset.IResultSetPresentation;
 import org.jkiss.dbeaver.ui.controls.resultset.ResultSetCopySettings;
 import org.jkiss.dbeaver.ui.controls.resultset.ResultSetUtils;
 import org.jkiss.dbeaver.ui.controls.resultset.internal.ResultSetMessages;
+import org.jkiss.dbeaver.utils.GeneralUtils;
 import org.jkiss.utils.CommonUtils;
 
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
 
 /**
@@ -43,8 +57,14 @@ import java.util.Map;
  */
 public class ResultSetHandlerCopySpecial extends ResultSetHandlerMain implements IElementUpdater {
 
+    private static final Log log = Log.getLog(ResultSetHandlerCopySpecial.class);
+
     public static final String CMD_COPY_SPECIAL = IActionConstants.CMD_COPY_SPECIAL;
 
+    // Bigger selections are copied to the clipboard in a cancelable progress dialog
+    private static final int LARGE_SELECTION_SIZE = 100000;
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
     @Override
     public Object execute(ExecutionEvent event) throws ExecutionException
     {
@@ -62,10 +82,65 @@ public class ResultSetHandlerCopySpecial extends ResultSetHandlerMain implements
 
     public static void showAdvancedCopyDialog(IResultSetController resultSet, Shell shell) {
         AdvancedCopyConfigDialog configDialog = new AdvancedCopyConfigDialog(shell);
-        if (configDialog.open() == IDialogConstants.OK_ID) {
-            ResultSetUtils.copyToClipboard(
-                resultSet.getActivePresentation().copySelection(configDialog.copySettings));
+        if (configDialog.open() != IDialogConstants.OK_ID) {
+            return;
+        }
+        IResultSetPresentation presentation = resultSet.getActivePresentation();
+        if (configDialog.outputFile != null) {
+            copySelectionToFile(presentation, configDialog.copySettings, configDialog.outputFile);
+        } else if (!configDialog.copySettings.isCopyHTML() && resultSet.getSelection().size() > LARGE_SELECTION_SIZE) {
+            copyLargeSelection(presentation, configDialog.copySettings);
+        } else {
+            ResultSetUtils.copyToClipboard(presentation.copySelection(configDialog.copySettings));
+        }
+    }
+
+    private static void copySelectionToFile(IResultSetPresentation presentation, ResultSetCopySettings copySettings, File outputFile) {
+        new AbstractJob("Copy selection to " + outputFile.getName()) {
+            @Override
+            protected IStatus run(DBRProgressMonitor monitor) {
+                try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(outputFile), GeneralUtils.UTF8_CHARSET), FILE_BUFFER_SIZE))
+                {
+                    presentation.copySelection(monitor, copySettings, writer);
+                } catch (IOException e) {
+                    if (!outputFile.delete()) {
+                        log.debug("Can't delete file '" + outputFile.getAbsolutePath() + "'");
+                    }
+                    return GeneralUtils.makeExceptionStatus(e);
+                }
+                if (monitor.isCanceled()) {
+                    // Do not leave partially written file
+                    if (!outputFile.delete()) {
+                        log.debug("Can't delete file '" + outputFile.getAbsolutePath() + "'");
+                    }
+                    return Status.CANCEL_STATUS;
+                }
+                return Status.OK_STATUS;
+            }
+        }.schedule();
+    }
+
+    private static void copyLargeSelection(IResultSetPresentation presentation, ResultSetCopySettings copySettings) {
+        StringWriter text = new StringWriter();
+        try {
+            UIUtils.runInProgressService(monitor -> {
+                try {
+                    presentation.copySelection(monitor, copySettings, text);
+                } catch (IOException e) {
+                    throw new InvocationTargetException(e);
+                }
+                if (monitor.isCanceled()) {
+                    throw new InterruptedException();
+                }
+            });
+        } catch (InvocationTargetException e) {
+            DBWorkbench.getPlatformUI().showError("Copy error", "Error copying selected cells", e.getTargetException());
+            return;
+        } catch (InterruptedException e) {
+            return;
         }
+        ResultSetUtils.copyToClipboard(text.toString());
     }
 
     @Override
@@ -156,6 +231,8 @@ public class ResultSetHandlerCopySpecial extends ResultSetHandlerMain implements
         static final String PARAM_FORCE_QUOTES = "forceQuotes";
         static final String PARAM_FORMAT = "format";
         static final String PARAM_COPY_HTML = "copyHTML";
+        static final String PARAM_COPY_TO_FILE = "copyToFile";
+        static final String PARAM_OUTPUT_FILE = "outputFile";
 
         private Button copyHeaderCheck;
         private Button copyRowsCheck;
@@ -163,6 +240,10 @@ public class ResultSetHandlerCopySpecial extends ResultSetHandlerMain implements
         private Button forceQuoteCheck;
         private Button copyHtmlCheck;
         private ValueFormatSelector formatSelector;
+        private Button copyToFileCheck;
+        private TextWithOpenFile outputFileText;
+
+        private File outputFile;
 
         protected AdvancedCopyConfigDialog(Shell shell)
         {
@@ -203,6 +284,20 @@ public class ResultSetHandlerCopySpecial extends ResultSetHandlerMain implements
             formatSelector.select(copySettings.getFormat());
         }
 
+        @Override
+        protected void createControlsAfter(Composite group) {
+            boolean copyToFile = settings.getBoolean(PARAM_COPY_TO_FILE);
+            copyToFileCheck = UIUtils.createCheckbox(group, "Copy to file", "Write copied text to the file instead of the clipboard", copyToFile, 2);
+            outputFileText = new TextWithOpenFile(group, "Output file", new String[] {"*.txt", "*.csv", "*"}, SWT.SAVE | SWT.SINGLE);
+            GridData gd = new GridData(GridData.FILL_HORIZONTAL);
+            gd.horizontalSpan = 2;
+            outputFileText.setLayoutData(gd);
+            outputFileText.setText(CommonUtils.notEmpty(settings.get(PARAM_OUTPUT_FILE)));
+            outputFileText.setEnabled(copyToFile);
+            copyToFileCheck.addSelectionListener(SelectionListener.widgetSelectedAdapter(
+                e -> outputFileText.setEnabled(copyToFileCheck.getSelection())));
+        }
+
         @Override
         protected void okPressed() {
             copySettings.setCopyHeader(copyHeaderCheck.getSelection());
@@ -219,6 +314,13 @@ public class ResultSetHandlerCopySpecial extends ResultSetHandlerMain implements
             settings.put(PARAM_COPY_HTML, copySettings.isCopyHTML());
             settings.put(PARAM_FORMAT, copySettings.getFormat().name());
 
+            String outputFileName = outputFileText.getText().trim();
+            if (copyToFileCheck.getSelection() && !outputFileName.isEmpty()) {
+                outputFile = new File(outputFileName);
+            }
+            settings.put(PARAM_COPY_TO_FILE, copyToFileCheck.getSelection());
+            settings.put(PARAM_OUTPUT_FILE, outputFileName);
+
             super.okPressed();
         }
     }
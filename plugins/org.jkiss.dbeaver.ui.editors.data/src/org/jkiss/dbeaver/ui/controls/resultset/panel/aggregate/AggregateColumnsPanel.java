@@ -16,6 +16,8 @@
  */
 package org.jkiss.dbeaver.ui.controls.resultset.panel.aggregate;
 
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.action.*;
 import org.eclipse.jface.dialogs.IDialogSettings;
 import org.eclipse.jface.viewers.ISelection;
@@ -33,6 +35,9 @@ import org.jkiss.dbeaver.model.DBPImage;
 import org.jkiss.dbeaver.model.DBValueFormatting;
 import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
 import org.jkiss.dbeaver.model.data.aggregate.IAggregateFunction;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
 import org.jkiss.dbeaver.registry.functions.AggregateFunctionDescriptor;
 import org.jkiss.dbeaver.registry.functions.FunctionsRegistry;
 import org.jkiss.dbeaver.ui.DBeaverIcons;
@@ -57,6 +62,10 @@ public class AggregateColumnsPanel implements IResultSetPanel {
     public static final String SETTINGS_SECTION_AGGREGATE = "panel-" + PANEL_ID;
     public static final String PARAM_GROUP_BY_COLUMNS = "groupByColumns";
     public static final String PARAM_GROUP_AS_STRINGS = "groupAsStrings";
+    public static final String PARAM_APPROXIMATE = "approximate";
+
+    // Bigger selections are aggregated in background
+    private static final int BACKGROUND_AGGREGATE_THRESHOLD = 10000;
 
     private static final DecimalFormat DOUBLE_FORMAT = new DecimalFormat("###,###,###,###,###,##0.###");
     private static final DecimalFormat INTEGER_FORMAT = new DecimalFormat("###,###,###,###,###,##0");
@@ -66,11 +75,13 @@ public class AggregateColumnsPanel implements IResultSetPanel {
 
     private boolean groupByColumns;
     private boolean aggregateAsStrings;
+    private boolean approximate;
     //private boolean runServerQueries;
 
     private IDialogSettings panelSettings;
 
     private final List<AggregateFunctionDescriptor> enabledFunctions = new ArrayList<>();
+    private AggregateJob aggregateJob;
 
     public AggregateColumnsPanel() {
     }
@@ -126,6 +137,7 @@ public class AggregateColumnsPanel implements IResultSetPanel {
     private void loadSettings() {
         aggregateAsStrings = panelSettings.getBoolean(PARAM_GROUP_AS_STRINGS);
         groupByColumns = panelSettings.getBoolean(PARAM_GROUP_BY_COLUMNS);
+        approximate = panelSettings.getBoolean(PARAM_APPROXIMATE);
         IDialogSettings functionsSection = panelSettings.getSection("functions");
         if (functionsSection != null) {
             final Map<AggregateFunctionDescriptor, Integer> funcIndexes = new HashMap<>();
@@ -163,6 +175,7 @@ public class AggregateColumnsPanel implements IResultSetPanel {
     private void saveSettings() {
         panelSettings.put(PARAM_GROUP_BY_COLUMNS, groupByColumns);
         panelSettings.put(PARAM_GROUP_AS_STRINGS, aggregateAsStrings);
+        panelSettings.put(PARAM_APPROXIMATE, approximate);
         IDialogSettings functionsSection = UIUtils.getSettingsSection(panelSettings, "functions");
 
         for (AggregateFunctionDescriptor func : FunctionsRegistry.getInstance().getAggregateFunctions()) {
@@ -194,18 +207,28 @@ public class AggregateColumnsPanel implements IResultSetPanel {
 
     @Override
     public void refresh(boolean force) {
-        aggregateTable.setRedraw(false);
-        try {
+        if (aggregateJob != null) {
+            aggregateJob.cancel();
+            aggregateJob = null;
+        }
+        IResultSetSelection rsSelection = null;
+        if (this.presentation instanceof ISelectionProvider) {
+            ISelection selection = ((ISelectionProvider) presentation).getSelection();
+            if (selection instanceof IResultSetSelection) {
+                rsSelection = (IResultSetSelection) selection;
+            }
+        }
+        if (rsSelection == null || rsSelection.isEmpty()) {
             aggregateTable.removeAll();
-            if (this.presentation instanceof ISelectionProvider) {
-                ISelection selection = ((ISelectionProvider) presentation).getSelection();
-                if (selection instanceof IResultSetSelection) {
-                    aggregateSelection((IResultSetSelection)selection);
-                }
+        } else {
+            // Selection copy is cheap and may be iterated in the job
+            IResultSetSelection snapshot = rsSelection.getSnapshot();
+            aggregateJob = new AggregateJob(snapshot);
+            if (snapshot.size() < BACKGROUND_AGGREGATE_THRESHOLD) {
+                aggregateJob.runDirectly(new VoidProgressMonitor());
+            } else {
+                aggregateJob.schedule();
             }
-            UIUtils.packColumns(aggregateTable, false, null);
-        } finally {
-            aggregateTable.setRedraw(true);
         }
         saveSettings();
     }
@@ -215,41 +238,31 @@ public class AggregateColumnsPanel implements IResultSetPanel {
         fillToolBar(manager);
     }
 
-    private void aggregateSelection(IResultSetSelection selection) {
-        ResultSetModel model = presentation.getController().getModel();
-        if (groupByColumns) {
-            Map<DBDAttributeBinding, List<Object>> attrValues = new LinkedHashMap<>();
-            for (Object element : selection.toList()) {
-                DBDAttributeBinding attr = selection.getElementAttribute(element);
-                ResultSetRow row = selection.getElementRow(element);
-                Object cellValue = model.getCellValue(attr, row);
-                List<Object> values = attrValues.computeIfAbsent(attr, k -> new ArrayList<>());
-                values.add(cellValue);
-            }
-
-            for (Map.Entry<DBDAttributeBinding, List<Object>> entry : attrValues.entrySet()) {
-                TreeItem attrItem = new TreeItem(aggregateTable, SWT.NONE);
-                attrItem.setText(entry.getKey().getName());
-                attrItem.setImage(DBeaverIcons.getImage(DBValueFormatting.getObjectImage(entry.getKey())));
-                aggregateValues(attrItem, entry.getValue());
-                attrItem.setExpanded(true);
-            }
-        } else {
-            List<Object> allValues = new ArrayList<>(selection.size());
-            for (Object element : selection.toList()) {
-                DBDAttributeBinding attr = selection.getElementAttribute(element);
-                ResultSetRow row = selection.getElementRow(element);
-                Object cellValue = model.getCellValue(attr, row);
-                allValues.add(cellValue);
+    private void showResults(List<AggregateGroup> groups) {
+        aggregateTable.setRedraw(false);
+        try {
+            aggregateTable.removeAll();
+            for (AggregateGroup group : groups) {
+                TreeItem attrItem = null;
+                if (group.attribute != null) {
+                    attrItem = new TreeItem(aggregateTable, SWT.NONE);
+                    attrItem.setText(group.attribute.getName());
+                    attrItem.setImage(DBeaverIcons.getImage(DBValueFormatting.getObjectImage(group.attribute)));
+                }
+                showGroupResults(attrItem, group);
+                if (attrItem != null) {
+                    attrItem.setExpanded(true);
+                }
             }
-            aggregateValues(null, allValues);
+            UIUtils.packColumns(aggregateTable, false, null);
+        } finally {
+            aggregateTable.setRedraw(true);
         }
     }
 
-    private void aggregateValues(TreeItem parentItem, Collection<Object> values) {
-        List<AggregateFunctionDescriptor> functions = enabledFunctions;
-        Map<IAggregateFunction, TreeItem> funcMap = new IdentityHashMap<>();
-        for (AggregateFunctionDescriptor funcDesc : functions) {
+    private void showGroupResults(TreeItem parentItem, AggregateGroup group) {
+        for (int i = 0; i < group.descriptors.length; i++) {
+            AggregateFunctionDescriptor funcDesc = group.descriptors[i];
             TreeItem funcItem = (parentItem == null) ?
                 new TreeItem(aggregateTable, SWT.NONE) :
                 new TreeItem(parentItem, SWT.NONE);
@@ -259,31 +272,8 @@ public class AggregateColumnsPanel implements IResultSetPanel {
             if (icon != null) {
                 funcItem.setImage(0, DBeaverIcons.getImage(icon));
             }
-            try {
-                IAggregateFunction func = funcDesc.createFunction();
-                funcMap.put(func, funcItem);
-            } catch (DBException e) {
-                log.error(e);
-            }
-        }
-
-        IAggregateFunction[] funcs = funcMap.keySet().toArray(new IAggregateFunction[funcMap.size()]);
-        int[] funcCount = new int[funcs.length];
-        for (Object element : values) {
-            for (int i = 0; i < funcs.length; i++) {
-                if (funcs[i].accumulate(element, aggregateAsStrings)) {
-                    funcCount[i]++;
-                }
-            }
-        }
-        for (int i = 0; i < funcs.length; i++) {
-            if (funcCount[i] <= 0) {
-                continue;
-            }
-            IAggregateFunction func = funcs[i];
-            Object result = func.getResult(funcCount[i]);
+            Object result = group.results[i];
             if (result != null) {
-                TreeItem treeItem = funcMap.get(func);
                 String strValue;
                 if (result instanceof Double || result instanceof Float || result instanceof BigDecimal) {
                     strValue = DOUBLE_FORMAT.format(result);
@@ -293,7 +283,7 @@ public class AggregateColumnsPanel implements IResultSetPanel {
                     strValue = result.toString();
                 }
                 if (strValue != null) {
-                    treeItem.setText(1, strValue);
+                    funcItem.setText(1, strValue);
                 }
             }
         }
@@ -312,6 +302,7 @@ public class AggregateColumnsPanel implements IResultSetPanel {
         contributionManager.add(new Separator());
         contributionManager.add(new GroupByColumnsAction());
         contributionManager.add(new ValueTypeToggleAction());
+        contributionManager.add(new ApproximateToggleAction());
     }
 
     private class GroupByColumnsAction extends Action {
@@ -346,6 +337,32 @@ public class AggregateColumnsPanel implements IResultSetPanel {
         }
     }
 
+    private class ApproximateToggleAction extends Action {
+        public ApproximateToggleAction() {
+            super("Approximate results (use less memory)", IAction.AS_CHECK_BOX);
+            setImageDescriptor(DBeaverIcons.getImageDescriptor(UIIcon.CHART_CURVE));
+            setChecked(approximate);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            // Makes sense only for functions which have approximate implementations
+            for (AggregateFunctionDescriptor func : enabledFunctions) {
+                if (func.hasApproximation()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            approximate = !approximate;
+            setChecked(approximate);
+            refresh(false);
+        }
+    }
+
     private class AddFunctionAction extends Action {
         public AddFunctionAction() {
             super("Add function", DBeaverIcons.getImageDescriptor(UIIcon.OBJ_ADD));
@@ -387,6 +404,7 @@ public class AggregateColumnsPanel implements IResultSetPanel {
         @Override
         public void run() {
             enabledFunctions.add(func);
+            presentation.getController().updatePanelActions();
             refresh(false);
         }
     }
@@ -407,6 +425,7 @@ public class AggregateColumnsPanel implements IResultSetPanel {
                 AggregateFunctionDescriptor func = (AggregateFunctionDescriptor) item.getData();
                 enabledFunctions.remove(func);
             }
+            presentation.getController().updatePanelActions();
             refresh(false);
         }
     }
@@ -420,6 +439,7 @@ public class AggregateColumnsPanel implements IResultSetPanel {
         public void run() {
             enabledFunctions.clear();
             loadDefaultFunctions();
+            presentation.getController().updatePanelActions();
             refresh(false);
         }
     }
@@ -471,4 +491,108 @@ public class AggregateColumnsPanel implements IResultSetPanel {
         }
     }
 
+    /**
+     * Aggregate function results of one column (or of all selected values)
+     */
+    private static class AggregateGroup {
+        private final DBDAttributeBinding attribute;
+        private final AggregateFunctionDescriptor[] descriptors;
+        private final IAggregateFunction[] functions;
+        private final int[] counts;
+        private final Object[] results;
+
+        AggregateGroup(DBDAttributeBinding attribute, List<AggregateFunctionDescriptor> functions, boolean approximate) {
+            this.attribute = attribute;
+            this.descriptors = functions.toArray(new AggregateFunctionDescriptor[0]);
+            this.functions = new IAggregateFunction[descriptors.length];
+            this.counts = new int[descriptors.length];
+            this.results = new Object[descriptors.length];
+            for (int i = 0; i < descriptors.length; i++) {
+                try {
+                    this.functions[i] = descriptors[i].createFunction(approximate);
+                } catch (DBException e) {
+                    log.error(e);
+                }
+            }
+        }
+
+        void accumulate(Object value, boolean aggregateAsStrings) {
+            for (int i = 0; i < functions.length; i++) {
+                if (functions[i] != null && functions[i].accumulate(value, aggregateAsStrings)) {
+                    counts[i]++;
+                }
+            }
+        }
+
+        void evaluateResults() {
+            for (int i = 0; i < functions.length; i++) {
+                if (functions[i] != null && counts[i] > 0) {
+                    results[i] = functions[i].getResult(counts[i]);
+                }
+            }
+        }
+    }
+
+    private class AggregateJob extends AbstractJob {
+        private final IResultSetSelection selection;
+        private final List<AggregateFunctionDescriptor> functions;
+        private final boolean groupByColumns;
+        private final boolean aggregateAsStrings;
+        private final boolean approximate;
+
+        AggregateJob(IResultSetSelection selection) {
+            super("Aggregate values");
+            setUser(false);
+            setSystem(true);
+            this.selection = selection;
+            this.functions = new ArrayList<>(enabledFunctions);
+            this.groupByColumns = AggregateColumnsPanel.this.groupByColumns;
+            this.aggregateAsStrings = AggregateColumnsPanel.this.aggregateAsStrings;
+            this.approximate = AggregateColumnsPanel.this.approximate;
+        }
+
+        @Override
+        protected IStatus run(DBRProgressMonitor monitor) {
+            IResultSetController controller = selection.getController();
+            ResultSetModel model = controller.getModel();
+            Map<DBDAttributeBinding, AggregateGroup> groups = new LinkedHashMap<>();
+            AggregateGroup allValues = groupByColumns ? null : new AggregateGroup(null, functions, approximate);
+            monitor.beginTask("Aggregate values", selection.size());
+            int processed = 0;
+            for (Iterator<?> iter = selection.iterator(); iter.hasNext(); ) {
+                if (monitor.isCanceled()) {
+                    return Status.CANCEL_STATUS;
+                }
+                Object element = iter.next();
+                DBDAttributeBinding attr = selection.getElementAttribute(element);
+                ResultSetRow row = selection.getElementRow(element);
+                if (attr == null || row == null) {
+                    continue;
+                }
+                Object cellValue = model.getCellValue(attr, row);
+                AggregateGroup group = allValues != null ? allValues :
+                    groups.computeIfAbsent(attr, a -> new AggregateGroup(a, functions, approximate));
+                group.accumulate(cellValue, aggregateAsStrings);
+                if (++processed % 1000 == 0) {
+                    monitor.worked(1000);
+                    if (controller.isRefreshInProgress()) {
+                        // Rows of the selection copy may be released by the model refresh
+                        return Status.CANCEL_STATUS;
+                    }
+                }
+            }
+            List<AggregateGroup> results = allValues != null ? Collections.singletonList(allValues) : new ArrayList<>(groups.values());
+            for (AggregateGroup group : results) {
+                group.evaluateResults();
+            }
+            monitor.done();
+            UIUtils.syncExec(() -> {
+                if (aggregateJob == this && !aggregateTable.isDisposed() && !controller.isRefreshInProgress()) {
+                    showResults(results);
+                }
+            });
+            return Status.OK_STATUS;
+        }
+    }
+
 }
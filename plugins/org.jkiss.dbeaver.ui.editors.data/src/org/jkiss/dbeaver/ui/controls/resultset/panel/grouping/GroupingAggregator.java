@@ -0,0 +1,564 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset.panel.grouping;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDAttributeConstraint;
+import org.jkiss.dbeaver.model.data.DBDDataFilter;
+import org.jkiss.dbeaver.model.impl.local.LocalResultSet;
+import org.jkiss.dbeaver.model.sql.parser.SQLSemanticProcessor;
+import org.jkiss.dbeaver.ui.controls.resultset.ResultSetModel;
+import org.jkiss.dbeaver.ui.controls.resultset.ResultSetRow;
+import org.jkiss.dbeaver.ui.controls.resultset.ResultSetUtils;
+import org.jkiss.utils.CommonUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.*;
+
+/**
+ * In-memory grouping of fetched result set rows.
+ *
+ * Values of each grouping attribute are dictionary-encoded. Codes of all attributes are combined level by level
+ * into group numbers with primitive hash maps. Aggregates are accumulated in arrays indexed by group number.
+ * Strings are grouped and compared by the server, because the result depends on the database collation
+ * (see {@link ResultSetUtils#isClientSideComparable(DBDAttributeBinding)}).
+ */
+class GroupingAggregator {
+
+    private static final Log log = Log.getLog(GroupingAggregator.class);
+
+    private enum AggregateKind {
+        COUNT_ALL,
+        COUNT,
+        COUNT_DISTINCT,
+        SUM,
+        AVG,
+        MIN,
+        MAX
+    }
+
+    private final ResultSetModel model;
+    private final List<ResultSetRow> rows;
+    private final List<DBDAttributeBinding> groupBindings = new ArrayList<>();
+    private final List<String> groupLabels = new ArrayList<>();
+    private final List<Aggregate> aggregates = new ArrayList<>();
+    private List<Object[]> groups;
+
+    private GroupingAggregator(@NotNull ResultSetModel model) {
+        this.model = model;
+        this.rows = new ArrayList<>(model.getAllRows());
+    }
+
+    /**
+     * Creates aggregator for the specified grouping.
+     * Returns null if some grouping attribute or function can't be evaluated in memory.
+     */
+    @Nullable
+    static GroupingAggregator create(@NotNull ResultSetModel model, @NotNull List<String> groupAttributes, @NotNull List<String> groupFunctions) {
+        GroupingAggregator aggregator = new GroupingAggregator(model);
+        try {
+            for (String attrName : groupAttributes) {
+                DBDAttributeBinding binding = aggregator.findAttribute(attrName);
+                if (!ResultSetUtils.isClientSideComparable(binding)) {
+                    throw new DBException("Can't group by attribute " + binding.getName() + " in memory");
+                }
+                aggregator.groupBindings.add(binding);
+                aggregator.groupLabels.add(attrName);
+            }
+            for (String function : groupFunctions) {
+                aggregator.aggregates.add(aggregator.parseFunction(function));
+            }
+            return aggregator;
+        } catch (Exception e) {
+            log.debug("Grouping can't be performed in memory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @NotNull
+    private Aggregate parseFunction(@NotNull String function) throws DBException {
+        Expression expression = SQLSemanticProcessor.parseExpression(function, false);
+        if (!(expression instanceof Function)) {
+            throw new DBException("Not a function: " + function);
+        }
+        Function func = (Function) expression;
+        AggregateKind kind;
+        switch (func.getName().toUpperCase(Locale.ENGLISH)) {
+            case "COUNT": kind = AggregateKind.COUNT; break;
+            case "SUM": kind = AggregateKind.SUM; break;
+            case "AVG": kind = AggregateKind.AVG; break;
+            case "MIN": kind = AggregateKind.MIN; break;
+            case "MAX": kind = AggregateKind.MAX; break;
+            default:
+                throw new DBException("Unsupported function " + func.getName());
+        }
+        if (func.isAllColumns()) {
+            if (kind != AggregateKind.COUNT) {
+                throw new DBException("Unsupported function " + function);
+            }
+            return new Aggregate(function, AggregateKind.COUNT_ALL, null);
+        }
+        List<Expression> parameters = func.getParameters() == null ? null : func.getParameters().getExpressions();
+        if (parameters == null || parameters.size() != 1 || !(parameters.get(0) instanceof Column)) {
+            throw new DBException("Unsupported function parameters " + function);
+        }
+        DBDAttributeBinding binding = findAttribute(((Column) parameters.get(0)).getColumnName());
+        if (func.isDistinct()) {
+            if (kind != AggregateKind.COUNT) {
+                throw new DBException("Unsupported function " + function);
+            }
+            kind = AggregateKind.COUNT_DISTINCT;
+        }
+        if ((kind == AggregateKind.SUM || kind == AggregateKind.AVG) && binding.getDataKind() != DBPDataKind.NUMERIC) {
+            throw new DBException("Can't sum non-numeric attribute " + binding.getName());
+        }
+        if ((kind == AggregateKind.MIN || kind == AggregateKind.MAX || kind == AggregateKind.COUNT_DISTINCT) &&
+            !ResultSetUtils.isClientSideComparable(binding)) {
+            throw new DBException("Can't compare values of attribute " + binding.getName() + " in memory");
+        }
+        return new Aggregate(function, kind, binding);
+    }
+
+    @NotNull
+    private DBDAttributeBinding findAttribute(@NotNull String name) throws DBException {
+        DBDAttributeBinding[] attributes = model.getAttributes();
+        DBPDataSource dataSource = attributes.length == 0 ? null : attributes[0].getDataSource();
+        String attrName = dataSource == null ? name : DBUtils.getUnQuotedIdentifier(dataSource, name);
+        DBDAttributeBinding result = null;
+        for (DBDAttributeBinding attr : attributes) {
+            if (attr.getName().equals(attrName) || attr.getLabel().equals(attrName)) {
+                result = attr;
+                break;
+            }
+        }
+        if (result == null) {
+            for (DBDAttributeBinding attr : attributes) {
+                if (attr.getName().equalsIgnoreCase(attrName) || attr.getLabel().equalsIgnoreCase(attrName)) {
+                    result = attr;
+                    break;
+                }
+            }
+        }
+        if (result == null) {
+            throw new DBException("Attribute '" + name + "' not found");
+        }
+        switch (result.getDataKind()) {
+            case BOOLEAN:
+            case NUMERIC:
+            case STRING:
+            case DATETIME:
+                return result;
+            default:
+                throw new DBException("Attribute '" + name + "' type is not supported");
+        }
+    }
+
+    /**
+     * Adds grouping attributes and functions columns to the result set
+     */
+    void addColumns(@NotNull LocalResultSet<?> resultSet) {
+        for (int i = 0; i < groupBindings.size(); i++) {
+            resultSet.addColumn(groupLabels.get(i), groupBindings.get(i));
+        }
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.kind == AggregateKind.MIN || aggregate.kind == AggregateKind.MAX) {
+                resultSet.addColumn(aggregate.label, aggregate.binding);
+            } else {
+                resultSet.addColumn(aggregate.label, DBPDataKind.NUMERIC);
+            }
+        }
+    }
+
+    /**
+     * Returns grouping result rows: grouping attributes values followed by function values.
+     * Groups are calculated once.
+     */
+    @NotNull
+    synchronized List<Object[]> getGroups() {
+        if (groups == null) {
+            groups = calculateGroups();
+        }
+        return groups;
+    }
+
+    @NotNull
+    private List<Object[]> calculateGroups() {
+        int rowCount = rows.size();
+        // Assign group number to each row
+        int[] rowGroups = new int[rowCount];
+        int groupCount = rowCount == 0 ? 0 : 1;
+        for (DBDAttributeBinding binding : groupBindings) {
+            Map<Object, Integer> dictionary = new HashMap<>();
+            int[] codes = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                Object key = getGroupKey(getValue(binding, i));
+                Integer code = dictionary.get(key);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.put(key, code);
+                }
+                codes[i] = code;
+            }
+            // Group number and value code are less than row count, so combined key fits in long
+            long cardinality = dictionary.size();
+            LongIntHashMap levelGroups = new LongIntHashMap((int) Math.min(rowCount, groupCount * cardinality));
+            for (int i = 0; i < rowCount; i++) {
+                rowGroups[i] = levelGroups.getOrAdd(rowGroups[i] * cardinality + codes[i]);
+            }
+            groupCount = levelGroups.size();
+        }
+
+        // First row of each group gives grouping values
+        int[] firstRows = new int[groupCount];
+        Arrays.fill(firstRows, -1);
+        for (int i = 0; i < rowCount; i++) {
+            if (firstRows[rowGroups[i]] < 0) {
+                firstRows[rowGroups[i]] = i;
+            }
+        }
+        int groupAttrCount = groupBindings.size();
+        List<Object[]> result = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            Object[] group = new Object[groupAttrCount + aggregates.size()];
+            for (int k = 0; k < groupAttrCount; k++) {
+                group[k] = getValue(groupBindings.get(k), firstRows[g]);
+            }
+            result.add(group);
+        }
+        for (int a = 0; a < aggregates.size(); a++) {
+            Object[] values = aggregates.get(a).calculate(rowGroups, groupCount);
+            for (int g = 0; g < groupCount; g++) {
+                result.get(g)[groupAttrCount + a] = values[g];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorts groups by data filter order constraints. By default sorts by the last function value and then by grouping attributes.
+     */
+    void sortGroups(@NotNull List<Object[]> groups, @Nullable DBDDataFilter dataFilter, @Nullable String defaultSorting) {
+        List<Integer> orderColumns = new ArrayList<>();
+        List<Boolean> orderDescending = new ArrayList<>();
+        if (dataFilter != null) {
+            for (DBDAttributeConstraint co : dataFilter.getOrderConstraints()) {
+                int index = getColumnIndex(co.getAttributeLabel());
+                if (index >= 0) {
+                    orderColumns.add(index);
+                    orderDescending.add(co.isOrderDescending());
+                }
+            }
+        }
+        if (orderColumns.isEmpty()) {
+            if (CommonUtils.isEmpty(defaultSorting) || aggregates.isEmpty()) {
+                return;
+            }
+            orderColumns.add(groupBindings.size() + aggregates.size() - 1);
+            orderDescending.add("DESC".equalsIgnoreCase(defaultSorting.trim()));
+            for (int i = 0; i < groupBindings.size(); i++) {
+                orderColumns.add(i);
+                orderDescending.add(false);
+            }
+        }
+        groups.sort((g1, g2) -> {
+            for (int i = 0; i < orderColumns.size(); i++) {
+                int index = orderColumns.get(i);
+                int result = DBUtils.compareDataValues(g1[index], g2[index]);
+                if (result != 0) {
+                    return orderDescending.get(i) ? -result : result;
+                }
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * Index of the function with the specified label or -1
+     */
+    int getFunctionIndex(@NotNull String label) {
+        for (int i = 0; i < aggregates.size(); i++) {
+            if (aggregates.get(i).label.equals(label)) {
+                return groupBindings.size() + i;
+            }
+        }
+        return -1;
+    }
+
+    private int getColumnIndex(@NotNull String label) {
+        for (int i = 0; i < groupLabels.size(); i++) {
+            if (groupLabels.get(i).equals(label)) {
+                return i;
+            }
+        }
+        return getFunctionIndex(label);
+    }
+
+    /**
+     * Equal numbers of different types (e.g. partially read from server, partially added on client side) give the same key
+     */
+    @Nullable
+    private static Object getGroupKey(@Nullable Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof BigInteger) {
+            return getGroupKey(new BigDecimal((BigInteger) value));
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = ((BigDecimal) value).stripTrailingZeros();
+            if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19) {
+                // Integer which fits in long
+                return decimal.longValue();
+            }
+            return decimal;
+        }
+        return value;
+    }
+
+    @Nullable
+    private Object getValue(@NotNull DBDAttributeBinding binding, int row) {
+        Object value = model.getCellValue(binding, rows.get(row));
+        return DBUtils.isNullValue(value) ? null : value;
+    }
+
+    private class Aggregate {
+        private final String label;
+        private final AggregateKind kind;
+        @Nullable
+        private final DBDAttributeBinding binding;
+
+        Aggregate(@NotNull String label, @NotNull AggregateKind kind, @Nullable DBDAttributeBinding binding) {
+            this.label = label;
+            this.kind = kind;
+            this.binding = binding;
+        }
+
+        @NotNull
+        Object[] calculate(int[] rowGroups, int groupCount) {
+            Object[] result = new Object[groupCount];
+            switch (kind) {
+                case COUNT_ALL:
+                case COUNT: {
+                    long[] counts = new long[groupCount];
+                    for (int i = 0; i < rowGroups.length; i++) {
+                        if (kind == AggregateKind.COUNT_ALL || getValue(binding, i) != null) {
+                            counts[rowGroups[i]]++;
+                        }
+                    }
+                    for (int g = 0; g < groupCount; g++) {
+                        result[g] = counts[g];
+                    }
+                    break;
+                }
+                case COUNT_DISTINCT: {
+                    List<Set<Object>> distinct = new ArrayList<>(groupCount);
+                    for (int g = 0; g < groupCount; g++) {
+                        distinct.add(new HashSet<>());
+                    }
+                    for (int i = 0; i < rowGroups.length; i++) {
+                        Object value = getValue(binding, i);
+                        if (value != null) {
+                            distinct.get(rowGroups[i]).add(getGroupKey(value));
+                        }
+                    }
+                    for (int g = 0; g < groupCount; g++) {
+                        result[g] = (long) distinct.get(g).size();
+                    }
+                    break;
+                }
+                case SUM:
+                case AVG:
+                    calculateSum(rowGroups, result);
+                    break;
+                case MIN:
+                case MAX:
+                    for (int i = 0; i < rowGroups.length; i++) {
+                        Object value = getValue(binding, i);
+                        if (value == null) {
+                            continue;
+                        }
+                        Object cur = result[rowGroups[i]];
+                        if (cur == null) {
+                            result[rowGroups[i]] = value;
+                        } else {
+                            int cmp = DBUtils.compareDataValues(value, cur);
+                            if (kind == AggregateKind.MIN ? cmp < 0 : cmp > 0) {
+                                result[rowGroups[i]] = value;
+                            }
+                        }
+                    }
+                    break;
+            }
+            return result;
+        }
+
+        private void calculateSum(int[] rowGroups, Object[] result) {
+            int groupCount = result.length;
+            long[] counts = new long[groupCount];
+            long[] longSums = new long[groupCount];
+            double[] doubleSums = null;
+            BigDecimal[] decimalSums = null;
+            for (int i = 0; i < rowGroups.length; i++) {
+                Object value = getValue(binding, i);
+                if (!(value instanceof Number)) {
+                    continue;
+                }
+                int g = rowGroups[i];
+                counts[g]++;
+                if (decimalSums == null && (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+                    long longValue = ((Number) value).longValue();
+                    long sum = longSums[g] + longValue;
+                    if (((longSums[g] ^ sum) & (longValue ^ sum)) >= 0) {
+                        longSums[g] = sum;
+                        continue;
+                    }
+                    // Overflow
+                    decimalSums = toDecimals(longSums, doubleSums);
+                } else if (decimalSums == null && (value instanceof Double || value instanceof Float)) {
+                    if (doubleSums == null) {
+                        doubleSums = new double[groupCount];
+                    }
+                    doubleSums[g] += ((Number) value).doubleValue();
+                    continue;
+                } else if (decimalSums == null) {
+                    decimalSums = toDecimals(longSums, doubleSums);
+                }
+                decimalSums[g] = decimalSums[g].add(toDecimal((Number) value));
+            }
+            for (int g = 0; g < groupCount; g++) {
+                if (counts[g] == 0) {
+                    continue;
+                }
+                if (decimalSums != null) {
+                    result[g] = kind == AggregateKind.SUM ?
+                        decimalSums[g] :
+                        decimalSums[g].divide(BigDecimal.valueOf(counts[g]), MathContext.DECIMAL64);
+                } else if (doubleSums != null) {
+                    double sum = doubleSums[g] + longSums[g];
+                    result[g] = kind == AggregateKind.SUM ? sum : sum / counts[g];
+                } else {
+                    result[g] = kind == AggregateKind.SUM ? (Object) longSums[g] : (Object) ((double) longSums[g] / counts[g]);
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private static BigDecimal[] toDecimals(@NotNull long[] longSums, @Nullable double[] doubleSums) {
+        BigDecimal[] result = new BigDecimal[longSums.length];
+        for (int g = 0; g < result.length; g++) {
+            result[g] = BigDecimal.valueOf(longSums[g]);
+            if (doubleSums != null) {
+                result[g] = result[g].add(BigDecimal.valueOf(doubleSums[g]));
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private static BigDecimal toDecimal(@NotNull Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(value.doubleValue());
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    /**
+     * Open addressing map of long keys to sequential int values
+     */
+    private static class LongIntHashMap {
+        private long[] keys;
+        private int[] values;
+        private int size;
+        private int mask;
+
+        LongIntHashMap(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+            mask = capacity - 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns value for the key. Adds new key with the next value if it is missing.
+         */
+        int getOrAdd(long key) {
+            int index = hash(key) & mask;
+            while (values[index] >= 0) {
+                if (keys[index] == key) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = size;
+            size++;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, -1);
+            mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    int index = hash(oldKeys[i]) & mask;
+                    while (values[index] >= 0) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = oldKeys[i];
+                    values[index] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+
+}
@@ -24,6 +24,8 @@ import org.jkiss.dbeaver.model.DBUtils;
 import org.jkiss.dbeaver.model.data.DBDDataFilter;
 import org.jkiss.dbeaver.model.data.DBDDataReceiver;
 import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.impl.local.LocalResultSet;
+import org.jkiss.dbeaver.model.impl.local.LocalStatement;
 import org.jkiss.dbeaver.model.messages.ModelMessages;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
 import org.jkiss.dbeaver.model.sql.SQLUtils;
@@ -32,6 +34,9 @@ import org.jkiss.dbeaver.model.struct.DBSObject;
 import org.jkiss.dbeaver.ui.controls.resultset.IResultSetController;
 import org.jkiss.utils.ArrayUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class GroupingDataContainer implements DBSDataContainer {
 
     private static final Log log = Log.getLog(GroupingDataContainer.class);
@@ -39,6 +44,10 @@ public class GroupingDataContainer implements DBSDataContainer {
     private IResultSetController parentController;
     private String query;
     private String[] attributes;
+    // Groups rows of the parent result set in memory instead of query execution
+    private GroupingAggregator aggregator;
+    private boolean duplicatesOnly;
+    private String defaultSorting;
 
     public GroupingDataContainer(IResultSetController parentController) {
         this.parentController = parentController;
@@ -83,6 +92,9 @@ public class GroupingDataContainer implements DBSDataContainer {
             return statistics;
         }
         boolean hasLimits = firstRow >= 0 && maxRows > 0;
+        if (aggregator != null) {
+            return readGroups(session, dataReceiver, dataFilter, hasLimits ? firstRow : 0, hasLimits ? maxRows : -1);
+        }
 
         DBRProgressMonitor monitor = session.getProgressMonitor();
 
@@ -141,6 +153,52 @@ public class GroupingDataContainer implements DBSDataContainer {
         }
     }
 
+    @NotNull
+    private DBCStatistics readGroups(@NotNull DBCSession session, @NotNull DBDDataReceiver dataReceiver, DBDDataFilter dataFilter, long firstRow, long maxRows) throws DBCException {
+        DBCStatistics statistics = new DBCStatistics();
+        statistics.setQueryText(query);
+        statistics.addStatementsCount();
+
+        long startTime = System.currentTimeMillis();
+        List<Object[]> groups = new ArrayList<>(aggregator.getGroups());
+        if (duplicatesOnly) {
+            int countIndex = aggregator.getFunctionIndex(GroupingResultsContainer.DEFAULT_FUNCTION);
+            if (countIndex >= 0) {
+                groups.removeIf(group -> group[countIndex] instanceof Number && ((Number) group[countIndex]).longValue() <= 1);
+            }
+        }
+        aggregator.sortGroups(groups, dataFilter, defaultSorting);
+        statistics.setExecuteTime(System.currentTimeMillis() - startTime);
+
+        try (LocalResultSet<LocalStatement> resultSet = new LocalResultSet<>(session, new LocalStatement(session, query))) {
+            aggregator.addColumns(resultSet);
+            long lastRow = maxRows > 0 ? Math.min(groups.size(), firstRow + maxRows) : groups.size();
+            for (long i = firstRow; i < lastRow; i++) {
+                resultSet.addRow(groups.get((int) i));
+            }
+            try {
+                dataReceiver.fetchStart(session, resultSet, firstRow, maxRows);
+                startTime = System.currentTimeMillis();
+                long rowCount = 0;
+                while (resultSet.nextRow()) {
+                    dataReceiver.fetchRow(session, resultSet);
+                    rowCount++;
+                }
+                statistics.setFetchTime(System.currentTimeMillis() - startTime);
+                statistics.setRowsFetched(rowCount);
+            } finally {
+                try {
+                    dataReceiver.fetchEnd(session, resultSet);
+                } catch (Throwable e) {
+                    log.error("Error while finishing result set fetch", e); //$NON-NLS-1$
+                }
+            }
+        } finally {
+            dataReceiver.close();
+        }
+        return statistics;
+    }
+
     @Override
     public long countData(@NotNull DBCExecutionSource source, @NotNull DBCSession session, @Nullable DBDDataFilter dataFilter, long flags) throws DBCException {
         return 0;
@@ -158,4 +216,10 @@ public class GroupingDataContainer implements DBSDataContainer {
     public void setGroupingAttributes(@Nullable String[] attributes) {
         this.attributes = attributes;
     }
+
+    void setGroupingAggregator(@Nullable GroupingAggregator aggregator, boolean duplicatesOnly, @Nullable String defaultSorting) {
+        this.aggregator = aggregator;
+        this.duplicatesOnly = duplicatesOnly;
+        this.defaultSorting = defaultSorting;
+    }
 }
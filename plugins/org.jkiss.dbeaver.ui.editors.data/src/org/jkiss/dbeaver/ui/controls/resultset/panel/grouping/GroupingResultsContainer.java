@@ -192,6 +192,7 @@ public class GroupingResultsContainer implements IResultSetContainer {
         groupingViewer.resetHistory();
         dataContainer.setGroupingQuery(null);
         dataContainer.setGroupingAttributes(null);
+        dataContainer.setGroupingAggregator(null, false, null);
         if (!(groupingViewer.getActivePresentation() instanceof EmptyPresentation)) {
             groupingViewer.showEmptyPresentation();
         }
@@ -280,8 +281,23 @@ public class GroupingResultsContainer implements IResultSetContainer {
             sql.append("\nHAVING ").append(DEFAULT_FUNCTION).append(" > 1");
         }
 
+        String defaultSorting = dataSource.getContainer().getPreferenceStore().getString(ResultSetPreferences.RS_GROUPING_DEFAULT_SORTING);
+
+        // Group already fetched rows in memory if all of them were read
+        GroupingAggregator aggregator = null;
+        IResultSetController sourceController = presentation.getController();
+        if (ResultSetUtils.getOrderingMode(sourceController) != ResultSetUtils.OrderingMode.SERVER_SIDE &&
+            sourceController.getModel().hasData() && !sourceController.isHasMoreData())
+        {
+            aggregator = GroupingAggregator.create(sourceController.getModel(), groupAttributes, groupFunctions);
+        }
+
         dataContainer.setGroupingQuery(sql.toString());
         dataContainer.setGroupingAttributes(groupAttributes.toArray(String[]::new));
+        dataContainer.setGroupingAggregator(
+            aggregator,
+            isDefaultGrouping && isShowDuplicatesOnly,
+            isDefaultGrouping ? defaultSorting : null);
         DBDDataFilter dataFilter;
         if (presentation.getController().getModel().isMetadataChanged()) {
             dataFilter = new DBDDataFilter();
@@ -289,8 +305,10 @@ public class GroupingResultsContainer implements IResultSetContainer {
             dataFilter = new DBDDataFilter(groupingViewer.getModel().getDataFilter());
         }
 
-        String defaultSorting = dataSource.getContainer().getPreferenceStore().getString(ResultSetPreferences.RS_GROUPING_DEFAULT_SORTING);
-        if (!CommonUtils.isEmpty(defaultSorting) && isDefaultGrouping) {
+        if (aggregator != null) {
+            // Default sorting is performed by aggregator
+            dataFilter.setOrder(null);
+        } else if (!CommonUtils.isEmpty(defaultSorting) && isDefaultGrouping) {
             if (dialect.supportsOrderByIndex()) {
                 // By default sort by count in desc order
                 int countPosition = groupAttributes.size() + 1;
@@ -62,6 +62,7 @@ import org.jkiss.dbeaver.model.impl.data.DBDValueError;
 import org.jkiss.dbeaver.model.preferences.DBPPreferenceStore;
 import org.jkiss.dbeaver.model.runtime.AbstractJob;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.runtime.RunnableWithResult;
 import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
 import org.jkiss.dbeaver.model.sql.SQLConstants;
 import org.jkiss.dbeaver.model.struct.*;
@@ -91,6 +92,9 @@ import org.jkiss.utils.ArrayUtils;
 import org.jkiss.utils.CommonUtils;
 import org.jkiss.utils.xml.XMLUtils;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
@@ -107,6 +111,9 @@ public class SpreadsheetPresentation extends AbstractPresentation implements IRe
 
     private static final Log log = Log.getLog(SpreadsheetPresentation.class);
 
+    // Copy progress is reported (and cancel is checked) after each block of rows
+    private static final int COPY_PROGRESS_ROWS = 1000;
+
     private Spreadsheet spreadsheet;
 
     @Nullable
@@ -457,145 +464,48 @@ public class SpreadsheetPresentation extends AbstractPresentation implements IRe
     @NotNull
     @Override
     public Map<Transfer, Object> copySelection(ResultSetCopySettings settings) {
-        boolean copyHTML = settings.isCopyHTML();
-
-        StringBuilder tdt = new StringBuilder();
-        StringBuilder html = new StringBuilder();
-        byte[] binaryData = null;
-
-        Map<Transfer, Object> formats = new LinkedHashMap<>();
-
-        String columnDelimiter = settings.getColumnDelimiter();
-        if (columnDelimiter == null) {
-            columnDelimiter = "\t";
-        }
-
-        String rowDelimiter = settings.getRowDelimiter();
-        if (rowDelimiter == null) {
-            rowDelimiter = GeneralUtils.getDefaultLineSeparator();
-        }
-        String quoteString = settings.getQuoteString();
-        if ((CommonUtils.isEmpty(quoteString))) {
-            quoteString = "\"";
-        }
-        List<Object> selectedColumns = spreadsheet.getColumnSelection();
-        IGridLabelProvider labelProvider = spreadsheet.getLabelProvider();
-        if (copyHTML) html.append("<table border=\"1\">");
-        if (settings.isCopyHeader()) {
-            if (copyHTML) html.append("<thead>");
-            if (settings.isCopyRowNumbers()) {
-                tdt.append("#");
-                if (copyHTML) html.append("<th>#</th>");
-            }
-            for (Object column : selectedColumns) {
-                if (tdt.length() > 0) {
-                    tdt.append(columnDelimiter);
-                }
-                String columnText = labelProvider.getText(column);
-                tdt.append(columnText);
-                if (copyHTML) html.append("<th>").append(XMLUtils.escapeXml(columnText)).append("</th>");
-            }
-            tdt.append(rowDelimiter);
-            if (copyHTML) html.append("</thead>").append(rowDelimiter);
-        }
-
-        if (copyHTML) html.append("<tbody>");
-
-        List<GridCell> selectedCells = spreadsheet.getCellSelection();
-        boolean quoteCells = settings.isQuoteCells() && selectedCells.size() > 1;
-        boolean forceQuotes = settings.isForceQuotes();
-
-        GridCell prevCell = null;
-        for (GridCell cell : selectedCells) {
-            if (prevCell == null || cell.row != prevCell.row) {
-                // Next row
-                if (prevCell != null && prevCell.col != cell.col) {
-                    // Fill empty row tail
-                    int prevColIndex = selectedColumns.indexOf(prevCell.col);
-                    for (int i = prevColIndex; i < selectedColumns.size() - 1; i++) {
-                        tdt.append(columnDelimiter);
-                        if (copyHTML) html.append("<td></td>");
-                    }
-                }
-                if (prevCell != null) {
-                    tdt.append(rowDelimiter);
-                    if (copyHTML) html.append("</tr>").append(rowDelimiter);
-                }
-                if (settings.isCopyRowNumbers()) {
-                    String rowNumber = labelProvider.getText(cell.row);
-                    tdt.append(rowNumber).append(columnDelimiter);
-                    if (copyHTML) html.append("<td>").append(rowNumber).append("</td>");
-                }
-                if (copyHTML) html.append("<tr>");
-            }
-            if (prevCell != null && prevCell.col != cell.col) {
-                int prevColIndex = selectedColumns.indexOf(prevCell.col);
-                int curColIndex = selectedColumns.indexOf(cell.col);
-                for (int i = prevColIndex; i < curColIndex; i++) {
-                    tdt.append(columnDelimiter);
-                    if (i != prevColIndex) {
-                        if (copyHTML) html.append("<td></td>");
-                    }
-                }
-            }
-
-            boolean recordMode = controller.isRecordMode();
-            DBDAttributeBinding column = (DBDAttributeBinding)(!recordMode ?  cell.col : cell.row);
-            ResultSetRow row = (ResultSetRow) (!recordMode ?  cell.row : cell.col);
-            Object value = controller.getModel().getCellValue(column, row);
-            if (binaryData == null && (column.getDataKind() == DBPDataKind.BINARY || column.getDataKind() == DBPDataKind.CONTENT)) {
-                if (value instanceof byte[]) {
-                    binaryData = (byte[]) value;
-                } else if (value instanceof DBDContent && !ContentUtils.isTextContent((DBDContent) value) && value instanceof DBDContentCached) {
-                    try {
-                        binaryData = ContentUtils.getContentBinaryValue(new VoidProgressMonitor(), (DBDContent) value);
-                    } catch (DBCException e) {
-                        log.debug("Error reading content binary value");
-                    }
-                }
-            }
-            String cellText = column.getValueRenderer().getValueDisplayString(
-                column.getAttribute(),
-                value,
-                settings.getFormat());
-            if (forceQuotes || (quoteCells && !CommonUtils.isEmpty(cellText))) {
-                if (forceQuotes || cellText.contains(columnDelimiter) || cellText.contains(rowDelimiter)) {
-                    cellText = quoteString + cellText + quoteString;
-                }
-            }
-            tdt.append(cellText);
-            if (copyHTML) html.append("<td>").append(XMLUtils.escapeXml(cellText)).append("</td> ");
-
-            if (settings.isCut()) {
-                IValueController valueController = new SpreadsheetValueController(
-                    controller, column, row, IValueController.EditType.NONE, null);
-                if (!valueController.isReadOnly()) {
-                    valueController.updateValue(BaseValueManager.makeNullValue(valueController), false);
-                }
-            }
-
-            prevCell = cell;
-        }
-        if (copyHTML) {
-            html.append("</tbody>").append(rowDelimiter);
-            html.append("</table>").append(rowDelimiter);
+        StringWriter tdt = new StringWriter();
+        StringWriter html = settings.isCopyHTML() ? new StringWriter() : null;
+        SelectionTextWriter selectionWriter = new SelectionTextWriter(settings, true);
+        try {
+            selectionWriter.write(new VoidProgressMonitor(), tdt, html, settings.isCut());
+        } catch (IOException e) {
+            // Never happens with string writers
+            log.error(e);
         }
         if (settings.isCut()) {
             controller.redrawData(false, false);
             controller.updatePanelsContent(false);
         }
 
+        Map<Transfer, Object> formats = new LinkedHashMap<>();
         formats.put(TextTransfer.getInstance(), tdt.toString());
-        if (copyHTML) {
+        if (html != null) {
             formats.put(HTMLTransfer.getInstance(), html.toString());
         }
-        if (binaryData != null) {
-            formats.put(SimpleByteArrayTransfer.getInstance(), binaryData);
+        if (selectionWriter.binaryData != null) {
+            formats.put(SimpleByteArrayTransfer.getInstance(), selectionWriter.binaryData);
         }
 
         return formats;
     }
 
+    @Override
+    public void copySelection(@NotNull DBRProgressMonitor monitor, @NotNull ResultSetCopySettings settings, @NotNull Writer writer)
+        throws IOException
+    {
+        // Selection and columns are taken in UI thread, cell values are formatted in the caller thread
+        SelectionTextWriter selectionWriter = UIUtils.syncExec(new RunnableWithResult<SelectionTextWriter>() {
+            @Override
+            public SelectionTextWriter runWithResult() {
+                return spreadsheet.isDisposed() ? null : new SelectionTextWriter(settings, false);
+            }
+        });
+        if (selectionWriter != null) {
+            selectionWriter.write(monitor, writer, null, false);
+        }
+    }
+
     @Override
     public void pasteFromClipboard(@Nullable ResultSetPasteSettings settings)
     {
@@ -1593,6 +1503,190 @@ public class SpreadsheetPresentation extends AbstractPresentation implements IRe
         return backgroundOdd;
     }
 
+    @NotNull
+    private static String getHeaderText(@NotNull Object element, boolean recordMode) {
+        if (element instanceof DBDAttributeBinding) {
+            DBDAttributeBinding attributeBinding = (DBDAttributeBinding) element;
+            if (CommonUtils.isEmpty(attributeBinding.getLabel())) {
+                return CommonUtils.notEmpty(attributeBinding.getName());
+            } else {
+                return attributeBinding.getLabel();
+            }
+        } else {
+            String rowNumber = String.valueOf(((ResultSetRow) element).getVisualNumber() + 1);
+            if (!recordMode) {
+                return rowNumber;
+            } else {
+                return ResultSetMessages.controls_resultset_viewer_status_row + " #" + rowNumber;
+            }
+        }
+    }
+
+    /**
+     * Writes selected cells as delimited text (and optionally as HTML table).
+     * Cells are taken from the selection one by one, so the whole selection is never materialized.
+     * Writer is created in UI thread. It keeps a snapshot of the selection, grid elements and model attributes,
+     * so it may write in another thread. Writing stops if result set is refreshed meanwhile, because refresh
+     * releases row values.
+     */
+    private class SelectionTextWriter {
+        private final ResultSetCopySettings settings;
+        private final boolean collectBinary;
+        private final GridSelectionSnapshot snapshot;
+        private final List<Object> selectedColumns;
+        private final Map<Object, Integer> columnIndexes = new HashMap<>();
+        private final DBDAttributeBinding[] attributes;
+        private final boolean recordMode;
+        private final String columnDelimiter;
+        private final String rowDelimiter;
+        private final String quoteString;
+        private byte[] binaryData;
+
+        SelectionTextWriter(@NotNull ResultSetCopySettings settings, boolean collectBinary) {
+            this.settings = settings;
+            this.collectBinary = collectBinary;
+            this.snapshot = spreadsheet.getSelectionSnapshot();
+            this.selectedColumns = spreadsheet.getColumnSelection();
+            for (int i = 0; i < selectedColumns.size(); i++) {
+                columnIndexes.putIfAbsent(selectedColumns.get(i), i);
+            }
+            this.attributes = controller.getModel().getAttributes();
+            this.recordMode = controller.isRecordMode();
+            this.columnDelimiter = settings.getColumnDelimiter() == null ? "\t" : settings.getColumnDelimiter();
+            this.rowDelimiter = settings.getRowDelimiter() == null ? GeneralUtils.getDefaultLineSeparator() : settings.getRowDelimiter();
+            this.quoteString = CommonUtils.isEmpty(settings.getQuoteString()) ? "\"" : settings.getQuoteString();
+        }
+
+        void write(@NotNull DBRProgressMonitor monitor, @NotNull Writer tdt, @Nullable Writer html, boolean cut) throws IOException {
+            GridSelection cells = snapshot.getCells();
+            monitor.beginTask("Copy selected cells", cells.getRowCount());
+            if (html != null) html.write("<table border=\"1\">");
+            if (settings.isCopyHeader()) {
+                if (html != null) html.write("<thead>");
+                boolean firstColumn = true;
+                if (settings.isCopyRowNumbers()) {
+                    tdt.write("#");
+                    firstColumn = false;
+                    if (html != null) html.write("<th>#</th>");
+                }
+                for (Object column : selectedColumns) {
+                    if (!firstColumn) {
+                        tdt.write(columnDelimiter);
+                    }
+                    firstColumn = false;
+                    String columnText = getHeaderText(column, recordMode);
+                    tdt.write(columnText);
+                    if (html != null) html.append("<th>").append(XMLUtils.escapeXml(columnText)).append("</th>");
+                }
+                tdt.write(rowDelimiter);
+                if (html != null) html.append("</thead>").append(rowDelimiter);
+            }
+
+            if (html != null) html.write("<tbody>");
+
+            boolean quoteCells = settings.isQuoteCells() && cells.size() > 1;
+            boolean forceQuotes = settings.isForceQuotes();
+
+            GridCell prevCell = null;
+            int rowCount = 0;
+            for (GridPos pos : cells) {
+                GridCell cell = snapshot.posToCell(pos);
+                if (cell == null) {
+                    continue;
+                }
+                if (prevCell == null || cell.row != prevCell.row) {
+                    // Next row
+                    if (controller.isRefreshInProgress()) {
+                        throw new IOException("Result set was refreshed while copying selected cells");
+                    }
+                    if (prevCell != null) {
+                        rowCount++;
+                        if (rowCount % COPY_PROGRESS_ROWS == 0) {
+                            monitor.worked(COPY_PROGRESS_ROWS);
+                            if (monitor.isCanceled()) {
+                                break;
+                            }
+                        }
+                    }
+                    if (prevCell != null && prevCell.col != cell.col) {
+                        // Fill empty row tail
+                        int prevColIndex = getColumnIndex(prevCell.col);
+                        for (int i = prevColIndex; i < selectedColumns.size() - 1; i++) {
+                            tdt.write(columnDelimiter);
+                            if (html != null) html.write("<td></td>");
+                        }
+                    }
+                    if (prevCell != null) {
+                        tdt.write(rowDelimiter);
+                        if (html != null) html.append("</tr>").append(rowDelimiter);
+                    }
+                    if (settings.isCopyRowNumbers()) {
+                        String rowNumber = getHeaderText(cell.row, recordMode);
+                        tdt.append(rowNumber).append(columnDelimiter);
+                        if (html != null) html.append("<td>").append(rowNumber).append("</td>");
+                    }
+                    if (html != null) html.write("<tr>");
+                }
+                if (prevCell != null && prevCell.col != cell.col) {
+                    int prevColIndex = getColumnIndex(prevCell.col);
+                    int curColIndex = getColumnIndex(cell.col);
+                    for (int i = prevColIndex; i < curColIndex; i++) {
+                        tdt.write(columnDelimiter);
+                        if (i != prevColIndex) {
+                            if (html != null) html.write("<td></td>");
+                        }
+                    }
+                }
+
+                DBDAttributeBinding column = (DBDAttributeBinding)(!recordMode ?  cell.col : cell.row);
+                ResultSetRow row = (ResultSetRow) (!recordMode ?  cell.row : cell.col);
+                Object value = DBUtils.getAttributeValue(column, attributes, row::getValue, row.getValueCount());
+                if (collectBinary && binaryData == null && (column.getDataKind() == DBPDataKind.BINARY || column.getDataKind() == DBPDataKind.CONTENT)) {
+                    if (value instanceof byte[]) {
+                        binaryData = (byte[]) value;
+                    } else if (value instanceof DBDContent && !ContentUtils.isTextContent((DBDContent) value) && value instanceof DBDContentCached) {
+                        try {
+                            binaryData = ContentUtils.getContentBinaryValue(new VoidProgressMonitor(), (DBDContent) value);
+                        } catch (DBCException e) {
+                            log.debug("Error reading content binary value");
+                        }
+                    }
+                }
+                String cellText = column.getValueRenderer().getValueDisplayString(
+                    column.getAttribute(),
+                    value,
+                    settings.getFormat());
+                if (forceQuotes || (quoteCells && !CommonUtils.isEmpty(cellText))) {
+                    if (forceQuotes || cellText.contains(columnDelimiter) || cellText.contains(rowDelimiter)) {
+                        cellText = quoteString + cellText + quoteString;
+                    }
+                }
+                tdt.write(cellText);
+                if (html != null) html.append("<td>").append(XMLUtils.escapeXml(cellText)).append("</td> ");
+
+                if (cut) {
+                    IValueController valueController = new SpreadsheetValueController(
+                        controller, column, row, IValueController.EditType.NONE, null);
+                    if (!valueController.isReadOnly()) {
+                        valueController.updateValue(BaseValueManager.makeNullValue(valueController), false);
+                    }
+                }
+
+                prevCell = cell;
+            }
+            if (html != null) {
+                html.append("</tbody>").append(rowDelimiter);
+                html.append("</table>").append(rowDelimiter);
+            }
+            monitor.done();
+        }
+
+        private int getColumnIndex(Object column) {
+            Integer index = columnIndexes.get(column);
+            return index == null ? -1 : index;
+        }
+    }
+
     private class SpreadsheetSelectionImpl implements IResultSetSelection, IResultSetSelectionExt {
 
         @Nullable
@@ -1719,6 +1813,136 @@ public class SpreadsheetPresentation extends AbstractPresentation implements IRe
         public int getSelectedCellCount() {
             return spreadsheet.getCellSelectionSize();
         }
+
+        @NotNull
+        @Override
+        public IResultSetSelection getSnapshot() {
+            boolean recordMode = controller.isRecordMode();
+            return new SpreadsheetSelectionSnapshot(
+                spreadsheet.getSelectionSnapshot(),
+                recordMode,
+                recordMode ? controller.getCurrentRow() : null);
+        }
+    }
+
+    /**
+     * Selection copy. Cells are resolved with the grid elements captured at creation time.
+     */
+    private class SpreadsheetSelectionSnapshot implements IResultSetSelection {
+        private final GridSelectionSnapshot cells;
+        private final boolean recordMode;
+        @Nullable
+        private final ResultSetRow currentRow;
+
+        SpreadsheetSelectionSnapshot(@NotNull GridSelectionSnapshot cells, boolean recordMode, @Nullable ResultSetRow currentRow) {
+            this.cells = cells;
+            this.recordMode = recordMode;
+            this.currentRow = currentRow;
+        }
+
+        @Nullable
+        @Override
+        public GridPos getFirstElement() {
+            Iterator<GridPos> iterator = cells.iterator();
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @NotNull
+        @Override
+        public Iterator<GridPos> iterator() {
+            return cells.iterator();
+        }
+
+        @Override
+        public int size() {
+            return cells.size();
+        }
+
+        @Override
+        public Object[] toArray() {
+            return cells.getCells().toArray();
+        }
+
+        @Override
+        public List<GridPos> toList() {
+            return new ArrayList<>(cells.getCells());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return cells.isEmpty();
+        }
+
+        @NotNull
+        @Override
+        public IResultSetController getController() {
+            return controller;
+        }
+
+        @NotNull
+        @Override
+        public List<DBDAttributeBinding> getSelectedAttributes() {
+            List<DBDAttributeBinding> attrs = new ArrayList<>();
+            if (recordMode) {
+                for (Integer row : cells.getCells().getRows()) {
+                    Object element = cells.getRowElement(row);
+                    if (element instanceof DBDAttributeBinding) {
+                        attrs.add((DBDAttributeBinding) element);
+                    }
+                }
+            } else {
+                BitSet columns = cells.getCells().getColumns();
+                for (int col = columns.nextSetBit(0); col >= 0; col = columns.nextSetBit(col + 1)) {
+                    Object element = cells.getColumnElement(col);
+                    if (element instanceof DBDAttributeBinding) {
+                        attrs.add((DBDAttributeBinding) element);
+                    }
+                }
+            }
+            return attrs;
+        }
+
+        @NotNull
+        @Override
+        public List<ResultSetRow> getSelectedRows() {
+            List<ResultSetRow> rows = new ArrayList<>();
+            if (recordMode) {
+                BitSet columns = cells.getCells().getColumns();
+                for (int col = columns.nextSetBit(0); col >= 0; col = columns.nextSetBit(col + 1)) {
+                    Object element = cells.getColumnElement(col);
+                    if (element instanceof ResultSetRow) {
+                        rows.add((ResultSetRow) element);
+                    }
+                }
+            } else {
+                for (Integer row : cells.getCells().getRows()) {
+                    Object element = cells.getRowElement(row);
+                    if (element instanceof ResultSetRow) {
+                        rows.add((ResultSetRow) element);
+                    }
+                }
+            }
+            rows.sort(Comparator.comparingInt(ResultSetRow::getVisualNumber));
+            return rows;
+        }
+
+        @Override
+        public DBDAttributeBinding getElementAttribute(Object element) {
+            GridCell cell = cells.posToCell((GridPos) element);
+            if (cell == null) {
+                return null;
+            }
+            return (DBDAttributeBinding) (recordMode ? cell.row : cell.col);
+        }
+
+        @Override
+        public ResultSetRow getElementRow(Object element) {
+            if (recordMode) {
+                return currentRow;
+            }
+            GridCell cell = cells.posToCell((GridPos) element);
+            return cell == null ? null : (ResultSetRow) cell.row;
+        }
     }
 
     private class ContentProvider implements IGridContentProvider {
@@ -2351,21 +2575,7 @@ public class SpreadsheetPresentation extends AbstractPresentation implements IRe
         @Override
         public String getText(Object element)
         {
-            if (element instanceof DBDAttributeBinding) {
-                DBDAttributeBinding attributeBinding = (DBDAttributeBinding) element;
-                if (CommonUtils.isEmpty(attributeBinding.getLabel())) {
-                    return CommonUtils.notEmpty(attributeBinding.getName());
-                } else {
-                    return attributeBinding.getLabel();
-                }
-            } else {
-                String rowNumber = String.valueOf(((ResultSetRow) element).getVisualNumber() + 1);
-                if (!controller.isRecordMode()) {
-                    return rowNumber;
-                } else {
-                    return ResultSetMessages.controls_resultset_viewer_status_row + " #" + rowNumber;
-                }
-            }
+            return getHeaderText(element, controller.isRecordMode());
         }
 
         @Nullable
@@ -521,6 +521,11 @@ public abstract class SQLEditorBase extends BaseTextEditor implements DBPContext
             viewerConfiguration.saveFoldingState();
         }
 
+        if (parserContext != null) {
+            parserContext.dispose();
+            parserContext = null;
+        }
+
         super.dispose();
     }
 
@@ -619,7 +624,11 @@ public abstract class SQLEditorBase extends BaseTextEditor implements DBPContext
         SQLRuleManager ruleManager = new SQLRuleManager(syntaxManager);
         ruleManager.loadRules(getDataSource(), SQLEditorBase.isBigScript(getEditorInput()));
         ruleScanner.refreshRules(getDataSource(), ruleManager);
+        if (parserContext != null) {
+            parserContext.dispose();
+        }
         parserContext = new SQLParserContext(getDataSource(), syntaxManager, ruleManager, document != null ? document : new Document());
+        parserContext.enableScriptIndex();
 
         if (document instanceof IDocumentExtension3) {
             IDocumentPartitioner partitioner = new FastPartitioner(
@@ -44,6 +44,7 @@ import org.jkiss.dbeaver.model.preferences.DBPPreferenceStore;
 import org.jkiss.dbeaver.model.qm.QMUtils;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
 import org.jkiss.dbeaver.model.sql.*;
+import org.jkiss.dbeaver.model.sql.exec.SQLScriptDependencyGraph;
 import org.jkiss.dbeaver.model.sql.parser.SQLSemanticProcessor;
 import org.jkiss.dbeaver.model.struct.DBSDataContainer;
 import org.jkiss.dbeaver.runtime.DBWorkbench;
@@ -91,6 +92,8 @@ public class SQLQueryJob extends DataSourceJob
     private SQLScriptCommitType commitType;
     private SQLScriptErrorHandling errorHandling;
     private boolean fetchResultSets;
+    private boolean parallelExecution;
+    private int parallelDegree;
     private long rsOffset;
     private long rsMaxRows;
 
@@ -132,6 +135,8 @@ public class SQLQueryJob extends DataSourceJob
             this.commitType = SQLScriptCommitType.valueOf(preferenceStore.getString(SQLPreferenceConstants.SCRIPT_COMMIT_TYPE));
             this.errorHandling = SQLScriptErrorHandling.valueOf(preferenceStore.getString(SQLPreferenceConstants.SCRIPT_ERROR_HANDLING));
             this.fetchResultSets = queries.size() == 1 || preferenceStore.getBoolean(SQLPreferenceConstants.SCRIPT_FETCH_RESULT_SETS);
+            this.parallelExecution = queries.size() > 1 && preferenceStore.getBoolean(SQLPreferenceConstants.SCRIPT_PARALLEL_EXECUTION);
+            this.parallelDegree = preferenceStore.getInt(SQLPreferenceConstants.SCRIPT_PARALLEL_DEGREE);
             this.rsMaxRows = preferenceStore.getInt(ModelPreferences.RESULT_SET_MAX_ROWS);
         }
     }
@@ -212,7 +217,18 @@ public class SQLQueryJob extends DataSourceJob
                 }
 
                 resultSetNumber = 0;
-                for (int queryNum = 0; queryNum < queries.size(); ) {
+                SQLScriptDependencyGraph dependencyGraph = getParallelExecutionGraph(txnManager);
+                if (dependencyGraph != null) {
+                    SQLQueryParallelExecutor parallelExecutor = new SQLQueryParallelExecutor(
+                        context, dependencyGraph, dataContainer, partSite, scriptContext, listener, statistics,
+                        parallelDegree, getDataSourceContainer().getPreferenceStore().getInt(SQLPreferenceConstants.STATEMENT_TIMEOUT),
+                        errorHandling);
+                    parallelExecutor.execute(session);
+                    lastError = parallelExecutor.getLastError();
+                    lastGoodQuery = parallelExecutor.getLastGoodQuery();
+                    errorHandling = parallelExecutor.getErrorHandling();
+                }
+                for (int queryNum = dependencyGraph == null ? 0 : queries.size(); queryNum < queries.size(); ) {
                     // Execute query
                     SQLScriptElement query = queries.get(queryNum);
 
@@ -318,6 +334,29 @@ public class SQLQueryJob extends DataSourceJob
         }
     }
 
+    /**
+     * Parallel execution is possible only in auto-commit mode: statements run in separate connections
+     * and each statement must see changes made by the statements it depends on.
+     * Scripts which change session state or use temporary tables need a single connection.
+     */
+    @Nullable
+    private SQLScriptDependencyGraph getParallelExecutionGraph(@Nullable DBCTransactionManager txnManager) throws DBCException {
+        if (!parallelExecution || parallelDegree < 2) {
+            return null;
+        }
+        if ((txnManager != null && !txnManager.isAutoCommit()) ||
+            (dataFilter != null && dataFilter.hasFilters()) ||
+            getDataSourceContainer().getConnectionConfiguration().getConnectionType().isConfirmExecute())
+        {
+            return null;
+        }
+        SQLScriptDependencyGraph graph = new SQLScriptDependencyGraph(queries);
+        if (!graph.hasIndependentStatements() || graph.hasSessionStatements()) {
+            return null;
+        }
+        return graph;
+    }
+
     private boolean executeSingleQuery(@NotNull DBCSession session, @NotNull SQLScriptElement element, final boolean fireEvents)
     {
         if (element instanceof SQLControlCommand) {
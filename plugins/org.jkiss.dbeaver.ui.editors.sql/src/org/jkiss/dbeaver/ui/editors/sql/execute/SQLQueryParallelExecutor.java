@@ -0,0 +1,438 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.editors.sql.execute;
+
+import org.eclipse.ui.IWorkbenchPartSite;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.impl.AbstractExecutionSource;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
+import org.jkiss.dbeaver.model.sql.*;
+import org.jkiss.dbeaver.model.sql.exec.SQLScriptDependencyGraph;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.dbeaver.runtime.ui.DBPPlatformUI;
+import org.jkiss.dbeaver.ui.dialogs.exec.ExecutionQueueErrorJob;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Executes script statements which don't depend on each other at the same time.
+ * <p>
+ * Each statement runs in one of the isolated execution contexts in auto-commit mode,
+ * so statements see changes of the statements they depend on. Result sets are not fetched.
+ * Control commands and parameters binding are processed in the job thread.
+ * Results are reported to the query listener in the script order.
+ */
+class SQLQueryParallelExecutor {
+
+    private static final Log log = Log.getLog(SQLQueryParallelExecutor.class);
+
+    private static final long POLL_PERIOD = 100;
+
+    private final DBCExecutionContext executionContext;
+    private final SQLScriptDependencyGraph graph;
+    private final DBSDataContainer dataContainer;
+    private final IWorkbenchPartSite partSite;
+    private final SQLScriptContext scriptContext;
+    private final SQLQueryListener listener;
+    private final DBCStatistics statistics;
+    private final int degree;
+    private final int statementTimeout;
+    private SQLScriptErrorHandling errorHandling;
+
+    private final SQLQueryResult[] results;
+    private final boolean[] started;
+    private final boolean[] finished;
+    private final boolean[] reported;
+    private int nextToReport;
+
+    private final BlockingQueue<DBCExecutionContext> freeContexts = new LinkedBlockingQueue<>();
+    private final List<DBCExecutionContext> openedContexts = Collections.synchronizedList(new ArrayList<>());
+    private final Map<Integer, DBCStatement> runningStatements = new ConcurrentHashMap<>();
+
+    private Throwable lastError;
+    private SQLQuery lastGoodQuery;
+
+    SQLQueryParallelExecutor(
+        @NotNull DBCExecutionContext executionContext,
+        @NotNull SQLScriptDependencyGraph graph,
+        @Nullable DBSDataContainer dataContainer,
+        @NotNull IWorkbenchPartSite partSite,
+        @NotNull SQLScriptContext scriptContext,
+        @Nullable SQLQueryListener listener,
+        @NotNull DBCStatistics statistics,
+        int degree,
+        int statementTimeout,
+        @NotNull SQLScriptErrorHandling errorHandling)
+    {
+        this.executionContext = executionContext;
+        this.graph = graph;
+        this.dataContainer = dataContainer;
+        this.partSite = partSite;
+        this.scriptContext = scriptContext;
+        this.listener = listener;
+        this.statistics = statistics;
+        this.degree = degree;
+        this.statementTimeout = statementTimeout;
+        this.errorHandling = errorHandling;
+
+        int size = graph.getSize();
+        this.results = new SQLQueryResult[size];
+        this.started = new boolean[size];
+        this.finished = new boolean[size];
+        this.reported = new boolean[size];
+    }
+
+    @Nullable
+    public Throwable getLastError() {
+        return lastError;
+    }
+
+    @Nullable
+    public SQLQuery getLastGoodQuery() {
+        return lastGoodQuery;
+    }
+
+    @NotNull
+    public SQLScriptErrorHandling getErrorHandling() {
+        return errorHandling;
+    }
+
+    /**
+     * Executes all statements.
+     * @param session job session. It is used for control commands and to report results.
+     */
+    public void execute(@NotNull DBCSession session) {
+        DBRProgressMonitor monitor = session.getProgressMonitor();
+        ExecutorService workers = Executors.newFixedThreadPool(degree, runnable -> {
+            Thread thread = new Thread(runnable, "SQL script parallel execution");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(workers);
+        try {
+            int running = 0;
+            int failedStatement = -1;
+            boolean stopped = false;
+            while (true) {
+                if (!stopped && failedStatement < 0 && !monitor.isCanceled()) {
+                    for (int i = nextToReport; i < graph.getSize() && running < degree; i++) {
+                        if (started[i] || !isReadyToStart(i)) {
+                            continue;
+                        }
+                        started[i] = true;
+                        SQLScriptElement element = graph.getElement(i);
+                        if (element instanceof SQLControlCommand) {
+                            // Control command is a barrier, nothing else is running now
+                            Throwable[] commandError = new Throwable[1];
+                            finished[i] = executeControlCommand((SQLControlCommand) element, commandError);
+                            if (!finished[i]) {
+                                if (commandError[0] == null) {
+                                    // Execution cancel
+                                    stopped = true;
+                                    break;
+                                }
+                                lastError = commandError[0];
+                                DBPPlatformUI.UserResponse response = askUser(commandError[0]);
+                                if (response == DBPPlatformUI.UserResponse.STOP) {
+                                    stopped = true;
+                                    break;
+                                } else if (response == DBPPlatformUI.UserResponse.RETRY) {
+                                    started[i] = false;
+                                    i--;
+                                    continue;
+                                }
+                                finished[i] = true;
+                            }
+                            reportResults(session, false);
+                            // Statements after the command may be ready now
+                            i = nextToReport - 1;
+                            continue;
+                        }
+                        if (!scriptContext.fillQueryParameters((SQLQuery) element, false)) {
+                            // User canceled
+                            started[i] = false;
+                            stopped = true;
+                            break;
+                        }
+                        final int index = i;
+                        completionService.submit(() -> {
+                            executeStatement(monitor, index);
+                            return index;
+                        });
+                        running++;
+                    }
+                }
+                if (running == 0) {
+                    if (failedStatement >= 0) {
+                        // All running statements are finished. Ask user what to do with the failed one.
+                        if (!handleError(failedStatement)) {
+                            break;
+                        }
+                        failedStatement = -1;
+                        continue;
+                    }
+                    break;
+                }
+                Future<Integer> future = completionService.poll(POLL_PERIOD, TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    if (monitor.isCanceled()) {
+                        cancelRunningStatements(monitor);
+                    }
+                    continue;
+                }
+                int index = future.get();
+                running--;
+                finished[index] = true;
+                SQLQueryResult result = results[index];
+                if (result.getError() != null) {
+                    lastError = result.getError();
+                    if (errorHandling != SQLScriptErrorHandling.IGNORE && failedStatement < 0) {
+                        failedStatement = index;
+                    }
+                }
+                reportResults(session, false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Error in parallel script execution", e.getCause());
+            lastError = e.getCause();
+        } finally {
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.debug("Parallel script statements are still running");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Report results of the statements finished after an unresolved error
+            reportResults(session, true);
+            for (DBCExecutionContext context : openedContexts) {
+                context.close();
+            }
+        }
+    }
+
+    private boolean isReadyToStart(int index) {
+        for (int dependency : graph.getDependencies(index)) {
+            if (!finished[dependency]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asks user what to do with the failed statement
+     * @return false if script execution must be stopped
+     */
+    private boolean handleError(int index) {
+        switch (askUser(results[index].getError())) {
+            case STOP:
+                return false;
+            case RETRY:
+                started[index] = false;
+                finished[index] = false;
+                reported[index] = false;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    @NotNull
+    private DBPPlatformUI.UserResponse askUser(@NotNull Throwable error) {
+        log.error(error);
+        DBPPlatformUI.UserResponse response = ExecutionQueueErrorJob.showError("SQL script execution", error, true);
+        if (response == DBPPlatformUI.UserResponse.IGNORE_ALL) {
+            errorHandling = SQLScriptErrorHandling.IGNORE;
+        }
+        return response;
+    }
+
+    private boolean executeControlCommand(@NotNull SQLControlCommand command, @NotNull Throwable[] error) {
+        try {
+            return scriptContext.executeControlCommand(command);
+        } catch (Throwable e) {
+            if (!(e instanceof DBException)) {
+                log.error("Unexpected error while processing SQL command", e);
+            }
+            error[0] = e;
+            return false;
+        } finally {
+            synchronized (statistics) {
+                statistics.addStatementsCount();
+                statistics.addMessage("Command " + command.getCommand() + " processed");
+            }
+        }
+    }
+
+    /**
+     * Notifies listener about finished statements in the script order.
+     * @param all report all finished statements, even if some previous statements were not executed
+     */
+    private void reportResults(@NotNull DBCSession session, boolean all) {
+        for (int i = nextToReport; i < graph.getSize(); i++) {
+            if (!finished[i]) {
+                if (!all) {
+                    break;
+                }
+                continue;
+            }
+            if (!reported[i] && results[i] != null) {
+                reported[i] = true;
+                reportResult(session, results[i]);
+            }
+            if (i == nextToReport) {
+                nextToReport++;
+            }
+        }
+        for (int i = 0; i < nextToReport; i++) {
+            // Retried statements
+            if (finished[i] && results[i] != null && !reported[i]) {
+                reported[i] = true;
+                reportResult(session, results[i]);
+            }
+        }
+    }
+
+    private void reportResult(@NotNull DBCSession session, @NotNull SQLQueryResult result) {
+        if (result.getError() == null) {
+            lastGoodQuery = result.getStatement();
+        }
+        session.getProgressMonitor().worked(1);
+        if (listener != null) {
+            try {
+                listener.onStartQuery(session, result.getStatement());
+                listener.onEndQuery(session, result, statistics);
+            } catch (Exception e) {
+                log.error(e);
+            }
+        }
+    }
+
+    private void cancelRunningStatements(@NotNull DBRProgressMonitor monitor) {
+        for (DBCStatement statement : runningStatements.values()) {
+            try {
+                statement.cancelBlock(monitor, null);
+            } catch (DBException e) {
+                log.debug("Can't cancel statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Opens isolated context in auto-commit mode.
+     * Isolated context takes the default commit mode of the connection which may differ from the editor mode.
+     */
+    @NotNull
+    private DBCExecutionContext openContext(@NotNull DBRProgressMonitor monitor) throws DBException {
+        DBCExecutionContext context = executionContext.getOwnerInstance().openIsolatedContext(monitor, "SQL script parallel execution", executionContext);
+        openedContexts.add(context);
+        DBCTransactionManager txnManager = DBUtils.getTransactionManager(context);
+        if (txnManager != null && txnManager.isSupportsTransactions() && !txnManager.isAutoCommit()) {
+            txnManager.setAutoCommit(monitor, true);
+            if (!txnManager.isAutoCommit()) {
+                throw new DBCException("Can't switch parallel execution context to auto-commit mode");
+            }
+        }
+        return context;
+    }
+
+    // Runs in worker thread
+    private void executeStatement(@NotNull DBRProgressMonitor jobMonitor, int index) {
+        SQLQuery originalQuery = (SQLQuery) graph.getElement(index);
+        SQLQuery sqlQuery = new SQLQuery(executionContext.getDataSource(), originalQuery.getText(), originalQuery);
+        SQLQueryResult result = new SQLQueryResult(sqlQuery);
+        results[index] = result;
+
+        // Worker monitor doesn't share blocks with the job monitor. Running statements are canceled by the job thread.
+        DBRProgressMonitor monitor = new VoidProgressMonitor() {
+            @Override
+            public boolean isCanceled() {
+                return jobMonitor.isCanceled();
+            }
+        };
+        long startTime = System.currentTimeMillis();
+        DBCExecutionContext context = null;
+        try {
+            context = freeContexts.poll();
+            if (context == null) {
+                context = openContext(monitor);
+            }
+            try (DBCSession session = context.openSession(monitor, DBCExecutionPurpose.USER_SCRIPT, "SQL Query")) {
+                AbstractExecutionSource source = new AbstractExecutionSource(dataContainer, context, partSite.getPart(), sqlQuery);
+                source.setScriptContext(scriptContext);
+                DBCStatement dbcStatement = DBUtils.makeStatement(source, session, DBCStatementType.SCRIPT, sqlQuery, 0, 0);
+                if (statementTimeout > 0) {
+                    try {
+                        dbcStatement.setStatementTimeout(statementTimeout);
+                    } catch (Throwable e) {
+                        log.debug("Can't set statement timeout:" + e.getMessage());
+                    }
+                }
+                runningStatements.put(index, dbcStatement);
+                try {
+                    boolean hasResultSet = dbcStatement.executeStatement();
+                    result.setHasResultSet(hasResultSet);
+                    long updateCount = 0;
+                    if (!hasResultSet) {
+                        updateCount = dbcStatement.getUpdateRowCount();
+                        SQLQueryResult.ExecuteResult executeResult = result.addExecuteResult(false);
+                        if (updateCount >= 0) {
+                            executeResult.setUpdateCount(updateCount);
+                        }
+                    }
+                    synchronized (statistics) {
+                        statistics.addExecuteTime(System.currentTimeMillis() - startTime);
+                        statistics.addStatementsCount();
+                        if (updateCount > 0) {
+                            statistics.addRowsUpdated(updateCount);
+                        }
+                    }
+                } finally {
+                    runningStatements.remove(index);
+                    try {
+                        result.addWarnings(dbcStatement.getStatementWarnings());
+                    } catch (Throwable e) {
+                        log.warn("Can't read execution warnings", e);
+                    }
+                    dbcStatement.close();
+                }
+            }
+        } catch (Throwable e) {
+            if (!(e instanceof DBException)) {
+                log.error("Unexpected error while processing SQL", e);
+            }
+            result.setError(e);
+        } finally {
+            if (context != null) {
+                freeContexts.add(context);
+            }
+            result.setQueryTime(System.currentTimeMillis() - startTime);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.parser.common.test;
+
+import static org.jkiss.dbeaver.parser.common.grammar.ExpressionFactory.*;
+
+import org.jkiss.dbeaver.parser.common.*;
+import org.jkiss.dbeaver.parser.common.grammar.*;
+
+/**
+ * Parser throughput benchmark over SQL-like statements of several kilobytes.
+ * Run it as a java application: ParserBenchmark [iterations]
+ */
+public class ParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+
+    public static GrammarInfo buildSqlGrammar() {
+        GrammarInfoBuilder gb = new GrammarInfoBuilder("sql");
+        gb.setCaseSensitiveTerms(false);
+
+        gb.setUseSkipRule(false);
+        gb.setRule("sp", regex("[\\s]*"));
+        gb.setSkipRuleName("sp");
+        gb.setUseSkipRule(true);
+
+        gb.setStartRuleName("stmt");
+        gb.setRule("stmt", seq(
+            "select", optional("distinct"), call("selectList"),
+            "from", call("tableList"),
+            optional("where", call("cond")),
+            optional("group", "by", call("exprList")),
+            optional("order", "by", call("orderList"))
+        ));
+        gb.setRule("selectList", seq(call("selectItem"), any(",", call("selectItem"))));
+        // Alias without AS keyword makes statements locally ambiguous
+        gb.setRule("selectItem", alt("*", seq(call("expr"), optional(optional("as"), call("name")))));
+        gb.setRule("tableList", seq(call("tableRef"), any(",", call("tableRef"))));
+        gb.setRule("tableRef", seq(call("qualifiedName"), optional(optional("as"), call("name"))));
+        gb.setRule("orderList", seq(call("orderItem"), any(",", call("orderItem"))));
+        gb.setRule("orderItem", seq(call("expr"), optional(alt("asc", "desc"))));
+        gb.setRule("exprList", seq(call("expr"), any(",", call("expr"))));
+        gb.setRule("cond", seq(call("predicate"), any(alt("and", "or"), call("predicate"))));
+        gb.setRule("predicate", alt(
+            seq(optional("not"), "(", call("cond"), ")"),
+            seq(call("expr"), call("cmp"), call("expr")),
+            seq(call("expr"), "is", optional("not"), "null"),
+            seq(call("expr"), optional("not"), "in", "(", call("exprList"), ")"),
+            seq(call("expr"), optional("not"), "like", call("string"))
+        ));
+        gb.setRule("cmp", alt("=", "<>", "<=", ">=", "<", ">"));
+        gb.setRule("expr", seq(call("term"), any(call("binop"), call("term"))));
+        gb.setRule("binop", alt("+", "-", "*", "/", "||"));
+        gb.setRule("term", alt(
+            seq("(", call("expr"), ")"),
+            call("function"),
+            call("qualifiedName"),
+            call("number"),
+            call("string")
+        ));
+        gb.setRule("function", seq(call("name"), "(", optional(alt("*", call("exprList"))), ")"));
+        gb.setRule("qualifiedName", seq(call("name"), any(".", call("name"))));
+        gb.setRule("name", regex("[A-Za-z_][A-Za-z0-9_]*"));
+        gb.setRule("number", regex("[0-9]+(\\.[0-9]+)?"));
+        gb.setRule("string", regex("'([^']|'')*'"));
+        return gb.buildGrammarInfo();
+    }
+
+    public static String buildStatement(int columns, int predicates) {
+        StringBuilder sb = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns; i++) {
+            if (i > 0) {
+                sb.append(",\n    ");
+            }
+            switch (i % 4) {
+                case 0: sb.append("t.col").append(i); break;
+                case 1: sb.append("coalesce(t.col").append(i).append(", o.amount * 2) AS c").append(i); break;
+                case 2: sb.append("(o.price + ").append(i).append(") / 100.5 total").append(i); break;
+                default: sb.append("upper(c.name || '").append(i).append("')"); break;
+            }
+        }
+        sb.append("\nFROM public.orders o, public.customers c, test.items t\nWHERE ");
+        for (int i = 0; i < predicates; i++) {
+            if (i > 0) {
+                sb.append(i % 3 == 0 ? "\n  OR " : "\n  AND ");
+            }
+            switch (i % 4) {
+                case 0: sb.append("o.customer_id = c.id"); break;
+                case 1: sb.append("t.col").append(i).append(" NOT IN (1, 2, ").append(i).append(")"); break;
+                case 2: sb.append("c.name LIKE 'A%").append(i).append("'"); break;
+                default: sb.append("(o.status IS NOT NULL AND o.total >= ").append(i).append(")"); break;
+            }
+        }
+        sb.append("\nORDER BY o.total DESC, c.name");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        long buildStart = System.nanoTime();
+        ParserFactory factory = ParserFactory.getFactory(buildSqlGrammar());
+        System.out.println("Parser FSM built in " + (System.nanoTime() - buildStart) / 1000000 + "ms");
+
+        for (int size : new int[] { 10, 50, 200 }) {
+            String text = buildStatement(size, size / 2);
+            Parser parser = factory.createParser();
+            if (!parser.parse(text).isSuccess()) {
+                throw new IllegalStateException("Benchmark statement wasn't parsed:\n" + text);
+            }
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                parser.parse(text);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                parser.parse(text);
+            }
+            double avgTime = (System.nanoTime() - start) / 1000000.0 / iterations;
+            System.out.printf("%6d chars: %10.3f ms/parse%n", text.length(), avgTime);
+        }
+    }
+}
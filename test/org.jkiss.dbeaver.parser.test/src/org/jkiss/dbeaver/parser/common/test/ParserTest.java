@@ -271,4 +271,29 @@ public class ParserTest {
         Assert.assertTrue(p.parse("select x from y WHERE z > 1").isSuccess());
         Assert.assertFalse(p.parse("select x FROM y where z > 1").isSuccess());
     }
+
+    @Test(timeout = 10000)
+    public void parseAmbiguous() {
+        GrammarInfoBuilder gb = new GrammarInfoBuilder("list");
+
+        gb.setUseSkipRule(false);
+        gb.setRule("sp", regex("[\\s]*"));
+        gb.setSkipRuleName("sp");
+        gb.setUseSkipRule(true);
+
+        gb.setStartRuleName("list");
+        gb.setRule("list", oneOrMore(alt(call("a"), call("b"))));
+        gb.setRule("a", regex("x"));
+        gb.setRule("b", regex("x"));
+
+        Parser p = ParserFactory.getFactory(gb.buildGrammarInfo()).createParser();
+
+        // each item may be parsed by any of two rules
+        Assert.assertEquals(8, p.parse("x x x").getTrees(false).size());
+
+        // equivalent parser states are merged, so number of ways doesn't affect parsing time
+        String text = "x" + " x".repeat(500);
+        Assert.assertTrue(p.parse(text).isSuccess());
+        Assert.assertFalse(p.parse(text + " y").isSuccess());
+    }
 }
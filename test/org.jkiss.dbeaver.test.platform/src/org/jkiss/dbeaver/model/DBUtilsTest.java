@@ -29,6 +29,9 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 @RunWith(MockitoJUnitRunner.class)
 public class DBUtilsTest {
 
@@ -80,6 +83,25 @@ public class DBUtilsTest {
         Assert.assertThrows(DBException.class, () -> DBUtils.getTypeModifiers("()"));
     }
 
+    @Test
+    public void testCompareNumbers() {
+        // Differ only beyond double precision
+        Assert.assertEquals(1, DBUtils.compareNumbers(Long.MAX_VALUE, Long.MAX_VALUE - 1));
+        Assert.assertEquals(-1, DBUtils.compareNumbers(9007199254740992L, new BigDecimal("9007199254740993")));
+        Assert.assertEquals(1, DBUtils.compareNumbers(new BigInteger("9007199254740993"), 9007199254740992L));
+        Assert.assertEquals(0, DBUtils.compareNumbers(10, 10L));
+        Assert.assertEquals(0, DBUtils.compareNumbers(new BigDecimal("10.00"), 10));
+        // Floating point values are compared with decimals as literals
+        Assert.assertEquals(0, DBUtils.compareNumbers(0.1f, new BigDecimal("0.1")));
+        Assert.assertEquals(0, DBUtils.compareNumbers(0.1, new BigDecimal("0.1")));
+        Assert.assertEquals(-1, DBUtils.compareNumbers(0.1, new BigDecimal("0.10000000000000001")));
+        Assert.assertEquals(1, DBUtils.compareNumbers(Double.NaN, BigDecimal.ONE));
+        Assert.assertEquals(-1, DBUtils.compareNumbers(Double.NEGATIVE_INFINITY, Long.MIN_VALUE));
+
+        Assert.assertEquals(1, DBUtils.compareDataValues(Long.MAX_VALUE, Long.MAX_VALUE - 1));
+        Assert.assertEquals(-1, DBUtils.compareDataValues(1L, null));
+    }
+
     @Test
     public void testMainServices() {
 
@@ -0,0 +1,78 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.data.aggregate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class AggregateSketchTest {
+
+    @Test
+    public void testQuantiles() {
+        QuantileSketch sketch = new QuantileSketch();
+        int count = 1_000_000;
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            sketch.update(random.nextInt(count));
+        }
+        Assert.assertEquals(count, sketch.getCount());
+        Assert.assertEquals(count * 0.5, sketch.getQuantile(0.5), count * 0.02);
+        Assert.assertEquals(count * 0.9, sketch.getQuantile(0.9), count * 0.02);
+        Assert.assertEquals(count * 0.99, sketch.getQuantile(0.99), count * 0.02);
+    }
+
+    @Test
+    public void testDistinctCount() {
+        DistinctCountSketch sketch = new DistinctCountSketch();
+        for (int i = 0; i < 200_000; i++) {
+            sketch.update((long) (i % 100_000));
+            sketch.update("value" + (i % 50_000));
+        }
+        Assert.assertEquals(150_000, sketch.getEstimate(), 150_000 * 0.03);
+
+        DistinctCountSketch smallSketch = new DistinctCountSketch();
+        for (int i = 0; i < 1000; i++) {
+            smallSketch.update(i % 10);
+        }
+        Assert.assertEquals(10, smallSketch.getEstimate());
+    }
+
+    @Test
+    public void testMode() {
+        IAggregateFunction exact = new FunctionMode();
+        IAggregateFunction approx = new FunctionModeApprox();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            Object value = i % 10 == 0 ? "frequent" : "value" + random.nextInt(10_000);
+            exact.accumulate(value, true);
+            approx.accumulate(value, true);
+        }
+        Assert.assertEquals("frequent", exact.getResult(0));
+        Assert.assertEquals("frequent", approx.getResult(0));
+    }
+
+    @Test
+    public void testExactPercentile() {
+        IAggregateFunction median = new FunctionPercentile(0.5) {};
+        for (int i = 1; i <= 4; i++) {
+            median.accumulate(i, false);
+        }
+        Assert.assertEquals(2.5, (Double) median.getResult(4), 0);
+    }
+}
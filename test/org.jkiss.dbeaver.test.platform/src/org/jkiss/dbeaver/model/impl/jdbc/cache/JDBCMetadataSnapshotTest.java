@@ -0,0 +1,158 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.impl.jdbc.cache;
+
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCResultSet;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCSession;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JDBCMetadataSnapshotTest {
+
+    private static final String KEY = "TableCache|test|*";
+
+    @Mock
+    private JDBCSession session;
+    @Mock
+    private JDBCResultSet resultSet;
+
+    @Before
+    public void init() throws SQLException {
+        Mockito.when(resultSet.next()).thenReturn(true, true, false);
+        Mockito.when(resultSet.getString("TABLE_NAME")).thenReturn("T1", "T2");
+        Mockito.when(resultSet.getInt("ROW_COUNT")).thenReturn(10, 0);
+        Mockito.when(resultSet.wasNull()).thenReturn(false, false, true);
+        Mockito.when(resultSet.getTimestamp(3)).thenReturn(new Timestamp(1000), (Timestamp) null);
+        Mockito.when(resultSet.getString("REMARKS")).thenThrow(new SQLException("Column not found"));
+    }
+
+    @Test
+    public void savedValuesAreReplayed() throws Exception {
+        JDBCMetadataSnapshot snapshot = new JDBCMetadataSnapshot(null);
+        readTables(snapshot.recordResultSet(KEY, resultSet));
+
+        JDBCMetadataSnapshot loadedSnapshot = copySnapshot(snapshot);
+        JDBCResultSet replay = loadedSnapshot.openResultSet(session, KEY);
+        Assert.assertNotNull(replay);
+        Assert.assertEquals("T1:10:false:1000:null;T2:0:true:null:null;", readTables(replay));
+        Assert.assertTrue(JDBCMetadataSnapshot.isCompleted(replay));
+        Assert.assertSame(session, replay.getSession());
+
+        // Entry is used once per connection
+        Assert.assertNull(loadedSnapshot.openResultSet(session, KEY));
+    }
+
+    @Test
+    public void missingValueFailsReplay() throws Exception {
+        JDBCMetadataSnapshot snapshot = new JDBCMetadataSnapshot(null);
+        readTables(snapshot.recordResultSet(KEY, resultSet));
+
+        JDBCResultSet replay = copySnapshot(snapshot).openResultSet(session, KEY);
+        Assert.assertNotNull(replay);
+        Assert.assertTrue(replay.next());
+        try {
+            replay.getString("OWNER");
+            Assert.fail("Value is not in snapshot");
+        } catch (SQLException e) {
+            // expected
+        }
+        while (replay.next()) {
+            // skip
+        }
+        Assert.assertFalse(JDBCMetadataSnapshot.isCompleted(replay));
+    }
+
+    @Test
+    public void partiallyReadResultSetIsNotSaved() throws Exception {
+        JDBCMetadataSnapshot snapshot = new JDBCMetadataSnapshot(null);
+        JDBCResultSet recorder = snapshot.recordResultSet(KEY, resultSet);
+        Assert.assertTrue(recorder.next());
+        recorder.getString("TABLE_NAME");
+
+        Assert.assertNull(copySnapshot(snapshot).openResultSet(session, KEY));
+    }
+
+    @Test
+    public void unsupportedCallsAreNotSaved() throws Exception {
+        JDBCMetadataSnapshot snapshot = new JDBCMetadataSnapshot(null);
+        JDBCResultSet recorder = snapshot.recordResultSet(KEY, resultSet);
+        recorder.getMetaData();
+        readTables(recorder);
+
+        Assert.assertNull(copySnapshot(snapshot).openResultSet(session, KEY));
+    }
+
+    @Test
+    public void changedMetadataDiscardsSnapshot() throws Exception {
+        JDBCMetadataSnapshot snapshot = new JDBCMetadataSnapshot(null);
+        snapshot.validate("20220101000000:10/20220101000000:3");
+        readTables(snapshot.recordResultSet(KEY, resultSet));
+
+        JDBCMetadataSnapshot sameSnapshot = copySnapshot(snapshot);
+        sameSnapshot.validate("20220101000000:10/20220101000000:3");
+        Assert.assertNotNull(sameSnapshot.openResultSet(session, KEY));
+
+        // Object was dropped, last DDL time is the same
+        JDBCMetadataSnapshot changedSnapshot = copySnapshot(snapshot);
+        changedSnapshot.validate("20220101000000:9/20220101000000:3");
+        Assert.assertNull(changedSnapshot.openResultSet(session, KEY));
+
+        JDBCMetadataSnapshot unknownSnapshot = copySnapshot(snapshot);
+        unknownSnapshot.validate(null);
+        Assert.assertNull(unknownSnapshot.openResultSet(session, KEY));
+    }
+
+    private static String readTables(JDBCResultSet dbResult) throws SQLException {
+        StringBuilder result = new StringBuilder();
+        while (dbResult.next()) {
+            result.append(dbResult.getString("TABLE_NAME"));
+            result.append(':').append(dbResult.getInt("ROW_COUNT"));
+            result.append(':').append(dbResult.wasNull());
+            Timestamp created = dbResult.getTimestamp(3);
+            result.append(':').append(created == null ? null : created.getTime());
+            String remarks = null;
+            try {
+                remarks = dbResult.getString("REMARKS");
+            } catch (SQLException e) {
+                // Not supported by driver
+            }
+            result.append(':').append(remarks).append(';');
+        }
+        return result.toString();
+    }
+
+    private static JDBCMetadataSnapshot copySnapshot(JDBCMetadataSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        snapshot.write(buffer);
+        JDBCMetadataSnapshot copy = new JDBCMetadataSnapshot(null);
+        copy.read(new ByteArrayInputStream(buffer.toByteArray()));
+        return copy;
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.impl.jdbc.cache;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.exec.DBCExecutionContext;
+import org.jkiss.dbeaver.model.exec.DBCExecutionPurpose;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCResultSet;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCSession;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCStatement;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
+import org.jkiss.dbeaver.model.struct.DBSInstance;
+import org.jkiss.dbeaver.model.struct.DBSObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.sql.SQLException;
+import java.util.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JDBCStructCacheTest {
+
+    private final DBRProgressMonitor monitor = new VoidProgressMonitor();
+
+    @Mock
+    private DBPDataSource dataSource;
+    @Mock
+    private DBSInstance instance;
+    @Mock
+    private DBCExecutionContext context;
+    @Mock
+    private JDBCSession session;
+    @Mock
+    private JDBCStatement statement;
+    @Mock
+    private JDBCResultSet resultSet;
+
+    private TestObject owner;
+    private TestObject table1;
+    private TestObject table2;
+    private TestObject table3;
+    private TestCache cache;
+
+    @Before
+    public void init() throws SQLException {
+        Mockito.when(dataSource.getDefaultInstance()).thenReturn(instance);
+        Mockito.when(instance.getDefaultContext(Mockito.any(DBRProgressMonitor.class), Mockito.eq(true))).thenReturn(context);
+        Mockito.when(context.openSession(Mockito.any(DBRProgressMonitor.class), Mockito.any(DBCExecutionPurpose.class), Mockito.anyString()))
+            .thenReturn(session);
+        Mockito.when(statement.getResultSet()).thenReturn(resultSet);
+        Mockito.when(resultSet.next()).thenReturn(true, true, true, false);
+        Mockito.when(resultSet.getString("TABLE_NAME")).thenReturn("T1", "T1", "T2");
+        Mockito.when(resultSet.getString("COLUMN_NAME")).thenReturn("C1", "C2", "C3");
+
+        owner = new TestObject("S");
+        table1 = new TestObject("T1");
+        table2 = new TestObject("T2");
+        table3 = new TestObject("T3");
+        cache = new TestCache();
+        cache.setCache(new ArrayList<>(Arrays.asList(table1, table2, table3)));
+    }
+
+    @Test
+    public void batchPopulatesChildren() throws Exception {
+        cache.loadChildrenBatch(monitor, owner, Arrays.asList(table1, table2, table3));
+        Assert.assertEquals(1, cache.batchQueryCount);
+        Assert.assertEquals(Arrays.asList("C1", "C2"), getChildNames(table1));
+        Assert.assertEquals(Collections.singletonList("C3"), getChildNames(table2));
+        // Object without children in the result set has empty children list
+        Assert.assertTrue(cache.hasChildren(table3));
+        Assert.assertEquals(Collections.emptyList(), getChildNames(table3));
+
+        // Cached children aren't read again
+        cache.loadChildrenBatch(monitor, owner, Arrays.asList(table1, table2, table3));
+        Assert.assertEquals(1, cache.batchQueryCount);
+    }
+
+    @Test
+    public void batchKeepsChildrenCachedMeanwhile() throws Exception {
+        TestObject column = new TestObject("X");
+        cache.onBatchQuery = () -> cache.putChildren(table2, new ArrayList<>(Collections.singletonList(column)));
+        cache.loadChildrenBatch(monitor, owner, Arrays.asList(table1, table2, table3));
+        Assert.assertEquals(Arrays.asList("C1", "C2"), getChildNames(table1));
+        Assert.assertEquals(Collections.singletonList("X"), getChildNames(table2));
+    }
+
+    @Test
+    public void batchIsDroppedAfterCacheClear() throws Exception {
+        cache.onBatchQuery = () -> cache.clearChildrenCache(null);
+        cache.loadChildrenBatch(monitor, owner, Arrays.asList(table1, table2, table3));
+        Assert.assertFalse(cache.hasChildren(table1));
+        Assert.assertFalse(cache.hasChildren(table2));
+        Assert.assertFalse(cache.hasChildren(table3));
+    }
+
+    private List<String> getChildNames(TestObject object) throws Exception {
+        List<TestObject> children = cache.getChildren(monitor, owner, object);
+        Assert.assertNotNull(children);
+        List<String> names = new ArrayList<>();
+        for (TestObject child : children) {
+            names.add(child.getName());
+        }
+        return names;
+    }
+
+    private class TestCache extends JDBCStructCache<TestObject, TestObject, TestObject> {
+        private int batchQueryCount;
+        private Runnable onBatchQuery;
+
+        TestCache() {
+            super("TABLE_NAME");
+        }
+
+        @NotNull
+        @Override
+        protected JDBCStatement prepareObjectsStatement(@NotNull JDBCSession session, @NotNull TestObject owner) throws SQLException {
+            throw new SQLException("Objects are cached");
+        }
+
+        @Nullable
+        @Override
+        protected TestObject fetchObject(@NotNull JDBCSession session, @NotNull TestObject owner, @NotNull JDBCResultSet resultSet) {
+            return null;
+        }
+
+        @Override
+        protected JDBCStatement prepareChildrenStatement(@NotNull JDBCSession session, @NotNull TestObject owner, @Nullable TestObject forObject)
+            throws SQLException
+        {
+            throw new SQLException("Children are read in batch");
+        }
+
+        @Override
+        protected TestObject fetchChild(@NotNull JDBCSession session, @NotNull TestObject owner, @NotNull TestObject parent, @NotNull JDBCResultSet dbResult)
+            throws SQLException
+        {
+            return new TestObject(dbResult.getString("COLUMN_NAME"));
+        }
+
+        @Override
+        protected JDBCStatement prepareChildrenBatchStatement(@NotNull JDBCSession session, @NotNull TestObject owner, @NotNull List<TestObject> forObjects) {
+            batchQueryCount++;
+            if (onBatchQuery != null) {
+                onBatchQuery.run();
+            }
+            return statement;
+        }
+
+        boolean hasChildren(TestObject object) {
+            return isChildrenCached(object);
+        }
+
+        void putChildren(TestObject object, List<TestObject> children) {
+            cacheChildren(object, children);
+        }
+    }
+
+    private class TestObject implements DBSObject {
+        private final String name;
+
+        TestObject(String name) {
+            this.name = name;
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Nullable
+        @Override
+        public String getDescription() {
+            return null;
+        }
+
+        @Override
+        public boolean isPersisted() {
+            return true;
+        }
+
+        @Nullable
+        @Override
+        public DBSObject getParentObject() {
+            return null;
+        }
+
+        @Override
+        public DBPDataSource getDataSource() {
+            return dataSource;
+        }
+    }
+
+}
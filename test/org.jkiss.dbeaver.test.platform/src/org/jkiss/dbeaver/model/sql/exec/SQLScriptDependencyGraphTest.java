@@ -0,0 +1,111 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.sql.exec;
+
+import org.jkiss.dbeaver.model.sql.SQLQuery;
+import org.jkiss.dbeaver.model.sql.SQLScriptElement;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SQLScriptDependencyGraphTest {
+
+    @Test
+    public void independentStatements() {
+        SQLScriptDependencyGraph graph = createGraph(
+            "CREATE INDEX idx_a ON s.a (id)",
+            "CREATE INDEX idx_b ON s.b (id)",
+            "INSERT INTO a SELECT * FROM c",
+            "UPDATE b SET x = 1",
+            "SELECT * FROM \"A\" JOIN d ON 1 = 1",
+            "DROP INDEX idx_b");
+        Assert.assertTrue(graph.hasIndependentStatements());
+        Assert.assertArrayEquals(new int[0], graph.getDependencies(0));
+        Assert.assertArrayEquals(new int[0], graph.getDependencies(1));
+        Assert.assertArrayEquals(new int[] {0}, graph.getDependencies(2));
+        Assert.assertArrayEquals(new int[] {1}, graph.getDependencies(3));
+        Assert.assertArrayEquals(new int[] {0, 2}, graph.getDependencies(4));
+        Assert.assertArrayEquals(new int[] {1}, graph.getDependencies(5));
+    }
+
+    @Test
+    public void unknownStatementIsBarrier() {
+        SQLScriptDependencyGraph graph = createGraph(
+            "DELETE FROM a",
+            "DELETE FROM b",
+            "CALL refresh_all()",
+            "DELETE FROM c");
+        Assert.assertTrue(graph.isBarrier(2));
+        Assert.assertArrayEquals(new int[] {0, 1}, graph.getDependencies(2));
+        Assert.assertArrayEquals(new int[] {2}, graph.getDependencies(3));
+    }
+
+    @Test
+    public void dependentStatements() {
+        SQLScriptDependencyGraph graph = createGraph(
+            "CREATE TABLE t (id INT)",
+            "INSERT INTO t VALUES (1)",
+            "SELECT * FROM t");
+        Assert.assertFalse(graph.hasIndependentStatements());
+    }
+
+    @Test
+    public void foreignKeyDependencies() {
+        SQLScriptDependencyGraph graph = createGraph(
+            "CREATE TABLE parent (id INT PRIMARY KEY)",
+            "CREATE TABLE child (id INT, parent_id INT REFERENCES s.\"PARENT\" (id))",
+            "CREATE TABLE other (id INT)",
+            "ALTER TABLE other ADD CONSTRAINT fk_other FOREIGN KEY (id) REFERENCES parent (id)",
+            "INSERT INTO parent VALUES (1)",
+            "INSERT INTO child VALUES (1, 1)",
+            "INSERT INTO other VALUES (1)",
+            "DELETE FROM parent");
+        Assert.assertArrayEquals(new int[] {0}, graph.getDependencies(1));
+        Assert.assertArrayEquals(new int[] {0, 2}, graph.getDependencies(3));
+        // Referencing tables must exist
+        Assert.assertArrayEquals(new int[] {0, 1, 2, 3}, graph.getDependencies(4));
+        // Referenced row must exist
+        Assert.assertArrayEquals(new int[] {0, 1, 4}, graph.getDependencies(5));
+        Assert.assertArrayEquals(new int[] {0, 2, 3, 4}, graph.getDependencies(6));
+        // Referencing rows are checked or deleted too
+        Assert.assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6}, graph.getDependencies(7));
+        Assert.assertFalse(graph.hasSessionStatements());
+    }
+
+    @Test
+    public void sessionStatements() {
+        Assert.assertTrue(createGraph("SET search_path TO s", "DELETE FROM a", "DELETE FROM b").hasSessionStatements());
+        Assert.assertTrue(createGraph("use db", "DELETE FROM a", "DELETE FROM b").hasSessionStatements());
+        Assert.assertTrue(createGraph("ALTER SESSION SET CURRENT_SCHEMA = s", "DELETE FROM a").hasSessionStatements());
+        Assert.assertTrue(createGraph("SET ROLE admin", "DELETE FROM a").hasSessionStatements());
+        Assert.assertTrue(createGraph("CREATE TEMP TABLE t (id INT)", "INSERT INTO t VALUES (1)").hasSessionStatements());
+        Assert.assertTrue(createGraph("CREATE GLOBAL TEMPORARY TABLE t (id INT)", "DELETE FROM a").hasSessionStatements());
+        Assert.assertTrue(createGraph("SELECT * INTO #t FROM a", "DELETE FROM b").hasSessionStatements());
+        Assert.assertFalse(createGraph("UPDATE a SET x = 1", "DELETE FROM settings").hasSessionStatements());
+    }
+
+    private static SQLScriptDependencyGraph createGraph(String... queries) {
+        List<SQLScriptElement> elements = new ArrayList<>();
+        for (String query : queries) {
+            elements.add(new SQLQuery(null, query));
+        }
+        return new SQLScriptDependencyGraph(elements);
+    }
+
+}
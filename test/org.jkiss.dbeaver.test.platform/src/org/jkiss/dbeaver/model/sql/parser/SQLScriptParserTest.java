@@ -16,7 +16,9 @@
  */
 package org.jkiss.dbeaver.model.sql.parser;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.model.DBPDataSourceContainer;
 import org.jkiss.dbeaver.model.connection.DBPConnectionConfiguration;
@@ -464,6 +466,56 @@ public class SQLScriptParserTest {
         assertParse("oracle", packageBodyStatements);
     }
 
+    @Test
+    public void parseScriptWithIndex() throws DBException, BadLocationException {
+        SQLDialect dialect = setDialect("postgresql");
+        String script = "select 1;\nselect 'a;b' from dual;\n\nupdate t set a = 1;\ndo $$\nbegin\nnull;\nend $$;\nselect 2";
+        SQLParserContext context = createParserContext(dialect, script);
+        context.enableScriptIndex();
+        try {
+            IDocument document = context.getDocument();
+            assertSameQueries(dialect, context);
+
+            document.replace(script.indexOf("update"), 0, "select 3; ");
+            assertSameQueries(dialect, context);
+
+            // Unclosed string changes all following statements
+            document.replace(document.get().indexOf("from dual"), 0, "'");
+            assertSameQueries(dialect, context);
+            document.replace(document.get().indexOf("'from dual"), 1, "");
+            assertSameQueries(dialect, context);
+
+            document.replace(0, 0, "/* header */\n");
+            document.replace(document.getLength(), 0, ";\nselect 4;");
+            assertSameQueries(dialect, context);
+
+            // Range which doesn't start at statement boundary
+            String text = document.get();
+            int offset = text.indexOf("3;");
+            Assert.assertEquals(
+                toStrings(SQLScriptParser.extractScriptQueries(createParserContext(dialect, text), offset, text.length() - offset, true, false, false)),
+                toStrings(SQLScriptParser.extractScriptQueries(context, offset, text.length() - offset, true, false, false)));
+
+            document.set("select 5;\nselect 6;");
+            assertSameQueries(dialect, context);
+        } finally {
+            context.dispose();
+        }
+    }
+
+    private void assertSameQueries(SQLDialect dialect, SQLParserContext context) {
+        String text = context.getDocument().get();
+        List<SQLScriptElement> expected = SQLScriptParser.extractScriptQueries(createParserContext(dialect, text), 0, text.length(), true, false, false);
+        List<SQLScriptElement> actual = SQLScriptParser.extractScriptQueries(context, 0, text.length(), true, false, false);
+        Assert.assertEquals(toStrings(expected), toStrings(actual));
+    }
+
+    private static List<String> toStrings(List<SQLScriptElement> elements) {
+        return elements.stream()
+            .map(e -> e.getOffset() + ":" + e.getLength() + ":" + e.getText())
+            .collect(Collectors.toList());
+    }
+
     private void assertParse(String dialectName, String[] expected) throws DBException {
     	String source = Arrays.stream(expected).filter(e -> e != null).collect(Collectors.joining());
     	List<String> expectedParts = new ArrayList<>(expected.length);
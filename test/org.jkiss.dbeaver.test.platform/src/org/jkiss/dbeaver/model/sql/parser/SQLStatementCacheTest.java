@@ -0,0 +1,56 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.model.sql.parser;
+
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SQLStatementCacheTest {
+
+    @Test
+    public void cachedStatementIsCopied() throws DBCException {
+        String sql = "SELECT a, b FROM t WHERE a = 1";
+        long hits = SQLStatementCache.getHitCount();
+
+        Statement first = SQLStatementCache.parseStatement(null, sql);
+        PlainSelect firstSelect = (PlainSelect) ((Select) first).getSelectBody();
+        ((Column) ((SelectExpressionItem) firstSelect.getSelectItems().get(0)).getExpression()).setColumnName("x");
+        firstSelect.setWhere(null);
+
+        Statement second = SQLStatementCache.parseStatement(null, " " + sql + "\n");
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(sql, second.toString());
+        Assert.assertEquals(hits + 1, SQLStatementCache.getHitCount());
+    }
+
+    @Test(expected = DBCException.class)
+    public void cachedParseErrorIsRethrown() throws DBCException {
+        try {
+            SQLStatementCache.parseStatement(null, "SELECT FROM WHERE");
+        } catch (DBCException e) {
+            // expected
+        }
+        SQLStatementCache.parseStatement(null, "SELECT FROM WHERE");
+    }
+
+}
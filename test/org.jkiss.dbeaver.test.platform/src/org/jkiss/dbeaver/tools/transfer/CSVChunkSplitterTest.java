@@ -0,0 +1,61 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer;
+
+import org.jkiss.dbeaver.tools.transfer.stream.importer.CSVChunkSplitter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CSVChunkSplitterTest {
+
+    private final CSVChunkSplitter splitter = new CSVChunkSplitter(',', '"', '\\');
+
+    @Test
+    public void splitOnLineBreaks() throws IOException {
+        Assert.assertEquals(Arrays.asList(4L, 8L, 10L), split("a,1\nb,2\nc\n", 1));
+        Assert.assertEquals(Arrays.asList(8L, 10L), split("a,1\nb,2\nc\n", 5));
+        Assert.assertEquals(Arrays.asList(5L, 7L), split("a,1\r\nb\n", 1));
+    }
+
+    @Test
+    public void skipQuotedLineBreaks() throws IOException {
+        Assert.assertEquals(Arrays.asList(8L, 12L), split("\"a\nb\",1\nc,2\n", 1));
+        Assert.assertEquals(Arrays.asList(10L, 14L), split("\"a\"\"\nb\",1\nc,2\n", 1));
+        Assert.assertEquals(Arrays.asList(10L, 14L), split("\"a\\\"\nb\",1\nc,2\n", 1));
+    }
+
+    @Test
+    public void noSplitInsideUnterminatedQuote() throws IOException {
+        Assert.assertEquals(Arrays.asList(11L), split("a,\"b\nc,1\nd\n", 1));
+    }
+
+    private List<Long> split(String data, long chunkSize) throws IOException {
+        List<Long> chunkEnds = new ArrayList<>();
+        splitter.split(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), chunkSize, chunkEnd -> {
+            chunkEnds.add(chunkEnd);
+            return true;
+        });
+        return chunkEnds;
+    }
+}
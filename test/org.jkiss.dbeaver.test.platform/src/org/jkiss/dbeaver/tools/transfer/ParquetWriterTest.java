@@ -0,0 +1,399 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.tools.transfer;
+
+import org.jkiss.dbeaver.tools.transfer.stream.exporter.ParquetWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads written files with a decoder made after the Parquet format specification (parquet.thrift)
+ * and checks the footer, page headers, definition levels and values.
+ */
+public class ParquetWriterTest {
+
+    // Physical type ids
+    private static final int BOOLEAN = 0;
+    private static final int INT32 = 1;
+    private static final int INT64 = 2;
+    private static final int FLOAT = 4;
+    private static final int DOUBLE = 5;
+    private static final int BYTE_ARRAY = 6;
+
+    @Test
+    public void writeAllTypes() throws IOException {
+        checkAllTypes(ParquetWriter.Compression.NONE);
+    }
+
+    @Test
+    public void writeAllTypesCompressed() throws IOException {
+        checkAllTypes(ParquetWriter.Compression.GZIP);
+    }
+
+    @Test
+    public void writeEmptyFile() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ParquetWriter writer = new ParquetWriter(buffer, ParquetWriter.Compression.NONE);
+        writer.addColumn("id", ParquetWriter.PhysicalType.INT32, ParquetWriter.CONVERTED_NONE, 0, 0);
+        writer.finish();
+
+        Map<Integer, Object> meta = readFileMetaData(buffer.toByteArray());
+        Assert.assertEquals(0L, meta.get(3));
+        Assert.assertEquals(Collections.emptyList(), meta.get(4));
+        Assert.assertEquals(2, ((List<?>) meta.get(2)).size());
+    }
+
+    private void checkAllTypes(ParquetWriter.Compression compression) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ParquetWriter writer = new ParquetWriter(buffer, compression);
+        writer.addColumn("b", ParquetWriter.PhysicalType.BOOLEAN, ParquetWriter.CONVERTED_NONE, 0, 0);
+        writer.addColumn("i", ParquetWriter.PhysicalType.INT32, ParquetWriter.CONVERTED_NONE, 0, 0);
+        writer.addColumn("l", ParquetWriter.PhysicalType.INT64, ParquetWriter.CONVERTED_NONE, 0, 0);
+        writer.addColumn("f", ParquetWriter.PhysicalType.FLOAT, ParquetWriter.CONVERTED_NONE, 0, 0);
+        writer.addColumn("d", ParquetWriter.PhysicalType.DOUBLE, ParquetWriter.CONVERTED_NONE, 0, 0);
+        writer.addColumn("s", ParquetWriter.PhysicalType.BYTE_ARRAY, ParquetWriter.CONVERTED_UTF8, 0, 0);
+        writer.addColumn("dec", ParquetWriter.PhysicalType.INT64, ParquetWriter.CONVERTED_DECIMAL, 18, 2);
+        writer.addColumn("dt", ParquetWriter.PhysicalType.INT32, ParquetWriter.CONVERTED_DATE, 0, 0);
+        writer.addColumn("tm", ParquetWriter.PhysicalType.INT32, ParquetWriter.CONVERTED_TIME_MILLIS, 0, 0);
+        writer.addColumn("ts", ParquetWriter.PhysicalType.INT64, ParquetWriter.CONVERTED_TIMESTAMP_MICROS, 0, 0);
+
+        // 11 rows in the first row group (more than one definition level byte), 2 in the second
+        List<List<Object>> expected = new ArrayList<>();
+        for (int row = 0; row < 13; row++) {
+            List<Object> values = new ArrayList<>();
+            for (int column = 0; column < 10; column++) {
+                // Every column has nulls at different rows
+                if ((row + column) % 4 == 0) {
+                    writer.addNull(column);
+                    values.add(null);
+                    continue;
+                }
+                switch (column) {
+                    case 0: writer.addBoolean(column, row % 3 == 0); values.add(row % 3 == 0); break;
+                    case 1: writer.addInt(column, -row * 1000); values.add(-row * 1000); break;
+                    case 2: writer.addLong(column, Long.MAX_VALUE - row); values.add(Long.MAX_VALUE - row); break;
+                    case 3: writer.addFloat(column, row / 4f); values.add(row / 4f); break;
+                    case 4: writer.addDouble(column, -row / 3.0); values.add(-row / 3.0); break;
+                    case 5: writer.addBinary(column, ("stré" + row).getBytes(StandardCharsets.UTF_8)); values.add("stré" + row); break;
+                    case 6: writer.addLong(column, row * 100 + 1); values.add((long) (row * 100 + 1)); break;
+                    case 7: writer.addInt(column, 19000 + row); values.add(19000 + row); break;
+                    case 8: writer.addInt(column, row * 3600_000); values.add(row * 3600_000); break;
+                    default: writer.addLong(column, 1_600_000_000_000_000L + row); values.add(1_600_000_000_000_000L + row); break;
+                }
+            }
+            writer.endRow();
+            expected.add(values);
+            if (row == 10) {
+                writer.flushRowGroup();
+            }
+        }
+        writer.finish();
+
+        byte[] file = buffer.toByteArray();
+        Map<Integer, Object> meta = readFileMetaData(file);
+        Assert.assertEquals(1, meta.get(1));
+        Assert.assertEquals(13L, meta.get(3));
+
+        // Schema
+        List<Map<Integer, Object>> schema = getList(meta, 2);
+        Assert.assertEquals(11, schema.size());
+        Assert.assertEquals(10, schema.get(0).get(5));
+        int[] types = {BOOLEAN, INT32, INT64, FLOAT, DOUBLE, BYTE_ARRAY, INT64, INT32, INT32, INT64};
+        int[] convertedTypes = {-1, -1, -1, -1, -1, 0, 5, 6, 7, 10};
+        String[] names = {"b", "i", "l", "f", "d", "s", "dec", "dt", "tm", "ts"};
+        for (int i = 0; i < 10; i++) {
+            Map<Integer, Object> element = schema.get(i + 1);
+            Assert.assertEquals(types[i], element.get(1));
+            // OPTIONAL
+            Assert.assertEquals(1, element.get(3));
+            Assert.assertEquals(names[i], getString(element, 4));
+            Assert.assertEquals(convertedTypes[i] < 0 ? null : convertedTypes[i], element.get(6));
+        }
+        Assert.assertEquals(2, schema.get(7).get(7));
+        Assert.assertEquals(18, schema.get(7).get(8));
+
+        // Row groups
+        List<Map<Integer, Object>> rowGroups = getList(meta, 4);
+        Assert.assertEquals(2, rowGroups.size());
+        Assert.assertEquals(11L, rowGroups.get(0).get(3));
+        Assert.assertEquals(2L, rowGroups.get(1).get(3));
+        List<List<Object>> actual = new ArrayList<>();
+        for (int i = 0; i < 13; i++) {
+            actual.add(new ArrayList<>());
+        }
+        int firstRow = 0;
+        for (Map<Integer, Object> rowGroup : rowGroups) {
+            int rowCount = ((Long) rowGroup.get(3)).intValue();
+            List<Map<Integer, Object>> chunks = getList(rowGroup, 1);
+            Assert.assertEquals(10, chunks.size());
+            long totalSize = 0;
+            for (int column = 0; column < 10; column++) {
+                List<Object> values = readColumnChunk(file, chunks.get(column), names[column], types[column], compression, rowCount);
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = values.get(row);
+                    actual.get(firstRow + row).add(column == 5 && value != null ? new String((byte[]) value, StandardCharsets.UTF_8) : value);
+                }
+                totalSize += (Long) getStruct(chunks.get(column), 3).get(6);
+            }
+            Assert.assertEquals(totalSize, rowGroup.get(2));
+            firstRow += rowCount;
+        }
+        Assert.assertEquals(expected, actual);
+    }
+
+    private static List<Object> readColumnChunk(
+        byte[] file,
+        Map<Integer, Object> chunk,
+        String name,
+        int type,
+        ParquetWriter.Compression compression,
+        int rowCount) throws IOException
+    {
+        Map<Integer, Object> columnMeta = getStruct(chunk, 3);
+        long offset = (Long) columnMeta.get(9);
+        Assert.assertEquals(offset, chunk.get(2));
+        Assert.assertEquals(type, columnMeta.get(1));
+        Assert.assertEquals(Collections.singletonList(name), toStrings(columnMeta.get(3)));
+        Assert.assertEquals(compression == ParquetWriter.Compression.GZIP ? 2 : 0, columnMeta.get(4));
+        Assert.assertEquals((long) rowCount, columnMeta.get(5));
+
+        // Page header
+        ThriftReader reader = new ThriftReader(file, (int) offset);
+        Map<Integer, Object> pageHeader = reader.readStruct();
+        int headerSize = reader.position - (int) offset;
+        Assert.assertEquals(0, pageHeader.get(1));
+        int uncompressedSize = (Integer) pageHeader.get(2);
+        int compressedSize = (Integer) pageHeader.get(3);
+        Assert.assertEquals((long) (headerSize + uncompressedSize), columnMeta.get(6));
+        Assert.assertEquals((long) (headerSize + compressedSize), columnMeta.get(7));
+        Map<Integer, Object> dataPageHeader = getStruct(pageHeader, 5);
+        Assert.assertEquals(rowCount, dataPageHeader.get(1));
+        // PLAIN values, RLE levels
+        Assert.assertEquals(0, dataPageHeader.get(2));
+        Assert.assertEquals(3, dataPageHeader.get(3));
+
+        byte[] page = Arrays.copyOfRange(file, reader.position, reader.position + compressedSize);
+        if (compression == ParquetWriter.Compression.GZIP) {
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(page))) {
+                page = gzip.readAllBytes();
+            }
+        }
+        Assert.assertEquals(uncompressedSize, page.length);
+
+        // Definition levels: 4-byte length followed by RLE/bit-packed hybrid runs of 1-bit values
+        ByteBuffer data = ByteBuffer.wrap(page).order(ByteOrder.LITTLE_ENDIAN);
+        int levelsEnd = 4 + data.getInt();
+        boolean[] defined = new boolean[rowCount];
+        int level = 0;
+        while (data.position() < levelsEnd) {
+            long header = readVarint(data);
+            if ((header & 1) == 1) {
+                int bitCount = (int) (header >>> 1) * 8;
+                int bytesStart = data.position();
+                for (int i = 0; i < bitCount; i++) {
+                    boolean bit = ((page[bytesStart + i / 8] >> (i % 8)) & 1) != 0;
+                    if (level + i < rowCount) {
+                        defined[level + i] = bit;
+                    }
+                }
+                data.position(bytesStart + bitCount / 8);
+                level += bitCount;
+            } else {
+                int runLength = (int) (header >>> 1);
+                boolean bit = data.get() != 0;
+                for (int i = 0; i < runLength; i++) {
+                    defined[level++] = bit;
+                }
+            }
+        }
+        Assert.assertEquals(levelsEnd, data.position());
+        Assert.assertTrue(level >= rowCount);
+
+        // Values of non-null rows
+        List<Object> values = new ArrayList<>();
+        int booleanIndex = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!defined[row]) {
+                values.add(null);
+                continue;
+            }
+            switch (type) {
+                case BOOLEAN:
+                    values.add(((page[levelsEnd + booleanIndex / 8] >> (booleanIndex % 8)) & 1) != 0);
+                    booleanIndex++;
+                    break;
+                case INT32:
+                    values.add(data.getInt());
+                    break;
+                case INT64:
+                    values.add(data.getLong());
+                    break;
+                case FLOAT:
+                    values.add(data.getFloat());
+                    break;
+                case DOUBLE:
+                    values.add(data.getDouble());
+                    break;
+                default: {
+                    byte[] bytes = new byte[data.getInt()];
+                    data.get(bytes);
+                    values.add(bytes);
+                    break;
+                }
+            }
+        }
+        int valuesEnd = type == BOOLEAN ? levelsEnd + (booleanIndex + 7) / 8 : data.position();
+        Assert.assertEquals(page.length, valuesEnd);
+        return values;
+    }
+
+    private static Map<Integer, Object> readFileMetaData(byte[] file) {
+        byte[] magic = "PAR1".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertArrayEquals(magic, Arrays.copyOfRange(file, 0, 4));
+        Assert.assertArrayEquals(magic, Arrays.copyOfRange(file, file.length - 4, file.length));
+        int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        ThriftReader reader = new ThriftReader(file, file.length - 8 - footerLength);
+        Map<Integer, Object> meta = reader.readStruct();
+        Assert.assertEquals(file.length - 8, reader.position);
+        return meta;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<Integer, Object>> getList(Map<Integer, Object> struct, int field) {
+        return (List<Map<Integer, Object>>) struct.get(field);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, Object> getStruct(Map<Integer, Object> struct, int field) {
+        return (Map<Integer, Object>) struct.get(field);
+    }
+
+    private static String getString(Map<Integer, Object> struct, int field) {
+        return new String((byte[]) struct.get(field), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> toStrings(Object list) {
+        List<String> result = new ArrayList<>();
+        for (Object item : (List<?>) list) {
+            result.add(new String((byte[]) item, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Thrift compact protocol decoder. Structs are decoded as maps of field id to value.
+     */
+    private static class ThriftReader {
+        private final byte[] data;
+        private int position;
+
+        ThriftReader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        Map<Integer, Object> readStruct() {
+            Map<Integer, Object> fields = new HashMap<>();
+            int fieldId = 0;
+            for (;;) {
+                int header = data[position++] & 0xFF;
+                if (header == 0) {
+                    return fields;
+                }
+                int delta = header >>> 4;
+                fieldId = delta == 0 ? (int) readZigZag() : fieldId + delta;
+                fields.put(fieldId, readValue(header & 0x0F));
+            }
+        }
+
+        private Object readValue(int type) {
+            switch (type) {
+                case 1:
+                    return true;
+                case 2:
+                    return false;
+                case 3:
+                    return data[position++];
+                case 4:
+                case 5:
+                    return (int) readZigZag();
+                case 6:
+                    return readZigZag();
+                case 8: {
+                    int length = (int) readVarint();
+                    byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+                    position += length;
+                    return bytes;
+                }
+                case 9:
+                case 10: {
+                    int header = data[position++] & 0xFF;
+                    int size = header >>> 4;
+                    if (size == 15) {
+                        size = (int) readVarint();
+                    }
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue(header & 0x0F));
+                    }
+                    return list;
+                }
+                case 12:
+                    return readStruct();
+                default:
+                    throw new IllegalStateException("Unsupported type " + type);
+            }
+        }
+
+        private long readVarint() {
+            long result = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+        }
+
+        private long readZigZag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+}
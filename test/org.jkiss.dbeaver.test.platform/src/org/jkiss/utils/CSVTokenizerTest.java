@@ -0,0 +1,81 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.utils;
+
+import org.jkiss.utils.csv.CSVReader;
+import org.jkiss.utils.csv.CSVReaderBuilder;
+import org.jkiss.utils.csv.CSVTokenizer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class CSVTokenizerTest {
+
+    @Test
+    public void testSameRecordsAsLineParser() throws IOException {
+        String[] inputs = {
+            "a,b,c\n1,2,3",
+            "\"a\nb\",c\r\n\"d\"\"e\",f\r\rg",
+            "a,\"b\\\"c\",d\\e\n",
+            "a,bc\"d\"ef,g\n,,\n",
+            "a,\"b\nc,d\n",
+        };
+        for (String input : inputs) {
+            // Reader verification forces the old line-based parsing
+            CSVReader lineReader = new CSVReaderBuilder(new StringReader(input)).withVerifyReader(true).build();
+            CSVReader tokenizerReader = new CSVReader(new StringReader(input));
+            for (;;) {
+                String[] expected = lineReader.readNext();
+                Assert.assertArrayEquals(input, expected, tokenizerReader.readNext());
+                if (expected == null) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTypedValues() throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(
+            new StringReader("42,-7,3.25,1e3,12.50,TRUE,2022-03-21,2022-03-21 10:20:30.5,\"x,y\"\n"), ',', '"', '\\');
+        Assert.assertTrue(tokenizer.nextRecord());
+        Assert.assertEquals(9, tokenizer.getFieldCount());
+        Assert.assertEquals(42, tokenizer.getInt(0));
+        Assert.assertEquals(-7L, tokenizer.getLong(1));
+        Assert.assertEquals(3.25, tokenizer.getDouble(2), 0);
+        Assert.assertEquals(1000.0, tokenizer.getDouble(3), 0);
+        Assert.assertEquals(new BigDecimal("12.50"), tokenizer.getBigDecimal(4));
+        Assert.assertTrue(tokenizer.getBoolean(5));
+        Assert.assertEquals(LocalDate.of(2022, 3, 21), tokenizer.getLocalDate(6));
+        Assert.assertEquals(LocalDateTime.of(2022, 3, 21, 10, 20, 30, 500_000_000), tokenizer.getLocalDateTime(7));
+        Assert.assertEquals("x,y", tokenizer.getField(8).toString());
+        Assert.assertTrue(tokenizer.fieldEquals(8, "x,y"));
+        Assert.assertFalse(tokenizer.nextRecord());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testBadNumber() throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("12a"), ',', '"', '\\');
+        Assert.assertTrue(tokenizer.nextRecord());
+        tokenizer.getLong(0);
+    }
+}
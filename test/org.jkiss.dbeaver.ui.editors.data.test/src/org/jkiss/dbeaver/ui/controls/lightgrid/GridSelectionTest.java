@@ -0,0 +1,97 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.lightgrid;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class GridSelectionTest {
+
+    @Test
+    public void testRanges() {
+        GridSelection selection = new GridSelection();
+        selection.addRange(0, 99, 0, 9);
+        selection.removeRange(10, 19, 2, 3);
+        selection.add(new GridPos(20, 200));
+        Assert.assertEquals(1000 - 20 + 1, selection.size());
+        Assert.assertTrue(selection.contains(new GridPos(1, 10)));
+        Assert.assertFalse(selection.contains(new GridPos(2, 10)));
+        Assert.assertTrue(selection.contains(new GridPos(20, 200)));
+        Assert.assertEquals(101, selection.getRowCount());
+        Assert.assertEquals(new HashSet<>(selection), selection);
+        Assert.assertEquals(new HashSet<>(selection).hashCode(), selection.hashCode());
+    }
+
+    @Test
+    public void testHashCode() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            GridSelection selection = new GridSelection();
+            for (int k = 0; k < 5; k++) {
+                int firstRow = random.nextInt(5000);
+                int firstColumn = random.nextInt(100);
+                selection.addRange(firstRow, firstRow + random.nextInt(1000), firstColumn, firstColumn + random.nextInt(50));
+                firstRow = random.nextInt(5000);
+                firstColumn = random.nextInt(100);
+                selection.removeRange(firstRow, firstRow + random.nextInt(1000), firstColumn, firstColumn + random.nextInt(50));
+            }
+            Assert.assertEquals(new HashSet<>(selection).hashCode(), selection.hashCode());
+        }
+    }
+
+    @Test
+    public void testRetainAll() {
+        GridSelection selection = new GridSelection();
+        selection.addRange(0, 9, 0, 4);
+        selection.addRange(20, 29, 0, 0);
+        GridSelection other = new GridSelection();
+        other.addRange(5, 24, 3, 9);
+        other.addRange(25, 25, 0, 0);
+
+        Set<GridPos> expected = new HashSet<>(selection);
+        expected.retainAll(new HashSet<>(other));
+        Assert.assertTrue(selection.retainAll(other));
+        Assert.assertEquals(expected, selection);
+        Assert.assertFalse(selection.retainAll(other));
+
+        Assert.assertTrue(selection.retainAll(Arrays.asList(new GridPos(3, 5), new GridPos(0, 25), new GridPos(0, 26))));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(new GridPos(3, 5), new GridPos(0, 25))), selection);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        GridSelection selection = new GridSelection();
+        selection.addRange(0, 9, 0, 9);
+        selection.addRange(20, 29, 5, 5);
+        Set<GridPos> expected = new HashSet<>(selection);
+        expected.removeIf(pos -> pos.col % 2 == 0 || pos.row == 25);
+        Assert.assertTrue(selection.removeIf(pos -> pos.col % 2 == 0 || pos.row == 25));
+        Assert.assertEquals(expected, selection);
+        Assert.assertEquals(expected.size(), selection.size());
+
+        List<GridPos> iterated = new ArrayList<>();
+        for (Iterator<GridPos> iter = selection.iterator(); iter.hasNext(); ) {
+            iterated.add(iter.next());
+            iter.remove();
+        }
+        Assert.assertEquals(expected, new HashSet<>(iterated));
+        Assert.assertTrue(selection.isEmpty());
+    }
+
+}
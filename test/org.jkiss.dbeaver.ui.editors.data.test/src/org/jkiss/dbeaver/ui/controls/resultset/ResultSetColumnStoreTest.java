@@ -0,0 +1,188 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class ResultSetColumnStoreTest {
+
+    private static final int ROW_COUNT = 200;
+
+    @Test
+    public void testAllVectorTypes() {
+        List<Object[]> rows = createRows();
+        ResultSetColumnStore store = ResultSetColumnStore.create(rows);
+        Assert.assertNotNull(store);
+        assertStoreEquals(rows, store);
+    }
+
+    @Test
+    public void testSpill() throws IOException {
+        List<Object[]> rows = createRows();
+        ResultSetColumnStore store = ResultSetColumnStore.create(rows);
+        Assert.assertNotNull(store);
+        long memorySize = store.getMemorySize();
+
+        Path folder = Files.createTempDirectory("spill-test");
+        ResultSetSpillFile file = new ResultSetSpillFile(folder.toFile());
+        try {
+            store.spill(file);
+            // Spill twice as it happens with several stores sharing the same file
+            ResultSetColumnStore otherStore = ResultSetColumnStore.create(rows);
+            Assert.assertNotNull(otherStore);
+            otherStore.spill(file);
+
+            Assert.assertTrue(store.getMemorySize() < memorySize);
+            Assert.assertEquals(1, file.getRegionCount());
+            assertStoreEquals(rows, store);
+            assertStoreEquals(rows, otherStore);
+            // Spilled vectors stay as is
+            store.spill(file);
+            assertStoreEquals(rows, store);
+        } finally {
+            file.close();
+            Files.deleteIfExists(folder);
+        }
+    }
+
+    private static List<Object[]> createRows() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            boolean isNull = i % 7 == 0;
+            Timestamp timestamp = new Timestamp(1600000000000L + i * 1000L);
+            timestamp.setNanos(i * 1000 + 1);
+            rows.add(new Object[]{
+                isNull ? null : (long) i * 1000000000L,
+                isNull ? null : i,
+                isNull ? null : (short) i,
+                isNull ? null : (byte) i,
+                isNull ? null : i / 3.0,
+                isNull ? null : i / 4.0f,
+                isNull ? null : i % 2 == 0,
+                isNull ? null : timestamp,
+                isNull ? null : new java.sql.Date(1600000000000L + i * 86400000L),
+                isNull ? null : new Time(i * 1000L),
+                isNull ? null : new Date(1600000000000L - i),
+                isNull ? null : "value" + (i % 5),
+                isNull ? null : "unique" + i,
+                isNull ? null : BigDecimal.valueOf(i, 2),
+                i % 2 == 0 ? (Object) i : "mixed" + i,
+                null
+            });
+        }
+        return rows;
+    }
+
+    @Test
+    public void testDifferentRowLength() {
+        List<Object[]> rows = Arrays.asList(new Object[]{1, 2}, new Object[]{1});
+        Assert.assertNull(ResultSetColumnStore.create(rows));
+        Assert.assertNull(ResultSetColumnStore.create(new ArrayList<>()));
+    }
+
+    @Test
+    public void testDictionaryOverflow() {
+        // Repeating strings are encoded with dictionary
+        List<Object[]> repeating = new ArrayList<>();
+        // Distinct strings exceed dictionary limit after the first quarter of rows
+        List<Object[]> distinct = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            repeating.add(new Object[]{i % 10 == 0 ? null : "value" + (i % 3)});
+            distinct.add(new Object[]{i % 10 == 0 ? null : (i < ROW_COUNT / 4 ? "value" + (i % 3) : "value" + i)});
+        }
+        ResultSetColumnStore repeatingStore = ResultSetColumnStore.create(repeating);
+        ResultSetColumnStore distinctStore = ResultSetColumnStore.create(distinct);
+        Assert.assertNotNull(repeatingStore);
+        Assert.assertNotNull(distinctStore);
+        assertStoreEquals(repeating, repeatingStore);
+        assertStoreEquals(distinct, distinctStore);
+        // Dictionary codes are smaller than references to the string objects
+        Assert.assertTrue(repeatingStore.getMemorySize() < ROW_COUNT * 8L);
+        Assert.assertTrue(distinctStore.getMemorySize() >= ROW_COUNT * 8L);
+    }
+
+    @Test
+    public void testNullColumns() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            // Nulls in the last bit of the bitmap words
+            boolean isNull = i % 64 == 63;
+            rows.add(new Object[]{null, isNull ? null : (long) i, isNull ? null : Boolean.TRUE});
+        }
+        ResultSetColumnStore store = ResultSetColumnStore.create(rows);
+        Assert.assertNotNull(store);
+        assertStoreEquals(rows, store);
+    }
+
+    @Test
+    public void testRowDetachFromStore() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rows.add(new Object[]{(long) i, "value" + (i % 5)});
+        }
+        ResultSetColumnStore store = ResultSetColumnStore.create(rows);
+        Assert.assertNotNull(store);
+
+        ResultSetRow row = new ResultSetRow(10, store, 10);
+        Assert.assertEquals(2, row.getValueCount());
+        Assert.assertEquals(10L, row.getValue(0));
+        Assert.assertEquals("value0", row.getValue(1));
+        // Store backed row returns a copy of values
+        Assert.assertNotSame(row.getValues(), row.getValues());
+        row.getValues()[0] = 100L;
+        Assert.assertEquals(10L, row.getValue(0));
+
+        row.setValue(0, 100L);
+        Assert.assertEquals(100L, row.getValue(0));
+        Assert.assertEquals("value0", row.getValue(1));
+        // Detached row keeps its own values
+        Assert.assertSame(row.getValues(), row.getValues());
+        Assert.assertEquals(10L, store.getValue(10, 0));
+
+        ResultSetRow otherRow = new ResultSetRow(11, store, 11);
+        Assert.assertEquals(11L, otherRow.getValue(0));
+    }
+
+    private static void assertStoreEquals(List<Object[]> rows, ResultSetColumnStore store) {
+        Assert.assertEquals(rows.size(), store.getRowCount());
+        Assert.assertEquals(rows.get(0).length, store.getColumnCount());
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            Assert.assertArrayEquals("Row " + i, row, store.getRow(i));
+            for (int k = 0; k < row.length; k++) {
+                Object value = store.getValue(i, k);
+                Assert.assertEquals("Row " + i + ", column " + k, row[k], value);
+                if (row[k] != null) {
+                    Assert.assertEquals("Row " + i + ", column " + k, row[k].getClass(), value.getClass());
+                }
+            }
+        }
+    }
+
+}
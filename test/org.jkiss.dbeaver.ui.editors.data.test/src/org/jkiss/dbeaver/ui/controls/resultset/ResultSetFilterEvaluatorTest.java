@@ -0,0 +1,112 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDAttributeConstraint;
+import org.jkiss.dbeaver.model.data.DBDDataFilter;
+import org.jkiss.dbeaver.model.exec.DBCLogicalOperator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResultSetFilterEvaluatorTest {
+
+    @Mock
+    ResultSetModel model;
+    @Mock
+    DBDAttributeBinding idAttribute;
+    @Mock
+    DBDAttributeBinding nameAttribute;
+
+    private List<ResultSetRow> rows;
+
+    @Before
+    public void setUp() {
+        ResultSetTestUtils.mockAttribute(idAttribute, "id", 0, DBPDataKind.NUMERIC);
+        ResultSetTestUtils.mockAttribute(nameAttribute, "name", 1, DBPDataKind.STRING);
+        Mockito.when(model.getAttributes()).thenReturn(new DBDAttributeBinding[]{idAttribute, nameAttribute});
+        Mockito.when(model.getAttributeBinding(idAttribute)).thenReturn(idAttribute);
+        Mockito.when(model.getAttributeBinding(nameAttribute)).thenReturn(nameAttribute);
+        ResultSetTestUtils.mockCellValues(model);
+
+        rows = ResultSetTestUtils.createRows(Arrays.asList(
+            new Object[]{9007199254740992L, "Abc"},
+            new Object[]{9007199254740993L, "abc"},
+            new Object[]{null, null},
+            new Object[]{1L, "x"}));
+    }
+
+    @Test
+    public void testExactNumbersComparison() {
+        // Values differ beyond double precision
+        Assert.assertEquals(Collections.singletonList(1), filter(idAttribute, DBCLogicalOperator.EQUALS, new BigDecimal("9007199254740993")));
+        Assert.assertEquals(Collections.singletonList(1), filter(idAttribute, DBCLogicalOperator.GREATER, 9007199254740992L));
+        Assert.assertEquals(Arrays.asList(0, 3), filter(idAttribute, DBCLogicalOperator.LESS, 9007199254740993L));
+        // String literal is converted to the attribute type
+        Assert.assertEquals(Collections.singletonList(3), filter(idAttribute, DBCLogicalOperator.EQUALS, "1"));
+    }
+
+    @Test
+    public void testStringsComparedByServer() {
+        // Result depends on the database collation
+        Assert.assertNull(createEvaluator(nameAttribute, DBCLogicalOperator.EQUALS, "abc"));
+        Assert.assertNull(createEvaluator(nameAttribute, DBCLogicalOperator.GREATER, "a"));
+        Assert.assertNull(createEvaluator(nameAttribute, DBCLogicalOperator.IN, new Object[]{"abc", "x"}));
+        Assert.assertNull(createEvaluator(nameAttribute, DBCLogicalOperator.LIKE, "a%"));
+        Assert.assertNull(createEvaluator(nameAttribute, DBCLogicalOperator.NOT_LIKE, "a%"));
+        // Literal which is not a number
+        Assert.assertNull(createEvaluator(idAttribute, DBCLogicalOperator.EQUALS, "abc"));
+    }
+
+    @Test
+    public void testStringsComparedOnClient() {
+        Assert.assertEquals(Arrays.asList(0, 1), filter(nameAttribute, DBCLogicalOperator.ILIKE, "a%"));
+        Assert.assertEquals(Collections.singletonList(2), filter(nameAttribute, DBCLogicalOperator.IS_NULL, null));
+        Assert.assertEquals(Arrays.asList(0, 1, 3), filter(nameAttribute, DBCLogicalOperator.IS_NOT_NULL, null));
+    }
+
+    private List<Integer> filter(DBDAttributeBinding attribute, DBCLogicalOperator operator, Object value) {
+        ResultSetFilterEvaluator evaluator = createEvaluator(attribute, operator, value);
+        Assert.assertNotNull(evaluator);
+        List<Integer> result = new ArrayList<>();
+        for (ResultSetRow row : evaluator.filterRows(rows)) {
+            result.add(row.getRowNumber());
+        }
+        return result;
+    }
+
+    private ResultSetFilterEvaluator createEvaluator(DBDAttributeBinding attribute, DBCLogicalOperator operator, Object value) {
+        DBDAttributeConstraint constraint = new DBDAttributeConstraint(attribute);
+        constraint.setOperator(operator);
+        constraint.setValue(value);
+        return ResultSetFilterEvaluator.create(model, new DBDDataFilter(Collections.singletonList(constraint)));
+    }
+
+}
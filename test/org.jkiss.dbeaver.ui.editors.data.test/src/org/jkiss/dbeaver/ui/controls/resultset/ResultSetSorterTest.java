@@ -0,0 +1,144 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDAttributeConstraint;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResultSetSorterTest {
+
+    @Mock
+    ResultSetModel model;
+    @Mock
+    DBDAttributeBinding valueAttribute;
+    @Mock
+    DBDAttributeBinding nameAttribute;
+
+    @Before
+    public void setUp() {
+        ResultSetTestUtils.mockAttribute(valueAttribute, "value", 0, DBPDataKind.NUMERIC);
+        ResultSetTestUtils.mockAttribute(nameAttribute, "name", 1, DBPDataKind.STRING);
+        Mockito.when(model.getAttributeBinding(valueAttribute)).thenReturn(valueAttribute);
+        Mockito.when(model.getAttributeBinding(nameAttribute)).thenReturn(nameAttribute);
+        ResultSetTestUtils.mockCellValues(model);
+    }
+
+    @Test
+    public void testDecimalsSortedExactly() {
+        // Values are equal as doubles
+        List<ResultSetRow> rows = ResultSetTestUtils.createRows(Arrays.asList(
+            new Object[]{new BigDecimal("0.10000000000000000002"), "a"},
+            new Object[]{new BigDecimal("0.1"), "b"},
+            new Object[]{new BigDecimal("0.10000000000000000001"), "c"}));
+        Assert.assertArrayEquals(new int[]{1, 2, 0}, sort(rows, order(valueAttribute, false)));
+        Assert.assertArrayEquals(new int[]{0, 2, 1}, sort(rows, order(valueAttribute, true)));
+    }
+
+    @Test
+    public void testMixedNumbersSortedExactly() {
+        List<ResultSetRow> rows = ResultSetTestUtils.createRows(Arrays.asList(
+            new Object[]{new BigInteger("9007199254740994"), "a"},
+            new Object[]{9007199254740993L, "b"},
+            new Object[]{9007199254740992.0, "c"},
+            new Object[]{1, "d"}));
+        Assert.assertArrayEquals(new int[]{3, 2, 1, 0}, sort(rows, order(valueAttribute, false)));
+    }
+
+    @Test
+    public void testMixedIntegersSortedExactly() {
+        List<ResultSetRow> rows = ResultSetTestUtils.createRows(Arrays.asList(
+            new Object[]{9007199254740993L, "a"},
+            new Object[]{(short) 5, "b"},
+            new Object[]{9007199254740992L, "c"},
+            new Object[]{7, "d"}));
+        Assert.assertArrayEquals(new int[]{1, 3, 2, 0}, sort(rows, order(valueAttribute, false)));
+    }
+
+    @Test
+    public void testNullsAndStableOrder() {
+        List<ResultSetRow> rows = ResultSetTestUtils.createRows(Arrays.asList(
+            new Object[]{null, "a"},
+            new Object[]{2L, "b"},
+            new Object[]{1L, "c"},
+            new Object[]{2L, "d"},
+            new Object[]{null, "e"}));
+        Assert.assertArrayEquals(new int[]{2, 1, 3, 0, 4}, sort(rows, order(valueAttribute, false)));
+        Assert.assertArrayEquals(new int[]{0, 4, 1, 3, 2}, sort(rows, order(valueAttribute, true)));
+    }
+
+    @Test
+    public void testMultipleKeys() {
+        List<ResultSetRow> rows = ResultSetTestUtils.createRows(Arrays.asList(
+            new Object[]{1L, "b"},
+            new Object[]{2L, "a"},
+            new Object[]{1L, "a"},
+            new Object[]{2L, "b"}));
+        DBDAttributeConstraint nameOrder = order(nameAttribute, true);
+        Assert.assertArrayEquals(new int[]{0, 2, 3, 1}, sort(rows, order(valueAttribute, false), nameOrder));
+    }
+
+    @Test
+    public void testParallelSort() {
+        Random random = new Random(1);
+        List<Object[]> values = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            values.add(new Object[]{random.nextInt(1000) == 0 ? null : BigDecimal.valueOf(random.nextInt(5000), 2), "x"});
+        }
+        List<ResultSetRow> rows = ResultSetTestUtils.createRows(values);
+        int[] order = sort(rows, order(valueAttribute, false));
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            expected.add(i);
+        }
+        // List.sort is stable
+        expected.sort((row1, row2) -> {
+            BigDecimal value1 = (BigDecimal) values.get(row1)[0], value2 = (BigDecimal) values.get(row2)[0];
+            if (value1 == null || value2 == null) {
+                return value1 == value2 ? 0 : (value1 == null ? 1 : -1);
+            }
+            return value1.compareTo(value2);
+        });
+        for (int i = 0; i < order.length; i++) {
+            Assert.assertEquals(expected.get(i).intValue(), order[i]);
+        }
+    }
+
+    private int[] sort(List<ResultSetRow> rows, DBDAttributeConstraint... constraints) {
+        return ResultSetSorter.sortRows(model, rows, Arrays.asList(constraints));
+    }
+
+    private static DBDAttributeConstraint order(DBDAttributeBinding attribute, boolean descending) {
+        DBDAttributeConstraint constraint = new DBDAttributeConstraint(attribute);
+        constraint.setOrderDescending(descending);
+        return constraint;
+    }
+
+}
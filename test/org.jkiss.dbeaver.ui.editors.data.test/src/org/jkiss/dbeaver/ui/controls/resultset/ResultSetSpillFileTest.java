@@ -0,0 +1,108 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultSetSpillFileTest {
+
+    private Path folder;
+    private ResultSetSpillFile file;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("spill-test");
+        file = new ResultSetSpillFile(folder.toFile());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        file.close();
+        Files.deleteIfExists(folder);
+    }
+
+    @Test
+    public void testSmallAllocationsShareRegion() throws IOException {
+        List<LongBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            // Odd sizes to check alignment of the following buffers
+            ByteBuffer buffer = file.allocate(i % 3 == 0 ? 13 : 8 * (i % 5 + 1));
+            Assert.assertEquals(0, buffer.position());
+            if (buffer.capacity() >= 8) {
+                LongBuffer longBuffer = buffer.asLongBuffer();
+                for (int k = 0; k < longBuffer.capacity(); k++) {
+                    longBuffer.put(k, i * 10L + k);
+                }
+                buffers.add(longBuffer);
+            } else {
+                buffers.add(null);
+            }
+        }
+        Assert.assertEquals(1, file.getRegionCount());
+        for (int i = 0; i < buffers.size(); i++) {
+            LongBuffer buffer = buffers.get(i);
+            if (buffer != null) {
+                for (int k = 0; k < buffer.capacity(); k++) {
+                    Assert.assertEquals(i * 10L + k, buffer.get(k));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRegionOverflow() throws IOException {
+        ByteBuffer first = file.allocate(ResultSetSpillFile.REGION_SIZE - 16);
+        Assert.assertEquals(ResultSetSpillFile.REGION_SIZE - 16, first.capacity());
+        ByteBuffer second = file.allocate(16);
+        Assert.assertEquals(1, file.getRegionCount());
+        // Doesn't fit the rest of the region
+        ByteBuffer third = file.allocate(32);
+        Assert.assertEquals(2, file.getRegionCount());
+        // Bigger than region
+        ByteBuffer fourth = file.allocate(ResultSetSpillFile.REGION_SIZE + 1);
+        Assert.assertEquals(3, file.getRegionCount());
+        Assert.assertEquals(ResultSetSpillFile.REGION_SIZE + 1, fourth.capacity());
+
+        first.putLong(first.capacity() - 8, 1);
+        second.putLong(0, 2);
+        second.putLong(8, 3);
+        third.putLong(0, 4);
+        fourth.put(fourth.capacity() - 1, (byte) 5);
+        Assert.assertEquals(1, first.getLong(first.capacity() - 8));
+        Assert.assertEquals(2, second.getLong(0));
+        Assert.assertEquals(3, second.getLong(8));
+        Assert.assertEquals(4, third.getLong(0));
+        Assert.assertEquals(5, fourth.get(fourth.capacity() - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadSize() throws IOException {
+        file.allocate(0);
+    }
+
+}
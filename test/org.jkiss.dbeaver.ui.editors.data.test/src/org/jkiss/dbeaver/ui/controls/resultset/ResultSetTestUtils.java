@@ -0,0 +1,52 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset;
+
+import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultSetTestUtils {
+
+    public static List<ResultSetRow> createRows(List<Object[]> values) {
+        List<ResultSetRow> rows = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            rows.add(new ResultSetRow(i, values.get(i)));
+        }
+        return rows;
+    }
+
+    /**
+     * Makes model mock return values of the top level attributes by their ordinal position
+     */
+    public static void mockCellValues(ResultSetModel model) {
+        Mockito.when(model.getCellValue(Mockito.any(DBDAttributeBinding.class), Mockito.any(ResultSetRow.class))).thenAnswer(
+            invocation -> ((ResultSetRow) invocation.getArguments()[1]).getValue(
+                ((DBDAttributeBinding) invocation.getArguments()[0]).getOrdinalPosition()));
+    }
+
+    public static void mockAttribute(DBDAttributeBinding attribute, String name, int position, DBPDataKind dataKind) {
+        Mockito.when(attribute.getName()).thenReturn(name);
+        Mockito.when(attribute.getLabel()).thenReturn(name);
+        Mockito.when(attribute.getOrdinalPosition()).thenReturn(position);
+        Mockito.when(attribute.getDataKind()).thenReturn(dataKind);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2022 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jkiss.dbeaver.ui.controls.resultset.panel.grouping;
+
+import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.ui.controls.resultset.ResultSetModel;
+import org.jkiss.dbeaver.ui.controls.resultset.ResultSetTestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GroupingAggregatorTest {
+
+    @Mock
+    ResultSetModel model;
+    @Mock
+    DBDAttributeBinding typeAttribute;
+    @Mock
+    DBDAttributeBinding idAttribute;
+    @Mock
+    DBDAttributeBinding nameAttribute;
+
+    private final List<Object[]> values = Arrays.asList(
+        new Object[]{1, 9007199254740992L, "Abc"},
+        new Object[]{1L, 9007199254740993L, "abc"},
+        new Object[]{new BigDecimal("1.00"), 5L, null},
+        new Object[]{2L, 9007199254740993L, "x"});
+
+    @Before
+    public void setUp() {
+        ResultSetTestUtils.mockAttribute(typeAttribute, "type", 0, DBPDataKind.NUMERIC);
+        ResultSetTestUtils.mockAttribute(idAttribute, "id", 1, DBPDataKind.NUMERIC);
+        ResultSetTestUtils.mockAttribute(nameAttribute, "name", 2, DBPDataKind.STRING);
+        Mockito.when(model.getAttributes()).thenReturn(new DBDAttributeBinding[]{typeAttribute, idAttribute, nameAttribute});
+        Mockito.when(model.getAllRows()).thenReturn(ResultSetTestUtils.createRows(values));
+        ResultSetTestUtils.mockCellValues(model);
+    }
+
+    @Test
+    public void testNumbersOfDifferentTypes() {
+        GroupingAggregator aggregator = GroupingAggregator.create(
+            model, Collections.singletonList("type"), Arrays.asList("COUNT(*)", "MAX(id)", "MIN(id)", "COUNT(DISTINCT id)", "COUNT(name)"));
+        Assert.assertNotNull(aggregator);
+        List<Object[]> groups = aggregator.getGroups();
+        // Integer, long and decimal 1 are the same group
+        Assert.assertEquals(2, groups.size());
+        Object[] group = groups.get(0);
+        Assert.assertEquals(1, ((Number) group[0]).intValue());
+        Assert.assertEquals(3L, group[1]);
+        // Values differ beyond double precision
+        Assert.assertEquals(9007199254740993L, group[2]);
+        Assert.assertEquals(5L, group[3]);
+        Assert.assertEquals(3L, group[4]);
+        Assert.assertEquals(2L, group[5]);
+
+        group = groups.get(1);
+        Assert.assertEquals(2L, group[0]);
+        Assert.assertEquals(1L, group[1]);
+        Assert.assertEquals(9007199254740993L, group[2]);
+    }
+
+    @Test
+    public void testStringsGroupedByServer() {
+        // Result depends on the database collation
+        Assert.assertNull(GroupingAggregator.create(model, Collections.singletonList("name"), Collections.singletonList("COUNT(*)")));
+        Assert.assertNull(GroupingAggregator.create(model, Collections.singletonList("type"), Collections.singletonList("MAX(name)")));
+        Assert.assertNull(GroupingAggregator.create(model, Collections.singletonList("type"), Collections.singletonList("COUNT(DISTINCT name)")));
+    }
+
+}